@@ -1,23 +1,31 @@
 package com.linkhub.analytics.config;
 
+import com.linkhub.analytics.consumer.ClickEventConsumer;
 import com.linkhub.analytics.dto.ClickEventMessage;
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.CommonErrorHandler;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.util.backoff.FixedBackOff;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -37,10 +45,14 @@ public class KafkaConsumerConfig {
     private static final Logger log = LoggerFactory.getLogger(KafkaConsumerConfig.class);
 
     public static final String CLICK_EVENTS_DLQ_TOPIC = "click-events-dlq";
+    public static final String CLICK_EVENTS_ENRICHED_TOPIC = "click-events-enriched";
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${spring.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
     @Bean
     public ConsumerFactory<String, ClickEventMessage> consumerFactory() {
         Map<String, Object> props = new HashMap<>();
@@ -48,7 +60,8 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "analytics-consumer-group");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
-        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
+        // Polls are gathered into larger writes by AdaptiveBatchController, so this only bounds one poll
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         // Ensure consumer doesn't get kicked out during batch processing
         props.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, 300_000); // 5 minutes
         props.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30_000);
@@ -81,6 +94,27 @@ public class KafkaConsumerConfig {
         return new KafkaTemplate<>(dlqProducerFactory());
     }
 
+    /**
+     * Kafka producer for enriched clicks. Best effort (acks=1, batched): the topic only feeds
+     * live views, which re-check themselves against the rollups.
+     */
+    @Bean
+    public ProducerFactory<String, EnrichedClickMessage> enrichedProducerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        props.put(ProducerConfig.ACKS_CONFIG, "1");
+        props.put(ProducerConfig.LINGER_MS_CONFIG, 10);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, EnrichedClickMessage> enrichedKafkaTemplate() {
+        return new KafkaTemplate<>(enrichedProducerFactory());
+    }
+
     /**
      * Error handler: 3 retries with 1s fixed backoff.
      * After all retries exhausted, logs the error (the consumer itself handles DLQ writes).
@@ -107,7 +141,8 @@ public class KafkaConsumerConfig {
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, ClickEventMessage> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, ClickEventMessage> kafkaListenerContainerFactory(
+            ObjectProvider<ClickEventConsumer> clickEventConsumer) {
         ConcurrentKafkaListenerContainerFactory<String, ClickEventMessage> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
@@ -115,9 +150,17 @@ public class KafkaConsumerConfig {
         factory.setConcurrency(3);
         factory.setCommonErrorHandler(kafkaErrorHandler());
 
-        // AckMode: BATCH — commits offsets after each batch is processed
-        factory.getContainerProperties().setAckMode(
-                org.springframework.kafka.listener.ContainerProperties.AckMode.BATCH);
+        // AckMode: MANUAL — the consumer gathers several polls per write and acknowledges each
+        // poll from its writer thread once stored; commits happen on the next poll
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        // Write what this thread has gathered before the container commits on a rebalance
+        factory.getContainerProperties().setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                clickEventConsumer.getObject().flushCurrentThread();
+            }
+        });
 
         return factory;
     }
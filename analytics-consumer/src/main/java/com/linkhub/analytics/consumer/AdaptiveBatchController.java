@@ -0,0 +1,188 @@
+package com.linkhub.analytics.consumer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides how many click events go into one database write, and when to stop fetching.
+ *
+ * <p>Batch size adapts to write time (additive increase, multiplicative decrease): a full batch
+ * written within {@code analytics.ingest.batch.target-latency} grows the target by a quarter, a
+ * slower write halves it, always within {@code min-size..max-size}. {@link ClickEventConsumer}
+ * gathers polls until the target is reached or the oldest event has waited
+ * {@code analytics.ingest.batch.max-wait}.
+ *
+ * <p>Backpressure: when the moving average of write time passes
+ * {@code analytics.ingest.backpressure.pause-latency}, or events fetched but not yet written
+ * pass {@code pause-pending}, the listener's partitions are paused. They resume only once pending
+ * bytes are back under {@code resume-pending} and write time under {@code resume-latency}; the
+ * gap between the two thresholds keeps them from flapping. A drained consumer has no new writes
+ * to measure, so after {@code max-pause} it resumes anyway and the next writes decide again.
+ *
+ * <p>Metrics: {@code analytics.ingest.batch.size}, {@code analytics.ingest.batch.target},
+ * {@code analytics.ingest.pending.bytes}, {@code analytics.ingest.write.latency} and
+ * {@code analytics.ingest.paused.time}.
+ */
+@Component
+public class AdaptiveBatchController {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBatchController.class);
+
+    static final String LISTENER_ID = "click-events";
+
+    /** Weight of the newest write in the write-time average. */
+    private static final double LATENCY_SMOOTHING = 0.3;
+
+    @Value("${analytics.ingest.batch.min-size:100}")
+    private int minBatchSize;
+
+    @Value("${analytics.ingest.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${analytics.ingest.batch.max-wait:250ms}")
+    private Duration maxWait;
+
+    @Value("${analytics.ingest.batch.target-latency:500ms}")
+    private Duration targetLatency;
+
+    @Value("${analytics.ingest.backpressure.pause-latency:2s}")
+    private Duration pauseLatency;
+
+    @Value("${analytics.ingest.backpressure.resume-latency:500ms}")
+    private Duration resumeLatency;
+
+    @Value("${analytics.ingest.backpressure.pause-pending:64MB}")
+    private DataSize pausePending;
+
+    @Value("${analytics.ingest.backpressure.resume-pending:16MB}")
+    private DataSize resumePending;
+
+    @Value("${analytics.ingest.backpressure.max-pause:30s}")
+    private Duration maxPause;
+
+    private final KafkaListenerEndpointRegistry registry;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSizes;
+    private final Timer pausedTime;
+
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private volatile int targetBatchSize;
+
+    // Guarded by this
+    private double latencyNanos;
+    private long pausedAtNanos = -1;
+
+    public AdaptiveBatchController(KafkaListenerEndpointRegistry registry, MeterRegistry meterRegistry) {
+        this.registry = registry;
+        this.meterRegistry = meterRegistry;
+        this.batchSizes = DistributionSummary.builder("analytics.ingest.batch.size")
+                .description("Click events per database write")
+                .register(meterRegistry);
+        this.pausedTime = Timer.builder("analytics.ingest.paused.time")
+                .description("Time click-events partitions spent paused for backpressure")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        targetBatchSize = minBatchSize;
+
+        Gauge.builder("analytics.ingest.batch.target", this, c -> c.targetBatchSize)
+                .description("Current target for click events per database write")
+                .register(meterRegistry);
+        Gauge.builder("analytics.ingest.pending.bytes", pendingBytes, AtomicLong::get)
+                .description("Bytes of click events fetched but not yet written")
+                .register(meterRegistry);
+        Gauge.builder("analytics.ingest.write.latency", this, AdaptiveBatchController::latencyMillis)
+                .description("Moving average of batch write time in milliseconds")
+                .register(meterRegistry);
+    }
+
+    public int targetBatchSize() {
+        return targetBatchSize;
+    }
+
+    public Duration maxWait() {
+        return maxWait;
+    }
+
+    public void addPending(long bytes) {
+        pendingBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Account for a finished write: adjust the target batch size, release its pending bytes and
+     * re-check backpressure.
+     */
+    public void recordWrite(int events, long bytes, long nanos) {
+        pendingBytes.addAndGet(-bytes);
+        batchSizes.record(events);
+        synchronized (this) {
+            latencyNanos = latencyNanos == 0
+                    ? nanos
+                    : LATENCY_SMOOTHING * nanos + (1 - LATENCY_SMOOTHING) * latencyNanos;
+
+            if (nanos > targetLatency.toNanos()) {
+                targetBatchSize = Math.max(minBatchSize, targetBatchSize / 2);
+            } else if (events >= targetBatchSize) {
+                targetBatchSize = Math.min(maxBatchSize, targetBatchSize + Math.max(1, targetBatchSize / 4));
+            }
+        }
+        checkBackpressure();
+    }
+
+    /**
+     * Pause or resume the listener's partitions. Called after every write and on every
+     * gathering tick, so a paused consumer with nothing left to write still resumes.
+     */
+    public synchronized void checkBackpressure() {
+        MessageListenerContainer container = registry.getListenerContainer(LISTENER_ID);
+        if (container == null) {
+            return;
+        }
+        long pending = pendingBytes.get();
+
+        if (pausedAtNanos < 0) {
+            if (latencyNanos > pauseLatency.toNanos() || pending > pausePending.toBytes()) {
+                container.pause();
+                pausedAtNanos = System.nanoTime();
+                log.warn("Pausing click-events consumption: write latency {} ms, {} bytes pending",
+                        Math.round(latencyMillis()), pending);
+            }
+            return;
+        }
+
+        long pausedNanos = System.nanoTime() - pausedAtNanos;
+        boolean drained = pending <= resumePending.toBytes();
+        boolean recovered = latencyNanos <= resumeLatency.toNanos() || pausedNanos >= maxPause.toNanos();
+        if (drained && recovered) {
+            if (latencyNanos > resumeLatency.toNanos()) {
+                // Resuming on max-pause: drop the stale average so the next write decides
+                latencyNanos = 0;
+            }
+            container.resume();
+            pausedAtNanos = -1;
+            pausedTime.record(pausedNanos, TimeUnit.NANOSECONDS);
+            log.info("Resuming click-events consumption after {} ms: write latency {} ms, {} bytes pending",
+                    TimeUnit.NANOSECONDS.toMillis(pausedNanos), Math.round(latencyMillis()), pending);
+        }
+    }
+
+    private synchronized double latencyMillis() {
+        return latencyNanos / 1e6;
+    }
+}
@@ -3,36 +3,54 @@ package com.linkhub.analytics.consumer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.linkhub.analytics.config.KafkaConsumerConfig;
 import com.linkhub.analytics.dto.ClickEventMessage;
+import com.linkhub.analytics.dto.EnrichedClickMessage;
 import com.linkhub.analytics.model.FailedClickEvent;
+import com.linkhub.analytics.repository.ClickEventRepository;
+import com.linkhub.analytics.repository.ClickRollupRepository;
 import com.linkhub.analytics.repository.FailedClickEventRepository;
+import com.linkhub.analytics.repository.UrlOwnerRepository;
+import com.linkhub.analytics.repository.VisitorSketchRepository;
 import com.linkhub.analytics.service.GeoIpService;
 import com.linkhub.analytics.service.UserAgentParser;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.core.BatchPreparedStatementSetter;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Kafka batch consumer for click events.
  *
+ * <p>Polls are gathered per listener thread until {@link AdaptiveBatchController}'s target batch
+ * size or maximum wait is reached, then written by that thread's own {@link GatheringLane}, so
+ * offsets are acknowledged in order and only after their events are stored. The controller also
+ * pauses consumption when writes fall behind.
+ *
  * <p>Processing pipeline per batch:
  * <ol>
  *   <li>Enrich each event (GeoIP + User-Agent parsing)</li>
- *   <li>Batch INSERT ... ON CONFLICT DO NOTHING into click_events</li>
+ *   <li>Insert into click_events, skipping duplicates: binary COPY into a staging table and one
+ *       set-based move, or a JDBC batch of INSERT ... ON CONFLICT DO NOTHING
+ *       ({@code analytics.ingest.copy})</li>
+ *   <li>Add the newly inserted events to click_rollups_hourly, click_account_rollups_hourly,
+ *       click_geo_rollups_daily and click_visitor_sketches_hourly (same transaction, duplicates
+ *       excluded)</li>
+ *   <li>After commit, publish the newly inserted events to {@code click-events-enriched}
+ *       for the backend's live views (best effort)</li>
  *   <li>Failed events → DLQ (Kafka topic + DB table)</li>
  * </ol>
  *
@@ -40,7 +58,11 @@ import java.util.Optional;
  * <ul>
  *   <li>Individual event failures don't fail the batch</li>
  *   <li>Enrichment failures result in null fields (graceful degradation)</li>
- *   <li>DB insert failures → publish to DLQ topic + write to DLQ table</li>
+ *   <li>DB insert failures → retry the batch in halves down to the failing events
+ *       ({@code analytics.ingest.split-on-failure}; otherwise one event at a time), which then
+ *       go to the DLQ topic + DLQ table</li>
+ *   <li>A batch that fails as a whole is retried up to {@code WRITE_ATTEMPTS} times, then its
+ *       events go to the DLQ and its polls are acknowledged</li>
  * </ul>
  */
 @Component
@@ -48,46 +70,66 @@ public class ClickEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(ClickEventConsumer.class);
 
-    private static final String BATCH_INSERT_SQL = """
-            INSERT INTO click_events (event_id, url_id, short_code, clicked_at,
-                                      ip_address, user_agent, referrer,
-                                      device_type, browser, os,
-                                      country, city, latitude, longitude)
-            VALUES (?, ?, ?, ?,
-                    ?::inet, ?, ?,
-                    ?, ?, ?,
-                    ?, ?, ?, ?)
-            ON CONFLICT (event_id, clicked_at) DO NOTHING
-            """;
-
-    private final JdbcTemplate jdbcTemplate;
+    /** Same policy as the container's error handler: the first attempt plus 3 retries, 1s apart. */
+    private static final int WRITE_ATTEMPTS = 4;
+    private static final long WRITE_RETRY_MILLIS = 1_000;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ClickEventRepository clickEventRepository;
+    private final ClickRollupRepository clickRollupRepository;
+    private final VisitorSketchRepository visitorSketchRepository;
     private final GeoIpService geoIpService;
     private final UserAgentParser userAgentParser;
     private final FailedClickEventRepository failedClickEventRepository;
+    private final UrlOwnerRepository urlOwnerRepository;
     private final KafkaTemplate<String, ClickEventMessage> dlqKafkaTemplate;
+    private final KafkaTemplate<String, EnrichedClickMessage> enrichedKafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final AdaptiveBatchController batchController;
+
+    /** One per live listener thread; a lane removes itself once its thread has ended. */
+    private final Map<Thread, GatheringLane> lanes = new ConcurrentHashMap<>();
 
     // Metrics
     private final Counter processedCounter;
     private final Counter failedCounter;
     private final Counter dlqCounter;
     private final Counter duplicateCounter;
+    private final Counter enrichedPublishFailedCounter;
     private final Timer batchProcessingTimer;
     private final Timer enrichmentTimer;
 
-    public ClickEventConsumer(JdbcTemplate jdbcTemplate,
+    @Value("${analytics.ingest.copy:true}")
+    private boolean copyIngest;
+
+    @Value("${analytics.ingest.split-on-failure:true}")
+    private boolean splitOnFailure;
+
+    public ClickEventConsumer(TransactionTemplate transactionTemplate,
+                              ClickEventRepository clickEventRepository,
+                              ClickRollupRepository clickRollupRepository,
+                              VisitorSketchRepository visitorSketchRepository,
                               GeoIpService geoIpService,
                               UserAgentParser userAgentParser,
                               FailedClickEventRepository failedClickEventRepository,
+                              UrlOwnerRepository urlOwnerRepository,
                               KafkaTemplate<String, ClickEventMessage> dlqKafkaTemplate,
+                              KafkaTemplate<String, EnrichedClickMessage> enrichedKafkaTemplate,
                               ObjectMapper objectMapper,
+                              AdaptiveBatchController batchController,
                               MeterRegistry meterRegistry) {
-        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clickEventRepository = clickEventRepository;
+        this.clickRollupRepository = clickRollupRepository;
+        this.visitorSketchRepository = visitorSketchRepository;
         this.geoIpService = geoIpService;
         this.userAgentParser = userAgentParser;
         this.failedClickEventRepository = failedClickEventRepository;
+        this.urlOwnerRepository = urlOwnerRepository;
         this.dlqKafkaTemplate = dlqKafkaTemplate;
+        this.enrichedKafkaTemplate = enrichedKafkaTemplate;
         this.objectMapper = objectMapper;
+        this.batchController = batchController;
 
         this.processedCounter = Counter.builder("analytics.events.processed")
                 .description("Click events successfully inserted")
@@ -101,6 +143,9 @@ public class ClickEventConsumer {
         this.duplicateCounter = Counter.builder("analytics.events.duplicates")
                 .description("Duplicate click events skipped (ON CONFLICT)")
                 .register(meterRegistry);
+        this.enrichedPublishFailedCounter = Counter.builder("analytics.events.enriched.publish.failed")
+                .description("Inserted click events that could not be published to the enriched topic")
+                .register(meterRegistry);
         this.batchProcessingTimer = Timer.builder("analytics.batch.processing.time")
                 .description("Time to process a batch of click events")
                 .register(meterRegistry);
@@ -110,16 +155,50 @@ public class ClickEventConsumer {
     }
 
     /**
-     * Consume click events in batches from Kafka.
-     * Enriches events, then does a JDBC batch insert for efficiency.
+     * Consume click events in batches from Kafka. Each poll is added to this thread's lane and
+     * acknowledged once it has been written.
      */
     @KafkaListener(
+            id = AdaptiveBatchController.LISTENER_ID,
             topics = "click-events",
             groupId = "analytics-consumer-group",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "false" // started by SchemaGate once the database is migrated
     )
-    public void consumeBatch(List<ClickEventMessage> events) {
-        log.info("Received batch of {} click events", events.size());
+    public void consumeBatch(List<ConsumerRecord<String, ClickEventMessage>> records, Acknowledgment ack) {
+        List<ClickEventMessage> events = new ArrayList<>(records.size());
+        long bytes = 0;
+        for (ConsumerRecord<String, ClickEventMessage> record : records) {
+            if (record.value() != null) {
+                events.add(record.value());
+            }
+            bytes += Math.max(0, record.serializedValueSize());
+        }
+        lanes.computeIfAbsent(Thread.currentThread(), this::newLane)
+                .add(new GatheringLane.Poll(events, bytes, ack, System.nanoTime()));
+    }
+
+    /**
+     * Write everything gathered on the calling listener thread and wait for it, so its
+     * acknowledgments are in before the container commits on a rebalance.
+     */
+    public void flushCurrentThread() {
+        GatheringLane lane = lanes.get(Thread.currentThread());
+        if (lane != null) {
+            lane.flushAndWait();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(GatheringLane::close);
+    }
+
+    /**
+     * Enrich, insert and dead-letter one gathered batch.
+     */
+    private void process(List<ClickEventMessage> events) {
+        log.info("Writing batch of {} click events", events.size());
 
         batchProcessingTimer.record(() -> {
             // 1. Enrich all events
@@ -137,35 +216,9 @@ public class ClickEventConsumer {
                 }
             }
 
-            // 2. Batch insert enriched events
+            // 2. Bulk insert enriched events
             if (!enrichedEvents.isEmpty()) {
-                try {
-                    int[] results = batchInsert(enrichedEvents);
-                    int inserted = 0;
-                    int duplicates = 0;
-                    for (int r : results) {
-                        if (r > 0) inserted++;
-                        else duplicates++;
-                    }
-                    processedCounter.increment(inserted);
-                    duplicateCounter.increment(duplicates);
-                    log.info("Batch insert complete: {} inserted, {} duplicates skipped",
-                            inserted, duplicates);
-                } catch (Exception e) {
-                    log.error("Batch insert failed for {} events: {}", enrichedEvents.size(), e.getMessage());
-                    // Fall back to individual inserts
-                    for (EnrichedEvent enriched : enrichedEvents) {
-                        try {
-                            individualInsert(enriched);
-                            processedCounter.increment();
-                        } catch (Exception ex) {
-                            log.error("Individual insert failed for eventId={}: {}",
-                                    enriched.event.eventId(), ex.getMessage());
-                            failedEnrichment.add(enriched.event);
-                            failedCounter.increment();
-                        }
-                    }
-                }
+                insertOrRetry(enrichedEvents, failedEnrichment);
             }
 
             // 3. Send failed events to DLQ
@@ -175,6 +228,33 @@ public class ClickEventConsumer {
         });
     }
 
+    // ────────── Gathering ──────────
+
+    private GatheringLane newLane(Thread listener) {
+        return new GatheringLane(listener, batchController, new LaneWriter(),
+                WRITE_ATTEMPTS, WRITE_RETRY_MILLIS, () -> lanes.remove(listener));
+    }
+
+    /**
+     * Lanes write through {@link #process}. Failures of single events are already dead-lettered
+     * there; a batch that fails as a whole every attempt is dead-lettered here event by event.
+     */
+    private final class LaneWriter implements GatheringLane.Writer {
+
+        @Override
+        public void write(List<ClickEventMessage> events) {
+            process(events);
+        }
+
+        @Override
+        public void deadLetter(List<ClickEventMessage> events, String reason) {
+            failedCounter.increment(events.size());
+            for (ClickEventMessage event : events) {
+                sendToDlq(event, reason);
+            }
+        }
+    }
+
     // ────────── Enrichment ──────────
 
     private EnrichedEvent enrichEvent(ClickEventMessage event) {
@@ -194,41 +274,127 @@ public class ClickEventConsumer {
 
     // ────────── Batch Insert ──────────
 
-    private int[] batchInsert(List<EnrichedEvent> events) {
-        return jdbcTemplate.batchUpdate(BATCH_INSERT_SQL, new BatchPreparedStatementSetter() {
-            @Override
-            public void setValues(PreparedStatement ps, int i) throws SQLException {
-                EnrichedEvent e = events.get(i);
-                ps.setObject(1, e.event.eventId());
-                ps.setLong(2, e.event.urlId());
-                ps.setString(3, e.event.shortCode());
-                ps.setTimestamp(4, Timestamp.from(e.event.clickedAt()));
-                ps.setString(5, e.event.ipAddress());
-                ps.setString(6, e.event.userAgent());
-                ps.setString(7, e.event.referrer());
-                ps.setString(8, e.deviceType);
-                ps.setString(9, e.browser);
-                ps.setString(10, e.os);
-                setNullableString(ps, 11, e.country);
-                setNullableString(ps, 12, e.city);
-                setNullableDouble(ps, 13, e.latitude);
-                setNullableDouble(ps, 14, e.longitude);
+    /**
+     * Insert events in one transaction. If that fails, retry in halves (or one by one without
+     * {@code analytics.ingest.split-on-failure}), so a few bad events cost a handful of extra
+     * transactions rather than one per event while we are already behind. Events that still
+     * fail on their own are added to {@code failed}.
+     */
+    private void insertOrRetry(List<EnrichedEvent> events, List<ClickEventMessage> failed) {
+        int[] results;
+        try {
+            results = transactionTemplate.execute(status -> insertWithRollups(events));
+        } catch (Exception e) {
+            if (events.size() == 1) {
+                log.error("Individual insert failed for eventId={}: {}", events.get(0).event.eventId(), e.getMessage());
+                failed.add(events.get(0).event);
+                failedCounter.increment();
+                return;
             }
+            log.error("Batch insert failed for {} events: {}", events.size(), e.getMessage());
+            if (splitOnFailure) {
+                int mid = events.size() / 2;
+                insertOrRetry(events.subList(0, mid), failed);
+                insertOrRetry(events.subList(mid, events.size()), failed);
+            } else {
+                for (EnrichedEvent enriched : events) {
+                    insertOrRetry(List.of(enriched), failed);
+                }
+            }
+            return;
+        }
+
+        int inserted = 0;
+        int duplicates = 0;
+        for (int r : results) {
+            if (r > 0) inserted++;
+            else duplicates++;
+        }
+        processedCounter.increment(inserted);
+        duplicateCounter.increment(duplicates);
+        log.info("Batch insert complete: {} inserted, {} duplicates skipped", inserted, duplicates);
+        publishEnriched(events, results);
+    }
+
+    /**
+     * Insert raw events and add the ones that were actually inserted (not ON CONFLICT
+     * duplicates) to the link, account and geo rollups and visitor sketches. Must run in a
+     * transaction so they all commit together.
+     */
+    private int[] insertWithRollups(List<EnrichedEvent> events) {
+        List<ClickEventRepository.Row> rows = events.stream().map(EnrichedEvent::row).toList();
+        int[] results;
+        if (rows.size() == 1) {
+            results = new int[]{clickEventRepository.insert(rows.get(0))};
+        } else if (copyIngest) {
+            results = clickEventRepository.copyInsert(rows);
+        } else {
+            results = clickEventRepository.batchInsert(rows);
+        }
 
-            @Override
-            public int getBatchSize() {
-                return events.size();
+        List<Long> insertedUrlIds = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0) {
+                insertedUrlIds.add(events.get(i).event.urlId());
             }
-        });
+        }
+        Map<Long, Long> owners = insertedUrlIds.isEmpty() ? Map.of() : urlOwnerRepository.findOwners(insertedUrlIds);
+
+        ClickRollupRepository.Batch rollups = new ClickRollupRepository.Batch();
+        VisitorSketchRepository.Batch sketches = new VisitorSketchRepository.Batch();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] > 0) {
+                EnrichedEvent e = events.get(i);
+                rollups.add(e.event.shortCode(), owners.get(e.event.urlId()), e.event.clickedAt(),
+                        e.event.referrer(), e.deviceType, e.browser, e.os,
+                        e.country, e.city, e.latitude, e.longitude);
+                sketches.add(e.event.shortCode(), e.event.clickedAt(), e.event.ipAddress());
+            }
+        }
+        clickRollupRepository.apply(rollups);
+        visitorSketchRepository.apply(sketches);
+        return results;
     }
 
-    private void individualInsert(EnrichedEvent e) {
-        jdbcTemplate.update(BATCH_INSERT_SQL,
-                e.event.eventId(), e.event.urlId(), e.event.shortCode(),
-                Timestamp.from(e.event.clickedAt()),
-                e.event.ipAddress(), e.event.userAgent(), e.event.referrer(),
-                e.deviceType, e.browser, e.os,
-                e.country, e.city, e.latitude, e.longitude);
+    // ────────── Enriched Topic ──────────
+
+    /**
+     * Publish the committed, non-duplicate events to the enriched topic, tagged with their link's
+     * owner. Best effort: a failed send is counted and dropped, since click_events and the rollups
+     * already hold the event; if owners can't be looked up the events go out without one.
+     */
+    private void publishEnriched(List<EnrichedEvent> events, int[] results) {
+        Map<Long, Long> owners;
+        try {
+            owners = urlOwnerRepository.findOwners(events.stream().map(e -> e.event.urlId()).toList());
+        } catch (Exception ex) {
+            log.warn("Failed to look up link owners for {} enriched events: {}", events.size(), ex.getMessage());
+            owners = Map.of();
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] <= 0) {
+                continue;
+            }
+            EnrichedEvent e = events.get(i);
+            EnrichedClickMessage message = new EnrichedClickMessage(
+                    e.event.eventId(), e.event.urlId(), e.event.shortCode(), e.event.clickedAt(),
+                    e.event.referrer(), e.deviceType, e.browser, e.os,
+                    e.country, e.city, e.latitude, e.longitude, owners.get(e.event.urlId()));
+            try {
+                enrichedKafkaTemplate.send(KafkaConsumerConfig.CLICK_EVENTS_ENRICHED_TOPIC, e.event.shortCode(), message)
+                        .whenComplete((result, ex) -> {
+                            if (ex != null) {
+                                enrichedPublishFailedCounter.increment();
+                                log.warn("Failed to publish enriched event eventId={}: {}",
+                                        message.eventId(), ex.getMessage());
+                            }
+                        });
+            } catch (Exception ex) {
+                enrichedPublishFailedCounter.increment();
+                log.warn("Failed to publish enriched event eventId={}: {}", message.eventId(), ex.getMessage());
+            }
+        }
     }
 
     // ────────── DLQ: Kafka Topic + DB Table ──────────
@@ -254,21 +420,16 @@ public class ClickEventConsumer {
         }
     }
 
-    // ────────── Helpers ──────────
-
-    private static void setNullableString(PreparedStatement ps, int idx, String value) throws SQLException {
-        if (value != null) ps.setString(idx, value);
-        else ps.setNull(idx, Types.VARCHAR);
-    }
-
-    private static void setNullableDouble(PreparedStatement ps, int idx, Double value) throws SQLException {
-        if (value != null) ps.setDouble(idx, value);
-        else ps.setNull(idx, Types.DOUBLE);
-    }
-
     record EnrichedEvent(
             ClickEventMessage event,
             String deviceType, String browser, String os,
             String country, String city, Double latitude, Double longitude
-    ) {}
+    ) {
+        ClickEventRepository.Row row() {
+            return new ClickEventRepository.Row(
+                    event.eventId(), event.urlId(), event.shortCode(), event.clickedAt(),
+                    event.ipAddress(), event.userAgent(), event.referrer(),
+                    deviceType, browser, os, country, city, latitude, longitude);
+        }
+    }
 }
@@ -0,0 +1,217 @@
+package com.linkhub.analytics.consumer;
+
+import com.linkhub.analytics.dto.ClickEventMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Polls gathered on one listener thread, written one batch at a time by the lane's own (daemon)
+ * thread and acknowledged in the order they arrived once written. The same thread checks the age
+ * of the oldest poll every half {@code max-wait}, and retires the lane once its listener thread
+ * has ended.
+ *
+ * <p>A batch is retried up to {@code maxAttempts} times, like the container's own retry policy,
+ * then its events go to the dead-letter path and its polls are acknowledged: holding them back
+ * would stall every later poll of the lane behind it.
+ */
+final class GatheringLane {
+
+    private static final Logger log = LoggerFactory.getLogger(GatheringLane.class);
+
+    static final long FLUSH_WAIT_SECONDS = 30;
+
+    /**
+     * Where a lane's batches go.
+     */
+    interface Writer {
+
+        /** Write one batch; throwing makes the lane retry it. */
+        void write(List<ClickEventMessage> events) throws Exception;
+
+        /** Give up on a batch that failed every attempt. */
+        void deadLetter(List<ClickEventMessage> events, String reason);
+    }
+
+    record Poll(List<ClickEventMessage> events, long bytes, Acknowledgment ack, long receivedNanos) {}
+
+    private final Thread listener;
+    private final AdaptiveBatchController batchController;
+    private final Writer sink;
+    private final int maxAttempts;
+    private final long retryMillis;
+    private final Runnable onRetired;
+    private final ScheduledExecutorService writer;
+
+    // Guarded by this
+    private final List<Poll> polls = new ArrayList<>();
+    private int events;
+
+    /**
+     * @param onRetired called on the writer thread once the listener thread has ended and
+     *                  everything it gathered has been written
+     */
+    GatheringLane(Thread listener, AdaptiveBatchController batchController, Writer sink,
+                  int maxAttempts, long retryMillis, Runnable onRetired) {
+        this.listener = listener;
+        this.batchController = batchController;
+        this.sink = sink;
+        this.maxAttempts = maxAttempts;
+        this.retryMillis = retryMillis;
+        this.onRetired = onRetired;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, listener.getName() + "-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = Math.max(10, batchController.maxWait().toMillis() / 2);
+        writer.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void add(Poll poll) {
+        boolean full;
+        synchronized (this) {
+            polls.add(poll);
+            events += poll.events().size();
+            full = events >= batchController.targetBatchSize();
+        }
+        batchController.addPending(poll.bytes());
+        if (full) {
+            writer.execute(() -> flush(false));
+        }
+    }
+
+    void flushAndWait() {
+        try {
+            writer.submit(() -> flush(true)).get(FLUSH_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Flushing gathered click events failed: {}", e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            log.warn("Gathered click events not written within {}s; they will be redelivered", FLUSH_WAIT_SECONDS);
+        }
+    }
+
+    void close() {
+        try {
+            writer.execute(() -> flush(true));
+        } catch (RejectedExecutionException e) {
+            // Already retired: everything it gathered has been written
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(FLUSH_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Write whatever is due; once the listener thread is gone, nothing more can arrive, so write
+     * the rest and retire.
+     */
+    private void tick() {
+        if (listener.isAlive()) {
+            flush(false);
+            return;
+        }
+        flush(true);
+        onRetired.run();
+        writer.shutdown();
+    }
+
+    /**
+     * Write every due batch, then let the controller re-check backpressure. Runs on the writer
+     * thread only.
+     */
+    private void flush(boolean force) {
+        try {
+            List<Poll> batch;
+            while ((batch = take(force)) != null) {
+                write(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Click event writer failed: {}", e.getMessage(), e);
+        }
+        batchController.checkBackpressure();
+    }
+
+    /**
+     * Remove whole polls up to the target batch size, if the lane is full, its oldest poll has
+     * waited long enough, or {@code force} is set.
+     */
+    private synchronized List<Poll> take(boolean force) {
+        if (polls.isEmpty()) {
+            return null;
+        }
+        int target = batchController.targetBatchSize();
+        boolean due = force || events >= target
+                || System.nanoTime() - polls.get(0).receivedNanos() >= batchController.maxWait().toNanos();
+        if (!due) {
+            return null;
+        }
+        List<Poll> batch = new ArrayList<>();
+        int taken = 0;
+        while (!polls.isEmpty() && (taken == 0 || taken + polls.get(0).events().size() <= target)) {
+            Poll poll = polls.remove(0);
+            batch.add(poll);
+            taken += poll.events().size();
+        }
+        events -= taken;
+        return batch;
+    }
+
+    /**
+     * Write a batch, then acknowledge its polls in order. A batch that fails {@code maxAttempts}
+     * times is dead-lettered as a whole rather than retried forever.
+     */
+    private void write(List<Poll> batch) throws InterruptedException {
+        List<ClickEventMessage> batchEvents = new ArrayList<>();
+        long bytes = 0;
+        for (Poll poll : batch) {
+            batchEvents.addAll(poll.events());
+            bytes += poll.bytes();
+        }
+
+        if (batchEvents.isEmpty()) {
+            batchController.addPending(-bytes);
+        } else {
+            long start = System.nanoTime();
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    sink.write(batchEvents);
+                } catch (Exception e) {
+                    if (attempt >= maxAttempts) {
+                        log.error("Writing batch of {} click events failed {} times, dead-lettering it: {}",
+                                batchEvents.size(), attempt, e.getMessage());
+                        sink.deadLetter(batchEvents, "Batch write failed after " + attempt + " attempts: " + e.getMessage());
+                        batchController.addPending(-bytes);
+                        break;
+                    }
+                    log.error("Writing batch of {} click events failed, retrying: {}", batchEvents.size(), e.getMessage());
+                    Thread.sleep(retryMillis);
+                    continue;
+                }
+                batchController.recordWrite(batchEvents.size(), bytes, System.nanoTime() - start);
+                break;
+            }
+        }
+
+        for (Poll poll : batch) {
+            poll.ack().acknowledge();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.linkhub.analytics.consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the click-events listener stopped until the backend has migrated the database to the
+ * schema this consumer writes (Flyway version {@value #REQUIRED_VERSION}, the last rollup table).
+ *
+ * <p>The rollup tables are created and backfilled by backend migrations. Started before them,
+ * the consumer would fail every write and dead-letter the events. An older consumer still writing
+ * while they run leaves its events out of the backfill. So this consumer is rolled out first and
+ * waits here, idle, until the migrations have committed; clicks published meanwhile stay in Kafka.
+ */
+@Component
+public class SchemaGate {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaGate.class);
+
+    static final int REQUIRED_VERSION = 17;
+
+    private static final String VERSION_SQL = """
+            SELECT COALESCE(MAX(CAST(version AS INTEGER)), 0)
+            FROM flyway_schema_history
+            WHERE success AND version ~ '^[0-9]+$'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaListenerEndpointRegistry registry;
+
+    private volatile boolean open;
+
+    public SchemaGate(JdbcTemplate jdbcTemplate, KafkaListenerEndpointRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.registry = registry;
+    }
+
+    @Scheduled(fixedDelay = 10_000) // Every 10s until the schema is ready, then a no-op
+    public void check() {
+        if (open) {
+            return;
+        }
+        int version = schemaVersion();
+        if (version < REQUIRED_VERSION) {
+            log.warn("Database schema is at version {}, click-events consumption waits for V{}",
+                    version, REQUIRED_VERSION);
+            return;
+        }
+        MessageListenerContainer container = registry.getListenerContainer(AdaptiveBatchController.LISTENER_ID);
+        if (container == null) {
+            return;
+        }
+        open = true;
+        container.start();
+        log.info("Database schema is at version {}, starting click-events consumption", version);
+    }
+
+    private int schemaVersion() {
+        try {
+            Integer version = jdbcTemplate.queryForObject(VERSION_SQL, Integer.class);
+            return version == null ? 0 : version;
+        } catch (DataAccessException e) {
+            // No history table yet, or the database is unreachable: check again later
+            return 0;
+        }
+    }
+}
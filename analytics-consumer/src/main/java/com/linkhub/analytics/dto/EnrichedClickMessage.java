@@ -0,0 +1,26 @@
+package com.linkhub.analytics.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Kafka message DTO for a click that has been enriched and committed to click_events.
+ * Published to {@code click-events-enriched} for the backend's live views; carries the
+ * analytics dimensions only, not the visitor's IP address or raw User-Agent.
+ * {@code userId} is the link owner's, or null if it could not be resolved.
+ */
+public record EnrichedClickMessage(
+        UUID eventId,
+        Long urlId,
+        String shortCode,
+        Instant clickedAt,
+        String referrer,
+        String deviceType,
+        String browser,
+        String os,
+        String country,
+        String city,
+        Double latitude,
+        Double longitude,
+        Long userId
+) {}
@@ -0,0 +1,268 @@
+package com.linkhub.analytics.repository;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Raw inserts into {@code click_events}. Every method reports, per input row, 1 if it was
+ * inserted and 0 if it was a duplicate (same event_id and clicked_at) that was skipped.
+ *
+ * <p>Two bulk paths:
+ * <ul>
+ *   <li>{@link #batchInsert} — JDBC batch of INSERT ... ON CONFLICT DO NOTHING, one statement per row</li>
+ *   <li>{@link #copyInsert} — binary COPY into a session temp table, then one set-based
+ *       INSERT ... SELECT DISTINCT ON ... ON CONFLICT DO NOTHING into click_events</li>
+ * </ul>
+ * COPY sends the batch as one stream and lets Postgres insert it as one statement, which is
+ * several times faster for batches of a few hundred rows and more. Both must run in the caller's
+ * transaction; the staging rows are cleared at commit.
+ */
+@Repository
+public class ClickEventRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO click_events (event_id, url_id, short_code, clicked_at,
+                                      ip_address, user_agent, referrer,
+                                      device_type, browser, os,
+                                      country, city, latitude, longitude)
+            VALUES (?, ?, ?, ?,
+                    ?::inet, ?, ?,
+                    ?, ?, ?,
+                    ?, ?, ?, ?)
+            ON CONFLICT (event_id, clicked_at) DO NOTHING
+            """;
+
+    // ip_address is staged as text and cast in the move, so bad addresses fail like they do in INSERT_SQL
+    private static final String STAGING_DDL = """
+            CREATE TEMP TABLE IF NOT EXISTS click_events_staging (
+                event_id        UUID,
+                url_id          BIGINT,
+                short_code      VARCHAR(10),
+                clicked_at      TIMESTAMPTZ,
+                ip_address      TEXT,
+                user_agent      TEXT,
+                referrer        TEXT,
+                device_type     VARCHAR(20),
+                browser         VARCHAR(50),
+                os              VARCHAR(50),
+                country         VARCHAR(100),
+                city            VARCHAR(100),
+                latitude        DOUBLE PRECISION,
+                longitude       DOUBLE PRECISION
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    private static final String COPY_SQL = "COPY click_events_staging FROM STDIN (FORMAT BINARY)";
+
+    // Empties the staging table as it moves, so it is clean even before the commit clears it
+    private static final String MOVE_SQL = """
+            WITH staged AS (
+                DELETE FROM click_events_staging RETURNING *
+            )
+            INSERT INTO click_events (event_id, url_id, short_code, clicked_at,
+                                      ip_address, user_agent, referrer,
+                                      device_type, browser, os,
+                                      country, city, latitude, longitude)
+            SELECT DISTINCT ON (event_id, clicked_at)
+                   event_id, url_id, short_code, clicked_at,
+                   ip_address::inet, user_agent, referrer,
+                   device_type, browser, os,
+                   country, city, latitude, longitude
+            FROM staged
+            ON CONFLICT (event_id, clicked_at) DO NOTHING
+            RETURNING event_id, clicked_at
+            """;
+
+    private static final int COLUMNS = 14;
+
+    /** Binary COPY header: signature, flags, header extension length. */
+    private static final byte[] COPY_SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+
+    /** Postgres timestamps count microseconds from 2000-01-01T00:00:00Z. */
+    private static final long PG_EPOCH_SECONDS = 946_684_800L;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClickEventRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public int insert(Row row) {
+        return jdbcTemplate.update(INSERT_SQL,
+                row.eventId(), row.urlId(), row.shortCode(), Timestamp.from(row.clickedAt()),
+                row.ipAddress(), row.userAgent(), row.referrer(),
+                row.deviceType(), row.browser(), row.os(),
+                row.country(), row.city(), row.latitude(), row.longitude());
+    }
+
+    public int[] batchInsert(List<Row> rows) {
+        return jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Row row = rows.get(i);
+                ps.setObject(1, row.eventId());
+                ps.setLong(2, row.urlId());
+                ps.setString(3, row.shortCode());
+                ps.setTimestamp(4, Timestamp.from(row.clickedAt()));
+                ps.setString(5, row.ipAddress());
+                ps.setString(6, row.userAgent());
+                ps.setString(7, row.referrer());
+                ps.setString(8, row.deviceType());
+                ps.setString(9, row.browser());
+                ps.setString(10, row.os());
+                setNullableString(ps, 11, row.country());
+                setNullableString(ps, 12, row.city());
+                setNullableDouble(ps, 13, row.latitude());
+                setNullableDouble(ps, 14, row.longitude());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * COPY the rows into the staging table and move them into click_events in one statement.
+     * Duplicates within the batch count as inserted once, at their first occurrence.
+     */
+    public int[] copyInsert(List<Row> rows) {
+        byte[] data = encode(rows);
+
+        jdbcTemplate.execute(STAGING_DDL);
+        jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            try {
+                return con.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_SQL, new ByteArrayInputStream(data));
+            } catch (IOException e) {
+                throw new SQLException("COPY into click_events_staging failed", e);
+            }
+        });
+
+        Map<Key, Integer> firstIndex = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            firstIndex.putIfAbsent(new Key(rows.get(i).eventId(), micros(rows.get(i).clickedAt())), i);
+        }
+        int[] results = new int[rows.size()];
+        jdbcTemplate.query(MOVE_SQL, rs -> {
+            Key key = new Key(rs.getObject(1, UUID.class),
+                    micros(rs.getObject(2, OffsetDateTime.class).toInstant()));
+            Integer index = firstIndex.get(key);
+            if (index != null) {
+                results[index] = 1;
+            }
+        });
+        return results;
+    }
+
+    // ────────── Binary COPY encoding ──────────
+
+    private static byte[] encode(List<Row> rows) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + rows.size() * 256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(COPY_SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+            for (Row row : rows) {
+                out.writeShort(COLUMNS);
+                writeUuid(out, row.eventId());
+                out.writeInt(8);
+                out.writeLong(row.urlId());
+                writeText(out, row.shortCode());
+                out.writeInt(8);
+                out.writeLong(micros(row.clickedAt()) - PG_EPOCH_SECONDS * 1_000_000L);
+                writeText(out, row.ipAddress());
+                writeText(out, row.userAgent());
+                writeText(out, row.referrer());
+                writeText(out, row.deviceType());
+                writeText(out, row.browser());
+                writeText(out, row.os());
+                writeText(out, row.country());
+                writeText(out, row.city());
+                writeDouble(out, row.latitude());
+                writeDouble(out, row.longitude());
+            }
+            out.writeShort(-1);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode COPY data", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeInt(16);
+        out.writeLong(value.getMostSignificantBits());
+        out.writeLong(value.getLeastSignificantBits());
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeDouble(value);
+    }
+
+    /**
+     * Microseconds since the Unix epoch, rounded half up like the JDBC driver rounds a
+     * {@link Timestamp}, so both paths store the same clicked_at.
+     */
+    private static long micros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + (instant.getNano() + 500) / 1000;
+    }
+
+    // ────────── Helpers ──────────
+
+    private static void setNullableString(PreparedStatement ps, int idx, String value) throws SQLException {
+        if (value != null) ps.setString(idx, value);
+        else ps.setNull(idx, Types.VARCHAR);
+    }
+
+    private static void setNullableDouble(PreparedStatement ps, int idx, Double value) throws SQLException {
+        if (value != null) ps.setDouble(idx, value);
+        else ps.setNull(idx, Types.DOUBLE);
+    }
+
+    private record Key(UUID eventId, long micros) {}
+
+    /**
+     * One enriched click event, as stored in click_events.
+     */
+    public record Row(
+            UUID eventId, long urlId, String shortCode, Instant clickedAt,
+            String ipAddress, String userAgent, String referrer,
+            String deviceType, String browser, String os,
+            String country, String city, Double latitude, Double longitude
+    ) {}
+}
@@ -0,0 +1,277 @@
+package com.linkhub.analytics.repository;
+
+import com.linkhub.analytics.geo.Geohash;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental maintenance of {@code click_rollups_hourly}, {@code click_geo_rollups_daily} and,
+ * for links with an owner, {@code click_account_rollups_hourly}.
+ *
+ * <p>Callers fold inserted events into a {@link Batch} and apply it in the same transaction
+ * as the raw insert, so a redelivered (duplicate) event is never counted twice.
+ * Upserts are issued in primary-key order so concurrent consumers lock rows in the
+ * same order and don't deadlock on hot links or busy accounts.
+ */
+@Repository
+public class ClickRollupRepository {
+
+    public static final int MAX_REFERRER_LENGTH = 500;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO click_rollups_hourly (short_code, dimension, bucket, dim_value, dim_parent,
+                                              clicks, lat_sum, lng_sum, geo_clicks)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (short_code, dimension, bucket, dim_value, dim_parent) DO UPDATE
+            SET clicks     = click_rollups_hourly.clicks + EXCLUDED.clicks,
+                lat_sum    = click_rollups_hourly.lat_sum + EXCLUDED.lat_sum,
+                lng_sum    = click_rollups_hourly.lng_sum + EXCLUDED.lng_sum,
+                geo_clicks = click_rollups_hourly.geo_clicks + EXCLUDED.geo_clicks
+            """;
+
+    private static final String ACCOUNT_UPSERT_SQL = """
+            INSERT INTO click_account_rollups_hourly (user_id, dimension, bucket, dim_value, dim_parent,
+                                                      clicks, lat_sum, lng_sum, geo_clicks)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, dimension, bucket, dim_value, dim_parent) DO UPDATE
+            SET clicks     = click_account_rollups_hourly.clicks + EXCLUDED.clicks,
+                lat_sum    = click_account_rollups_hourly.lat_sum + EXCLUDED.lat_sum,
+                lng_sum    = click_account_rollups_hourly.lng_sum + EXCLUDED.lng_sum,
+                geo_clicks = click_account_rollups_hourly.geo_clicks + EXCLUDED.geo_clicks
+            """;
+
+    private static final String GEO_UPSERT_SQL = """
+            INSERT INTO click_geo_rollups_daily (short_code, precision, geohash, bucket, clicks, lat_sum, lng_sum)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (short_code, precision, geohash, bucket) DO UPDATE
+            SET clicks  = click_geo_rollups_daily.clicks + EXCLUDED.clicks,
+                lat_sum = click_geo_rollups_daily.lat_sum + EXCLUDED.lat_sum,
+                lng_sum = click_geo_rollups_daily.lng_sum + EXCLUDED.lng_sum
+            """;
+
+    private static final Comparator<Key> KEY_ORDER = Comparator
+            .comparing(Key::shortCode)
+            .thenComparing(Key::dimension)
+            .thenComparing(Key::bucket)
+            .thenComparing(Key::value)
+            .thenComparing(Key::parent);
+
+    private static final Comparator<AccountKey> ACCOUNT_KEY_ORDER = Comparator
+            .comparingLong(AccountKey::userId)
+            .thenComparing(AccountKey::dimension)
+            .thenComparing(AccountKey::bucket)
+            .thenComparing(AccountKey::value)
+            .thenComparing(AccountKey::parent);
+
+    private static final Comparator<GeoKey> GEO_KEY_ORDER = Comparator
+            .comparing(GeoKey::shortCode)
+            .thenComparingInt(GeoKey::precision)
+            .thenComparing(GeoKey::geohash)
+            .thenComparing(GeoKey::bucket);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClickRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add a batch of click deltas to the rollups. Must run inside the caller's transaction.
+     */
+    public void apply(Batch batch) {
+        if (batch.deltas.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<Key, Delta>> rows = new ArrayList<>(batch.deltas.entrySet());
+        rows.sort(Map.Entry.comparingByKey(KEY_ORDER));
+        upsertLinkRows(rows);
+
+        if (!batch.accountDeltas.isEmpty()) {
+            List<Map.Entry<AccountKey, Delta>> accountRows = new ArrayList<>(batch.accountDeltas.entrySet());
+            accountRows.sort(Map.Entry.comparingByKey(ACCOUNT_KEY_ORDER));
+            upsertAccountRows(accountRows);
+        }
+
+        if (!batch.geoDeltas.isEmpty()) {
+            List<Map.Entry<GeoKey, Delta>> geoRows = new ArrayList<>(batch.geoDeltas.entrySet());
+            geoRows.sort(Map.Entry.comparingByKey(GEO_KEY_ORDER));
+            upsertGeoRows(geoRows);
+        }
+    }
+
+    private void upsertLinkRows(List<Map.Entry<Key, Delta>> rows) {
+
+        jdbcTemplate.batchUpdate(UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Key key = rows.get(i).getKey();
+                Delta delta = rows.get(i).getValue();
+                ps.setString(1, key.shortCode());
+                ps.setString(2, key.dimension());
+                ps.setTimestamp(3, Timestamp.from(key.bucket()));
+                ps.setString(4, key.value());
+                ps.setString(5, key.parent());
+                ps.setLong(6, delta.clicks);
+                ps.setDouble(7, delta.latSum);
+                ps.setDouble(8, delta.lngSum);
+                ps.setLong(9, delta.geoClicks);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void upsertAccountRows(List<Map.Entry<AccountKey, Delta>> rows) {
+        jdbcTemplate.batchUpdate(ACCOUNT_UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                AccountKey key = rows.get(i).getKey();
+                Delta delta = rows.get(i).getValue();
+                ps.setLong(1, key.userId());
+                ps.setString(2, key.dimension());
+                ps.setTimestamp(3, Timestamp.from(key.bucket()));
+                ps.setString(4, key.value());
+                ps.setString(5, key.parent());
+                ps.setLong(6, delta.clicks);
+                ps.setDouble(7, delta.latSum);
+                ps.setDouble(8, delta.lngSum);
+                ps.setLong(9, delta.geoClicks);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    private void upsertGeoRows(List<Map.Entry<GeoKey, Delta>> rows) {
+        jdbcTemplate.batchUpdate(GEO_UPSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                GeoKey key = rows.get(i).getKey();
+                Delta delta = rows.get(i).getValue();
+                ps.setString(1, key.shortCode());
+                ps.setInt(2, key.precision());
+                ps.setString(3, key.geohash());
+                ps.setTimestamp(4, Timestamp.from(key.bucket()));
+                ps.setLong(5, delta.clicks);
+                ps.setDouble(6, delta.latSum);
+                ps.setDouble(7, delta.lngSum);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * Accumulates per-(short_code, hour, dimension, value) click deltas for one consumer batch,
+     * and the same per owning account (plus a 'link' dimension) when the owner is known. Clicks
+     * with coordinates are also counted per day in their geohash cell at every rolled-up precision.
+     * Values are normalized exactly like the backend's raw-scan queries report them.
+     */
+    public static final class Batch {
+
+        private final Map<Key, Delta> deltas = new HashMap<>();
+        private final Map<AccountKey, Delta> accountDeltas = new HashMap<>();
+        private final Map<GeoKey, Delta> geoDeltas = new HashMap<>();
+
+        /**
+         * @param userId the link's owner, or {@code null} to skip the account rollups
+         */
+        public void add(String shortCode, Long userId, Instant clickedAt,
+                        String referrer, String deviceType, String browser, String os,
+                        String country, String city, Double latitude, Double longitude) {
+            Instant bucket = clickedAt.truncatedTo(ChronoUnit.HOURS);
+            String referrerValue = orDefault(referrer, "Direct");
+            if (referrerValue.length() > MAX_REFERRER_LENGTH) {
+                referrerValue = referrerValue.substring(0, MAX_REFERRER_LENGTH);
+            }
+            String countryValue = orDefault(country, "Unknown");
+
+            List<Key> keys = List.of(
+                    new Key(shortCode, "total", bucket, "", ""),
+                    new Key(shortCode, "referrer", bucket, referrerValue, ""),
+                    new Key(shortCode, "device", bucket, orDefault(deviceType, "Unknown"), ""),
+                    new Key(shortCode, "browser", bucket, orDefault(browser, "Unknown"), ""),
+                    new Key(shortCode, "os", bucket, orDefault(os, "Unknown"), ""),
+                    new Key(shortCode, "country", bucket, countryValue, ""),
+                    new Key(shortCode, "city", bucket, orDefault(city, "Unknown"), countryValue));
+            for (Key key : keys) {
+                // Only city rows carry coordinates
+                Double lat = key.dimension().equals("city") ? latitude : null;
+                Double lng = key.dimension().equals("city") ? longitude : null;
+                increment(deltas, key, lat, lng);
+                if (userId != null) {
+                    increment(accountDeltas, new AccountKey(userId, key.dimension(), bucket, key.value(), key.parent()),
+                            lat, lng);
+                }
+            }
+            if (userId != null) {
+                increment(accountDeltas, new AccountKey(userId, "link", bucket, shortCode, ""), null, null);
+            }
+            if (latitude != null && longitude != null) {
+                // Coarser cells are prefixes of the finest one
+                String cell = Geohash.encode(latitude, longitude, Geohash.MAX_PRECISION);
+                Instant day = clickedAt.truncatedTo(ChronoUnit.DAYS);
+                for (int precision = Geohash.MIN_PRECISION; precision <= Geohash.MAX_PRECISION; precision++) {
+                    increment(geoDeltas, new GeoKey(shortCode, precision, cell.substring(0, precision), day),
+                            latitude, longitude);
+                }
+            }
+        }
+
+        public boolean isEmpty() {
+            return deltas.isEmpty();
+        }
+
+        private static <K> void increment(Map<K, Delta> deltas, K key, Double latitude, Double longitude) {
+            deltas.computeIfAbsent(key, k -> new Delta()).add(latitude, longitude);
+        }
+
+        private static String orDefault(String value, String fallback) {
+            return value != null ? value : fallback;
+        }
+    }
+
+    private record Key(String shortCode, String dimension, Instant bucket, String value, String parent) {}
+
+    private record AccountKey(long userId, String dimension, Instant bucket, String value, String parent) {}
+
+    private record GeoKey(String shortCode, int precision, String geohash, Instant bucket) {}
+
+    private static final class Delta {
+        long clicks;
+        double latSum;
+        double lngSum;
+        long geoClicks;
+
+        void add(Double latitude, Double longitude) {
+            clicks++;
+            if (latitude != null && longitude != null) {
+                latSum += latitude;
+                lngSum += longitude;
+                geoClicks++;
+            }
+        }
+    }
+}
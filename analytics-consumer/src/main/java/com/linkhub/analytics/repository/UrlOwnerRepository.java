@@ -0,0 +1,80 @@
+package com.linkhub.analytics.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Owner (user id) of each URL, for tagging published clicks with their account.
+ *
+ * <p>A link never changes owner, so owners are cached in a bounded LRU map and a batch only
+ * queries the URLs it has not seen recently, in one round trip.
+ */
+@Repository
+public class UrlOwnerRepository {
+
+    private static final int MAX_CACHED = 100_000;
+
+    private static final String SELECT_SQL = "SELECT id, user_id FROM urls WHERE id = ANY (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Long> owners = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    public UrlOwnerRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Owners of the given URLs. URLs that no longer exist or have no owner are absent from the result.
+     */
+    public Map<Long, Long> findOwners(Collection<Long> urlIds) {
+        Map<Long, Long> found = new HashMap<>();
+        List<Long> missing;
+        synchronized (owners) {
+            missing = urlIds.stream()
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .filter(id -> {
+                        Long owner = owners.get(id);
+                        if (owner != null) {
+                            found.put(id, owner);
+                        }
+                        return owner == null;
+                    })
+                    .toList();
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<Long, Long> loaded = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL);
+            ps.setArray(1, connection.createArrayOf("bigint", missing.toArray()));
+            return ps;
+        }, rs -> {
+            long userId = rs.getLong("user_id");
+            if (!rs.wasNull()) {
+                loaded.put(rs.getLong("id"), userId);
+            }
+        });
+        synchronized (owners) {
+            owners.putAll(loaded);
+        }
+        found.putAll(loaded);
+        return found;
+    }
+}
@@ -0,0 +1,162 @@
+package com.linkhub.analytics.repository;
+
+import com.linkhub.analytics.sketch.HyperLogLog;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental maintenance of {@code click_visitor_sketches_hourly}.
+ *
+ * <p>Like {@link ClickRollupRepository}, a {@link Batch} holds only newly inserted events and
+ * is applied in the raw insert's transaction. Sketches can't be merged with an additive
+ * upsert, so each batch:
+ * <ol>
+ *   <li>inserts empty rows for missing hours (ON CONFLICT DO NOTHING)</li>
+ *   <li>locks the affected rows in primary-key order (SELECT ... FOR UPDATE)</li>
+ *   <li>merges in Java and writes the sketches back</li>
+ * </ol>
+ */
+@Repository
+public class VisitorSketchRepository {
+
+    private static final int LOCK_CHUNK_SIZE = 500;
+
+    private static final String ENSURE_SQL = """
+            INSERT INTO click_visitor_sketches_hourly (short_code, bucket, clicks, sketch)
+            VALUES (?, ?, 0, ?)
+            ON CONFLICT (short_code, bucket) DO NOTHING
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE click_visitor_sketches_hourly
+            SET sketch = ?, clicks = clicks + ?
+            WHERE short_code = ? AND bucket = ?
+            """;
+
+    private static final Comparator<Key> KEY_ORDER = Comparator
+            .comparing(Key::shortCode)
+            .thenComparing(Key::bucket);
+
+    private static final byte[] EMPTY_SKETCH = new HyperLogLog().toBytes();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VisitorSketchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Fold a batch of visitors into the hourly sketches. Must run inside the caller's transaction.
+     */
+    public void apply(Batch batch) {
+        if (batch.deltas.isEmpty()) {
+            return;
+        }
+
+        List<Key> keys = new ArrayList<>(batch.deltas.keySet());
+        keys.sort(KEY_ORDER);
+
+        jdbcTemplate.batchUpdate(ENSURE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setString(1, keys.get(i).shortCode());
+                ps.setTimestamp(2, Timestamp.from(keys.get(i).bucket()));
+                ps.setBytes(3, EMPTY_SKETCH);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return keys.size();
+            }
+        });
+
+        Map<Key, byte[]> stored = new HashMap<>();
+        for (int start = 0; start < keys.size(); start += LOCK_CHUNK_SIZE) {
+            stored.putAll(lockAndLoad(keys.subList(start, Math.min(start + LOCK_CHUNK_SIZE, keys.size()))));
+        }
+
+        List<byte[]> merged = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            HyperLogLog sketch = HyperLogLog.fromBytes(stored.get(key));
+            sketch.merge(batch.deltas.get(key).sketch);
+            merged.add(sketch.toBytes());
+        }
+
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Key key = keys.get(i);
+                ps.setBytes(1, merged.get(i));
+                ps.setLong(2, batch.deltas.get(key).clicks);
+                ps.setString(3, key.shortCode());
+                ps.setTimestamp(4, Timestamp.from(key.bucket()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return keys.size();
+            }
+        });
+    }
+
+    private Map<Key, byte[]> lockAndLoad(List<Key> keys) {
+        String tuples = String.join(",", Collections.nCopies(keys.size(), "(?, ?)"));
+        Object[] args = new Object[keys.size() * 2];
+        for (int i = 0; i < keys.size(); i++) {
+            args[i * 2] = keys.get(i).shortCode();
+            args[i * 2 + 1] = Timestamp.from(keys.get(i).bucket());
+        }
+
+        Map<Key, byte[]> rows = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT short_code, bucket, sketch
+                FROM click_visitor_sketches_hourly
+                WHERE (short_code, bucket) IN (%s)
+                ORDER BY short_code, bucket
+                FOR UPDATE
+                """.formatted(tuples),
+                rs -> {
+                    rows.put(new Key(rs.getString(1), rs.getTimestamp(2).toInstant()), rs.getBytes(3));
+                },
+                args);
+        return rows;
+    }
+
+    /**
+     * Accumulates per-(short_code, hour) visitor sketches for one consumer batch.
+     * Every event counts towards {@code clicks}; only events with an IP address feed the sketch.
+     */
+    public static final class Batch {
+
+        private final Map<Key, Delta> deltas = new HashMap<>();
+
+        public void add(String shortCode, Instant clickedAt, String ipAddress) {
+            Delta delta = deltas.computeIfAbsent(
+                    new Key(shortCode, clickedAt.truncatedTo(ChronoUnit.HOURS)), k -> new Delta());
+            delta.clicks++;
+            if (ipAddress != null && !ipAddress.isBlank()) {
+                delta.sketch.addAddress(ipAddress);
+            }
+        }
+    }
+
+    private record Key(String shortCode, Instant bucket) {}
+
+    private static final class Delta {
+        final HyperLogLog sketch = new HyperLogLog();
+        long clicks;
+    }
+}
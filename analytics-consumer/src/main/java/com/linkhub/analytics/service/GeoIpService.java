@@ -1,8 +1,13 @@
 package com.linkhub.analytics.service;
 
+import com.maxmind.db.CHMCache;
+import com.maxmind.db.Network;
 import com.maxmind.geoip2.DatabaseReader;
 import com.maxmind.geoip2.exception.GeoIp2Exception;
 import com.maxmind.geoip2.model.CityResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
@@ -13,23 +18,54 @@ import org.springframework.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.LinkedHashMap;
 import java.util.Optional;
 
 /**
  * Service to resolve IP addresses to geographic locations using MaxMind GeoLite2.
  * Gracefully degrades when the database file is not available.
+ *
+ * <p>Addresses are parsed as literals only ({@link IpLiterals}), never through DNS. Results are
+ * kept in a bounded LRU cache ({@code geoip.cache.max-entries}), since the same addresses and
+ * networks click over and over. A result is cached for the whole /24 (IPv4) or /48 (IPv6) when the
+ * database says one record covers that prefix, otherwise for the single address, so cached
+ * answers are always the ones the database would give. Private, loopback and unknown addresses
+ * are cached per address only. Hit and miss counts are exported as
+ * {@code geoip.cache.requests}.
  */
 @Service
 public class GeoIpService {
 
     private static final Logger log = LoggerFactory.getLogger(GeoIpService.class);
 
+    private static final int V4_PREFIX_BITS = 24;
+    private static final int V6_PREFIX_BITS = 48;
+
     @Value("${geoip.database-path:#{null}}")
     private String databasePath;
 
+    @Value("${geoip.cache.max-entries:100000}")
+    private int maxCacheEntries;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
     private DatabaseReader databaseReader;
+    private LocationCache cache;
     private boolean available = false;
 
+    public GeoIpService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.cacheHits = Counter.builder("geoip.cache.requests").tag("result", "hit")
+                .description("GeoIP lookups answered from the cache")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("geoip.cache.requests").tag("result", "miss")
+                .description("GeoIP lookups that went to the database")
+                .register(meterRegistry);
+    }
+
     @PostConstruct
     public void init() {
         if (databasePath == null || databasePath.isBlank()) {
@@ -44,7 +80,11 @@ public class GeoIpService {
         }
 
         try {
-            databaseReader = new DatabaseReader.Builder(dbFile).build();
+            databaseReader = new DatabaseReader.Builder(dbFile).withCache(new CHMCache()).build();
+            cache = new LocationCache(maxCacheEntries);
+            Gauge.builder("geoip.cache.size", cache, LocationCache::size)
+                    .description("Addresses and networks in the GeoIP cache")
+                    .register(meterRegistry);
             available = true;
             log.info("GeoIP database loaded from: {}", databasePath);
         } catch (IOException e) {
@@ -72,22 +112,52 @@ public class GeoIpService {
             return Optional.empty();
         }
 
+        byte[] address = IpLiterals.parse(ipAddress);
+        if (address == null) {
+            log.debug("Not an IP address literal: {}", ipAddress);
+            return Optional.empty();
+        }
+
+        Key prefixKey = Key.of(address, address.length == 4 ? V4_PREFIX_BITS : V6_PREFIX_BITS);
+        Key addressKey = Key.of(address, address.length * 8);
+        Optional<GeoLocation> cached = cache.get(prefixKey);
+        if (cached == null) {
+            cached = cache.get(addressKey);
+        }
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+
         try {
-            // Skip private/loopback addresses
-            InetAddress inet = InetAddress.getByName(ipAddress);
-            if (inet.isLoopbackAddress() || inet.isSiteLocalAddress() || inet.isLinkLocalAddress()) {
+            InetAddress inet = InetAddress.getByAddress(address);
+
+            // Skip private/loopback addresses. Cached per address: loopback (::1) and
+            // unspecified (::) share a /48 with public addresses, so the prefix says nothing
+            if (isPrivate(inet)) {
+                cache.put(addressKey, Optional.empty());
                 return Optional.empty();
             }
 
-            CityResponse response = databaseReader.city(inet);
+            Optional<CityResponse> found = databaseReader.tryCity(inet);
+            if (found.isEmpty()) {
+                cache.put(addressKey, Optional.empty());
+                return Optional.empty();
+            }
 
+            CityResponse response = found.get();
             String country = response.getCountry() != null ? response.getCountry().getName() : null;
             String city = response.getCity() != null ? response.getCity().getName() : null;
             Double latitude = response.getLocation() != null ? response.getLocation().getLatitude() : null;
             Double longitude = response.getLocation() != null ? response.getLocation().getLongitude() : null;
+            Optional<GeoLocation> location = Optional.of(new GeoLocation(country, city, latitude, longitude));
 
-            return Optional.of(new GeoLocation(country, city, latitude, longitude));
-        } catch (GeoIp2Exception e) {
+            Network network = response.getTraits() != null ? response.getTraits().getNetwork() : null;
+            boolean coversPrefix = network != null && network.getPrefixLength() <= prefixKey.bits();
+            cache.put(coversPrefix ? prefixKey : addressKey, location);
+            return location;
+        } catch (GeoIp2Exception | UnknownHostException e) {
             log.debug("GeoIP lookup failed for IP {}: {}", ipAddress, e.getMessage());
             return Optional.empty();
         } catch (IOException e) {
@@ -96,6 +166,16 @@ public class GeoIpService {
         }
     }
 
+    private static boolean isPrivate(InetAddress inet) {
+        if (inet.isLoopbackAddress() || inet.isSiteLocalAddress() || inet.isLinkLocalAddress()
+                || inet.isAnyLocalAddress()) {
+            return true;
+        }
+        // IPv6 unique local addresses, fc00::/7
+        byte[] bytes = inet.getAddress();
+        return bytes.length == 16 && (bytes[0] & 0xfe) == 0xfc;
+    }
+
     public boolean isAvailable() {
         return available;
     }
@@ -104,4 +184,107 @@ public class GeoIpService {
      * GeoLocation result record.
      */
     public record GeoLocation(String country, String city, Double latitude, Double longitude) {}
+
+    // ────────── Cache ──────────
+
+    /**
+     * An address or network: the first {@code bits} bits of the address. IPv4 keys use 24 or 32
+     * bits and IPv6 keys 48 or 128, so the two never collide. IPv4-mapped IPv6 addresses must be
+     * passed as their 4 IPv4 bytes ({@link IpLiterals#parse} does this).
+     */
+    record Key(long high, long low, int bits) {
+
+        static Key of(byte[] address, int bits) {
+            long high = 0;
+            long low = 0;
+            for (int i = 0; i < address.length; i++) {
+                if (address.length == 16 && i < 8) {
+                    high = high << 8 | (address[i] & 0xff);
+                } else {
+                    low = low << 8 | (address[i] & 0xff);
+                }
+            }
+            int total = address.length * 8;
+            if (total == 32) {
+                low &= -1L << (32 - bits);
+            } else if (bits <= 64) {
+                high &= bits == 0 ? 0 : -1L << (64 - bits);
+                low = 0;
+            } else if (bits < 128) {
+                low &= -1L << (128 - bits);
+            }
+            return new Key(high, low, bits);
+        }
+    }
+
+    /**
+     * LRU map split into independently locked stripes, so consumer threads rarely contend.
+     * Negative results (private or unknown addresses) are cached as {@code Optional.empty()}.
+     */
+    private static final class LocationCache {
+
+        private static final int STRIPES = 16;
+
+        private final Stripe[] stripes = new Stripe[STRIPES];
+
+        LocationCache(int maxEntries) {
+            int perStripe = Math.max(1, maxEntries / STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe(perStripe);
+            }
+        }
+
+        /**
+         * @return the cached result, or {@code null} if there is none
+         */
+        Optional<GeoLocation> get(Key key) {
+            return stripe(key).get(key);
+        }
+
+        void put(Key key, Optional<GeoLocation> location) {
+            stripe(key).put(key, location);
+        }
+
+        int size() {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                size += stripe.size();
+            }
+            return size;
+        }
+
+        private Stripe stripe(Key key) {
+            int hash = key.hashCode();
+            return stripes[(hash ^ hash >>> 16) & (STRIPES - 1)];
+        }
+    }
+
+    /**
+     * One LRU stripe of {@link LocationCache}: an access-ordered map whose eldest entry is
+     * dropped on overflow.
+     */
+    private static final class Stripe {
+
+        private final LinkedHashMap<Key, Optional<GeoLocation>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxEntries;
+
+        Stripe(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized Optional<GeoLocation> get(Key key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(Key key, Optional<GeoLocation> location) {
+            entries.put(key, location);
+            if (entries.size() > maxEntries) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
 }
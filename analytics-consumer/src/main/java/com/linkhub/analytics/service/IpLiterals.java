@@ -0,0 +1,146 @@
+package com.linkhub.analytics.service;
+
+import java.util.Arrays;
+
+/**
+ * Parses textual IPv4 and IPv6 addresses into bytes without ever consulting a resolver.
+ *
+ * <p>{@code InetAddress.getByName} treats anything that is not a literal as a host name and
+ * looks it up in DNS, so a malformed or hostile {@code ip_address} could stall a consumer thread.
+ * This accepts only literals: dotted-quad IPv4, and IPv6 with {@code ::} compression, an optional
+ * trailing dotted quad, optional brackets and an ignored zone id ({@code %eth0}).
+ *
+ * <p>IPv4-mapped IPv6 addresses ({@code ::ffff:a.b.c.d}, what dual-stack sockets report for IPv4
+ * clients) come back as their four IPv4 bytes, so a client has one form whichever way it arrived.
+ */
+final class IpLiterals {
+
+    private IpLiterals() {}
+
+    /**
+     * @return 4 or 16 bytes in network order, or {@code null} if {@code text} is not an IP literal
+     */
+    static byte[] parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        String s = text.strip();
+        if (s.startsWith("[") && s.endsWith("]")) {
+            s = s.substring(1, s.length() - 1);
+        }
+        if (s.indexOf(':') >= 0) {
+            int zone = s.indexOf('%');
+            byte[] v6 = parseV6(zone >= 0 ? s.substring(0, zone) : s);
+            return v6 != null && isV4Mapped(v6) ? Arrays.copyOfRange(v6, 12, 16) : v6;
+        }
+        byte[] v4 = new byte[4];
+        return parseV4(s, v4, 0) ? v4 : null;
+    }
+
+    /**
+     * {@code ::ffff:0:0/96}: ten zero bytes, then two 0xff bytes.
+     */
+    private static boolean isV4Mapped(byte[] v6) {
+        for (int i = 0; i < 10; i++) {
+            if (v6[i] != 0) {
+                return false;
+            }
+        }
+        return v6[10] == (byte) 0xff && v6[11] == (byte) 0xff;
+    }
+
+    /**
+     * Parse a dotted quad into {@code out[offset..offset+3]}.
+     */
+    private static boolean parseV4(String s, byte[] out, int offset) {
+        int part = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i <= s.length(); i++) {
+            char c = i < s.length() ? s.charAt(i) : '.';
+            if (c == '.') {
+                if (digits == 0 || part == 4) {
+                    return false;
+                }
+                out[offset + part++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9' && digits < 3) {
+                value = value * 10 + (c - '0');
+                digits++;
+                if (value > 255) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return part == 4;
+    }
+
+    private static byte[] parseV6(String s) {
+        int gap = s.indexOf("::");
+        if (gap >= 0 && s.indexOf("::", gap + 1) >= 0) {
+            return null;
+        }
+
+        byte[] out = new byte[16];
+        if (gap < 0) {
+            return parseGroups(s, out, 0, 16) == 16 ? out : null;
+        }
+
+        // Head fills from the front, tail is parsed into a scratch buffer and right-aligned
+        int head = gap == 0 ? 0 : parseGroups(s.substring(0, gap), out, 0, 14);
+        if (head < 0) {
+            return null;
+        }
+        String tailText = s.substring(gap + 2);
+        if (tailText.isEmpty()) {
+            return out;
+        }
+        byte[] tail = new byte[16];
+        int tailLength = parseGroups(tailText, tail, 0, 14 - head);
+        if (tailLength < 0) {
+            return null;
+        }
+        System.arraycopy(tail, 0, out, 16 - tailLength, tailLength);
+        return out;
+    }
+
+    /**
+     * Parse colon-separated hex groups (the last may be a dotted quad) into {@code out}.
+     *
+     * @return bytes written, or -1 if malformed or longer than {@code maxBytes}
+     */
+    private static int parseGroups(String s, byte[] out, int offset, int maxBytes) {
+        int written = 0;
+        int start = 0;
+        while (true) {
+            int end = s.indexOf(':', start);
+            String group = end < 0 ? s.substring(start) : s.substring(start, end);
+            if (end < 0 && group.indexOf('.') >= 0) {
+                if (written + 4 > maxBytes || !parseV4(group, out, offset + written)) {
+                    return -1;
+                }
+                return written + 4;
+            }
+            if (group.isEmpty() || group.length() > 4 || written + 2 > maxBytes) {
+                return -1;
+            }
+            int value = 0;
+            for (int i = 0; i < group.length(); i++) {
+                int digit = Character.digit(group.charAt(i), 16);
+                if (digit < 0) {
+                    return -1;
+                }
+                value = value << 4 | digit;
+            }
+            out[offset + written++] = (byte) (value >> 8);
+            out[offset + written++] = (byte) value;
+            if (end < 0) {
+                return written;
+            }
+            start = end + 1;
+        }
+    }
+}
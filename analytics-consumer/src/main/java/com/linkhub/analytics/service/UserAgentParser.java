@@ -1,24 +1,82 @@
 package com.linkhub.analytics.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ua_parser.Client;
 import ua_parser.Parser;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
 /**
  * Service to parse User-Agent strings into device type, browser, and OS.
  * Uses the ua-parser library for reliable parsing.
+ *
+ * <p>A few thousand distinct User-Agents make up nearly all clicks, so results are memoized by the
+ * exact string, in two tiers:
+ * <ul>
+ *   <li>hot — the {@value #HOT_SIZE} most frequent User-Agents, in a read-only map checked first</li>
+ *   <li>warm — up to {@code useragent.cache.max-entries} User-Agents with a hit count each</li>
+ * </ul>
+ * Every so often, and whenever the warm tier overflows, a maintenance pass drops the least
+ * frequent entries, re-picks the hot tier and halves all counts so the ranking follows shifts in
+ * traffic. A flood of one-off User-Agents (scrapers rotating strings) is evicted first and never
+ * pushes out the common ones. {@code max-entries: 0} turns memoization off.
  */
 @Service
 public class UserAgentParser {
 
     private static final Logger log = LoggerFactory.getLogger(UserAgentParser.class);
 
+    private static final ParsedUserAgent UNKNOWN = new ParsedUserAgent("Unknown", "Unknown", "Unknown");
+
+    private static final int HOT_SIZE = 256;
+
+    /** Hot hits are counted one in this many times, weighted to match, to keep the fast path read-only. */
+    private static final int HOT_SAMPLE = 16;
+
+    /** Warm hits trigger maintenance one in this many times. */
+    private static final int MAINTENANCE_ODDS = 4096;
+
     private final Parser parser;
+    private final int maxEntries;
 
-    public UserAgentParser() {
+    private final ConcurrentHashMap<String, Memo> memo = new ConcurrentHashMap<>();
+    private volatile Map<String, Memo> hot = Map.of();
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+
+    private final Counter hotHits;
+    private final Counter warmHits;
+    private final Counter misses;
+
+    public UserAgentParser(MeterRegistry meterRegistry,
+                           @Value("${useragent.cache.max-entries:10000}") int maxEntries) {
         this.parser = new Parser();
+        this.maxEntries = maxEntries;
+
+        this.hotHits = counter(meterRegistry, "hot");
+        this.warmHits = counter(meterRegistry, "warm");
+        this.misses = counter(meterRegistry, "miss");
+        Gauge.builder("useragent.cache.size", memo, Map::size)
+                .description("User-Agents memoized")
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("useragent.cache.requests").tag("result", result)
+                .description("User-Agent lookups by cache tier")
+                .register(meterRegistry);
     }
 
     /**
@@ -26,9 +84,41 @@ public class UserAgentParser {
      */
     public ParsedUserAgent parse(String userAgent) {
         if (userAgent == null || userAgent.isBlank()) {
-            return new ParsedUserAgent("Unknown", "Unknown", "Unknown");
+            return UNKNOWN;
+        }
+        if (maxEntries <= 0) {
+            return parseUncached(userAgent);
+        }
+
+        Memo entry = hot.get(userAgent);
+        if (entry != null) {
+            hotHits.increment();
+            if (ThreadLocalRandom.current().nextInt(HOT_SAMPLE) == 0) {
+                entry.hits.addAndGet(HOT_SAMPLE);
+            }
+            return entry.parsed;
+        }
+
+        entry = memo.get(userAgent);
+        if (entry != null) {
+            warmHits.increment();
+            entry.hits.incrementAndGet();
+            if (ThreadLocalRandom.current().nextInt(MAINTENANCE_ODDS) == 0) {
+                maintain();
+            }
+            return entry.parsed;
+        }
+
+        misses.increment();
+        ParsedUserAgent parsed = parseUncached(userAgent);
+        memo.putIfAbsent(userAgent, new Memo(parsed));
+        if (memo.size() > maxEntries) {
+            maintain();
         }
+        return parsed;
+    }
 
+    private ParsedUserAgent parseUncached(String userAgent) {
         try {
             Client client = parser.parse(userAgent);
 
@@ -45,7 +135,7 @@ public class UserAgentParser {
             return new ParsedUserAgent(deviceType, browser, os);
         } catch (Exception e) {
             log.debug("Failed to parse User-Agent: {}", e.getMessage());
-            return new ParsedUserAgent("Unknown", "Unknown", "Unknown");
+            return UNKNOWN;
         }
     }
 
@@ -74,6 +164,53 @@ public class UserAgentParser {
         return "Other";
     }
 
+    // ────────── Memo maintenance ──────────
+
+    /**
+     * Evict the least frequent entries down to 90% of capacity, re-pick the hot tier and age all
+     * counts. Skipped if another thread is already at it.
+     */
+    private void maintain() {
+        if (!maintenanceLock.tryLock()) {
+            return;
+        }
+        try {
+            // Snapshot counts first: they keep changing while we sort
+            Ranked[] ranked = memo.entrySet().stream()
+                    .map(e -> new Ranked(e.getKey(), e.getValue(), e.getValue().hits.get()))
+                    .sorted(Comparator.comparingInt(Ranked::hits).reversed())
+                    .toArray(Ranked[]::new);
+
+            int keep = ranked.length > maxEntries ? maxEntries * 9 / 10 : ranked.length;
+            for (int i = keep; i < ranked.length; i++) {
+                memo.remove(ranked[i].userAgent(), ranked[i].memo());
+            }
+
+            Map<String, Memo> top = new HashMap<>();
+            for (Ranked r : Arrays.copyOf(ranked, Math.min(HOT_SIZE, keep))) {
+                top.put(r.userAgent(), r.memo());
+            }
+            hot = Map.copyOf(top);
+
+            for (int i = 0; i < keep; i++) {
+                ranked[i].memo().hits.updateAndGet(h -> h >>> 1);
+            }
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    private static final class Memo {
+        final ParsedUserAgent parsed;
+        final AtomicInteger hits = new AtomicInteger(1);
+
+        Memo(ParsedUserAgent parsed) {
+            this.parsed = parsed;
+        }
+    }
+
+    private record Ranked(String userAgent, Memo memo, int hits) {}
+
     /**
      * Parsed User-Agent result record.
      */
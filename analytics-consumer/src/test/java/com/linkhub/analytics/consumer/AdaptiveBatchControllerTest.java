@@ -0,0 +1,157 @@
+package com.linkhub.analytics.consumer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Adaptive Batch Controller")
+class AdaptiveBatchControllerTest {
+
+    private static final long FAST = Duration.ofMillis(100).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+    private static final long STALLED = Duration.ofSeconds(3).toNanos();
+
+    private final MessageListenerContainer container = mock(MessageListenerContainer.class);
+    private AdaptiveBatchController controller;
+
+    @BeforeEach
+    void setUp() {
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        when(registry.getListenerContainer(AdaptiveBatchController.LISTENER_ID)).thenReturn(container);
+
+        controller = new AdaptiveBatchController(registry, new SimpleMeterRegistry());
+        set("minBatchSize", 100);
+        set("maxBatchSize", 400);
+        set("maxWait", Duration.ofMillis(250));
+        set("targetLatency", Duration.ofMillis(500));
+        set("pauseLatency", Duration.ofSeconds(2));
+        set("resumeLatency", Duration.ofMillis(500));
+        set("pausePending", DataSize.ofBytes(1_000));
+        set("resumePending", DataSize.ofBytes(250));
+        set("maxPause", Duration.ofMinutes(1));
+        controller.init();
+    }
+
+    @Test
+    @DisplayName("Should start at the minimum batch size")
+    void shouldStartAtMinimum() {
+        assertThat(controller.targetBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should grow the target by a quarter after a full, fast write")
+    void shouldGrowAdditively() {
+        controller.recordWrite(100, 0, FAST);
+        assertThat(controller.targetBatchSize()).isEqualTo(125);
+
+        controller.recordWrite(125, 0, FAST);
+        assertThat(controller.targetBatchSize()).isEqualTo(156);
+    }
+
+    @Test
+    @DisplayName("Should not grow the target after a partial write")
+    void shouldNotGrowOnPartialBatch() {
+        controller.recordWrite(99, 0, FAST);
+
+        assertThat(controller.targetBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should halve the target after a slow write, down to the minimum")
+    void shouldShrinkMultiplicatively() {
+        for (int i = 0; i < 10; i++) {
+            controller.recordWrite(controller.targetBatchSize(), 0, FAST);
+        }
+        assertThat(controller.targetBatchSize()).isEqualTo(400);
+
+        controller.recordWrite(400, 0, SLOW);
+        assertThat(controller.targetBatchSize()).isEqualTo(200);
+
+        controller.recordWrite(200, 0, SLOW);
+        controller.recordWrite(100, 0, SLOW);
+        assertThat(controller.targetBatchSize()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should pause on pending bytes and resume only below the lower threshold")
+    void shouldApplyPendingHysteresis() {
+        controller.addPending(1_001);
+        controller.checkBackpressure();
+        verify(container).pause();
+
+        // Between resume-pending and pause-pending: stays paused
+        controller.addPending(-500);
+        controller.checkBackpressure();
+        verify(container, never()).resume();
+
+        controller.addPending(-251);
+        controller.checkBackpressure();
+        verify(container).resume();
+        verify(container, times(1)).pause();
+    }
+
+    @Test
+    @DisplayName("Should pause on write time and resume once the average recovers")
+    void shouldApplyLatencyHysteresis() {
+        controller.recordWrite(100, 0, STALLED);
+        verify(container).pause();
+
+        // The average falls 3s -> 2.1s -> 1.47s -> ... and must get under 500ms first
+        controller.recordWrite(100, 0, 0);
+        controller.recordWrite(100, 0, 0);
+        controller.recordWrite(100, 0, 0);
+        verify(container, never()).resume();
+
+        controller.recordWrite(100, 0, 0);
+        controller.recordWrite(100, 0, 0);
+        controller.recordWrite(100, 0, 0);
+        verify(container).resume();
+    }
+
+    @Test
+    @DisplayName("Should resume a drained consumer after max-pause even with a stale average")
+    void shouldResumeAfterMaxPause() {
+        set("maxPause", Duration.ZERO);
+
+        controller.recordWrite(100, 0, STALLED);
+        verify(container).pause();
+
+        controller.checkBackpressure();
+        verify(container).resume();
+
+        // The stale average is dropped, so the next check does not pause again
+        controller.checkBackpressure();
+        verify(container, times(1)).pause();
+    }
+
+    @Test
+    @DisplayName("Should stay paused past max-pause while writes are still pending")
+    void shouldNotResumeUndrainedAfterMaxPause() {
+        set("maxPause", Duration.ZERO);
+
+        controller.addPending(1_001);
+        controller.checkBackpressure();
+        controller.checkBackpressure();
+
+        verify(container).pause();
+        verify(container, never()).resume();
+    }
+
+    private void set(String field, Object value) {
+        ReflectionTestUtils.setField(controller, field, value);
+    }
+}
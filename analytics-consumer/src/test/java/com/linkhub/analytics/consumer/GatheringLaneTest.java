@@ -0,0 +1,151 @@
+package com.linkhub.analytics.consumer;
+
+import com.linkhub.analytics.dto.ClickEventMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("Gathering Lane")
+class GatheringLaneTest {
+
+    private final AdaptiveBatchController controller = mock(AdaptiveBatchController.class);
+    private final List<String> journal = new CopyOnWriteArrayList<>();
+    private final List<GatheringLane> lanes = new ArrayList<>();
+    private int failuresLeft;
+    private int polls;
+
+    @BeforeEach
+    void setUp() {
+        when(controller.maxWait()).thenReturn(Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        lanes.forEach(GatheringLane::close);
+    }
+
+    @Test
+    @DisplayName("Should acknowledge polls in order, and only after they are written")
+    void shouldAckInOrderAfterWrite() {
+        when(controller.targetBatchSize()).thenReturn(10);
+        GatheringLane lane = lane(Thread.currentThread(), 4, () -> {});
+
+        lane.add(poll(2));
+        lane.add(poll(2));
+        lane.add(poll(2));
+        assertThat(journal).isEmpty();
+
+        lane.flushAndWait();
+        assertThat(journal).containsExactly("write 6 on daemon", "ack 1", "ack 2", "ack 3");
+    }
+
+    @Test
+    @DisplayName("Should write a full lane on its own, in whole polls up to the target")
+    void shouldWriteFullLane() {
+        when(controller.targetBatchSize()).thenReturn(4);
+        GatheringLane lane = lane(Thread.currentThread(), 4, () -> {});
+
+        lane.add(poll(3));
+        lane.add(poll(3));
+        lane.flushAndWait();
+
+        assertThat(journal).containsExactly("write 3 on daemon", "ack 1", "write 3 on daemon", "ack 2");
+    }
+
+    @Test
+    @DisplayName("Should hold later polls back while an earlier batch is retried")
+    void shouldAckInOrderAcrossRetries() {
+        when(controller.targetBatchSize()).thenReturn(3);
+        failuresLeft = 1;
+        GatheringLane lane = lane(Thread.currentThread(), 4, () -> {});
+
+        lane.add(poll(3));
+        lane.add(poll(3));
+        lane.flushAndWait();
+
+        assertThat(journal).containsExactly(
+                "fail 3", "write 3 on daemon", "ack 1", "write 3 on daemon", "ack 2");
+    }
+
+    @Test
+    @DisplayName("Should dead-letter a batch after the last attempt and acknowledge it")
+    void shouldDeadLetterAfterMaxAttempts() {
+        when(controller.targetBatchSize()).thenReturn(10);
+        failuresLeft = Integer.MAX_VALUE;
+        GatheringLane lane = lane(Thread.currentThread(), 3, () -> {});
+
+        lane.add(poll(2));
+        lane.add(poll(2));
+        lane.flushAndWait();
+
+        assertThat(journal).containsExactly("fail 4", "fail 4", "fail 4", "dead 4", "ack 1", "ack 2");
+        verify(controller).addPending(-200);
+        verify(controller, never()).recordWrite(anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Should write what is left and retire once its listener thread has ended")
+    void shouldRetireWithListener() throws Exception {
+        when(controller.targetBatchSize()).thenReturn(10);
+        when(controller.maxWait()).thenReturn(Duration.ofMillis(20));
+        Thread listener = new Thread(() -> {}, "listener-0");
+        listener.start();
+        listener.join();
+        CountDownLatch retired = new CountDownLatch(1);
+
+        GatheringLane lane = lane(listener, 4, retired::countDown);
+        lane.add(poll(2));
+
+        assertThat(retired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(journal).containsExactly("write 2 on daemon", "ack 1");
+    }
+
+    private GatheringLane lane(Thread listener, int maxAttempts, Runnable onRetired) {
+        GatheringLane lane = new GatheringLane(listener, controller, new GatheringLane.Writer() {
+            @Override
+            public void write(List<ClickEventMessage> events) {
+                if (failuresLeft > 0) {
+                    failuresLeft--;
+                    journal.add("fail " + events.size());
+                    throw new IllegalStateException("database unavailable");
+                }
+                journal.add("write " + events.size() + (Thread.currentThread().isDaemon() ? " on daemon" : ""));
+            }
+
+            @Override
+            public void deadLetter(List<ClickEventMessage> events, String reason) {
+                journal.add("dead " + events.size());
+            }
+        }, maxAttempts, 1, onRetired);
+        lanes.add(lane);
+        return lane;
+    }
+
+    private GatheringLane.Poll poll(int size) {
+        List<ClickEventMessage> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            events.add(new ClickEventMessage(UUID.randomUUID(), 1L, "abc123", Instant.now(),
+                    "203.0.113.7", "Mozilla/5.0", null));
+        }
+        int number = ++polls;
+        return new GatheringLane.Poll(events, 100, () -> journal.add("ack " + number), System.nanoTime());
+    }
+}
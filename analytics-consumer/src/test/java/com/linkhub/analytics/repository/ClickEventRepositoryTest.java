@@ -0,0 +1,252 @@
+package com.linkhub.analytics.repository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.analytics.config.KafkaConsumerConfig;
+import com.linkhub.analytics.consumer.AdaptiveBatchController;
+import com.linkhub.analytics.consumer.ClickEventConsumer;
+import com.linkhub.analytics.dto.ClickEventMessage;
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+import com.linkhub.analytics.model.FailedClickEvent;
+import com.linkhub.analytics.service.GeoIpService;
+import com.linkhub.analytics.service.UserAgentParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Both bulk paths of {@link ClickEventRepository} against a bare Postgres container with the
+ * click_events table from V4 (one default partition): COPY is the default write path, so it must
+ * report and store exactly what the batched INSERT does. Also runs a batch with one bad row
+ * through {@link ClickEventConsumer}, whose halving retry must isolate it.
+ *
+ * <p>Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Click Event Repository")
+class ClickEventRepositoryTest {
+
+    private static final String STORED_SQL = """
+            SELECT event_id::text || ' ' || url_id || ' ' || short_code || ' ' || clicked_at || ' '
+                   || COALESCE(host(ip_address), '-') || ' ' || COALESCE(user_agent, '-') || ' '
+                   || COALESCE(referrer, '-') || ' ' || COALESCE(device_type, '-') || ' '
+                   || COALESCE(browser, '-') || ' ' || COALESCE(os, '-') || ' '
+                   || COALESCE(country, '-') || ' ' || COALESCE(city, '-') || ' '
+                   || COALESCE(latitude::text, '-') || ' ' || COALESCE(longitude::text, '-')
+            FROM click_events
+            ORDER BY event_id, clicked_at
+            """;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres =
+            new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ClickEventRepository repository;
+    private long links;
+
+    @BeforeAll
+    void createSchema() {
+        dataSource = new SingleConnectionDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        repository = new ClickEventRepository(jdbcTemplate);
+
+        jdbcTemplate.execute("""
+                CREATE TABLE click_events (
+                    id              BIGSERIAL,
+                    event_id        UUID NOT NULL,
+                    url_id          BIGINT NOT NULL,
+                    short_code      VARCHAR(10) NOT NULL,
+                    clicked_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                    ip_address      INET,
+                    user_agent      TEXT,
+                    referrer        TEXT,
+                    device_type     VARCHAR(20),
+                    browser         VARCHAR(50),
+                    os              VARCHAR(50),
+                    country         VARCHAR(100),
+                    city            VARCHAR(100),
+                    latitude        DOUBLE PRECISION,
+                    longitude       DOUBLE PRECISION,
+                    PRIMARY KEY (id, clicked_at),
+                    UNIQUE (event_id, clicked_at)
+                ) PARTITION BY RANGE (clicked_at)
+                """);
+        jdbcTemplate.execute("CREATE TABLE click_events_default PARTITION OF click_events DEFAULT");
+    }
+
+    @AfterAll
+    void closeConnection() {
+        dataSource.destroy();
+    }
+
+    @BeforeEach
+    void truncate() {
+        jdbcTemplate.execute("TRUNCATE click_events");
+    }
+
+    @Test
+    @DisplayName("Should report the same inserted flags on both paths: stored, in-batch duplicate, new")
+    void copyShouldReportLikeBatchInsert() {
+        List<ClickEventRepository.Row> stored = rows(5);
+        transactionTemplate.execute(status -> repository.batchInsert(stored));
+        List<ClickEventRepository.Row> fresh = rows(5);
+        List<ClickEventRepository.Row> mixed = new ArrayList<>(stored);
+        mixed.addAll(fresh);
+        mixed.add(fresh.get(0));
+
+        int[] viaBatch = rolledBack(() -> repository.batchInsert(mixed));
+        int[] viaCopy = rolledBack(() -> repository.copyInsert(mixed));
+
+        assertThat(viaCopy).containsExactly(viaBatch);
+        assertThat(viaCopy).containsExactly(0, 0, 0, 0, 0, 1, 1, 1, 1, 1, 0);
+    }
+
+    @Test
+    @DisplayName("Should store the same rows on both paths, down to clicked_at rounding and nulls")
+    void copyShouldStoreLikeBatchInsert() {
+        List<ClickEventRepository.Row> batch = rows(6);
+        batch.add(row(Instant.parse("2024-03-01T12:00:00.000000500Z"), "2001:db8::1", null));
+        batch.add(row(Instant.parse("2024-03-01T12:00:00.999999499Z"), null, null));
+
+        List<String> viaBatch = rolledBack(() -> {
+            repository.batchInsert(batch);
+            return jdbcTemplate.queryForList(STORED_SQL, String.class);
+        });
+        List<String> viaCopy = rolledBack(() -> {
+            repository.copyInsert(batch);
+            return jdbcTemplate.queryForList(STORED_SQL, String.class);
+        });
+
+        assertThat(viaCopy).hasSize(batch.size()).containsExactlyElementsOf(viaBatch);
+    }
+
+    @Test
+    @DisplayName("Should fail the whole batch on an invalid address, on both paths")
+    void invalidAddressShouldFailBothPaths() {
+        List<ClickEventRepository.Row> batch = rows(3);
+        batch.add(row(Instant.now(), "not-an-ip", "Germany"));
+
+        assertThatThrownBy(() -> rolledBack(() -> repository.batchInsert(batch)))
+                .isInstanceOf(DataAccessException.class);
+        assertThatThrownBy(() -> rolledBack(() -> repository.copyInsert(batch)))
+                .isInstanceOf(DataAccessException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM click_events", Long.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Should isolate one bad row by halving the batch, keeping the flags of the rest")
+    @SuppressWarnings("unchecked")
+    void consumerShouldIsolateBadRowByHalving() {
+        FailedClickEventRepository failedRepository = mock(FailedClickEventRepository.class);
+        KafkaTemplate<String, ClickEventMessage> dlqTemplate = mock(KafkaTemplate.class);
+        KafkaTemplate<String, EnrichedClickMessage> enrichedTemplate = mock(KafkaTemplate.class);
+        when(enrichedTemplate.send(anyString(), anyString(), any())).thenReturn(new CompletableFuture<>());
+        UserAgentParser userAgentParser = mock(UserAgentParser.class);
+        when(userAgentParser.parse(any()))
+                .thenReturn(new UserAgentParser.ParsedUserAgent("Desktop", "Chrome", "Windows"));
+
+        ClickEventConsumer consumer = new ClickEventConsumer(
+                transactionTemplate, repository,
+                mock(ClickRollupRepository.class), mock(VisitorSketchRepository.class),
+                mock(GeoIpService.class), userAgentParser, failedRepository, mock(UrlOwnerRepository.class),
+                dlqTemplate, enrichedTemplate, new ObjectMapper().findAndRegisterModules(),
+                mock(AdaptiveBatchController.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(consumer, "copyIngest", true);
+        ReflectionTestUtils.setField(consumer, "splitOnFailure", true);
+
+        List<ClickEventMessage> events = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            events.add(new ClickEventMessage(UUID.randomUUID(), 1L, "abc123",
+                    Instant.parse("2024-03-01T12:00:00Z").plusSeconds(i),
+                    i == 5 ? "not-an-ip" : "203.0.113." + i, "Mozilla/5.0", null));
+        }
+        // Already stored, so a duplicate wherever the halving puts it
+        transactionTemplate.execute(status -> repository.insert(new ClickEventRepository.Row(
+                events.get(2).eventId(), 1L, "abc123", events.get(2).clickedAt(), "203.0.113.2",
+                "Mozilla/5.0", null, null, null, null, null, null, null, null)));
+
+        ReflectionTestUtils.invokeMethod(consumer, "process", events);
+
+        List<String> storedIds = jdbcTemplate.queryForList("SELECT event_id::text FROM click_events", String.class);
+        assertThat(storedIds).containsExactlyInAnyOrderElementsOf(events.stream()
+                .filter(e -> e != events.get(5))
+                .map(e -> e.eventId().toString())
+                .toList());
+
+        ArgumentCaptor<FailedClickEvent> failed = ArgumentCaptor.forClass(FailedClickEvent.class);
+        verify(failedRepository).save(failed.capture());
+        assertThat(failed.getValue().getEventId()).isEqualTo(events.get(5).eventId());
+        verify(dlqTemplate).send(KafkaConsumerConfig.CLICK_EVENTS_DLQ_TOPIC, "abc123", events.get(5));
+
+        // Only the six rows this batch actually inserted are published
+        ArgumentCaptor<EnrichedClickMessage> published = ArgumentCaptor.forClass(EnrichedClickMessage.class);
+        verify(enrichedTemplate, times(6))
+                .send(eq(KafkaConsumerConfig.CLICK_EVENTS_ENRICHED_TOPIC), eq("abc123"), published.capture());
+        assertThat(published.getAllValues()).extracting(EnrichedClickMessage::eventId)
+                .doesNotContain(events.get(2).eventId(), events.get(5).eventId());
+    }
+
+    private <T> T rolledBack(Supplier<T> work) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return work.get();
+        });
+    }
+
+    private List<ClickEventRepository.Row> rows(int count) {
+        List<ClickEventRepository.Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(row(Instant.parse("2024-03-01T12:00:00Z").plusSeconds(i).plusNanos(123_456_789),
+                    "203.0.113." + i, i % 2 == 0 ? "Germany" : null));
+        }
+        return rows;
+    }
+
+    private ClickEventRepository.Row row(Instant clickedAt, String ipAddress, String country) {
+        long link = ++links;
+        return new ClickEventRepository.Row(
+                UUID.randomUUID(), link, "link" + link, clickedAt, ipAddress,
+                "Mozilla/5.0", country == null ? null : "https://news.example.com/story/" + link,
+                "Desktop", "Chrome", "Windows",
+                country, country == null ? null : "Berlin",
+                country == null ? null : 52.52, country == null ? null : 13.405);
+    }
+}
@@ -0,0 +1,76 @@
+package com.linkhub.analytics.service;
+
+import com.linkhub.analytics.service.GeoIpService.Key;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("GeoIP Cache Keys")
+class GeoIpCacheKeyTest {
+
+    @Test
+    @DisplayName("Should mask IPv4 addresses to their /24")
+    void shouldMaskIpv4Prefix() {
+        Key key = Key.of(IpLiterals.parse("203.0.113.7"), 24);
+
+        assertThat(key).isEqualTo(new Key(0, 0xcb0071_00L, 24));
+        assertThat(Key.of(IpLiterals.parse("203.0.113.250"), 24)).isEqualTo(key);
+        assertThat(Key.of(IpLiterals.parse("203.0.114.7"), 24)).isNotEqualTo(key);
+    }
+
+    @Test
+    @DisplayName("Should keep every bit of a full IPv4 address")
+    void shouldKeepFullIpv4Address() {
+        assertThat(Key.of(IpLiterals.parse("203.0.113.7"), 32)).isEqualTo(new Key(0, 0xcb007107L, 32));
+        assertThat(Key.of(IpLiterals.parse("203.0.113.7"), 32))
+                .isNotEqualTo(Key.of(IpLiterals.parse("203.0.113.8"), 32));
+    }
+
+    @Test
+    @DisplayName("Should mask IPv6 addresses to their /48")
+    void shouldMaskIpv6Prefix() {
+        Key key = Key.of(IpLiterals.parse("2001:db8:abcd:12::1"), 48);
+
+        assertThat(key).isEqualTo(new Key(0x20010db8_abcd_0000L, 0, 48));
+        assertThat(Key.of(IpLiterals.parse("2001:db8:abcd:ffff::ffff"), 48)).isEqualTo(key);
+        assertThat(Key.of(IpLiterals.parse("2001:db8:abce::1"), 48)).isNotEqualTo(key);
+    }
+
+    @Test
+    @DisplayName("Should keep every bit of a full IPv6 address")
+    void shouldKeepFullIpv6Address() {
+        Key key = Key.of(IpLiterals.parse("2001:db8::8:1"), 128);
+
+        assertThat(key).isEqualTo(new Key(0x20010db8_0000_0000L, 0x0000_0000_0008_0001L, 128));
+        assertThat(Key.of(IpLiterals.parse("2001:db8::8:2"), 128)).isNotEqualTo(key);
+    }
+
+    @Test
+    @DisplayName("Should mask IPv6 prefixes longer than 64 bits in the low word")
+    void shouldMaskLongIpv6Prefix() {
+        Key key = Key.of(IpLiterals.parse("2001:db8::1234:5678:9abc:def0"), 96);
+
+        assertThat(key).isEqualTo(new Key(0x20010db8_0000_0000L, 0x1234_5678_0000_0000L, 96));
+    }
+
+    @Test
+    @DisplayName("Should key IPv4-mapped addresses like IPv4, away from ::/48")
+    void shouldKeyMappedAddressesAsIpv4() {
+        byte[] mapped = IpLiterals.parse("::ffff:203.0.113.7");
+
+        assertThat(Key.of(mapped, 24)).isEqualTo(Key.of(IpLiterals.parse("203.0.113.7"), 24));
+        assertThat(Key.of(mapped, 24)).isNotEqualTo(Key.of(IpLiterals.parse("::1"), 48));
+        assertThat(Key.of(IpLiterals.parse("::ffff:10.0.0.1"), 24))
+                .isNotEqualTo(Key.of(IpLiterals.parse("::ffff:203.0.113.7"), 24));
+    }
+
+    @Test
+    @DisplayName("Should not collide IPv4 and IPv6 keys with equal bits")
+    void shouldSeparateFamilies() {
+        assertThat(Key.of(IpLiterals.parse("0.0.0.1"), 32))
+                .isNotEqualTo(Key.of(IpLiterals.parse("::1"), 128));
+        assertThat(Key.of(IpLiterals.parse("0.0.0.0"), 24))
+                .isNotEqualTo(Key.of(IpLiterals.parse("::"), 48));
+    }
+}
@@ -0,0 +1,65 @@
+package com.linkhub.analytics.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.net.InetAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("IP Literal Parsing")
+class IpLiteralsTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "0.0.0.0", "8.8.8.8", "203.0.113.7", "255.255.255.255",
+            "::", "::1", "2001:db8::1", "2001:db8:0:0:0:0:2:1", "fe80::1:2:3:4",
+            "1:2:3:4:5:6:7:8", "1::", "::2:3:4:5:6:7:8", "64:ff9b::192.0.2.33"
+    })
+    @DisplayName("Should parse literals to the same bytes as InetAddress")
+    void shouldMatchInetAddress(String literal) throws Exception {
+        assertThat(IpLiterals.parse(literal)).containsExactly(InetAddress.getByName(literal).getAddress());
+    }
+
+    @Test
+    @DisplayName("Should accept brackets, zone ids and surrounding whitespace")
+    void shouldAcceptDecorations() {
+        byte[] expected = IpLiterals.parse("fe80::1");
+
+        assertThat(IpLiterals.parse("[fe80::1]")).containsExactly(expected);
+        assertThat(IpLiterals.parse("fe80::1%eth0")).containsExactly(expected);
+        assertThat(IpLiterals.parse(" fe80::1 ")).containsExactly(expected);
+    }
+
+    @Test
+    @DisplayName("Should return IPv4-mapped IPv6 addresses as IPv4")
+    void shouldUnmapIpv4MappedAddresses() {
+        byte[] v4 = {(byte) 203, 0, 113, 7};
+
+        assertThat(IpLiterals.parse("::ffff:203.0.113.7")).containsExactly(v4);
+        assertThat(IpLiterals.parse("::ffff:cb00:7107")).containsExactly(v4);
+        assertThat(IpLiterals.parse("0:0:0:0:0:ffff:203.0.113.7")).containsExactly(v4);
+        // Not mapped: IPv4-compatible (deprecated) and NAT64 prefixes stay IPv6
+        assertThat(IpLiterals.parse("::203.0.113.7")).hasSize(16);
+        assertThat(IpLiterals.parse("64:ff9b::203.0.113.7")).hasSize(16);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", "localhost", "example.com", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1.2.3.", ".1.2.3",
+            "1..2.3", "1.2.3.0004", "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8:9", "1::2::3", ":::",
+            "12345::", "g::1", "::1.2.3", "1:2:3:4:5:6:7:1.2.3.4", "[::1"
+    })
+    @DisplayName("Should reject anything that is not an IP literal")
+    void shouldRejectNonLiterals(String text) {
+        assertThat(IpLiterals.parse(text)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject null")
+    void shouldRejectNull() {
+        assertThat(IpLiterals.parse(null)).isNull();
+    }
+}
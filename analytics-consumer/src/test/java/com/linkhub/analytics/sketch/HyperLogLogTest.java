@@ -0,0 +1,87 @@
+package com.linkhub.analytics.sketch;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Golden vectors for the sketches in {@code click_visitor_sketches_hourly}. The consumer writes
+ * them and the backend merges them, so both modules' copies of this test must keep the same
+ * vectors: a change here is a change to the stored format.
+ */
+@DisplayName("HyperLogLog Golden Vectors")
+class HyperLogLogTest {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    @ParameterizedTest
+    @CsvSource({
+            "203.0.113.7,        cb007107,                         ddbb11ae91fd1423",
+            "198.51.100.23,      c6336417,                         930b22ec74e677fc",
+            "::1,                00000000000000000000000000000001, 013009035b983099",
+            "0:0:0:0:0:0:0:1,    00000000000000000000000000000001, 013009035b983099",
+            "2001:db8::8:1,      20010db8000000000000000000080001, 5943584383da917c",
+            "FE80::1%eth0,       fe800000000000000000000000000001, 1875baf9457697fe",
+            "::ffff:203.0.113.7, 00000000000000000000ffffcb007107, eec53de6aef56925",
+            "not-an-ip,          6e6f742d616e2d6970,               5ab871942f9de53e"
+    })
+    @DisplayName("Should canonicalize and hash addresses to fixed values")
+    void shouldHashToGoldenValues(String address, String canonical, String hash) {
+        byte[] bytes = HyperLogLog.canonicalAddress(address);
+
+        assertThat(HEX.formatHex(bytes)).isEqualTo(canonical);
+        assertThat(HyperLogLog.hash(bytes)).isEqualTo(HexFormat.fromHexDigitsToLong(hash));
+    }
+
+    @Test
+    @DisplayName("Should hash empty input to the FNV-1a offset basis, finalized")
+    void shouldHashEmptyInput() {
+        assertThat(HyperLogLog.hash(new byte[0])).isEqualTo(0xa534898404290ee0L);
+    }
+
+    @Test
+    @DisplayName("Should serialize a small sketch to fixed sparse bytes")
+    void shouldSerializeSparse() {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.addAddress("203.0.113.7");
+        sketch.addAddress("2001:db8::8:1");
+        sketch.addAddress("198.51.100.23");
+
+        // 0x01, then (u16 index, u8 rank) sorted by index
+        assertThat(HEX.formatHex(sketch.toBytes())).isEqualTo("01" + "059403" + "093001" + "0ddb01");
+        assertThat(sketch.estimate()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should serialize a large sketch to fixed dense bytes")
+    void shouldSerializeDense() throws Exception {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 5_000; i++) {
+            sketch.addAddress("10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255));
+        }
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes).hasSize(HyperLogLog.REGISTERS + 1);
+        assertThat(HEX.formatHex(bytes, 0, 17)).isEqualTo("02" + "02030501020203020200030400000001");
+        assertThat(HEX.formatHex(MessageDigest.getInstance("SHA-256").digest(bytes)))
+                .isEqualTo("5d311ee990f99dfb6d0ea23e4cb3d9d825599ba1d01a7d67c2b3570e58049e2f");
+        assertThat(sketch.estimate()).isEqualTo(5_073);
+    }
+
+    @Test
+    @DisplayName("Should read stored sparse bytes back to the same registers")
+    void shouldReadSparseBytes() {
+        byte[] stored = HEX.parseHex("01" + "059403" + "093001" + "0ddb01");
+
+        HyperLogLog sketch = HyperLogLog.fromBytes(stored);
+
+        assertThat(sketch.toBytes()).containsExactly(stored);
+        assertThat(sketch.estimate()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,152 @@
+package com.linkhub.benchmark;
+
+import com.linkhub.analytics.repository.ClickEventRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rows per second into {@code click_events}: binary COPY + set-based move vs. the JDBC batch of
+ * INSERT ... ON CONFLICT DO NOTHING, at several batch sizes.
+ *
+ * <p>Runs against a bare Postgres container with the click_events table from V4 (one default
+ * partition) and a single connection, so both paths see the same indexes and round trips. That
+ * both paths store and report the same rows is checked by {@code ClickEventRepositoryTest}, which
+ * runs in every build with Docker.
+ *
+ * <p>Opt-in (slow): {@code mvn test -pl analytics-consumer -Dtest=ClickIngestBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Click Ingestion Benchmark")
+class ClickIngestBenchmarkTest {
+
+    private static final int[] BATCH_SIZES = {100, 500, 2_000};
+    private static final int ROWS_PER_MEASUREMENT = 20_000;
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int MEASURED_ROUNDS = 3;
+
+    private PostgreSQLContainer<?> postgres;
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ClickEventRepository repository;
+    private final Random random = new Random(42);
+
+    @BeforeAll
+    void startDatabase() {
+        postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:16-alpine"));
+        postgres.start();
+
+        dataSource = new SingleConnectionDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword(), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        repository = new ClickEventRepository(jdbcTemplate);
+
+        jdbcTemplate.execute("""
+                CREATE TABLE click_events (
+                    id              BIGSERIAL,
+                    event_id        UUID NOT NULL,
+                    url_id          BIGINT NOT NULL,
+                    short_code      VARCHAR(10) NOT NULL,
+                    clicked_at      TIMESTAMPTZ NOT NULL DEFAULT NOW(),
+                    ip_address      INET,
+                    user_agent      TEXT,
+                    referrer        TEXT,
+                    device_type     VARCHAR(20),
+                    browser         VARCHAR(50),
+                    os              VARCHAR(50),
+                    country         VARCHAR(100),
+                    city            VARCHAR(100),
+                    latitude        DOUBLE PRECISION,
+                    longitude       DOUBLE PRECISION,
+                    PRIMARY KEY (id, clicked_at),
+                    UNIQUE (event_id, clicked_at)
+                ) PARTITION BY RANGE (clicked_at)
+                """);
+        jdbcTemplate.execute("CREATE TABLE click_events_default PARTITION OF click_events DEFAULT");
+        jdbcTemplate.execute("CREATE INDEX idx_click_events_short_code ON click_events (short_code, clicked_at)");
+        jdbcTemplate.execute("CREATE INDEX idx_click_events_url_id ON click_events (url_id, clicked_at)");
+    }
+
+    @AfterAll
+    void stopDatabase() {
+        dataSource.destroy();
+        postgres.stop();
+    }
+
+    @Test
+    @DisplayName("COPY vs. batched INSERT, rows per second")
+    void ingestThroughput() {
+        System.out.println();
+        for (int batchSize : BATCH_SIZES) {
+            double batchRate = measure(batchSize, repository::batchInsert);
+            double copyRate = measure(batchSize, repository::copyInsert);
+            System.out.printf("Batches of %,d: batch INSERT %,.0f rows/s, COPY %,.0f rows/s (%.1fx)%n",
+                    batchSize, batchRate, copyRate, copyRate / batchRate);
+        }
+        System.out.println();
+    }
+
+    /**
+     * @return rows per second, best of the measured rounds, one transaction per batch
+     */
+    private double measure(int batchSize, Function<List<ClickEventRepository.Row>, int[]> insert) {
+        double best = 0;
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            List<List<ClickEventRepository.Row>> batches = new ArrayList<>();
+            for (int i = 0; i < ROWS_PER_MEASUREMENT / batchSize; i++) {
+                batches.add(rows(batchSize));
+            }
+
+            long start = System.nanoTime();
+            for (List<ClickEventRepository.Row> batch : batches) {
+                int[] results = transactionTemplate.execute(status -> insert.apply(batch));
+                assertThat(results).containsOnly(1);
+            }
+            double rate = (double) batches.size() * batchSize / ((System.nanoTime() - start) / 1e9);
+            if (round >= WARMUP_ROUNDS) {
+                best = Math.max(best, rate);
+            }
+        }
+        jdbcTemplate.execute("TRUNCATE click_events");
+        return best;
+    }
+
+    private List<ClickEventRepository.Row> rows(int count) {
+        Instant now = Instant.now();
+        List<ClickEventRepository.Row> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int link = random.nextInt(1_000);
+            rows.add(new ClickEventRepository.Row(
+                    UUID.randomUUID(), link, "bench" + link,
+                    now.minus(random.nextInt(30 * 24 * 60), ChronoUnit.MINUTES).plusNanos(random.nextInt(1_000_000_000)),
+                    "203.0." + random.nextInt(256) + "." + random.nextInt(256),
+                    "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36",
+                    random.nextBoolean() ? "https://news.example.com/story/" + random.nextInt(500) : null,
+                    "Desktop", "Chrome", "Windows",
+                    "Germany", "Berlin", 52.52, 13.405));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,138 @@
+package com.linkhub.benchmark;
+
+import com.linkhub.analytics.service.UserAgentParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * User-Agent parsing throughput, memoized vs. uncached ({@code useragent.cache.max-entries: 0}).
+ *
+ * <p>The workload mimics click traffic: 3,000 distinct User-Agents drawn with a Zipf(1.1)
+ * distribution, so a few hundred cover most events, plus 5% one-off strings that never repeat.
+ * Reports parses per second on one thread and on four, like the consumer's listener threads.
+ *
+ * <p>Opt-in (slow): {@code mvn test -pl analytics-consumer -Dtest=UserAgentParseBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("User-Agent Parsing Benchmark")
+class UserAgentParseBenchmarkTest {
+
+    private static final int DISTINCT_USER_AGENTS = 3_000;
+    private static final double ZIPF_EXPONENT = 1.1;
+    private static final double ONE_OFF_SHARE = 0.05;
+    private static final int EVENTS = 20_000;
+    private static final int WARMUP_ROUNDS = 1;
+    private static final int MEASURED_ROUNDS = 2;
+
+    private static final String[] TEMPLATES = {
+            "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/%d.0.%d.%d Safari/537.36",
+            "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_%d) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/%d.%d Safari/605.1.15",
+            "Mozilla/5.0 (iPhone; CPU iPhone OS %d_%d like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Mobile/15E%d",
+            "Mozilla/5.0 (Linux; Android %d; SM-G%d) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/%d.0.0.0 Mobile Safari/537.36",
+            "Mozilla/5.0 (X11; Linux x86_64; rv:%d.0) Gecko/20100101 Firefox/%d.%d",
+            "Mozilla/5.0 (iPad; CPU OS %d_%d like Mac OS X) AppleWebKit/605.1.15 (KHTML, like Gecko) Version/%d.0 Mobile/15E148 Safari/604.1",
+            "Mozilla/5.0 (compatible; Googlebot/2.%d; +http://www.google.com/bot.html) v%d.%d",
+    };
+
+    private String[] events;
+
+    @BeforeAll
+    void generateTraffic() {
+        Random random = new Random(42);
+        String[] distinct = new String[DISTINCT_USER_AGENTS];
+        for (int i = 0; i < distinct.length; i++) {
+            distinct[i] = userAgent(random, i);
+        }
+
+        // Cumulative Zipf weights for sampling by rank
+        double[] cumulative = new double[distinct.length];
+        double total = 0;
+        for (int rank = 0; rank < distinct.length; rank++) {
+            total += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = total;
+        }
+
+        events = new String[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            if (random.nextDouble() < ONE_OFF_SHARE) {
+                events[i] = userAgent(random, DISTINCT_USER_AGENTS + i);
+                continue;
+            }
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            // Fresh String per event, as Kafka deserialization produces, so hash codes are not cached
+            events[i] = new String(distinct[rank < 0 ? -rank - 1 : rank]);
+        }
+    }
+
+    @Test
+    @DisplayName("Parses per second at a realistic User-Agent distribution")
+    void parseThroughput() throws Exception {
+        UserAgentParser uncached = new UserAgentParser(new SimpleMeterRegistry(), 0);
+        UserAgentParser memoized = new UserAgentParser(new SimpleMeterRegistry(), 10_000);
+
+        System.out.println();
+        for (int threads : new int[] {1, 4}) {
+            double uncachedRate = measure(uncached, threads);
+            double memoizedRate = measure(memoized, threads);
+            System.out.printf("%d thread(s): uncached %,.0f parses/s, memoized %,.0f parses/s (%.1fx)%n",
+                    threads, uncachedRate, memoizedRate, memoizedRate / uncachedRate);
+        }
+        System.out.println();
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(memoized.parse(events[i])).isEqualTo(uncached.parse(events[i]));
+        }
+    }
+
+    /**
+     * @return parses per second, best of the measured rounds
+     */
+    private double measure(UserAgentParser parser, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            double best = 0;
+            for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+                long start = System.nanoTime();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    int offset = t;
+                    futures.add(pool.submit(() -> {
+                        for (int i = offset; i < events.length; i += threads) {
+                            parser.parse(events[i]);
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                double rate = events.length / ((System.nanoTime() - start) / 1e9);
+                if (round >= WARMUP_ROUNDS) {
+                    best = Math.max(best, rate);
+                }
+            }
+            return best;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static String userAgent(Random random, int seed) {
+        String template = TEMPLATES[seed % TEMPLATES.length];
+        return String.format(template, 60 + random.nextInt(70), random.nextInt(9999), seed, random.nextInt(200));
+    }
+}
@@ -0,0 +1,116 @@
+package com.linkhub.analytics.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.analytics.dto.DimensionRow;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis cache of dashboard aggregates for closed UTC days.
+ *
+ * <p>Key pattern: {@code analytics:dash:{shortCode}:{yyyy-MM-dd}} → JSON {@link DayBucket}.
+ *
+ * <p>A closed day's rollups only change if a late event (e.g. a DLQ replay) lands in it, so
+ * entries carry the day's click total and callers discard any entry whose total no longer
+ * matches the rollups. The TTL only bounds memory. When Redis is down every read is a miss
+ * and writes are skipped.
+ */
+@Service
+public class DashboardBucketCache {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardBucketCache.class);
+
+    private static final String KEY_PREFIX = "analytics:dash:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${analytics.cache.day-bucket-ttl:7d}")
+    private Duration ttl;
+
+    public DashboardBucketCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Cached buckets for the given days; missing or unreadable entries are left out.
+     */
+    @CircuitBreaker(name = "redisCache", fallbackMethod = "getDaysFallback")
+    public Map<LocalDate, DayBucket> getDays(String shortCode, List<LocalDate> days) {
+        if (days.isEmpty()) {
+            return Map.of();
+        }
+
+        List<String> values = redisTemplate.opsForValue().multiGet(days.stream().map(d -> key(shortCode, d)).toList());
+        Map<LocalDate, DayBucket> buckets = new HashMap<>();
+        for (int i = 0; i < days.size(); i++) {
+            String json = values != null ? values.get(i) : null;
+            if (json == null) {
+                continue;
+            }
+            try {
+                buckets.put(days.get(i), objectMapper.readValue(json, DayBucket.class));
+            } catch (JsonProcessingException e) {
+                log.warn("Discarding unreadable dashboard bucket {}: {}", key(shortCode, days.get(i)), e.getMessage());
+            }
+        }
+        return buckets;
+    }
+
+    @SuppressWarnings("unused")
+    private Map<LocalDate, DayBucket> getDaysFallback(String shortCode, List<LocalDate> days, Throwable t) {
+        log.warn("Circuit breaker OPEN — dashboard bucket cache miss for shortCode={}: {}", shortCode, t.getMessage());
+        return Map.of();
+    }
+
+    /**
+     * Store day buckets in a single pipelined round trip.
+     */
+    @CircuitBreaker(name = "redisCache", fallbackMethod = "putDaysFallback")
+    public void putDays(String shortCode, Map<LocalDate, DayBucket> buckets) {
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        long ttlSeconds = ttl.toSeconds();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            buckets.forEach((day, bucket) -> {
+                try {
+                    conn.setEx(key(shortCode, day), ttlSeconds, objectMapper.writeValueAsString(bucket));
+                } catch (JsonProcessingException e) {
+                    log.error("Failed to serialize dashboard bucket for cache: {}", e.getMessage());
+                }
+            });
+            return null;
+        });
+    }
+
+    @SuppressWarnings("unused")
+    private void putDaysFallback(String shortCode, Map<LocalDate, DayBucket> buckets, Throwable t) {
+        log.warn("Circuit breaker OPEN — skipping dashboard bucket write for shortCode={}: {}", shortCode, t.getMessage());
+    }
+
+    private static String key(String shortCode, LocalDate day) {
+        return KEY_PREFIX + shortCode + ":" + day;
+    }
+
+    /**
+     * One closed day: its click total and all dashboard rows, with hourly labels on 'total' rows.
+     */
+    public record DayBucket(long clicks, List<DimensionRow> rows) {}
+}
@@ -2,15 +2,28 @@ package com.linkhub.analytics.controller;
 
 import com.linkhub.analytics.dto.*;
 import com.linkhub.analytics.service.AnalyticsService;
+import com.linkhub.common.dto.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/analytics")
@@ -18,9 +31,145 @@ import java.util.List;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final Duration exportTimeout;
 
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService,
+                               @Value("${analytics.export.timeout:2h}") Duration exportTimeout) {
         this.analyticsService = analyticsService;
+        this.exportTimeout = exportTimeout;
+    }
+
+    @GetMapping("/trending")
+    @Operation(summary = "Trending links",
+            description = "Your most-clicked links over a sliding window (5m, 1h or 24h), refreshed every few "
+                    + "seconds. Counts are top-K sketch estimates with an error bound.")
+    public ResponseEntity<TrendingLinks> getTrending(
+            @Parameter(description = "5m, 1h (default) or 24h") @RequestParam(required = false) String window,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(analyticsService.getTrending(userId, window, limit));
+    }
+
+    @GetMapping("/trending/global")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Global trending links (admin)",
+            description = "Most-clicked links across all accounts over a sliding window (5m, 1h or 24h).")
+    public ResponseEntity<TrendingLinks> getGlobalTrending(
+            @Parameter(description = "5m, 1h (default) or 24h") @RequestParam(required = false) String window,
+            @RequestParam(defaultValue = "10") int limit
+    ) {
+        return ResponseEntity.ok(analyticsService.getGlobalTrending(window, limit));
+    }
+
+    @GetMapping("/account/summary")
+    @Operation(summary = "Account click summary",
+            description = "Clicks across all of your links, active links and the top 10 links. Served from "
+                    + "per-account hourly rollups; the range is widened to whole UTC hours.")
+    public ResponseEntity<AccountSummary> getAccountSummary(
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(analyticsService.getAccountSummary(userId, days, from, to));
+    }
+
+    @GetMapping("/account/timeseries")
+    @Operation(summary = "Account click timeseries", description = "Clicks over time across all of your links")
+    public ResponseEntity<List<TimeseriesPoint>> getAccountTimeseries(
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "day") String granularity,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(analyticsService.getAccountTimeseries(userId, days, from, to, granularity));
+    }
+
+    @GetMapping("/account/referrers")
+    @Operation(summary = "Account top referrers", description = "Top traffic sources across all of your links")
+    public ResponseEntity<List<ReferrerStats>> getAccountReferrers(
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "10") Integer limit,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(analyticsService.getAccountReferrers(userId, days, from, to, limit));
+    }
+
+    @GetMapping("/account/devices")
+    @Operation(summary = "Account device breakdown", description = "Device type, browser and OS across all of your links")
+    public ResponseEntity<DeviceStats> getAccountDevices(
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(analyticsService.getAccountDeviceStats(userId, days, from, to));
+    }
+
+    @GetMapping("/account/geo")
+    @Operation(summary = "Account geographic breakdown", description = "Countries and cities across all of your links")
+    public ResponseEntity<GeoStats> getAccountGeo(
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "20") Integer limit,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(analyticsService.getAccountGeoStats(userId, days, from, to, limit));
+    }
+
+    @GetMapping("/{shortCode}/dashboard")
+    @Operation(summary = "Dashboard",
+            description = "Summary, timeseries, referrers, devices and geo for a URL in a single response. "
+                    + "Responses carry an ETag; a matching If-None-Match gets 304 without recomputing.")
+    public ResponseEntity<DashboardStats> getDashboard(
+            @PathVariable String shortCode,
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @RequestParam(defaultValue = "day") String granularity,
+            @Parameter(description = "true = exact COUNT(DISTINCT), false = HyperLogLog estimate; default picks by range size")
+            @RequestParam(required = false) Boolean exact,
+            Authentication authentication,
+            WebRequest webRequest
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        AnalyticsService.PreparedDashboard dashboard =
+                analyticsService.prepareDashboard(shortCode, userId, days, from, to, granularity, exact);
+        if (webRequest.checkNotModified(dashboard.etag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(dashboard.etag())
+                .body(dashboard.load());
+    }
+
+    @GetMapping("/summaries")
+    @Operation(summary = "Click summaries for several links",
+            description = "Summaries for up to 100 of your links in one request, in the order given, e.g. for "
+                    + "a page of the link list. Fails with 404 if any link is not yours.")
+    public ResponseEntity<List<ClickStats>> getClickSummaries(
+            @Parameter(description = "Short codes, comma-separated or repeated") @RequestParam List<String> shortCodes,
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @Parameter(description = "true = exact COUNT(DISTINCT), false = HyperLogLog estimate; default picks by range size")
+            @RequestParam(required = false) Boolean exact,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(analyticsService.getClickSummaries(shortCodes, userId, days, from, to, exact));
     }
 
     @GetMapping("/{shortCode}/summary")
@@ -30,10 +179,12 @@ public class AnalyticsController {
             @RequestParam(required = false) Integer days,
             @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
             @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @Parameter(description = "true = exact COUNT(DISTINCT), false = HyperLogLog estimate; default picks by range size")
+            @RequestParam(required = false) Boolean exact,
             Authentication authentication
     ) {
         Long userId = (Long) authentication.getPrincipal();
-        ClickStats stats = analyticsService.getClickSummary(shortCode, userId, days, from, to);
+        ClickStats stats = analyticsService.getClickSummary(shortCode, userId, days, from, to, exact);
         return ResponseEntity.ok(stats);
     }
 
@@ -56,6 +207,77 @@ public class AnalyticsController {
         return ResponseEntity.ok(result);
     }
 
+    @GetMapping(value = "/{shortCode}/clicks", params = "cursor")
+    @Operation(summary = "Scroll click events",
+            description = "Keyset-paginated click events, newest first. Pass an empty cursor for the first page, "
+                    + "then the returned nextCursor. The total is only counted when includeTotal=true.")
+    public ResponseEntity<CursorPage<ClickEventDto>> scrollClicks(
+            @PathVariable String shortCode,
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        int pageSize = Math.max(1, Math.min(limit, 200));
+        CursorPage<ClickEventDto> result = analyticsService.scrollClickEvents(
+                shortCode, userId, days, from, to, cursor, pageSize, includeTotal);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/{shortCode}/clicks/export")
+    @Operation(summary = "Export click events",
+            description = "Stream all click events in the range as NDJSON or CSV, ordered by (clickedAt, eventId). "
+                    + "Gzipped when the client accepts it. Resume a cut-off download with the last row's "
+                    + "clickedAt and eventId.")
+    public ResponseEntity<StreamingResponseBody> exportClicks(
+            @PathVariable String shortCode,
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @Parameter(description = "ndjson (default) or csv") @RequestParam(required = false) String format,
+            @Parameter(description = "Resume after this row: its clickedAt") @RequestParam(required = false) Instant afterClickedAt,
+            @Parameter(description = "Resume after this row: its eventId") @RequestParam(required = false) UUID afterEventId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            Authentication authentication,
+            WebRequest webRequest
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+
+        StreamingResponseBody body = analyticsService.exportClicks(
+                shortCode, userId, days, from, to, afterClickedAt, afterEventId, exportFormat, gzip);
+        // A large export streams for a long time; only this request gets the long async timeout
+        WebAsyncUtils.getAsyncManager(webRequest).getAsyncWebRequest().setTimeout(exportTimeout.toMillis());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"clicks-" + shortCode + "." + exportFormat.extension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    @GetMapping(value = "/{shortCode}/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Live click stream",
+            description = "Server-Sent Events: a 'ready' event, then once a second a 'clicks' event with per-second "
+                    + "counts and the most recent clicks since the previous event. Idle streams get a heartbeat "
+                    + "comment every 15 seconds. Clients that fall behind are disconnected and should reconnect.")
+    public SseEmitter streamLiveClicks(
+            @PathVariable String shortCode,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return analyticsService.openLiveStream(shortCode, userId);
+    }
+
     @GetMapping("/{shortCode}/timeseries")
     @Operation(summary = "Click timeseries", description = "Get clicks over time (daily or hourly)")
     public ResponseEntity<List<TimeseriesPoint>> getTimeseries(
@@ -80,11 +302,13 @@ public class AnalyticsController {
             @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
             @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
             @RequestParam(defaultValue = "10") Integer limit,
+            @Parameter(description = "true = estimate from sampled hours (with errorBound), false = exact; default picks by range size")
+            @RequestParam(required = false) Boolean approx,
             Authentication authentication
     ) {
         Long userId = (Long) authentication.getPrincipal();
         List<ReferrerStats> referrers = analyticsService.getTopReferrers(
-                shortCode, userId, days, from, to, limit);
+                shortCode, userId, days, from, to, limit, approx);
         return ResponseEntity.ok(referrers);
     }
 
@@ -95,10 +319,12 @@ public class AnalyticsController {
             @RequestParam(required = false) Integer days,
             @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
             @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            @Parameter(description = "true = estimate from sampled hours (with errorBound), false = exact; default picks by range size")
+            @RequestParam(required = false) Boolean approx,
             Authentication authentication
     ) {
         Long userId = (Long) authentication.getPrincipal();
-        DeviceStats stats = analyticsService.getDeviceStats(shortCode, userId, days, from, to);
+        DeviceStats stats = analyticsService.getDeviceStats(shortCode, userId, days, from, to, approx);
         return ResponseEntity.ok(stats);
     }
 
@@ -110,10 +336,35 @@ public class AnalyticsController {
             @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
             @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
             @RequestParam(defaultValue = "20") Integer limit,
+            @Parameter(description = "true = estimate from sampled hours (with errorBound), false = exact; default picks by range size")
+            @RequestParam(required = false) Boolean approx,
             Authentication authentication
     ) {
         Long userId = (Long) authentication.getPrincipal();
-        GeoStats stats = analyticsService.getGeoStats(shortCode, userId, days, from, to, limit);
+        GeoStats stats = analyticsService.getGeoStats(shortCode, userId, days, from, to, limit, approx);
         return ResponseEntity.ok(stats);
     }
+
+    @GetMapping("/{shortCode}/map")
+    @Operation(summary = "Click map",
+            description = "Clicks per geohash cell inside a bounding box, over whole UTC days. "
+                    + "minLng > maxLng means the box crosses the antimeridian.")
+    public ResponseEntity<ClickMap> getMap(
+            @PathVariable String shortCode,
+            @RequestParam double minLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLat,
+            @RequestParam double maxLng,
+            @Parameter(description = "Geohash length, 2 (~1250 km) to 6 (~1.2 km); default is the finest "
+                    + "at which the box is at most 1024 cells")
+            @RequestParam(required = false) Integer precision,
+            @RequestParam(required = false) Integer days,
+            @Parameter(description = "Start of time range (ISO-8601)") @RequestParam(required = false) Instant from,
+            @Parameter(description = "End of time range (ISO-8601)") @RequestParam(required = false) Instant to,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(analyticsService.getClickMap(
+                shortCode, userId, minLat, minLng, maxLat, maxLng, precision, days, from, to));
+    }
 }
@@ -0,0 +1,73 @@
+package com.linkhub.analytics.controller;
+
+import com.linkhub.analytics.dto.ReportJobRequest;
+import com.linkhub.analytics.dto.ReportJobResponse;
+import com.linkhub.analytics.model.ReportJob;
+import com.linkhub.analytics.service.ReportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/analytics/reports")
+@Tag(name = "Analytics Reports", description = "Asynchronous, cached analytics reports for large ranges")
+public class ReportJobController {
+
+    /** Seconds a client should wait before polling an unfinished job again. */
+    private static final String POLL_INTERVAL_SECONDS = "2";
+
+    private final ReportJobService reportJobService;
+
+    public ReportJobController(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    @PostMapping
+    @Operation(summary = "Submit report",
+            description = "Queue a summary, timeseries, referrers, devices, geo or dashboard report for a link. "
+                    + "Returns 202 with a job to poll; an identical earlier report is returned instead when reusable.")
+    public ResponseEntity<ReportJobResponse> submit(
+            @Valid @RequestBody ReportJobRequest request,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reportJobService.submit(request, userId));
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get report status", description = "Status and timings of a report job")
+    public ResponseEntity<ReportJobResponse> getJob(
+            @PathVariable Long jobId,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(ReportJobResponse.from(reportJobService.getJob(jobId, userId), false));
+    }
+
+    @GetMapping("/{jobId}/result")
+    @Operation(summary = "Get report result",
+            description = "200 with the report JSON once completed (same shape as the interactive endpoint); "
+                    + "202 with the job and Retry-After while queued or running; 409 with the job if it failed")
+    public ResponseEntity<?> getResult(
+            @PathVariable Long jobId,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        ReportJob job = reportJobService.getJob(jobId, userId);
+        return switch (job.getStatus()) {
+            case COMPLETED -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(job.getResult());
+            case FAILED -> ResponseEntity.status(HttpStatus.CONFLICT).body(ReportJobResponse.from(job, false));
+            default -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.RETRY_AFTER, POLL_INTERVAL_SECONDS)
+                    .body(ReportJobResponse.from(job, false));
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.linkhub.analytics.cube;
+
+import com.linkhub.analytics.dto.DimensionRow;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges segment aggregates into {@link DimensionRow}s shaped like the database's dashboard
+ * aggregates: 'total' rows are labelled with their hour or day, the rest with ''.
+ */
+final class Aggregation {
+
+    private static final DateTimeFormatter HOUR_LABEL =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DAY_LABEL =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC);
+
+    private final boolean hourly;
+    private final Map<List<String>, long[]> counts = new HashMap<>();
+    private final Map<List<String>, double[]> coordinates = new HashMap<>();
+
+    Aggregation(boolean hourly) {
+        this.hourly = hourly;
+    }
+
+    void addTotal(long hour, long clicks) {
+        Instant bucket = Instant.ofEpochSecond(hour * 3600);
+        String label = (hourly ? HOUR_LABEL : DAY_LABEL).format(bucket);
+        add(List.of("total", label, "", ""), clicks, 0, 0, 0);
+    }
+
+    void addCounts(String dimension, ColumnSegment.Dictionary dictionary, long[] codeCounts) {
+        for (int code = 0; code < codeCounts.length; code++) {
+            if (codeCounts[code] > 0) {
+                add(List.of(dimension, "", dictionary.value(code), ""), codeCounts[code], 0, 0, 0);
+            }
+        }
+    }
+
+    void addCity(String city, String country, long clicks, double latSum, double lngSum, long geoClicks) {
+        add(List.of("city", "", city, country), clicks, latSum, lngSum, geoClicks);
+    }
+
+    List<DimensionRow> rows() {
+        List<DimensionRow> rows = new ArrayList<>(counts.size());
+        for (Map.Entry<List<String>, long[]> e : counts.entrySet()) {
+            List<String> key = e.getKey();
+            double[] sums = coordinates.getOrDefault(key, new double[2]);
+            rows.add(new DimensionRow(key.get(0), key.get(1), key.get(2), key.get(3),
+                    e.getValue()[0], sums[0], sums[1], e.getValue()[1]));
+        }
+        return rows;
+    }
+
+    private void add(List<String> key, long clicks, double latSum, double lngSum, long geoClicks) {
+        long[] c = counts.computeIfAbsent(key, k -> new long[2]);
+        c[0] += clicks;
+        c[1] += geoClicks;
+        if (geoClicks > 0) {
+            double[] sums = coordinates.computeIfAbsent(key, k -> new double[2]);
+            sums[0] += latSum;
+            sums[1] += lngSum;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.linkhub.analytics.cube;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Up to {@value #CAPACITY} clicks of one link within one UTC hour, stored column-wise.
+ *
+ * <p>Each dimension is a {@code char[]} of codes into the segment's own dictionary, so a segment
+ * never holds more distinct values than fit in 16 bits. Click times are kept to the microsecond
+ * (Postgres precision), so range filters match the database exactly. Coordinates are
+ * dictionary-encoded as pairs, with code 0 meaning "no coordinates".
+ *
+ * <p>Values are normalized on append exactly like the rollups and raw-scan queries report them.
+ * Not thread-safe; {@link LinkCube} guards access.
+ */
+final class ColumnSegment {
+
+    static final int CAPACITY = (1 << 16) - 1;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_REFERRER_LENGTH = 500;
+
+    /** Bytes per row across the time column and the seven code columns. */
+    static final int ROW_BYTES = Long.BYTES + 7 * Character.BYTES;
+
+    private final long hour;
+    private int size;
+
+    private long[] micros = new long[INITIAL_CAPACITY];
+    private char[] referrer = new char[INITIAL_CAPACITY];
+    private char[] device = new char[INITIAL_CAPACITY];
+    private char[] browser = new char[INITIAL_CAPACITY];
+    private char[] os = new char[INITIAL_CAPACITY];
+    private char[] country = new char[INITIAL_CAPACITY];
+    private char[] city = new char[INITIAL_CAPACITY];
+    private char[] geo = new char[INITIAL_CAPACITY];
+
+    private final Dictionary referrers = new Dictionary();
+    private final Dictionary devices = new Dictionary();
+    private final Dictionary browsers = new Dictionary();
+    private final Dictionary systems = new Dictionary();
+    private final Dictionary countries = new Dictionary();
+    private final Dictionary cities = new Dictionary();
+    private final Map<Long, Character> coordinateCodes = new HashMap<>();
+    private double[] latitudes = new double[16];
+    private double[] longitudes = new double[16];
+    private int coordinateCount = 1;
+
+    private long dictionaryBytes;
+
+    /**
+     * @param hour hours since the epoch (UTC) that every click in this segment falls in
+     */
+    ColumnSegment(long hour) {
+        this.hour = hour;
+    }
+
+    long hour() {
+        return hour;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    /**
+     * Approximate heap held by the column arrays (at their current capacity) and dictionaries.
+     */
+    long estimatedBytes() {
+        return (long) micros.length * ROW_BYTES + dictionaryBytes + coordinateCount * 64L;
+    }
+
+    void append(long clickedAtMicros, String referrerValue, String deviceType, String browserName,
+                String osName, String countryName, String cityName, Double latitude, Double longitude) {
+        if (size == micros.length) {
+            grow();
+        }
+        String ref = referrerValue != null ? referrerValue : "Direct";
+        if (ref.length() > MAX_REFERRER_LENGTH) {
+            ref = ref.substring(0, MAX_REFERRER_LENGTH);
+        }
+
+        micros[size] = clickedAtMicros;
+        referrer[size] = encode(referrers, ref);
+        device[size] = encode(devices, orUnknown(deviceType));
+        browser[size] = encode(browsers, orUnknown(browserName));
+        os[size] = encode(systems, orUnknown(osName));
+        country[size] = encode(countries, orUnknown(countryName));
+        city[size] = encode(cities, orUnknown(cityName));
+        geo[size] = latitude != null && longitude != null ? encodeCoordinates(latitude, longitude) : 0;
+        size++;
+    }
+
+    /**
+     * Add the clicks with {@code lo <= clickedAt <= hi} (microseconds) to {@code out}.
+     */
+    void aggregate(long lo, long hi, Aggregation out) {
+        int n = size;
+        long[] refCounts = new long[referrers.size()];
+        long[] deviceCounts = new long[devices.size()];
+        long[] browserCounts = new long[browsers.size()];
+        long[] osCounts = new long[systems.size()];
+        long[] countryCounts = new long[countries.size()];
+        Map<Integer, CityAccumulator> cityCounts = new HashMap<>();
+
+        long clicks = 0;
+        for (int i = 0; i < n; i++) {
+            long t = micros[i];
+            if (t < lo || t > hi) {
+                continue;
+            }
+            clicks++;
+            refCounts[referrer[i]]++;
+            deviceCounts[device[i]]++;
+            browserCounts[browser[i]]++;
+            osCounts[os[i]]++;
+            countryCounts[country[i]]++;
+
+            CityAccumulator acc = cityCounts.computeIfAbsent((city[i] << 16) | country[i], k -> new CityAccumulator());
+            acc.clicks++;
+            char g = geo[i];
+            if (g != 0) {
+                acc.latSum += latitudes[g];
+                acc.lngSum += longitudes[g];
+                acc.geoClicks++;
+            }
+        }
+        if (clicks == 0) {
+            return;
+        }
+
+        out.addTotal(hour, clicks);
+        out.addCounts("referrer", referrers, refCounts);
+        out.addCounts("device", devices, deviceCounts);
+        out.addCounts("browser", browsers, browserCounts);
+        out.addCounts("os", systems, osCounts);
+        out.addCounts("country", countries, countryCounts);
+        for (Map.Entry<Integer, CityAccumulator> e : cityCounts.entrySet()) {
+            CityAccumulator acc = e.getValue();
+            out.addCity(cities.value(e.getKey() >>> 16), countries.value(e.getKey() & 0xFFFF),
+                    acc.clicks, acc.latSum, acc.lngSum, acc.geoClicks);
+        }
+    }
+
+    private char encode(Dictionary dictionary, String value) {
+        int before = dictionary.size();
+        char code = dictionary.encode(value);
+        if (dictionary.size() != before) {
+            dictionaryBytes += Dictionary.ENTRY_OVERHEAD_BYTES + 2L * value.length();
+        }
+        return code;
+    }
+
+    private char encodeCoordinates(double latitude, double longitude) {
+        long key = Double.doubleToLongBits(latitude) * 31 + Double.doubleToLongBits(longitude);
+        Character code = coordinateCodes.get(key);
+        if (code != null && latitudes[code] == latitude && longitudes[code] == longitude) {
+            return code;
+        }
+        if (coordinateCount == latitudes.length) {
+            latitudes = Arrays.copyOf(latitudes, latitudes.length * 2);
+            longitudes = Arrays.copyOf(longitudes, longitudes.length * 2);
+        }
+        char newCode = (char) coordinateCount++;
+        latitudes[newCode] = latitude;
+        longitudes[newCode] = longitude;
+        coordinateCodes.put(key, newCode);
+        return newCode;
+    }
+
+    private void grow() {
+        int capacity = Math.min(CAPACITY, micros.length * 2);
+        micros = Arrays.copyOf(micros, capacity);
+        referrer = Arrays.copyOf(referrer, capacity);
+        device = Arrays.copyOf(device, capacity);
+        browser = Arrays.copyOf(browser, capacity);
+        os = Arrays.copyOf(os, capacity);
+        country = Arrays.copyOf(country, capacity);
+        city = Arrays.copyOf(city, capacity);
+        geo = Arrays.copyOf(geo, capacity);
+    }
+
+    private static String orUnknown(String value) {
+        return value != null ? value : "Unknown";
+    }
+
+    private static final class CityAccumulator {
+        long clicks;
+        double latSum;
+        double lngSum;
+        long geoClicks;
+    }
+
+    /**
+     * Per-segment string dictionary. At most {@link #CAPACITY} rows means at most that many
+     * distinct values, so codes always fit a {@code char}.
+     */
+    static final class Dictionary {
+
+        static final int ENTRY_OVERHEAD_BYTES = 96;
+
+        private final Map<String, Character> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        char encode(String value) {
+            Character code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            char newCode = (char) values.size();
+            codes.put(value, newCode);
+            values.add(value);
+            return newCode;
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
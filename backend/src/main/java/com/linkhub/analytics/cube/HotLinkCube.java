@@ -0,0 +1,392 @@
+package com.linkhub.analytics.cube;
+
+import com.linkhub.analytics.dto.DimensionRow;
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+import com.linkhub.analytics.repository.ClickEventRepository;
+import com.linkhub.analytics.repository.ClickWindowRepository;
+import com.linkhub.analytics.tail.ClickTailListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory columnar store of the last {@code analytics.cube.window-hours} hours of clicks for the
+ * links whose analytics are being viewed the most.
+ *
+ * <p>A link is admitted after {@code admit-after-views} analytics reads within {@code view-window}.
+ * Its recent clicks are loaded from click_events on {@code cubeLoadExecutor}, and from then on it is
+ * kept current from this pod's {@link com.linkhub.analytics.tail.ClickTail}. Breakdowns over the
+ * covered hours are then computed from {@link ColumnSegment}s instead of the database.
+ *
+ * <p>Before every read the link's hourly counts are checked against the rollups: hours that have
+ * settled must match exactly, and the open hour may only trail the rollups while the tail is
+ * still delivering. Anything else is a miss, served from the database, and a link that keeps
+ * disagreeing is dropped. So a lost or duplicated tail message costs speed, never correctness.
+ *
+ * <p>Memory is bounded by {@code max-links}, {@code max-bytes} (least recently viewed links go
+ * first) and {@code max-rows-per-link} (bigger links are never admitted). Links nobody has
+ * viewed for {@code idle-timeout} are dropped, and hours slide out of the window every minute.
+ */
+@Component
+public class HotLinkCube implements ClickTailListener {
+
+    private static final Logger log = LoggerFactory.getLogger(HotLinkCube.class);
+
+    private static final long MICROS_PER_HOUR = 3_600_000_000L;
+    /** Loaded clicks this recent may also be waiting in the tail; older ones are not deduplicated. */
+    private static final Duration LOAD_OVERLAP = Duration.ofMinutes(10);
+    /** An hour counts as settled this long after it ends. */
+    private static final Duration SETTLE_DELAY = Duration.ofMinutes(1);
+    /** A tail silent for this long is not expected to catch up on its own. */
+    private static final Duration TAIL_QUIET_AFTER = Duration.ofSeconds(30);
+    /** Time for a freshly assigned tail to resolve its start offsets before links are admitted. */
+    private static final Duration TAIL_WARMUP = Duration.ofSeconds(5);
+    private static final Duration REJECT_COOLDOWN = Duration.ofMinutes(10);
+    private static final int MAX_STRIKES = 3;
+    private static final int MAX_CANDIDATES = 10_000;
+
+    private final ClickEventRepository clickEventRepository;
+    private final ClickWindowRepository clickWindowRepository;
+    private final ThreadPoolTaskExecutor loadExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LinkCube> links = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> strikes = new ConcurrentHashMap<>();
+    private final Map<String, ViewWindow> candidates = new ConcurrentHashMap<>();
+    private final Map<String, Long> rejectedUntilNanos = new ConcurrentHashMap<>();
+
+    private volatile long tailReadyNanos;
+    private volatile long lastTailBatchNanos;
+
+    @Value("${analytics.cube.enabled:true}")
+    private boolean enabled;
+
+    @Value("${analytics.cube.window-hours:6}")
+    private int windowHours;
+
+    @Value("${analytics.cube.admit-after-views:3}")
+    private int admitAfterViews;
+
+    @Value("${analytics.cube.view-window:10m}")
+    private Duration viewWindow;
+
+    @Value("${analytics.cube.idle-timeout:30m}")
+    private Duration idleTimeout;
+
+    @Value("${analytics.cube.max-links:50}")
+    private int maxLinks;
+
+    @Value("${analytics.cube.max-bytes:256MB}")
+    private DataSize maxBytes;
+
+    @Value("${analytics.cube.max-rows-per-link:2000000}")
+    private int maxRowsPerLink;
+
+    @Value("${analytics.cube.max-pending:100000}")
+    private int maxPending;
+
+    public HotLinkCube(ClickEventRepository clickEventRepository,
+                       ClickWindowRepository clickWindowRepository,
+                       @Qualifier("cubeLoadExecutor") ThreadPoolTaskExecutor loadExecutor,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry) {
+        this.clickEventRepository = clickEventRepository;
+        this.clickWindowRepository = clickWindowRepository;
+        this.loadExecutor = loadExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.lastTailBatchNanos = System.nanoTime() - TAIL_QUIET_AFTER.toNanos();
+
+        Gauge.builder("analytics.cube.links", links, Map::size)
+                .description("Links held in the hot-link cube")
+                .register(meterRegistry);
+        Gauge.builder("analytics.cube.rows", this, cube -> cube.links.values().stream().mapToLong(LinkCube::rows).sum())
+                .description("Clicks held in the hot-link cube")
+                .register(meterRegistry);
+        Gauge.builder("analytics.cube.bytes", this, HotLinkCube::estimatedBytes)
+                .description("Approximate heap used by the hot-link cube")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // ────────── Reads ──────────
+
+    /**
+     * Start of this link's coverage if the cube can serve it, counting the call as a view of the
+     * link towards admission. Coverage always starts on an hour boundary.
+     */
+    public Optional<Instant> coverage(String shortCode) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        LinkCube cube = links.get(shortCode);
+        if (cube == null) {
+            recordCandidateView(shortCode);
+            return Optional.empty();
+        }
+        cube.touch();
+        return Optional.ofNullable(cube.coveredFrom());
+    }
+
+    /**
+     * Dashboard-shaped aggregates (see {@link DimensionRow}) of this link's clicks in
+     * {@code [from, to]}, where {@code from} is at or after the link's coverage. Empty when the
+     * link is not held or does not currently agree with the rollups.
+     */
+    public Optional<List<DimensionRow>> read(String shortCode, Instant from, Instant to, boolean hourly) {
+        LinkCube cube = links.get(shortCode);
+        Instant coveredFrom = cube != null ? cube.coveredFrom() : null;
+        if (coveredFrom == null || from.isBefore(coveredFrom)) {
+            countRead("miss");
+            return Optional.empty();
+        }
+
+        long lo = ceilMicros(from);
+        long hi = LinkCube.toMicros(to);
+        Map<Long, Long> expected = new HashMap<>();
+        for (Object[] row : clickEventRepository.getHourlyClickTotals(shortCode, coveredFrom,
+                Instant.ofEpochSecond((Math.floorDiv(hi, MICROS_PER_HOUR) + 1) * 3600))) {
+            expected.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+
+        long nowMicros = LinkCube.toMicros(Instant.now());
+        long settledBeforeHour = Math.floorDiv(nowMicros - SETTLE_DELAY.toNanos() / 1000, MICROS_PER_HOUR);
+        boolean tailQuiet = System.nanoTime() - lastTailBatchNanos > TAIL_QUIET_AFTER.toNanos();
+
+        LinkCube.Read read = cube.read(lo, hi, hourly, expected, settledBeforeHour, tailQuiet);
+        switch (read.check()) {
+            case CONSISTENT -> {
+                strikes.remove(shortCode);
+                countRead("hit");
+                return Optional.of(read.rows());
+            }
+            case LAGGING -> countRead("lagging");
+            case DIVERGED -> {
+                countRead("diverged");
+                if (strikes.computeIfAbsent(shortCode, k -> new AtomicInteger()).incrementAndGet() >= MAX_STRIKES) {
+                    evict(shortCode, "diverged");
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether the link is loaded and serving reads.
+     */
+    public boolean isReady(String shortCode) {
+        LinkCube cube = links.get(shortCode);
+        return cube != null && cube.isReady();
+    }
+
+    // ────────── Tail ──────────
+
+    @Override
+    public void onTailReady() {
+        tailReadyNanos = System.nanoTime();
+        // Clicks published while the tail was unassigned were never seen
+        if (!links.isEmpty()) {
+            log.info("Click tail reassigned; dropping {} cubed links", links.size());
+            for (String shortCode : List.copyOf(links.keySet())) {
+                evict(shortCode, "tail-reassigned");
+            }
+        }
+    }
+
+    @Override
+    public void onClicks(List<EnrichedClickMessage> clicks) {
+        lastTailBatchNanos = System.nanoTime();
+        if (links.isEmpty()) {
+            return;
+        }
+        for (EnrichedClickMessage click : clicks) {
+            LinkCube cube = links.get(click.shortCode());
+            if (cube != null && !cube.offer(click, maxPending)) {
+                evict(click.shortCode(), "load-backlog");
+            }
+        }
+    }
+
+    // ────────── Admission and loading ──────────
+
+    private void recordCandidateView(String shortCode) {
+        long now = System.nanoTime();
+        Long rejectedUntil = rejectedUntilNanos.get(shortCode);
+        if (rejectedUntil != null && now - rejectedUntil < 0) {
+            return;
+        }
+        if (candidates.size() >= MAX_CANDIDATES && !candidates.containsKey(shortCode)) {
+            return;
+        }
+        ViewWindow window = candidates.compute(shortCode, (k, w) ->
+                w == null || now - w.startNanos > viewWindow.toNanos() ? new ViewWindow(now) : w.increment());
+        if (window.views >= admitAfterViews) {
+            candidates.remove(shortCode);
+            admit(shortCode);
+        }
+    }
+
+    private void admit(String shortCode) {
+        if (tailReadyNanos == 0 || System.nanoTime() - tailReadyNanos < TAIL_WARMUP.toNanos()) {
+            return;
+        }
+        if (links.size() >= maxLinks) {
+            evictLeastRecentlyViewed("max-links");
+        }
+
+        LinkCube cube = new LinkCube(shortCode);
+        if (links.putIfAbsent(shortCode, cube) != null) {
+            return;
+        }
+        try {
+            loadExecutor.execute(() -> load(cube));
+        } catch (TaskRejectedException e) {
+            links.remove(shortCode, cube);
+        }
+    }
+
+    private void load(LinkCube cube) {
+        String shortCode = cube.shortCode();
+        long start = System.nanoTime();
+        long fromHour = currentHour() - (windowHours - 1);
+        Instant recentFrom = Instant.now().minus(LOAD_OVERLAP);
+
+        TreeMap<Long, List<ColumnSegment>> loaded = new TreeMap<>();
+        Set<UUID> recentIds = new HashSet<>();
+        int[] rows = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> clickWindowRepository.streamSince(
+                    shortCode, Instant.ofEpochSecond(fromHour * 3600), maxRowsPerLink + 1, click -> {
+                        if (++rows[0] > maxRowsPerLink) {
+                            return;
+                        }
+                        LinkCube.append(loaded, LinkCube.toMicros(click.clickedAt()), click);
+                        if (!click.clickedAt().isBefore(recentFrom)) {
+                            recentIds.add(click.eventId());
+                        }
+                    }));
+        } catch (RuntimeException e) {
+            log.warn("Failed to load shortCode={} into the cube: {}", shortCode, e.getMessage());
+            reject(shortCode, cube, "load-failed");
+            return;
+        }
+        if (rows[0] > maxRowsPerLink) {
+            log.info("Not cubing shortCode={}: more than {} clicks in the window", shortCode, maxRowsPerLink);
+            reject(shortCode, cube, "too-large");
+            return;
+        }
+        if (links.get(shortCode) != cube) {
+            return;
+        }
+
+        cube.install(fromHour, loaded, recentIds);
+        meterRegistry.counter("analytics.cube.loads", "result", "loaded").increment();
+        log.info("Cubed shortCode={}: {} clicks, ~{} KB in {} ms", shortCode, rows[0],
+                LinkCube.estimatedBytes(loaded) / 1024, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        enforceMemoryLimit();
+    }
+
+    private void reject(String shortCode, LinkCube cube, String reason) {
+        links.remove(shortCode, cube);
+        rejectedUntilNanos.put(shortCode, System.nanoTime() + REJECT_COOLDOWN.toNanos());
+        meterRegistry.counter("analytics.cube.loads", "result", reason).increment();
+    }
+
+    // ────────── Maintenance ──────────
+
+    /**
+     * Slide every link's window forward, drop idle links, enforce the memory limit and forget
+     * stale admission state. Called every minute by the maintenance job.
+     */
+    public void maintain() {
+        long fromHour = currentHour() - (windowHours - 1);
+        long now = System.nanoTime();
+        for (LinkCube cube : List.copyOf(links.values())) {
+            if (now - cube.lastViewedNanos() > idleTimeout.toNanos()) {
+                evict(cube.shortCode(), "idle");
+            } else {
+                cube.evictBefore(fromHour);
+            }
+        }
+        enforceMemoryLimit();
+        candidates.values().removeIf(w -> now - w.startNanos > viewWindow.toNanos());
+        rejectedUntilNanos.values().removeIf(until -> now - until > 0);
+    }
+
+    private void enforceMemoryLimit() {
+        while (!links.isEmpty() && estimatedBytes() > maxBytes.toBytes()) {
+            evictLeastRecentlyViewed("memory");
+        }
+    }
+
+    private void evictLeastRecentlyViewed(String reason) {
+        links.values().stream()
+                .min(Comparator.comparingLong(LinkCube::lastViewedNanos))
+                .ifPresent(cube -> evict(cube.shortCode(), reason));
+    }
+
+    private void evict(String shortCode, String reason) {
+        if (links.remove(shortCode) != null) {
+            strikes.remove(shortCode);
+            meterRegistry.counter("analytics.cube.evictions", "reason", reason).increment();
+            log.debug("Evicted shortCode={} from the cube: {}", shortCode, reason);
+        }
+    }
+
+    private long estimatedBytes() {
+        return links.values().stream().mapToLong(LinkCube::estimatedBytes).sum();
+    }
+
+    private void countRead(String result) {
+        meterRegistry.counter("analytics.cube.reads", "result", result).increment();
+    }
+
+    private static long currentHour() {
+        return Math.floorDiv(Instant.now().getEpochSecond(), 3600);
+    }
+
+    private static long ceilMicros(Instant instant) {
+        long micros = LinkCube.toMicros(instant);
+        return instant.getNano() % 1000 == 0 ? micros : micros + 1;
+    }
+
+    private static final class ViewWindow {
+        final long startNanos;
+        int views = 1;
+
+        ViewWindow(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        ViewWindow increment() {
+            views++;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.linkhub.analytics.cube;
+
+import com.linkhub.analytics.dto.DimensionRow;
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One link's clicks from {@code coveredFromHour} onwards, as hourly {@link ColumnSegment}s.
+ *
+ * <p>Starts out loading: clicks from the tail are held back while the recent window is read from
+ * the database, then {@link #install} merges the two, dropping tail clicks the load already saw.
+ * Reads take the read lock; the tail thread and maintenance take the write lock briefly.
+ */
+final class LinkCube {
+
+    private static final long MICROS_PER_HOUR = 3_600_000_000L;
+
+    enum Check {
+        /** Every settled hour matches the rollups. */
+        CONSISTENT,
+        /** The open hour is behind the rollups and the tail has gone quiet; try again later. */
+        LAGGING,
+        /** A settled hour disagrees with the rollups; the cube lost or double-counted clicks. */
+        DIVERGED
+    }
+
+    record Read(Check check, List<DimensionRow> rows) {}
+
+    private final String shortCode;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Long, List<ColumnSegment>> hours = new TreeMap<>();
+    private final List<EnrichedClickMessage> pending = new ArrayList<>();
+    private long coveredFromHour;
+    private boolean ready;
+
+    private volatile long lastViewedNanos = System.nanoTime();
+
+    LinkCube(String shortCode) {
+        this.shortCode = shortCode;
+    }
+
+    String shortCode() {
+        return shortCode;
+    }
+
+    void touch() {
+        lastViewedNanos = System.nanoTime();
+    }
+
+    long lastViewedNanos() {
+        return lastViewedNanos;
+    }
+
+    /**
+     * Add a click from the tail, or hold it back while loading.
+     *
+     * @return {@code false} if the load has fallen so far behind that more than
+     *         {@code maxPending} clicks are waiting
+     */
+    boolean offer(EnrichedClickMessage click, int maxPending) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                pending.add(click);
+                return pending.size() <= maxPending;
+            }
+            long micros = toMicros(click.clickedAt());
+            if (Math.floorDiv(micros, MICROS_PER_HOUR) >= coveredFromHour) {
+                append(hours, micros, click);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finish loading: adopt the segments read from the database and replay the held-back tail
+     * clicks, skipping those whose event id the load already contained.
+     *
+     * @param loadedRecentIds event ids of loaded clicks recent enough to also be in the tail
+     */
+    void install(long fromHour, NavigableMap<Long, List<ColumnSegment>> loaded, Set<UUID> loadedRecentIds) {
+        lock.writeLock().lock();
+        try {
+            coveredFromHour = fromHour;
+            hours.clear();
+            hours.putAll(loaded);
+            for (EnrichedClickMessage click : pending) {
+                long micros = toMicros(click.clickedAt());
+                if (!loadedRecentIds.contains(click.eventId())
+                        && Math.floorDiv(micros, MICROS_PER_HOUR) >= coveredFromHour) {
+                    append(hours, micros, click);
+                }
+            }
+            pending.clear();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Start of coverage, or {@code null} while loading.
+     */
+    Instant coveredFrom() {
+        lock.readLock().lock();
+        try {
+            return ready ? Instant.ofEpochSecond(coveredFromHour * 3600) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compare hourly click counts with the rollups, then aggregate {@code [lo, hi]} (microseconds)
+     * if they agree.
+     *
+     * @param expectedByHour rollup totals for every covered hour up to {@code hi}'s hour
+     * @param settledBeforeHour hours before this one must match exactly; later ones may lag
+     * @param tailQuiet whether the tail has delivered nothing recently, so a lagging open hour
+     *                  won't catch up on its own
+     * @return the check outcome, with rows only when {@link Check#CONSISTENT}
+     */
+    Read read(long lo, long hi, boolean hourly, Map<Long, Long> expectedByHour,
+              long settledBeforeHour, boolean tailQuiet) {
+        lock.readLock().lock();
+        try {
+            long lastHour = Math.floorDiv(hi, MICROS_PER_HOUR);
+            for (long hour = coveredFromHour; hour <= lastHour; hour++) {
+                long expected = expectedByHour.getOrDefault(hour, 0L);
+                long actual = clicksIn(hour);
+                // Settled hours are fixed, so any difference is a lost or double-counted click.
+                // In open hours the tail may run ahead of the rollup snapshot, or slightly behind it.
+                if (hour < settledBeforeHour) {
+                    if (actual != expected) {
+                        return new Read(Check.DIVERGED, List.of());
+                    }
+                } else if (actual < expected && tailQuiet) {
+                    return new Read(Check.LAGGING, List.of());
+                }
+            }
+            if (lo > hi) {
+                return new Read(Check.CONSISTENT, List.of());
+            }
+
+            Aggregation aggregation = new Aggregation(hourly);
+            for (List<ColumnSegment> segments : hours.subMap(Math.floorDiv(lo, MICROS_PER_HOUR), true, lastHour, true).values()) {
+                for (ColumnSegment segment : segments) {
+                    segment.aggregate(lo, hi, aggregation);
+                }
+            }
+            return new Read(Check.CONSISTENT, aggregation.rows());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drop hours before {@code hour} and start coverage there.
+     */
+    void evictBefore(long hour) {
+        lock.writeLock().lock();
+        try {
+            if (hour > coveredFromHour) {
+                hours.headMap(hour, false).clear();
+                coveredFromHour = hour;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    long rows() {
+        lock.readLock().lock();
+        try {
+            long rows = pending.size();
+            for (List<ColumnSegment> segments : hours.values()) {
+                for (ColumnSegment segment : segments) {
+                    rows += segment.size();
+                }
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return estimatedBytes(hours) + pending.size() * 256L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long clicksIn(long hour) {
+        long clicks = 0;
+        for (ColumnSegment segment : hours.getOrDefault(hour, List.of())) {
+            clicks += segment.size();
+        }
+        return clicks;
+    }
+
+    // ────────── Segment building (also used while loading, before the cube is shared) ──────────
+
+    static void append(NavigableMap<Long, List<ColumnSegment>> hours, long micros, EnrichedClickMessage click) {
+        long hour = Math.floorDiv(micros, MICROS_PER_HOUR);
+        List<ColumnSegment> segments = hours.computeIfAbsent(hour, h -> new ArrayList<>(1));
+        ColumnSegment current = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (current == null || current.isFull()) {
+            current = new ColumnSegment(hour);
+            segments.add(current);
+        }
+        current.append(micros, click.referrer(), click.deviceType(), click.browser(), click.os(),
+                click.country(), click.city(), click.latitude(), click.longitude());
+    }
+
+    static long estimatedBytes(NavigableMap<Long, List<ColumnSegment>> hours) {
+        long bytes = 0;
+        for (List<ColumnSegment> segments : hours.values()) {
+            for (ColumnSegment segment : segments) {
+                bytes += segment.estimatedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    static long toMicros(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1000);
+    }
+}
@@ -0,0 +1,18 @@
+package com.linkhub.analytics.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Click totals across all of an account's links. {@code from} / {@code to} are the whole
+ * UTC hours actually counted, which may be slightly wider than the requested range.
+ */
+public record AccountSummary(
+        long totalClicks,
+        int activeLinks,
+        List<LinkClicks> topLinks,
+        Instant from,
+        Instant to
+) {
+    public record LinkClicks(String shortCode, long clicks, double percentage) {}
+}
@@ -0,0 +1,20 @@
+package com.linkhub.analytics.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Clicks per geohash cell inside a map's bounding box. Only cells with clicks are listed;
+ * {@code latitude}/{@code longitude} is the clicks' centroid within the cell, and
+ * {@code from}/{@code to} the whole UTC days actually counted.
+ */
+public record ClickMap(
+        int precision,
+        long totalClicks,
+        List<Cell> cells,
+        Instant from,
+        Instant to
+) {
+    public record Cell(String geohash, long clicks, double latitude, double longitude,
+                       double south, double west, double north, double east) {}
+}
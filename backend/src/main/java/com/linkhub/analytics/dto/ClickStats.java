@@ -4,11 +4,16 @@ import java.time.Instant;
 
 /**
  * Summary analytics for a URL.
+ *
+ * <p>{@code uniqueVisitors} is exact when {@code uniqueVisitorsExact} is true; otherwise it is a
+ * HyperLogLog estimate within {@code uniqueVisitorsErrorBound} (relative, ~95% confidence).
  */
 public record ClickStats(
         String shortCode,
         long totalClicks,
         long uniqueVisitors,
+        boolean uniqueVisitorsExact,
+        double uniqueVisitorsErrorBound,
         Instant from,
         Instant to
 ) {}
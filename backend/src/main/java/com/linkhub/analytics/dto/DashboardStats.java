@@ -0,0 +1,14 @@
+package com.linkhub.analytics.dto;
+
+import java.util.List;
+
+/**
+ * Everything the analytics dashboard renders, computed from one aggregate read.
+ */
+public record DashboardStats(
+        ClickStats summary,
+        List<TimeseriesPoint> timeseries,
+        List<ReferrerStats> referrers,
+        DeviceStats devices,
+        GeoStats geo
+) {}
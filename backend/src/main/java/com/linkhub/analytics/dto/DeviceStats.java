@@ -1,14 +1,23 @@
 package com.linkhub.analytics.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 /**
- * Device analytics breakdown (device type, browser, OS).
+ * Device analytics breakdown (device type, browser, OS). {@code errorBound} is only present
+ * when {@code clicks} is an estimate (±, ~95% confidence).
  */
 public record DeviceStats(
         List<Breakdown> deviceTypes,
         List<Breakdown> browsers,
         List<Breakdown> operatingSystems
 ) {
-    public record Breakdown(String name, long clicks, double percentage) {}
+    public record Breakdown(String name, long clicks, double percentage,
+                            @JsonInclude(JsonInclude.Include.NON_NULL) Long errorBound) {
+
+        public Breakdown(String name, long clicks, double percentage) {
+            this(name, clicks, percentage, null);
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.linkhub.analytics.dto;
+
+/**
+ * One grouped aggregate behind the dashboard: clicks (and coordinate sums, for cities) for a
+ * (dimension, label, value, parent) group. label is the time bucket for 'total' rows and '' otherwise.
+ */
+public record DimensionRow(
+        String dimension,
+        String label,
+        String value,
+        String parent,
+        long clicks,
+        double latSum,
+        double lngSum,
+        long geoClicks
+) {
+
+    /**
+     * Map a native query row whose group columns start at {@code offset}.
+     */
+    public static DimensionRow from(Object[] row, int offset) {
+        return new DimensionRow(
+                (String) row[offset],
+                (String) row[offset + 1],
+                (String) row[offset + 2],
+                (String) row[offset + 3],
+                ((Number) row[offset + 4]).longValue(),
+                ((Number) row[offset + 5]).doubleValue(),
+                ((Number) row[offset + 6]).doubleValue(),
+                ((Number) row[offset + 7]).longValue());
+    }
+
+    public DimensionRow withLabel(String newLabel) {
+        return new DimensionRow(dimension, newLabel, value, parent, clicks, latSum, lngSum, geoClicks);
+    }
+
+    public DimensionRow plus(DimensionRow other) {
+        return new DimensionRow(dimension, label, value, parent,
+                clicks + other.clicks, latSum + other.latSum, lngSum + other.lngSum, geoClicks + other.geoClicks);
+    }
+}
@@ -0,0 +1,43 @@
+package com.linkhub.analytics.dto;
+
+import java.util.Locale;
+
+/**
+ * Output format for raw click exports.
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Parse a case-insensitive request parameter; defaults to NDJSON.
+     *
+     * @throws IllegalArgumentException for unknown values
+     */
+    public static ExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("format must be one of: ndjson, csv");
+        }
+    }
+}
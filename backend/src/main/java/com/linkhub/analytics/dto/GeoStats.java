@@ -1,15 +1,30 @@
 package com.linkhub.analytics.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 /**
- * Geographic analytics breakdown.
+ * Geographic analytics breakdown. {@code errorBound} is only present when {@code clicks} is an
+ * estimate (±, ~95% confidence).
  */
 public record GeoStats(
         List<CountryData> countries,
         List<CityData> cities
 ) {
-    public record CountryData(String country, long clicks, double percentage) {}
+    public record CountryData(String country, long clicks, double percentage,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) Long errorBound) {
+
+        public CountryData(String country, long clicks, double percentage) {
+            this(country, clicks, percentage, null);
+        }
+    }
+
+    public record CityData(String city, String country, long clicks, Double latitude, Double longitude,
+                           @JsonInclude(JsonInclude.Include.NON_NULL) Long errorBound) {
 
-    public record CityData(String city, String country, long clicks, Double latitude, Double longitude) {}
+        public CityData(String city, String country, long clicks, Double latitude, Double longitude) {
+            this(city, country, clicks, latitude, longitude, null);
+        }
+    }
 }
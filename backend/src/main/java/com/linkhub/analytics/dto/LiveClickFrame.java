@@ -0,0 +1,33 @@
+package com.linkhub.analytics.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One push on a link's live click stream: click counts per second for the clicks that arrived
+ * since the previous frame, and the most recent of those clicks.
+ */
+public record LiveClickFrame(
+        List<SecondCount> counts,
+        List<LiveClick> recent
+) {
+
+    public record SecondCount(Instant second, long clicks) {}
+
+    public record LiveClick(
+            UUID eventId,
+            Instant clickedAt,
+            String referrer,
+            String deviceType,
+            String browser,
+            String os,
+            String country,
+            String city
+    ) {
+        public static LiveClick from(EnrichedClickMessage click) {
+            return new LiveClick(click.eventId(), click.clickedAt(), click.referrer(),
+                    click.deviceType(), click.browser(), click.os(), click.country(), click.city());
+        }
+    }
+}
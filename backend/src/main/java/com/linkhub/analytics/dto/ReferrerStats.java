@@ -1,10 +1,18 @@
 package com.linkhub.analytics.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
- * Click count grouped by referrer source.
+ * Click count grouped by referrer source. {@code errorBound} is only present when
+ * {@code clicks} is an estimate (±, ~95% confidence).
  */
 public record ReferrerStats(
         String referrer,
         long clicks,
-        double percentage
-) {}
+        double percentage,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long errorBound
+) {
+    public ReferrerStats(String referrer, long clicks, double percentage) {
+        this(referrer, clicks, percentage, null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.linkhub.analytics.dto;
+
+import com.linkhub.analytics.model.ReportJob;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+import java.time.Instant;
+
+/**
+ * A report to compute in the background. The range works like the interactive endpoints'
+ * ({@code from}/{@code to}, else {@code days}, else 30 days) and is fixed when the job is submitted.
+ */
+public record ReportJobRequest(
+
+        @NotBlank(message = "shortCode is required")
+        String shortCode,
+
+        @NotNull(message = "type is required")
+        ReportJob.Type type,
+
+        Instant from,
+
+        Instant to,
+
+        @Min(value = 1, message = "days must be at least 1")
+        Integer days,
+
+        @Pattern(regexp = "^(day|hour)$", message = "granularity must be 'day' or 'hour'")
+        String granularity,
+
+        @Min(value = 1, message = "limit must be between 1 and 1000")
+        @Max(value = 1000, message = "limit must be between 1 and 1000")
+        Integer limit,
+
+        ReportJob.Priority priority
+) {}
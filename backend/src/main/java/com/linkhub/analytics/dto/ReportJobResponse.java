@@ -0,0 +1,45 @@
+package com.linkhub.analytics.dto;
+
+import com.linkhub.analytics.model.ReportJob;
+
+import java.time.Instant;
+
+/**
+ * Status of a report job. {@code reused} is true when the request was answered by an earlier
+ * identical job instead of a new one.
+ */
+public record ReportJobResponse(
+        Long jobId,
+        String shortCode,
+        ReportJob.Type type,
+        ReportJob.Priority priority,
+        ReportJob.Status status,
+        Instant from,
+        Instant to,
+        boolean reused,
+        String errorMessage,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt,
+        String statusUrl,
+        String resultUrl
+) {
+    public static ReportJobResponse from(ReportJob job, boolean reused) {
+        return new ReportJobResponse(
+                job.getId(),
+                job.getShortCode(),
+                job.getType(),
+                job.getPriority(),
+                job.getStatus(),
+                job.getRangeFrom(),
+                job.getRangeTo(),
+                reused,
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                "/api/v1/analytics/reports/" + job.getId(),
+                "/api/v1/analytics/reports/" + job.getId() + "/result"
+        );
+    }
+}
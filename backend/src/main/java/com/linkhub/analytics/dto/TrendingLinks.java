@@ -0,0 +1,21 @@
+package com.linkhub.analytics.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Most-clicked links in a sliding window, most clicks first.
+ * Counts come from top-K sketches: each may overstate the true count by up to its errorBound.
+ */
+public record TrendingLinks(
+        String window,
+        Instant asOf,
+        List<TrendingLink> links
+) {
+
+    public record TrendingLink(String shortCode, long clicks, long errorBound) {}
+
+    public TrendingLinks limit(int limit) {
+        return links.size() <= limit ? this : new TrendingLinks(window, asOf, links.subList(0, limit));
+    }
+}
@@ -0,0 +1,52 @@
+package com.linkhub.analytics.dto;
+
+import java.time.Duration;
+
+/**
+ * Sliding windows for trending links. Each window is a ring of {@code buckets} sketches of
+ * {@code step} each, so it slides forward one step at a time.
+ */
+public enum TrendingWindow {
+    FIVE_MINUTES("5m", Duration.ofSeconds(10), 30),
+    ONE_HOUR("1h", Duration.ofMinutes(1), 60),
+    ONE_DAY("24h", Duration.ofHours(1), 24);
+
+    private final String param;
+    private final Duration step;
+    private final int buckets;
+
+    TrendingWindow(String param, Duration step, int buckets) {
+        this.param = param;
+        this.step = step;
+        this.buckets = buckets;
+    }
+
+    public String param() {
+        return param;
+    }
+
+    public Duration step() {
+        return step;
+    }
+
+    public int buckets() {
+        return buckets;
+    }
+
+    /**
+     * Parse a request parameter; defaults to the 1-hour window.
+     *
+     * @throws IllegalArgumentException for unknown values
+     */
+    public static TrendingWindow fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return ONE_HOUR;
+        }
+        for (TrendingWindow window : values()) {
+            if (window.param.equalsIgnoreCase(value.trim())) {
+                return window;
+            }
+        }
+        throw new IllegalArgumentException("window must be one of: 5m, 1h, 24h");
+    }
+}
@@ -0,0 +1,170 @@
+package com.linkhub.analytics.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash cells of {@code click_geo_rollups_daily}, and the cells covering a bounding box.
+ *
+ * <p>Must encode exactly like the consumer's copy and the {@code geohash_encode} SQL function
+ * (longitude bit first, base32 alphabet without a, i, l, o). At a given precision the cells
+ * form a regular grid of {@code 2^ceil(5p/2)} columns by {@code 2^floor(5p/2)} rows, which is
+ * what {@link #cover} walks.
+ */
+public final class Geohash {
+
+    /** Coarsest precision rolled up (~1250 km cells). */
+    public static final int MIN_PRECISION = 2;
+
+    /** Finest precision rolled up (~1.2 km cells). */
+    public static final int MAX_PRECISION = 6;
+
+    private static final String ALPHABET = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private Geohash() {}
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double latLo = -90, latHi = 90;
+        double lngLo = -180, lngHi = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean isLng = true;
+        int bits = 0;
+        int ch = 0;
+        while (hash.length() < precision) {
+            if (isLng) {
+                double mid = (lngLo + lngHi) / 2;
+                if (longitude >= mid) {
+                    ch = ch << 1 | 1;
+                    lngLo = mid;
+                } else {
+                    ch <<= 1;
+                    lngHi = mid;
+                }
+            } else {
+                double mid = (latLo + latHi) / 2;
+                if (latitude >= mid) {
+                    ch = ch << 1 | 1;
+                    latLo = mid;
+                } else {
+                    ch <<= 1;
+                    latHi = mid;
+                }
+            }
+            isLng = !isLng;
+            if (++bits == 5) {
+                hash.append(ALPHABET.charAt(ch));
+                bits = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * The area a cell covers.
+     *
+     * @throws IllegalArgumentException if {@code geohash} has characters outside the alphabet
+     */
+    public static Box bounds(String geohash) {
+        double latLo = -90, latHi = 90;
+        double lngLo = -180, lngHi = 180;
+        boolean isLng = true;
+        for (int i = 0; i < geohash.length(); i++) {
+            int ch = ALPHABET.indexOf(geohash.charAt(i));
+            if (ch < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + geohash);
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean high = (ch >> bit & 1) == 1;
+                if (isLng) {
+                    double mid = (lngLo + lngHi) / 2;
+                    if (high) lngLo = mid; else lngHi = mid;
+                } else {
+                    double mid = (latLo + latHi) / 2;
+                    if (high) latLo = mid; else latHi = mid;
+                }
+                isLng = !isLng;
+            }
+        }
+        return new Box(latLo, lngLo, latHi, lngHi);
+    }
+
+    /**
+     * How many cells of the given precision {@link #cover} would return, without listing them.
+     */
+    public static long coverSize(Box box, int precision) {
+        Grid grid = new Grid(precision);
+        long rows = grid.row(box.north) - grid.row(box.south) + 1L;
+        long columns = box.crossesAntimeridian()
+                ? (grid.columns - grid.column(box.west)) + (grid.column(box.east) + 1L)
+                : grid.column(box.east) - grid.column(box.west) + 1L;
+        return rows * columns;
+    }
+
+    /**
+     * Every cell of the given precision that intersects the box.
+     */
+    public static List<String> cover(Box box, int precision) {
+        Grid grid = new Grid(precision);
+        List<int[]> columnRanges = box.crossesAntimeridian()
+                ? List.of(new int[]{grid.column(box.west), grid.columns - 1}, new int[]{0, grid.column(box.east)})
+                : List.of(new int[]{grid.column(box.west), grid.column(box.east)});
+
+        List<String> cells = new ArrayList<>((int) coverSize(box, precision));
+        for (int row = grid.row(box.south); row <= grid.row(box.north); row++) {
+            double latitude = -90 + (row + 0.5) * grid.cellHeight;
+            for (int[] range : columnRanges) {
+                for (int column = range[0]; column <= range[1]; column++) {
+                    cells.add(encode(latitude, -180 + (column + 0.5) * grid.cellWidth, precision));
+                }
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * A latitude/longitude box. {@code west > east} means the box crosses the antimeridian.
+     */
+    public record Box(double south, double west, double north, double east) {
+
+        /**
+         * @throws IllegalArgumentException if a coordinate is out of range or south is above north
+         */
+        public Box {
+            if (south < -90 || north > 90 || south > north) {
+                throw new IllegalArgumentException("Latitudes must satisfy -90 <= minLat <= maxLat <= 90");
+            }
+            if (west < -180 || west > 180 || east < -180 || east > 180) {
+                throw new IllegalArgumentException("Longitudes must be between -180 and 180");
+            }
+        }
+
+        boolean crossesAntimeridian() {
+            return west > east;
+        }
+    }
+
+    private static final class Grid {
+
+        final int columns;
+        final int rows;
+        final double cellWidth;
+        final double cellHeight;
+
+        Grid(int precision) {
+            int bits = precision * 5;
+            columns = 1 << (bits + 1) / 2;
+            rows = 1 << bits / 2;
+            cellWidth = 360.0 / columns;
+            cellHeight = 180.0 / rows;
+        }
+
+        int column(double longitude) {
+            return Math.min((int) Math.floor((longitude + 180) / cellWidth), columns - 1);
+        }
+
+        int row(double latitude) {
+            return Math.min((int) Math.floor((latitude + 90) / cellHeight), rows - 1);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.linkhub.analytics.live;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+import com.linkhub.analytics.dto.LiveClickFrame;
+import com.linkhub.analytics.tail.ClickTailListener;
+import com.linkhub.common.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans this pod's {@link com.linkhub.analytics.tail.ClickTail} out to live click streams (SSE).
+ *
+ * <p>Clicks are filtered by link on the tail thread with a single map lookup; links nobody is
+ * watching cost nothing more. Each link buffers the clicks of the current tick, and once a
+ * second {@link #flush()} turns them into one {@link LiveClickFrame}, serialized once and queued
+ * to every subscriber of that link.
+ *
+ * <p>Writes, and closing streams, happen on {@code liveStreamExecutor}, never on the tail or
+ * scheduler thread: both can block on a slow socket. A subscriber that falls more than
+ * {@code analytics.live.max-queued-frames} frames behind is disconnected rather than buffered
+ * without bound; browsers' EventSource reconnects by itself.
+ */
+@Component
+public class LiveClickHub implements ClickTailListener {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveClickHub.class);
+
+    private static final int MAX_RECENT_CLICKS = 20;
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+    private static final long RECONNECT_DELAY_MS = 3000;
+
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor sendExecutor;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LiveLink> links = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private long lastHeartbeatNanos = System.nanoTime();
+
+    @Value("${analytics.live.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${analytics.live.max-queued-frames:10}")
+    private int maxQueuedFrames;
+
+    @Value("${analytics.live.timeout:30m}")
+    private Duration timeout;
+
+    public LiveClickHub(ObjectMapper objectMapper,
+                        @Qualifier("liveStreamExecutor") ThreadPoolTaskExecutor sendExecutor,
+                        MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.sendExecutor = sendExecutor;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("analytics.live.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open live click streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open a live stream for a link. Ownership must already have been checked.
+     *
+     * @throws RateLimitExceededException if this pod already serves its maximum number of streams
+     */
+    public SseEmitter subscribe(String shortCode) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new RateLimitExceededException("Too many live streams. Try again later.");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(shortCode, emitter);
+        links.compute(shortCode, (k, link) -> {
+            LiveLink live = link != null ? link : new LiveLink();
+            live.subscribers.add(subscriber);
+            return live;
+        });
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        subscriber.enqueue(SseEmitter.event().name("ready").reconnectTime(RECONNECT_DELAY_MS).data(shortCode));
+        return emitter;
+    }
+
+    @Override
+    public void onClicks(List<EnrichedClickMessage> clicks) {
+        if (links.isEmpty()) {
+            return;
+        }
+        for (EnrichedClickMessage click : clicks) {
+            LiveLink link = links.get(click.shortCode());
+            if (link != null) {
+                link.add(click);
+            }
+        }
+    }
+
+    /**
+     * Push the clicks buffered since the last call to each link's subscribers, plus a heartbeat
+     * comment every 15 seconds so idle streams stay open through proxies. Called once a second
+     * by the flush job.
+     */
+    public void flush() {
+        boolean heartbeat = System.nanoTime() - lastHeartbeatNanos >= HEARTBEAT_INTERVAL.toNanos();
+        if (heartbeat) {
+            lastHeartbeatNanos = System.nanoTime();
+        }
+
+        for (LiveLink link : links.values()) {
+            LiveClickFrame frame = link.drain();
+            String json = null;
+            if (frame != null) {
+                try {
+                    json = objectMapper.writeValueAsString(frame);
+                } catch (JsonProcessingException e) {
+                    log.error("Failed to serialize live click frame: {}", e.getMessage());
+                }
+            }
+            for (Subscriber subscriber : link.subscribers) {
+                if (json != null) {
+                    subscriber.enqueue(SseEmitter.event().name("clicks").data(json, MediaType.APPLICATION_JSON));
+                } else if (heartbeat) {
+                    subscriber.enqueue(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        links.computeIfPresent(subscriber.shortCode, (k, link) -> {
+            link.subscribers.remove(subscriber);
+            return link.subscribers.isEmpty() ? null : link;
+        });
+    }
+
+    /**
+     * Stop sending to a subscriber and close its stream. Called from the flush job, so it only
+     * marks the subscriber closed; {@code complete()} can block on a slow socket and runs on
+     * its sender.
+     */
+    private void disconnect(Subscriber subscriber, String reason) {
+        meterRegistry.counter("analytics.live.disconnects", "reason", reason).increment();
+        unsubscribe(subscriber);
+        subscriber.completeLater();
+    }
+
+    // ────────── Per-link buffer ──────────
+
+    private static final class LiveLink {
+
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+        private final TreeMap<Long, Long> clicksBySecond = new TreeMap<>();
+        private final ArrayDeque<LiveClickFrame.LiveClick> recent = new ArrayDeque<>(MAX_RECENT_CLICKS);
+
+        synchronized void add(EnrichedClickMessage click) {
+            clicksBySecond.merge(click.clickedAt().getEpochSecond(), 1L, Long::sum);
+            if (recent.size() == MAX_RECENT_CLICKS) {
+                recent.removeFirst();
+            }
+            recent.addLast(LiveClickFrame.LiveClick.from(click));
+        }
+
+        /**
+         * The frame for the clicks added since the last call, or {@code null} if there were none.
+         */
+        synchronized LiveClickFrame drain() {
+            if (clicksBySecond.isEmpty()) {
+                return null;
+            }
+            List<LiveClickFrame.SecondCount> counts = new ArrayList<>(clicksBySecond.size());
+            clicksBySecond.forEach((second, clicks) ->
+                    counts.add(new LiveClickFrame.SecondCount(Instant.ofEpochSecond(second), clicks)));
+            LiveClickFrame frame = new LiveClickFrame(counts, List.copyOf(recent));
+            clicksBySecond.clear();
+            recent.clear();
+            return frame;
+        }
+    }
+
+    // ────────── Subscriber ──────────
+
+    /**
+     * One open stream. Events queue here and are written by at most one send task at a time,
+     * so a slow client holds one sender thread, never the scheduler or the tail. Closing the
+     * stream is done by the sender too.
+     */
+    private final class Subscriber {
+
+        final String shortCode;
+        final SseEmitter emitter;
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        private final ArrayDeque<SseEmitter.SseEventBuilder> queue = new ArrayDeque<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean completePending = new AtomicBoolean();
+
+        Subscriber(String shortCode, SseEmitter emitter) {
+            this.shortCode = shortCode;
+            this.emitter = emitter;
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed.get()) {
+                return;
+            }
+            boolean overflow;
+            synchronized (queue) {
+                overflow = queue.size() >= maxQueuedFrames;
+                if (overflow) {
+                    queue.clear();
+                } else {
+                    queue.addLast(event);
+                }
+            }
+            if (overflow) {
+                disconnect(this, "slow-consumer");
+                return;
+            }
+            scheduleSend();
+        }
+
+        /**
+         * Complete the emitter on a sender thread. If a send is in progress, that task completes
+         * it once its current write returns.
+         */
+        void completeLater() {
+            completePending.set(true);
+            scheduleSend();
+        }
+
+        private void scheduleSend() {
+            if (!sending.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sendExecutor.execute(this::send);
+            } catch (TaskRejectedException e) {
+                sending.set(false);
+                if (!closed.get()) {
+                    disconnect(this, "send-rejected");
+                }
+                // Already closed: nothing more to send, and the emitter times out by itself
+            }
+        }
+
+        private void send() {
+            try {
+                while (!closed.get()) {
+                    SseEmitter.SseEventBuilder event;
+                    synchronized (queue) {
+                        event = queue.pollFirst();
+                    }
+                    if (event == null) {
+                        break;
+                    }
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the emitter's error callback may or may not have run yet
+                meterRegistry.counter("analytics.live.disconnects", "reason", "closed").increment();
+                unsubscribe(this);
+                return;
+            } finally {
+                sending.set(false);
+            }
+            if (closed.get()) {
+                // Checked after clearing the flag, so either this task or the one
+                // completeLater() schedules sees the request
+                if (completePending.compareAndSet(true, false)) {
+                    emitter.complete();
+                }
+                return;
+            }
+            // An event may have been queued between the last poll and clearing the flag
+            boolean more;
+            synchronized (queue) {
+                more = !queue.isEmpty();
+            }
+            if (more && !closed.get()) {
+                scheduleSend();
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.linkhub.analytics.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * An analytics report computed in the background. The result is stored as JSON, exactly as the
+ * matching interactive endpoint would have returned it.
+ *
+ * <p>{@code heartbeat_at} is refreshed by the pod whose queue holds the job, with a bulk update
+ * of its own; it is written here only on insert, so saving the job never sets it back.
+ */
+@Entity
+@Table(name = "analytics_report_jobs")
+public class ReportJob {
+
+    public enum Type {
+        SUMMARY, TIMESERIES, REFERRERS, DEVICES, GEO, DASHBOARD
+    }
+
+    /** Order of declaration is scheduling order. */
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "short_code", length = 10, nullable = false)
+    private String shortCode;
+
+    @Column(name = "report_type", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Type type;
+
+    @Column(length = 10, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Priority priority;
+
+    @Column(name = "range_from", nullable = false)
+    private Instant rangeFrom;
+
+    @Column(name = "range_to", nullable = false)
+    private Instant rangeTo;
+
+    @Column(length = 10)
+    private String granularity;
+
+    @Column(name = "result_limit")
+    private Integer resultLimit;
+
+    @Column(name = "cache_key", length = 64, nullable = false)
+    private String cacheKey;
+
+    @Column(length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    @Column(columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "heartbeat_at", updatable = false)
+    private Instant heartbeatAt;
+
+    public ReportJob() {}
+
+    public ReportJob(Long userId, String shortCode, Type type, Priority priority,
+                     Instant rangeFrom, Instant rangeTo, String granularity, Integer resultLimit, String cacheKey) {
+        this.userId = userId;
+        this.shortCode = shortCode;
+        this.type = type;
+        this.priority = priority;
+        this.rangeFrom = rangeFrom;
+        this.rangeTo = rangeTo;
+        this.granularity = granularity;
+        this.resultLimit = resultLimit;
+        this.cacheKey = cacheKey;
+        this.createdAt = Instant.now();
+        this.heartbeatAt = this.createdAt;
+    }
+
+    public void markRunning() {
+        this.status = Status.RUNNING;
+        this.startedAt = Instant.now();
+    }
+
+    public void markCompleted(String result) {
+        this.status = Status.COMPLETED;
+        this.result = result;
+        this.finishedAt = Instant.now();
+    }
+
+    public void markFailed(String reason) {
+        this.status = Status.FAILED;
+        this.errorMessage = reason;
+        this.finishedAt = Instant.now();
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public String getShortCode() { return shortCode; }
+    public Type getType() { return type; }
+    public Priority getPriority() { return priority; }
+    public Instant getRangeFrom() { return rangeFrom; }
+    public Instant getRangeTo() { return rangeTo; }
+    public String getGranularity() { return granularity; }
+    public Integer getResultLimit() { return resultLimit; }
+    public String getCacheKey() { return cacheKey; }
+    public Status getStatus() { return status; }
+    public String getResult() { return result; }
+    public String getErrorMessage() { return errorMessage; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getHeartbeatAt() { return heartbeatAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+}
@@ -0,0 +1,60 @@
+package com.linkhub.analytics.repository;
+
+import com.linkhub.analytics.dto.DimensionRow;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reads {@code click_account_rollups_hourly}: an account's clicks across all of its links,
+ * maintained by the analytics consumer alongside the per-link rollups.
+ */
+@Repository
+public class AccountRollupRepository {
+
+    private static final String SELECT_SQL = """
+            SELECT dimension,
+                   CASE WHEN dimension = 'total' THEN TO_CHAR(bucket AT TIME ZONE 'UTC', ?) ELSE '' END AS label,
+                   dim_value, dim_parent,
+                   SUM(clicks) AS clicks, SUM(lat_sum) AS lat_sum, SUM(lng_sum) AS lng_sum,
+                   SUM(geo_clicks) AS geo_clicks
+            FROM click_account_rollups_hourly
+            WHERE user_id = ? AND dimension = ANY (?) AND bucket >= ? AND bucket < ?
+            GROUP BY 1, 2, 3, 4
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Rows of the given dimensions for buckets in [hourFrom, hourTo), summed per value. 'total'
+     * rows are further split by bucket formatted with {@code labelFormat}; other rows have label ''.
+     */
+    public List<DimensionRow> aggregate(Long userId, List<String> dimensions,
+                                        Instant hourFrom, Instant hourTo, String labelFormat) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL);
+            ps.setString(1, labelFormat);
+            ps.setLong(2, userId);
+            ps.setArray(3, connection.createArrayOf("text", dimensions.toArray()));
+            ps.setTimestamp(4, Timestamp.from(hourFrom));
+            ps.setTimestamp(5, Timestamp.from(hourTo));
+            return ps;
+        }, (rs, rowNum) -> new DimensionRow(
+                rs.getString("dimension"),
+                rs.getString("label"),
+                rs.getString("dim_value"),
+                rs.getString("dim_parent"),
+                rs.getLong("clicks"),
+                rs.getDouble("lat_sum"),
+                rs.getDouble("lng_sum"),
+                rs.getLong("geo_clicks")));
+    }
+}
@@ -2,7 +2,7 @@ package com.linkhub.analytics.repository;
 
 import com.linkhub.analytics.model.ClickEvent;
 import com.linkhub.analytics.model.ClickEventId;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -10,27 +10,106 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEventId> {
 
     /**
-     * Paginated click events for a short code within a time range.
+     * Offset page of click events for a short code within a time range, newest first.
+     * Returns a list rather than a page so no count query runs; the total comes from rollups.
      */
-    @Query("SELECT ce FROM ClickEvent ce WHERE ce.shortCode = :shortCode AND ce.clickedAt BETWEEN :from AND :to ORDER BY ce.clickedAt DESC")
-    Page<ClickEvent> findByShortCodeAndTimeRange(@Param("shortCode") String shortCode,
+    @Query("SELECT ce FROM ClickEvent ce WHERE ce.shortCode = :shortCode AND ce.clickedAt BETWEEN :from AND :to ORDER BY ce.clickedAt DESC, ce.id DESC")
+    List<ClickEvent> findByShortCodeAndTimeRange(@Param("shortCode") String shortCode,
                                                   @Param("from") Instant from,
                                                   @Param("to") Instant to,
                                                   Pageable pageable);
 
+    // ────────── Keyset pages ──────────
+    //
+    // Ordered by (clicked_at DESC, id DESC) and walked from a cursor, so a page costs the same at any
+    // depth. The leading clickedAt <= bound keeps the cursor an index range condition on
+    // idx_click_events_short_code (short_code, clicked_at, id); the OR resolves ties within it.
+
+    @Query("SELECT ce FROM ClickEvent ce WHERE ce.shortCode = :shortCode AND ce.clickedAt BETWEEN :from AND :to ORDER BY ce.clickedAt DESC, ce.id DESC")
+    List<ClickEvent> findFirstKeysetPage(@Param("shortCode") String shortCode,
+                                         @Param("from") Instant from,
+                                         @Param("to") Instant to,
+                                         Limit limit);
+
+    @Query("""
+            SELECT ce FROM ClickEvent ce
+            WHERE ce.shortCode = :shortCode AND ce.clickedAt BETWEEN :from AND :to
+              AND ce.clickedAt <= :afterClickedAt
+              AND (ce.clickedAt < :afterClickedAt OR ce.id < :afterId)
+            ORDER BY ce.clickedAt DESC, ce.id DESC
+            """)
+    List<ClickEvent> findKeysetPageAfter(@Param("shortCode") String shortCode,
+                                         @Param("from") Instant from,
+                                         @Param("to") Instant to,
+                                         @Param("afterClickedAt") Instant afterClickedAt,
+                                         @Param("afterId") long afterId,
+                                         Limit limit);
+
+    // ────────── Rollup-backed aggregates ──────────
+    //
+    // Each query below combines two sources:
+    //   - click_rollups_hourly for the fully covered hours [hourFrom, hourTo)
+    //   - click_events for the partial edge hours of [from, to] outside that span
+    // The edge predicate is written as two closed ranges so each arm is an index range
+    // scan on (short_code, clicked_at) rather than a filter over the whole range.
+    // Both sides report values normalized the same way, so the outer GROUP BY merges them.
+    // Callers compute hourFrom = ceil_hour(from), hourTo = max(floor_hour(to), hourFrom).
+
     /**
      * Total click count for a short code within a time range.
      */
-    @Query("SELECT COUNT(ce) FROM ClickEvent ce WHERE ce.shortCode = :shortCode AND ce.clickedAt BETWEEN :from AND :to")
+    @Query(value = """
+            SELECT COALESCE(SUM(clicks), 0) FROM (
+                SELECT SUM(clicks) AS clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'total'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT COUNT(*)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+            ) t
+            """, nativeQuery = true)
     long countByShortCodeAndTimeRange(@Param("shortCode") String shortCode,
                                       @Param("from") Instant from,
-                                      @Param("to") Instant to);
+                                      @Param("to") Instant to,
+                                      @Param("hourFrom") Instant hourFrom,
+                                      @Param("hourTo") Instant hourTo);
+
+    /**
+     * {@link #countByShortCodeAndTimeRange} for several short codes in one grouped query.
+     * Returns Object[] arrays of [short_code, clicks]; codes without clicks are absent.
+     */
+    @Query(value = """
+            SELECT short_code, SUM(clicks) FROM (
+                SELECT short_code, clicks
+                FROM click_rollups_hourly
+                WHERE short_code IN (:shortCodes) AND dimension = 'total'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT short_code, COUNT(*)
+                FROM click_events
+                WHERE short_code IN (:shortCodes)
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY short_code
+            ) t
+            GROUP BY short_code
+            """, nativeQuery = true)
+    List<Object[]> countByShortCodesAndTimeRange(@Param("shortCodes") Collection<String> shortCodes,
+                                                 @Param("from") Instant from,
+                                                 @Param("to") Instant to,
+                                                 @Param("hourFrom") Instant hourFrom,
+                                                 @Param("hourTo") Instant hourTo);
 
     /**
      * Count unique IPs (unique visitors) for a short code within a time range.
@@ -40,49 +119,91 @@ public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEve
                              @Param("from") Instant from,
                              @Param("to") Instant to);
 
+    /**
+     * {@link #countUniqueVisitors} for several short codes in one grouped query.
+     * Returns Object[] arrays of [short_code, unique visitors]; codes without clicks are absent.
+     */
+    @Query(value = """
+            SELECT short_code, COUNT(DISTINCT ip_address)
+            FROM click_events
+            WHERE short_code IN (:shortCodes) AND clicked_at BETWEEN :from AND :to
+            GROUP BY short_code
+            """, nativeQuery = true)
+    List<Object[]> countUniqueVisitorsByShortCodes(@Param("shortCodes") Collection<String> shortCodes,
+                                                   @Param("from") Instant from,
+                                                   @Param("to") Instant to);
+
     /**
      * Timeseries data: clicks per day for a short code.
      * Returns Object[] arrays of [date_string, count].
      */
     @Query(value = """
-            SELECT TO_CHAR(clicked_at AT TIME ZONE 'UTC', 'YYYY-MM-DD') AS day,
-                   COUNT(*) AS clicks
-            FROM click_events
-            WHERE short_code = :shortCode
-              AND clicked_at BETWEEN :from AND :to
+            SELECT day, SUM(clicks) AS clicks FROM (
+                SELECT TO_CHAR(bucket AT TIME ZONE 'UTC', 'YYYY-MM-DD') AS day, clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'total'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT TO_CHAR(clicked_at AT TIME ZONE 'UTC', 'YYYY-MM-DD'), COUNT(*)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY 1
+            ) t
             GROUP BY day
             ORDER BY day
             """, nativeQuery = true)
     List<Object[]> getTimeseriesByDay(@Param("shortCode") String shortCode,
                                       @Param("from") Instant from,
-                                      @Param("to") Instant to);
+                                      @Param("to") Instant to,
+                                      @Param("hourFrom") Instant hourFrom,
+                                      @Param("hourTo") Instant hourTo);
 
     /**
      * Timeseries data: clicks per hour for a short code.
      */
     @Query(value = """
-            SELECT TO_CHAR(clicked_at AT TIME ZONE 'UTC', 'YYYY-MM-DD HH24:00') AS hour,
-                   COUNT(*) AS clicks
-            FROM click_events
-            WHERE short_code = :shortCode
-              AND clicked_at BETWEEN :from AND :to
+            SELECT hour, SUM(clicks) AS clicks FROM (
+                SELECT TO_CHAR(bucket AT TIME ZONE 'UTC', 'YYYY-MM-DD HH24:00') AS hour, clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'total'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT TO_CHAR(clicked_at AT TIME ZONE 'UTC', 'YYYY-MM-DD HH24:00'), COUNT(*)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY 1
+            ) t
             GROUP BY hour
             ORDER BY hour
             """, nativeQuery = true)
     List<Object[]> getTimeseriesByHour(@Param("shortCode") String shortCode,
                                        @Param("from") Instant from,
-                                       @Param("to") Instant to);
+                                       @Param("to") Instant to,
+                                       @Param("hourFrom") Instant hourFrom,
+                                       @Param("hourTo") Instant hourTo);
 
     /**
      * Top referrers for a short code.
      * Returns Object[] arrays of [referrer, count].
      */
     @Query(value = """
-            SELECT COALESCE(referrer, 'Direct') AS referrer_source,
-                   COUNT(*) AS clicks
-            FROM click_events
-            WHERE short_code = :shortCode
-              AND clicked_at BETWEEN :from AND :to
+            SELECT referrer_source, SUM(clicks) AS clicks FROM (
+                SELECT dim_value AS referrer_source, clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'referrer'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT LEFT(COALESCE(referrer, 'Direct'), 500), COUNT(*)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY 1
+            ) t
             GROUP BY referrer_source
             ORDER BY clicks DESC
             LIMIT :limit
@@ -90,6 +211,8 @@ public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEve
     List<Object[]> getTopReferrers(@Param("shortCode") String shortCode,
                                    @Param("from") Instant from,
                                    @Param("to") Instant to,
+                                   @Param("hourFrom") Instant hourFrom,
+                                   @Param("hourTo") Instant hourTo,
                                    @Param("limit") int limit);
 
     /**
@@ -97,28 +220,46 @@ public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEve
      * Returns Object[] arrays of [device_type, count].
      */
     @Query(value = """
-            SELECT COALESCE(device_type, 'Unknown') AS device,
-                   COUNT(*) AS clicks
-            FROM click_events
-            WHERE short_code = :shortCode
-              AND clicked_at BETWEEN :from AND :to
+            SELECT device, SUM(clicks) AS clicks FROM (
+                SELECT dim_value AS device, clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'device'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT COALESCE(device_type, 'Unknown'), COUNT(*)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY 1
+            ) t
             GROUP BY device
             ORDER BY clicks DESC
             """, nativeQuery = true)
     List<Object[]> getDeviceBreakdown(@Param("shortCode") String shortCode,
                                       @Param("from") Instant from,
-                                      @Param("to") Instant to);
+                                      @Param("to") Instant to,
+                                      @Param("hourFrom") Instant hourFrom,
+                                      @Param("hourTo") Instant hourTo);
 
     /**
      * Browser breakdown for a short code.
      * Returns Object[] arrays of [browser, count].
      */
     @Query(value = """
-            SELECT COALESCE(browser, 'Unknown') AS browser_name,
-                   COUNT(*) AS clicks
-            FROM click_events
-            WHERE short_code = :shortCode
-              AND clicked_at BETWEEN :from AND :to
+            SELECT browser_name, SUM(clicks) AS clicks FROM (
+                SELECT dim_value AS browser_name, clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'browser'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT COALESCE(browser, 'Unknown'), COUNT(*)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY 1
+            ) t
             GROUP BY browser_name
             ORDER BY clicks DESC
             LIMIT :limit
@@ -126,6 +267,8 @@ public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEve
     List<Object[]> getBrowserBreakdown(@Param("shortCode") String shortCode,
                                        @Param("from") Instant from,
                                        @Param("to") Instant to,
+                                       @Param("hourFrom") Instant hourFrom,
+                                       @Param("hourTo") Instant hourTo,
                                        @Param("limit") int limit);
 
     /**
@@ -133,30 +276,48 @@ public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEve
      * Returns Object[] arrays of [os, count].
      */
     @Query(value = """
-            SELECT COALESCE(os, 'Unknown') AS os_name,
-                   COUNT(*) AS clicks
-            FROM click_events
-            WHERE short_code = :shortCode
-              AND clicked_at BETWEEN :from AND :to
+            SELECT os_name, SUM(clicks) AS clicks FROM (
+                SELECT dim_value AS os_name, clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'os'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT COALESCE(os, 'Unknown'), COUNT(*)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY 1
+            ) t
             GROUP BY os_name
             ORDER BY clicks DESC
             LIMIT :limit
             """, nativeQuery = true)
     List<Object[]> getOsBreakdown(@Param("shortCode") String shortCode,
-                                   @Param("from") Instant from,
-                                   @Param("to") Instant to,
-                                   @Param("limit") int limit);
+                                  @Param("from") Instant from,
+                                  @Param("to") Instant to,
+                                  @Param("hourFrom") Instant hourFrom,
+                                  @Param("hourTo") Instant hourTo,
+                                  @Param("limit") int limit);
 
     /**
      * Geographic breakdown by country for a short code.
      * Returns Object[] arrays of [country, count].
      */
     @Query(value = """
-            SELECT COALESCE(country, 'Unknown') AS country_name,
-                   COUNT(*) AS clicks
-            FROM click_events
-            WHERE short_code = :shortCode
-              AND clicked_at BETWEEN :from AND :to
+            SELECT country_name, SUM(clicks) AS clicks FROM (
+                SELECT dim_value AS country_name, clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'country'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT COALESCE(country, 'Unknown'), COUNT(*)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY 1
+            ) t
             GROUP BY country_name
             ORDER BY clicks DESC
             LIMIT :limit
@@ -164,6 +325,8 @@ public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEve
     List<Object[]> getCountryBreakdown(@Param("shortCode") String shortCode,
                                        @Param("from") Instant from,
                                        @Param("to") Instant to,
+                                       @Param("hourFrom") Instant hourFrom,
+                                       @Param("hourTo") Instant hourTo,
                                        @Param("limit") int limit);
 
     /**
@@ -171,14 +334,28 @@ public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEve
      * Returns Object[] arrays of [city, country, count, avg_lat, avg_lng].
      */
     @Query(value = """
-            SELECT COALESCE(city, 'Unknown') AS city_name,
-                   COALESCE(country, 'Unknown') AS country_name,
-                   COUNT(*) AS clicks,
-                   AVG(latitude) AS avg_lat,
-                   AVG(longitude) AS avg_lng
-            FROM click_events
-            WHERE short_code = :shortCode
-              AND clicked_at BETWEEN :from AND :to
+            SELECT city_name, country_name,
+                   SUM(clicks) AS clicks,
+                   SUM(lat_sum) / NULLIF(SUM(geo_clicks), 0) AS avg_lat,
+                   SUM(lng_sum) / NULLIF(SUM(geo_clicks), 0) AS avg_lng
+            FROM (
+                SELECT dim_value AS city_name, dim_parent AS country_name,
+                       clicks, lat_sum, lng_sum, geo_clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode AND dimension = 'city'
+                  AND bucket >= :hourFrom AND bucket < :hourTo
+                UNION ALL
+                SELECT COALESCE(city, 'Unknown'), COALESCE(country, 'Unknown'),
+                       COUNT(*),
+                       COALESCE(SUM(latitude) FILTER (WHERE latitude IS NOT NULL AND longitude IS NOT NULL), 0),
+                       COALESCE(SUM(longitude) FILTER (WHERE latitude IS NOT NULL AND longitude IS NOT NULL), 0),
+                       COUNT(*) FILTER (WHERE latitude IS NOT NULL AND longitude IS NOT NULL)
+                FROM click_events
+                WHERE short_code = :shortCode
+                  AND ((clicked_at >= :from AND clicked_at < :hourFrom AND clicked_at <= :to)
+                       OR (clicked_at >= :hourTo AND clicked_at <= :to))
+                GROUP BY 1, 2
+            ) t
             GROUP BY city_name, country_name
             ORDER BY clicks DESC
             LIMIT :limit
@@ -186,5 +363,110 @@ public interface ClickEventRepository extends JpaRepository<ClickEvent, ClickEve
     List<Object[]> getCityBreakdown(@Param("shortCode") String shortCode,
                                     @Param("from") Instant from,
                                     @Param("to") Instant to,
+                                    @Param("hourFrom") Instant hourFrom,
+                                    @Param("hourTo") Instant hourTo,
                                     @Param("limit") int limit);
+
+    /**
+     * Every dashboard aggregate in one read: all rollup dimensions for the whole hours plus
+     * one pass over the raw edge rows, unpivoted into the same dimensions.
+     * Rollup hours in [skipFrom, skipTo) are left out (served from the day-bucket cache);
+     * pass skipFrom = skipTo = hourTo to skip nothing.
+     * Returns Object[] arrays of [dimension, label, value, parent, clicks, lat_sum, lng_sum, geo_clicks];
+     * label is the time bucket (formatted with :labelFormat) for 'total' rows and '' otherwise.
+     */
+    @Query(value = """
+            SELECT dimension,
+                   CASE WHEN dimension = 'total' THEN TO_CHAR(bucket AT TIME ZONE 'UTC', :labelFormat) ELSE '' END AS label,
+                   dim_value, dim_parent,
+                   SUM(clicks), SUM(lat_sum), SUM(lng_sum), SUM(geo_clicks)
+            FROM (
+                SELECT dimension, bucket, dim_value, dim_parent, clicks, lat_sum, lng_sum, geo_clicks
+                FROM click_rollups_hourly
+                WHERE short_code = :shortCode
+                  AND dimension IN ('total', 'referrer', 'device', 'browser', 'os', 'country', 'city')
+                  AND ((bucket >= :hourFrom AND bucket < :skipFrom) OR (bucket >= :skipTo AND bucket < :hourTo))
+                UNION ALL
+                SELECT d.dimension, ce.clicked_at, d.dim_value, d.dim_parent, 1,
+                       COALESCE(d.lat, 0), COALESCE(d.lng, 0), CASE WHEN d.lat IS NOT NULL THEN 1 ELSE 0 END
+                FROM click_events ce
+                CROSS JOIN LATERAL (VALUES
+                    ('total',    '',                                          '',                                 CAST(NULL AS float8), CAST(NULL AS float8)),
+                    ('referrer', LEFT(COALESCE(ce.referrer, 'Direct'), 500),  '',                                 NULL, NULL),
+                    ('device',   COALESCE(ce.device_type, 'Unknown'),         '',                                 NULL, NULL),
+                    ('browser',  COALESCE(ce.browser, 'Unknown'),             '',                                 NULL, NULL),
+                    ('os',       COALESCE(ce.os, 'Unknown'),                  '',                                 NULL, NULL),
+                    ('country',  COALESCE(ce.country, 'Unknown'),             '',                                 NULL, NULL),
+                    ('city',     COALESCE(ce.city, 'Unknown'),                COALESCE(ce.country, 'Unknown'),
+                                 CASE WHEN ce.longitude IS NOT NULL THEN ce.latitude END,
+                                 CASE WHEN ce.latitude IS NOT NULL THEN ce.longitude END)
+                ) AS d(dimension, dim_value, dim_parent, lat, lng)
+                WHERE ce.short_code = :shortCode
+                  AND ((ce.clicked_at >= :from AND ce.clicked_at < :hourFrom AND ce.clicked_at <= :to)
+                       OR (ce.clicked_at >= :hourTo AND ce.clicked_at <= :to))
+            ) t
+            GROUP BY 1, 2, 3, 4
+            """, nativeQuery = true)
+    List<Object[]> getDashboardAggregates(@Param("shortCode") String shortCode,
+                                          @Param("from") Instant from,
+                                          @Param("to") Instant to,
+                                          @Param("hourFrom") Instant hourFrom,
+                                          @Param("hourTo") Instant hourTo,
+                                          @Param("skipFrom") Instant skipFrom,
+                                          @Param("skipTo") Instant skipTo,
+                                          @Param("labelFormat") String labelFormat);
+
+    /**
+     * Dashboard aggregates for whole UTC days [dayFrom, dayTo), from rollups only, grouped per day.
+     * Returns Object[] arrays of [day, dimension, label, value, parent, clicks, lat_sum, lng_sum, geo_clicks];
+     * day is 'YYYY-MM-DD' and label is the hour ('YYYY-MM-DD HH24:00') for 'total' rows, '' otherwise.
+     */
+    @Query(value = """
+            SELECT TO_CHAR(bucket AT TIME ZONE 'UTC', 'YYYY-MM-DD') AS day,
+                   dimension,
+                   CASE WHEN dimension = 'total' THEN TO_CHAR(bucket AT TIME ZONE 'UTC', 'YYYY-MM-DD HH24:00') ELSE '' END AS label,
+                   dim_value, dim_parent,
+                   SUM(clicks), SUM(lat_sum), SUM(lng_sum), SUM(geo_clicks)
+            FROM click_rollups_hourly
+            WHERE short_code = :shortCode
+              AND dimension IN ('total', 'referrer', 'device', 'browser', 'os', 'country', 'city')
+              AND bucket >= :dayFrom AND bucket < :dayTo
+            GROUP BY 1, 2, 3, 4, 5
+            """, nativeQuery = true)
+    List<Object[]> getDashboardDayAggregates(@Param("shortCode") String shortCode,
+                                             @Param("dayFrom") Instant dayFrom,
+                                             @Param("dayTo") Instant dayTo);
+
+    /**
+     * Clicks per UTC day from the hourly 'total' rollups for buckets in [hourFrom, hourTo).
+     * Cheap enough to run on every dashboard request: it validates cached day buckets and
+     * versions the response for ETags.
+     * Returns Object[] arrays of [day 'YYYY-MM-DD', clicks].
+     */
+    @Query(value = """
+            SELECT TO_CHAR(bucket AT TIME ZONE 'UTC', 'YYYY-MM-DD') AS day, SUM(clicks)
+            FROM click_rollups_hourly
+            WHERE short_code = :shortCode AND dimension = 'total' AND dim_value = '' AND dim_parent = ''
+              AND bucket >= :hourFrom AND bucket < :hourTo
+            GROUP BY 1
+            """, nativeQuery = true)
+    List<Object[]> getDailyClickTotals(@Param("shortCode") String shortCode,
+                                       @Param("hourFrom") Instant hourFrom,
+                                       @Param("hourTo") Instant hourTo);
+
+    /**
+     * Clicks per UTC hour from the hourly 'total' rollups for buckets in [hourFrom, hourTo).
+     * Used to check the hot-link cube against the rollups before it answers a query.
+     * Returns Object[] arrays of [hours since the epoch, clicks].
+     */
+    @Query(value = """
+            SELECT CAST(EXTRACT(EPOCH FROM bucket) / 3600 AS bigint) AS hour, SUM(clicks)
+            FROM click_rollups_hourly
+            WHERE short_code = :shortCode AND dimension = 'total' AND dim_value = '' AND dim_parent = ''
+              AND bucket >= :hourFrom AND bucket < :hourTo
+            GROUP BY 1
+            """, nativeQuery = true)
+    List<Object[]> getHourlyClickTotals(@Param("shortCode") String shortCode,
+                                        @Param("hourFrom") Instant hourFrom,
+                                        @Param("hourTo") Instant hourTo);
 }
@@ -0,0 +1,81 @@
+package com.linkhub.analytics.repository;
+
+import com.linkhub.analytics.dto.ClickEventDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Server-side cursor over raw click events for exports.
+ *
+ * <p>Rows come back in {@code (clicked_at, event_id)} order, so any row is a resume position.
+ * The PostgreSQL driver only streams with a fetch size inside a transaction (autocommit off);
+ * callers must run {@link #streamClicks} in one, otherwise the whole result is buffered.
+ */
+@Repository
+public class ClickExportRepository {
+
+    private static final String SELECT_SQL = """
+            SELECT event_id, short_code, clicked_at, host(ip_address) AS ip_address,
+                   referrer, device_type, browser, os, country, city
+            FROM click_events
+            WHERE short_code = ? AND clicked_at >= ? AND clicked_at <= ?
+            """;
+
+    private static final String RESUME_SQL = """
+              AND (clicked_at, event_id) > (?, ?)
+            """;
+
+    private static final String ORDER_SQL = """
+            ORDER BY clicked_at, event_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClickExportRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stream clicks in {@code [from, to]} to {@code sink}, {@code fetchSize} rows per round trip.
+     *
+     * @param afterClickedAt resume strictly after this (clicked_at, event_id); both null to start at {@code from}
+     */
+    public void streamClicks(String shortCode, Instant from, Instant to,
+                             Instant afterClickedAt, UUID afterEventId,
+                             int fetchSize, Consumer<ClickEventDto> sink) {
+        boolean resume = afterClickedAt != null;
+        Instant start = resume && afterClickedAt.isAfter(from) ? afterClickedAt : from;
+        String sql = SELECT_SQL + (resume ? RESUME_SQL : "") + ORDER_SQL;
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(fetchSize);
+            ps.setString(1, shortCode);
+            ps.setTimestamp(2, Timestamp.from(start));
+            ps.setTimestamp(3, Timestamp.from(to));
+            if (resume) {
+                ps.setTimestamp(4, Timestamp.from(afterClickedAt));
+                ps.setObject(5, afterEventId);
+            }
+            return ps;
+        }, rs -> {
+            sink.accept(new ClickEventDto(
+                    rs.getObject("event_id", UUID.class),
+                    rs.getString("short_code"),
+                    rs.getTimestamp("clicked_at").toInstant(),
+                    rs.getString("ip_address"),
+                    rs.getString("referrer"),
+                    rs.getString("device_type"),
+                    rs.getString("browser"),
+                    rs.getString("os"),
+                    rs.getString("country"),
+                    rs.getString("city")));
+        });
+    }
+}
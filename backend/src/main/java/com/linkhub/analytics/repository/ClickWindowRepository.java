@@ -0,0 +1,66 @@
+package com.linkhub.analytics.repository;
+
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Server-side cursor over a link's recent clicks, used to load it into the hot-link cube.
+ *
+ * <p>Rows are read in the same shape the click tail delivers, so both feed the cube through one
+ * path. As with exports, the driver only streams inside a transaction.
+ */
+@Repository
+public class ClickWindowRepository {
+
+    private static final String SELECT_SQL = """
+            SELECT event_id, url_id, short_code, clicked_at, referrer, device_type, browser, os,
+                   country, city, latitude, longitude
+            FROM click_events
+            WHERE short_code = ? AND clicked_at >= ?
+            LIMIT ?
+            """;
+
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ClickWindowRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stream up to {@code limit} clicks at or after {@code from}, in no particular order.
+     */
+    public void streamSince(String shortCode, Instant from, int limit, Consumer<EnrichedClickMessage> sink) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setString(1, shortCode);
+            ps.setTimestamp(2, Timestamp.from(from));
+            ps.setInt(3, limit);
+            return ps;
+        }, rs -> {
+            sink.accept(new EnrichedClickMessage(
+                    rs.getObject("event_id", UUID.class),
+                    rs.getLong("url_id"),
+                    rs.getString("short_code"),
+                    rs.getTimestamp("clicked_at").toInstant(),
+                    rs.getString("referrer"),
+                    rs.getString("device_type"),
+                    rs.getString("browser"),
+                    rs.getString("os"),
+                    rs.getString("country"),
+                    rs.getString("city"),
+                    rs.getObject("latitude", Double.class),
+                    rs.getObject("longitude", Double.class),
+                    null));
+        });
+    }
+}
@@ -0,0 +1,53 @@
+package com.linkhub.analytics.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Reads {@code click_geo_rollups_daily}: a link's located clicks per day and geohash cell,
+ * maintained by the analytics consumer at precisions 2 to 6.
+ */
+@Repository
+public class GeoRollupRepository {
+
+    private static final String SELECT_SQL = """
+            SELECT geohash, SUM(clicks) AS clicks, SUM(lat_sum) AS lat_sum, SUM(lng_sum) AS lng_sum
+            FROM click_geo_rollups_daily
+            WHERE short_code = ? AND precision = ? AND geohash = ANY (?) AND bucket >= ? AND bucket < ?
+            GROUP BY geohash
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GeoRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Clicks in each of the given cells for day buckets in [dayFrom, dayTo). Cells without
+     * clicks are left out.
+     */
+    public List<CellRow> aggregate(String shortCode, int precision, List<String> geohashes,
+                                   Instant dayFrom, Instant dayTo) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL);
+            ps.setString(1, shortCode);
+            ps.setInt(2, precision);
+            ps.setArray(3, connection.createArrayOf("varchar", geohashes.toArray()));
+            ps.setTimestamp(4, Timestamp.from(dayFrom));
+            ps.setTimestamp(5, Timestamp.from(dayTo));
+            return ps;
+        }, (rs, rowNum) -> new CellRow(
+                rs.getString("geohash"),
+                rs.getLong("clicks"),
+                rs.getDouble("lat_sum"),
+                rs.getDouble("lng_sum")));
+    }
+
+    public record CellRow(String geohash, long clicks, double latSum, double lngSum) {}
+}
@@ -0,0 +1,53 @@
+package com.linkhub.analytics.repository;
+
+import com.linkhub.analytics.model.ReportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ReportJobRepository extends JpaRepository<ReportJob, Long> {
+
+    Optional<ReportJob> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * The latest of a user's jobs for the same report, among the given statuses.
+     */
+    Optional<ReportJob> findFirstByUserIdAndCacheKeyAndStatusInOrderByCreatedAtDesc(
+            Long userId, String cacheKey, Collection<ReportJob.Status> statuses);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM ReportJob r WHERE r.finishedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") Instant cutoff);
+
+    /**
+     * Mark jobs as still held by a live pod's queue.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ReportJob r SET r.heartbeatAt = :now WHERE r.id IN :ids")
+    int heartbeat(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    /**
+     * Fail queued or running jobs whose pod stopped sending heartbeats (restart or crash): the
+     * queue that held them was in memory.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE ReportJob r SET r.status = com.linkhub.analytics.model.ReportJob.Status.FAILED,
+                r.errorMessage = 'Interrupted before finishing', r.finishedAt = :now
+            WHERE r.status IN (com.linkhub.analytics.model.ReportJob.Status.PENDING,
+                               com.linkhub.analytics.model.ReportJob.Status.RUNNING)
+              AND COALESCE(r.heartbeatAt, r.createdAt) < :cutoff
+            """)
+    int failAbandoned(@Param("cutoff") Instant cutoff, @Param("now") Instant now);
+}
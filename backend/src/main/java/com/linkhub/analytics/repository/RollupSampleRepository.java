@@ -0,0 +1,56 @@
+package com.linkhub.analytics.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Reads the dimension rollups of a chosen set of hours, for approximate breakdowns that
+ * aggregate a sample of hours instead of the whole range.
+ */
+@Repository
+public class RollupSampleRepository {
+
+    private static final String SELECT_SQL = """
+            SELECT CAST(EXTRACT(EPOCH FROM bucket) / 3600 AS bigint) AS hour,
+                   dimension, dim_value, dim_parent, clicks, lat_sum, lng_sum, geo_clicks
+            FROM click_rollups_hourly
+            WHERE short_code = ? AND dimension = ANY (?)
+              AND bucket IN (SELECT to_timestamp(h * 3600) FROM unnest(CAST(? AS bigint[])) AS h)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RollupSampleRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Rollup rows of the given dimensions for the given hours (hours since the epoch, UTC).
+     */
+    public List<HourRow> findHours(String shortCode, List<String> dimensions, List<Long> hours) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL);
+            ps.setString(1, shortCode);
+            ps.setArray(2, connection.createArrayOf("text", dimensions.toArray()));
+            ps.setArray(3, connection.createArrayOf("bigint", hours.toArray()));
+            return ps;
+        }, (rs, rowNum) -> new HourRow(
+                rs.getLong("hour"),
+                rs.getString("dimension"),
+                rs.getString("dim_value"),
+                rs.getString("dim_parent"),
+                rs.getLong("clicks"),
+                rs.getDouble("lat_sum"),
+                rs.getDouble("lng_sum"),
+                rs.getLong("geo_clicks")));
+    }
+
+    /**
+     * One rollup row; {@code hour} is hours since the epoch (UTC).
+     */
+    public record HourRow(long hour, String dimension, String value, String parent,
+                          long clicks, double latSum, double lngSum, long geoClicks) {}
+}
@@ -0,0 +1,165 @@
+package com.linkhub.analytics.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads for HyperLogLog unique-visitor counting.
+ *
+ * <p>Hourly sketches are written by the analytics consumer to {@code click_visitor_sketches_hourly}.
+ * An hour's sketch is only trusted when it has seen every click in that hour's {@code total}
+ * rollup; other hours, and the partial edge hours of a range, are read from click_events.
+ */
+@Repository
+public class VisitorSketchRepository {
+
+    private static final String FIND_HOURS_SQL = """
+            SELECT r.bucket, r.clicks, COALESCE(s.clicks, 0) AS sketched_clicks, s.sketch
+            FROM click_rollups_hourly r
+            LEFT JOIN click_visitor_sketches_hourly s
+                   ON s.short_code = r.short_code AND s.bucket = r.bucket
+            WHERE r.short_code = ? AND r.dimension = 'total' AND r.dim_value = '' AND r.dim_parent = ''
+              AND r.bucket >= ? AND r.bucket < ?
+            """;
+
+    private static final String FIND_HOURS_BATCH_SQL = """
+            SELECT r.short_code, r.bucket, r.clicks, COALESCE(s.clicks, 0) AS sketched_clicks, s.sketch
+            FROM click_rollups_hourly r
+            LEFT JOIN click_visitor_sketches_hourly s
+                   ON s.short_code = r.short_code AND s.bucket = r.bucket
+            WHERE r.short_code = ANY (?) AND r.dimension = 'total' AND r.dim_value = '' AND r.dim_parent = ''
+              AND r.bucket >= ? AND r.bucket < ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VisitorSketchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Every hour in {@code [hourFrom, hourTo)} that has clicks, with its sketch if one exists.
+     */
+    public List<HourSketch> findHours(String shortCode, Instant hourFrom, Instant hourTo) {
+        return jdbcTemplate.query(FIND_HOURS_SQL,
+                (rs, rowNum) -> new HourSketch(
+                        rs.getTimestamp("bucket").toInstant(),
+                        rs.getLong("clicks"),
+                        rs.getLong("sketched_clicks"),
+                        rs.getBytes("sketch")),
+                shortCode, Timestamp.from(hourFrom), Timestamp.from(hourTo));
+    }
+
+    /**
+     * {@link #findHours(String, Instant, Instant)} for several links in one query, keyed by short
+     * code. Links without clicks in the range are absent.
+     */
+    public Map<String, List<HourSketch>> findHours(Collection<String> shortCodes, Instant hourFrom, Instant hourTo) {
+        Map<String, List<HourSketch>> hours = new HashMap<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(FIND_HOURS_BATCH_SQL);
+            ps.setArray(1, connection.createArrayOf("text", shortCodes.toArray()));
+            ps.setTimestamp(2, Timestamp.from(hourFrom));
+            ps.setTimestamp(3, Timestamp.from(hourTo));
+            return ps;
+        }, rs -> {
+            hours.computeIfAbsent(rs.getString("short_code"), k -> new ArrayList<>()).add(new HourSketch(
+                    rs.getTimestamp("bucket").toInstant(),
+                    rs.getLong("clicks"),
+                    rs.getLong("sketched_clicks"),
+                    rs.getBytes("sketch")));
+        });
+        return hours;
+    }
+
+    /**
+     * Distinct visitor IP addresses in the given raw time spans.
+     */
+    public List<String> findDistinctAddresses(String shortCode, List<Span> spans) {
+        if (spans.isEmpty()) {
+            return List.of();
+        }
+
+        List<Object> args = new ArrayList<>(1 + spans.size() * 2);
+        String predicates = spanPredicates(spans, args, shortCode);
+
+        return jdbcTemplate.queryForList("""
+                SELECT DISTINCT host(ip_address)
+                FROM click_events
+                WHERE short_code = ? AND ip_address IS NOT NULL
+                  AND (%s)
+                """.formatted(predicates),
+                String.class, args.toArray());
+    }
+
+    /**
+     * {@link #findDistinctAddresses(String, List)} for several links in one query, keyed by short code.
+     */
+    public Map<String, List<String>> findDistinctAddresses(Map<String, List<Span>> spansByShortCode) {
+        List<String> predicates = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        for (Map.Entry<String, List<Span>> e : spansByShortCode.entrySet()) {
+            if (e.getValue().isEmpty()) {
+                continue;
+            }
+            predicates.add("(short_code = ? AND (" + spanPredicates(e.getValue(), args, e.getKey()) + "))");
+        }
+        if (predicates.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, List<String>> addresses = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT DISTINCT short_code, host(ip_address) AS address
+                FROM click_events
+                WHERE ip_address IS NOT NULL
+                  AND (%s)
+                """.formatted(String.join(" OR ", predicates)),
+                rs -> {
+                    addresses.computeIfAbsent(rs.getString("short_code"), k -> new ArrayList<>())
+                            .add(rs.getString("address"));
+                }, args.toArray());
+        return addresses;
+    }
+
+    /**
+     * OR-able {@code clicked_at} predicates for one link's spans; appends the short code, then the
+     * span bounds, to {@code args} in placeholder order.
+     */
+    private static String spanPredicates(List<Span> spans, List<Object> args, String shortCode) {
+        args.add(shortCode);
+        List<String> predicates = new ArrayList<>(spans.size());
+        for (Span span : spans) {
+            predicates.add(span.endInclusive()
+                    ? "(clicked_at >= ? AND clicked_at <= ?)"
+                    : "(clicked_at >= ? AND clicked_at < ?)");
+            args.add(Timestamp.from(span.start()));
+            args.add(Timestamp.from(span.end()));
+        }
+        return String.join(" OR ", predicates);
+    }
+
+    public record HourSketch(Instant bucket, long clicks, long sketchedClicks, byte[] sketch) {
+
+        /**
+         * Whether the sketch has seen every click the rollup has counted for this hour.
+         */
+        public boolean isComplete() {
+            return sketch != null && sketchedClicks >= clicks;
+        }
+    }
+
+    /**
+     * A raw {@code clicked_at} span starting at {@code start} (inclusive).
+     */
+    public record Span(Instant start, Instant end, boolean endInclusive) {}
+}
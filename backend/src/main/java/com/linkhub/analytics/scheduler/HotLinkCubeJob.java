@@ -0,0 +1,24 @@
+package com.linkhub.analytics.scheduler;
+
+import com.linkhub.analytics.cube.HotLinkCube;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that slides the hot-link cube's window forward every minute and drops links
+ * that have gone idle or no longer fit its memory limit.
+ */
+@Component
+public class HotLinkCubeJob {
+
+    private final HotLinkCube hotLinkCube;
+
+    public HotLinkCubeJob(HotLinkCube hotLinkCube) {
+        this.hotLinkCube = hotLinkCube;
+    }
+
+    @Scheduled(fixedDelay = 60_000) // Every minute
+    public void maintain() {
+        hotLinkCube.maintain();
+    }
+}
@@ -0,0 +1,24 @@
+package com.linkhub.analytics.scheduler;
+
+import com.linkhub.analytics.live.LiveClickHub;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that pushes the last second's clicks to live click streams.
+ * Only queues frames; the writes happen on the live stream executor.
+ */
+@Component
+public class LiveClickFlushJob {
+
+    private final LiveClickHub liveClickHub;
+
+    public LiveClickFlushJob(LiveClickHub liveClickHub) {
+        this.liveClickHub = liveClickHub;
+    }
+
+    @Scheduled(fixedRate = 1_000) // Every second
+    public void flush() {
+        liveClickHub.flush();
+    }
+}
@@ -0,0 +1,40 @@
+package com.linkhub.analytics.scheduler;
+
+import com.linkhub.analytics.repository.ReportJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Scheduled job that deletes report jobs whose results have expired. Jobs interrupted by a
+ * restart are failed by {@link ReportJobHeartbeatJob}.
+ *
+ * <p>Runs every hour.
+ */
+@Component
+public class ReportJobCleanupJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobCleanupJob.class);
+
+    private final ReportJobRepository reportJobRepository;
+
+    @Value("${analytics.reports.result-ttl:7d}")
+    private Duration resultTtl;
+
+    public ReportJobCleanupJob(ReportJobRepository reportJobRepository) {
+        this.reportJobRepository = reportJobRepository;
+    }
+
+    @Scheduled(fixedRate = 3_600_000) // every hour
+    public void cleanUp() {
+        int deleted = reportJobRepository.deleteFinishedBefore(Instant.now().minus(resultTtl));
+        if (deleted > 0) {
+            log.info("Report jobs cleaned up: {} expired", deleted);
+        }
+    }
+}
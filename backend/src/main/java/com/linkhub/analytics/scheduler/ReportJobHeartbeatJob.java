@@ -0,0 +1,26 @@
+package com.linkhub.analytics.scheduler;
+
+import com.linkhub.analytics.service.ReportJobService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that keeps this pod's report jobs alive and fails the ones a restarted pod left
+ * behind. See {@link ReportJobService#heartbeat()}.
+ *
+ * <p>Runs every 30 seconds, a quarter of the default {@code analytics.reports.heartbeat-timeout}.
+ */
+@Component
+public class ReportJobHeartbeatJob {
+
+    private final ReportJobService reportJobService;
+
+    public ReportJobHeartbeatJob(ReportJobService reportJobService) {
+        this.reportJobService = reportJobService;
+    }
+
+    @Scheduled(fixedRate = 30_000) // every 30 seconds
+    public void heartbeat() {
+        reportJobService.heartbeat();
+    }
+}
@@ -0,0 +1,23 @@
+package com.linkhub.analytics.scheduler;
+
+import com.linkhub.analytics.trending.TrendingTracker;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that recomputes the trending link lists from the in-memory sketches.
+ */
+@Component
+public class TrendingRefreshJob {
+
+    private final TrendingTracker trendingTracker;
+
+    public TrendingRefreshJob(TrendingTracker trendingTracker) {
+        this.trendingTracker = trendingTracker;
+    }
+
+    @Scheduled(fixedRate = 5_000) // Every 5 seconds
+    public void refresh() {
+        trendingTracker.refresh();
+    }
+}
@@ -0,0 +1,180 @@
+package com.linkhub.analytics.service;
+
+import com.linkhub.common.exception.RateLimitExceededException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request's independent analytics queries concurrently, so its latency is the slowest
+ * query rather than the sum of them.
+ *
+ * <p>Queries run on {@code analyticsQueryExecutor}, a bounded pool sized well below the main
+ * Hikari pool; redirects never share it (their DB fallback has its own pool), and when it is
+ * saturated new requests get 429 instead of queueing without bound.
+ *
+ * <p>Each request gets a deadline ({@code analytics.fan-out.timeout}). Every query runs in its own
+ * read-only transaction with {@code statement_timeout} set to the time left, so Postgres aborts
+ * anything that outlives the request. When one query fails or the deadline passes, the queries
+ * still queued are cancelled before they take a connection.
+ *
+ * <p>Report jobs run inside {@link #runInline}: their fan-outs run each query on the job's own
+ * worker thread, one after another, under the job's longer deadline, and never touch the pool.
+ */
+@Component
+public class AnalyticsQueryFanOut {
+
+    /** SQLState of a statement cancelled by statement_timeout. */
+    private static final String QUERY_CANCELED = "57014";
+
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Deadline of the inline run on this thread, if any. */
+    private final ThreadLocal<Long> inlineDeadline = new ThreadLocal<>();
+
+    @Value("${analytics.fan-out.timeout:10s}")
+    private Duration timeout;
+
+    public AnalyticsQueryFanOut(@Qualifier("analyticsQueryExecutor") ThreadPoolTaskExecutor executor,
+                                PlatformTransactionManager transactionManager,
+                                JdbcTemplate jdbcTemplate) {
+        this.executor = executor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Start a fan-out whose deadline is {@code analytics.fan-out.timeout} from now.
+     * Close it when done; closing cancels whatever has not been joined.
+     */
+    public Scope open() {
+        Long inline = inlineDeadline.get();
+        return inline != null ? new Scope(inline, true) : new Scope(System.nanoTime() + timeout.toNanos(), false);
+    }
+
+    /**
+     * Run {@code work} with every fan-out it opens executing its queries sequentially on this
+     * thread, all sharing one deadline {@code timeout} from now.
+     */
+    public <T> T runInline(Duration timeout, Supplier<T> work) {
+        inlineDeadline.set(System.nanoTime() + timeout.toNanos());
+        try {
+            return work.get();
+        } finally {
+            inlineDeadline.remove();
+        }
+    }
+
+    private <T> T run(Supplier<T> query, long deadline) {
+        long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (remainingMs <= 0) {
+            throw new QueryTimeoutException("Analytics query deadline passed before it started");
+        }
+        try {
+            return readOnlyTransaction.execute(status -> {
+                jdbcTemplate.queryForObject("SELECT set_config('statement_timeout', ?, true)",
+                        String.class, remainingMs + "ms");
+                return query.get();
+            });
+        } catch (DataAccessException e) {
+            // JdbcTemplate reports statement_timeout as a resource failure (SQLState class 57)
+            if (!(e instanceof QueryTimeoutException)
+                    && e.getMostSpecificCause() instanceof SQLException sql
+                    && QUERY_CANCELED.equals(sql.getSQLState())) {
+                throw new QueryTimeoutException("Analytics query exceeded its deadline", e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * One request's set of concurrent queries. Used from the request thread only.
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final long deadline;
+        private final boolean inline;
+        private final List<Future<?>> pending = new ArrayList<>();
+
+        private Scope(long deadline, boolean inline) {
+            this.deadline = deadline;
+            this.inline = inline;
+        }
+
+        /**
+         * Start a query on the analytics pool, or run it right away when inline.
+         *
+         * @throws RateLimitExceededException if the pool and its queue are full
+         */
+        public <T> Future<T> submit(Supplier<T> query) {
+            if (inline) {
+                return CompletableFuture.completedFuture(run(query, deadline));
+            }
+            try {
+                Future<T> future = executor.submit(() -> run(query, deadline));
+                pending.add(future);
+                return future;
+            } catch (TaskRejectedException e) {
+                cancelAll();
+                throw new RateLimitExceededException("Analytics is busy. Try again later.");
+            }
+        }
+
+        /**
+         * Wait for a query's result until the deadline. On failure or timeout the other
+         * queries are cancelled and the query's own exception is rethrown.
+         *
+         * @throws QueryTimeoutException if the deadline passes first
+         */
+        public <T> T join(Future<T> future) {
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                cancelAll();
+                throw new QueryTimeoutException("Analytics queries exceeded their deadline");
+            } catch (ExecutionException e) {
+                cancelAll();
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Analytics query failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll();
+                throw new IllegalStateException("Interrupted while waiting for analytics queries", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            cancelAll();
+        }
+
+        private void cancelAll() {
+            for (Future<?> future : pending) {
+                future.cancel(true);
+            }
+        }
+    }
+}
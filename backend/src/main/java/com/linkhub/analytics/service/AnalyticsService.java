@@ -1,63 +1,193 @@
 package com.linkhub.analytics.service;
 
+import com.linkhub.analytics.cache.DashboardBucketCache;
+import com.linkhub.analytics.cube.HotLinkCube;
 import com.linkhub.analytics.dto.*;
+import com.linkhub.analytics.geo.Geohash;
+import com.linkhub.analytics.live.LiveClickHub;
 import com.linkhub.analytics.model.ClickEvent;
+import com.linkhub.analytics.repository.AccountRollupRepository;
 import com.linkhub.analytics.repository.ClickEventRepository;
+import com.linkhub.analytics.repository.GeoRollupRepository;
+import com.linkhub.analytics.trending.TrendingTracker;
+import com.linkhub.common.dto.CursorPage;
+import com.linkhub.common.dto.KeysetCursor;
 import com.linkhub.common.exception.ResourceNotFoundException;
 import com.linkhub.url.model.Url;
 import com.linkhub.url.repository.UrlRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 @Service
 public class AnalyticsService {
 
     private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
 
+    /** Most links in one batch summary request, matching the largest URL list page. */
+    public static final int MAX_BATCH_SUMMARIES = 100;
+
+    /** Most geohash cells one map request may cover: the whole world at the coarsest precision. */
+    public static final int MAX_MAP_CELLS = 1024;
+
     private final ClickEventRepository clickEventRepository;
+    private final AccountRollupRepository accountRollupRepository;
+    private final GeoRollupRepository geoRollupRepository;
     private final UrlRepository urlRepository;
+    private final UniqueVisitorService uniqueVisitorService;
+    private final DashboardBucketCache dashboardBucketCache;
+    private final ClickExportService clickExportService;
+    private final AnalyticsQueryFanOut fanOut;
+    private final HotLinkCube hotLinkCube;
+    private final LiveClickHub liveClickHub;
+    private final TrendingTracker trendingTracker;
+    private final ApproximateBreakdownService approximateBreakdownService;
 
     public AnalyticsService(ClickEventRepository clickEventRepository,
-                            UrlRepository urlRepository) {
+                            AccountRollupRepository accountRollupRepository,
+                            GeoRollupRepository geoRollupRepository,
+                            UrlRepository urlRepository,
+                            UniqueVisitorService uniqueVisitorService,
+                            DashboardBucketCache dashboardBucketCache,
+                            ClickExportService clickExportService,
+                            AnalyticsQueryFanOut fanOut,
+                            HotLinkCube hotLinkCube,
+                            LiveClickHub liveClickHub,
+                            TrendingTracker trendingTracker,
+                            ApproximateBreakdownService approximateBreakdownService) {
         this.clickEventRepository = clickEventRepository;
+        this.accountRollupRepository = accountRollupRepository;
+        this.geoRollupRepository = geoRollupRepository;
         this.urlRepository = urlRepository;
+        this.uniqueVisitorService = uniqueVisitorService;
+        this.dashboardBucketCache = dashboardBucketCache;
+        this.clickExportService = clickExportService;
+        this.fanOut = fanOut;
+        this.hotLinkCube = hotLinkCube;
+        this.liveClickHub = liveClickHub;
+        this.trendingTracker = trendingTracker;
+        this.approximateBreakdownService = approximateBreakdownService;
     }
 
     // ────────── Click Summary ──────────
 
-    public ClickStats getClickSummary(String shortCode, Long userId, Integer days, Instant from, Instant to) {
+    public ClickStats getClickSummary(String shortCode, Long userId, Integer days, Instant from, Instant to,
+                                      Boolean exact) {
         validateOwnership(shortCode, userId);
         TimeRange range = resolveTimeRange(days, from, to);
 
-        long totalClicks = clickEventRepository.countByShortCodeAndTimeRange(shortCode, range.from, range.to);
-        long uniqueVisitors = clickEventRepository.countUniqueVisitors(shortCode, range.from, range.to);
+        try (AnalyticsQueryFanOut.Scope queries = fanOut.open()) {
+            Future<Long> totalClicks = queries.submit(() -> clickEventRepository.countByShortCodeAndTimeRange(
+                    shortCode, range.from, range.to, range.hourFrom(), range.hourTo()));
+            Future<UniqueVisitorService.UniqueVisitorCount> uniqueVisitors =
+                    queries.submit(() -> countUniqueVisitors(shortCode, range, exact));
 
-        return new ClickStats(shortCode, totalClicks, uniqueVisitors, range.from, range.to);
+            return toClickStats(shortCode, queries.join(totalClicks), queries.join(uniqueVisitors), range);
+        }
+    }
+
+    /**
+     * Summaries for a page of links in a fixed number of queries, whatever the page size: one
+     * ownership check, one grouped click count, and the grouped unique-visitor reads of
+     * {@link UniqueVisitorService#countAll}. Results follow the order of {@code shortCodes}.
+     */
+    public List<ClickStats> getClickSummaries(List<String> shortCodes, Long userId,
+                                              Integer days, Instant from, Instant to, Boolean exact) {
+        List<String> codes = shortCodes.stream().distinct().toList();
+        if (codes.isEmpty() || codes.size() > MAX_BATCH_SUMMARIES) {
+            throw new IllegalArgumentException("shortCodes must list between 1 and " + MAX_BATCH_SUMMARIES + " links");
+        }
+        validateOwnership(codes, userId);
+        TimeRange range = resolveTimeRange(days, from, to);
+
+        Map<String, Long> totals = new HashMap<>();
+        Map<String, UniqueVisitorService.UniqueVisitorCount> uniqueVisitors;
+        try (AnalyticsQueryFanOut.Scope queries = fanOut.open()) {
+            Future<List<Object[]>> totalClicks = queries.submit(() -> clickEventRepository.countByShortCodesAndTimeRange(
+                    codes, range.from, range.to, range.hourFrom(), range.hourTo()));
+            Future<Map<String, UniqueVisitorService.UniqueVisitorCount>> visitors = queries.submit(() ->
+                    uniqueVisitorService.countAll(codes, range.from, range.to, range.hourFrom(), range.hourTo(), exact));
+            for (Object[] row : queries.join(totalClicks)) {
+                totals.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            uniqueVisitors = queries.join(visitors);
+        }
+
+        return codes.stream()
+                .map(code -> toClickStats(code, totals.getOrDefault(code, 0L), uniqueVisitors.get(code), range))
+                .toList();
     }
 
     // ────────── Paginated Clicks ──────────
 
+    /**
+     * Offset page of click events. The total is read from rollups (plus raw edge hours)
+     * instead of a COUNT over click_events.
+     */
     public AnalyticsPage<ClickEventDto> getClickEvents(String shortCode, Long userId,
                                                         Integer days, Instant from, Instant to,
                                                         int page, int size) {
         validateOwnership(shortCode, userId);
         TimeRange range = resolveTimeRange(days, from, to);
 
-        Page<ClickEvent> pageResult = clickEventRepository.findByShortCodeAndTimeRange(
-                shortCode, range.from, range.to, PageRequest.of(page, size));
-
-        List<ClickEventDto> content = pageResult.getContent().stream()
+        List<ClickEventDto> content = clickEventRepository.findByShortCodeAndTimeRange(
+                        shortCode, range.from, range.to, PageRequest.of(page, size)).stream()
                 .map(ClickEventDto::from)
                 .toList();
+        long total = clickEventRepository.countByShortCodeAndTimeRange(
+                shortCode, range.from, range.to, range.hourFrom(), range.hourTo());
 
-        return AnalyticsPage.of(content, page, size, pageResult.getTotalElements());
+        return AnalyticsPage.of(content, page, size, total);
+    }
+
+    /**
+     * Keyset page of click events, newest first. A page costs the same at any depth;
+     * the total is only computed (from rollups) when {@code includeTotal} is set.
+     */
+    public CursorPage<ClickEventDto> scrollClickEvents(String shortCode, Long userId,
+                                                        Integer days, Instant from, Instant to,
+                                                        String cursor, int limit, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        validateOwnership(shortCode, userId);
+        TimeRange range = resolveTimeRange(days, from, to);
+
+        List<ClickEvent> rows = after == null
+                ? clickEventRepository.findFirstKeysetPage(shortCode, range.from, range.to, Limit.of(limit + 1))
+                : clickEventRepository.findKeysetPageAfter(shortCode, range.from, range.to,
+                        after.timestamp(), after.id(), Limit.of(limit + 1));
+        Long total = includeTotal
+                ? clickEventRepository.countByShortCodeAndTimeRange(
+                        shortCode, range.from, range.to, range.hourFrom(), range.hourTo())
+                : null;
+
+        CursorPage<ClickEvent> page = CursorPage.of(rows, limit,
+                click -> new KeysetCursor(click.getClickedAt(), click.getId()), total);
+        return new CursorPage<>(
+                page.content().stream().map(ClickEventDto::from).toList(),
+                page.size(), page.nextCursor(), page.hasNext(), page.totalElements());
     }
 
     // ────────── Timeseries ──────────
@@ -67,12 +197,20 @@ public class AnalyticsService {
                                                 String granularity) {
         validateOwnership(shortCode, userId);
         TimeRange range = resolveTimeRange(days, from, to);
+        boolean hourly = "hour".equalsIgnoreCase(granularity);
+
+        Optional<Map<String, List<DimensionRow>>> cubed = readFromCube(shortCode, range, hourly);
+        if (cubed.isPresent()) {
+            return toTimeseries(cubed.get());
+        }
 
         List<Object[]> results;
-        if ("hour".equalsIgnoreCase(granularity)) {
-            results = clickEventRepository.getTimeseriesByHour(shortCode, range.from, range.to);
+        if (hourly) {
+            results = clickEventRepository.getTimeseriesByHour(
+                    shortCode, range.from, range.to, range.hourFrom(), range.hourTo());
         } else {
-            results = clickEventRepository.getTimeseriesByDay(shortCode, range.from, range.to);
+            results = clickEventRepository.getTimeseriesByDay(
+                    shortCode, range.from, range.to, range.hourFrom(), range.hourTo());
         }
 
         return results.stream()
@@ -87,12 +225,28 @@ public class AnalyticsService {
 
     public List<ReferrerStats> getTopReferrers(String shortCode, Long userId,
                                                Integer days, Instant from, Instant to,
-                                               Integer limit) {
+                                               Integer limit, Boolean approx) {
         validateOwnership(shortCode, userId);
         TimeRange range = resolveTimeRange(days, from, to);
         int resultLimit = limit != null ? limit : 10;
 
-        List<Object[]> results = clickEventRepository.getTopReferrers(shortCode, range.from, range.to, resultLimit);
+        Optional<Map<String, List<DimensionRow>>> cubed = readFromCube(shortCode, range, false);
+        if (cubed.isPresent()) {
+            return toReferrers(cubed.get(), resultLimit);
+        }
+        Optional<Map<String, List<ApproximateBreakdownService.Estimate>>> estimated =
+                estimate(shortCode, range, approx, "referrer");
+        if (estimated.isPresent()) {
+            List<ApproximateBreakdownService.Estimate> top = topEstimates(estimated.get(), "referrer", resultLimit);
+            long estimatedTotal = top.stream().mapToLong(ApproximateBreakdownService.Estimate::clicks).sum();
+            return top.stream()
+                    .map(e -> new ReferrerStats(e.value(), e.clicks(), percentage(e.clicks(), estimatedTotal),
+                            e.errorBound()))
+                    .toList();
+        }
+
+        List<Object[]> results = clickEventRepository.getTopReferrers(
+                shortCode, range.from, range.to, range.hourFrom(), range.hourTo(), resultLimit);
         long totalClicks = results.stream().mapToLong(r -> ((Number) r[1]).longValue()).sum();
 
         return results.stream()
@@ -106,32 +260,70 @@ public class AnalyticsService {
 
     // ────────── Device Stats ──────────
 
-    public DeviceStats getDeviceStats(String shortCode, Long userId, Integer days, Instant from, Instant to) {
+    public DeviceStats getDeviceStats(String shortCode, Long userId, Integer days, Instant from, Instant to,
+                                      Boolean approx) {
         validateOwnership(shortCode, userId);
         TimeRange range = resolveTimeRange(days, from, to);
 
-        List<Object[]> deviceTypes = clickEventRepository.getDeviceBreakdown(shortCode, range.from, range.to);
-        List<Object[]> browsers = clickEventRepository.getBrowserBreakdown(shortCode, range.from, range.to, 10);
-        List<Object[]> operatingSystems = clickEventRepository.getOsBreakdown(shortCode, range.from, range.to, 10);
+        Optional<Map<String, List<DimensionRow>>> cubed = readFromCube(shortCode, range, false);
+        if (cubed.isPresent()) {
+            return toDeviceStats(cubed.get());
+        }
+        Optional<Map<String, List<ApproximateBreakdownService.Estimate>>> estimated =
+                estimate(shortCode, range, approx, "device", "browser", "os");
+        if (estimated.isPresent()) {
+            return new DeviceStats(
+                    toEstimatedBreakdown(topEstimates(estimated.get(), "device", Integer.MAX_VALUE)),
+                    toEstimatedBreakdown(topEstimates(estimated.get(), "browser", 10)),
+                    toEstimatedBreakdown(topEstimates(estimated.get(), "os", 10))
+            );
+        }
 
-        return new DeviceStats(
-                toBreakdown(deviceTypes),
-                toBreakdown(browsers),
-                toBreakdown(operatingSystems)
-        );
+        try (AnalyticsQueryFanOut.Scope queries = fanOut.open()) {
+            Future<List<Object[]>> deviceTypes = queries.submit(() -> clickEventRepository.getDeviceBreakdown(
+                    shortCode, range.from, range.to, range.hourFrom(), range.hourTo()));
+            Future<List<Object[]>> browsers = queries.submit(() -> clickEventRepository.getBrowserBreakdown(
+                    shortCode, range.from, range.to, range.hourFrom(), range.hourTo(), 10));
+            Future<List<Object[]>> operatingSystems = queries.submit(() -> clickEventRepository.getOsBreakdown(
+                    shortCode, range.from, range.to, range.hourFrom(), range.hourTo(), 10));
+
+            return new DeviceStats(
+                    toBreakdown(queries.join(deviceTypes)),
+                    toBreakdown(queries.join(browsers)),
+                    toBreakdown(queries.join(operatingSystems))
+            );
+        }
     }
 
     // ────────── Geographic Stats ──────────
 
     public GeoStats getGeoStats(String shortCode, Long userId,
                                  Integer days, Instant from, Instant to,
-                                 Integer limit) {
+                                 Integer limit, Boolean approx) {
         validateOwnership(shortCode, userId);
         TimeRange range = resolveTimeRange(days, from, to);
         int resultLimit = limit != null ? limit : 20;
 
-        List<Object[]> countryResults = clickEventRepository.getCountryBreakdown(shortCode, range.from, range.to, resultLimit);
-        List<Object[]> cityResults = clickEventRepository.getCityBreakdown(shortCode, range.from, range.to, resultLimit);
+        Optional<Map<String, List<DimensionRow>>> cubed = readFromCube(shortCode, range, false);
+        if (cubed.isPresent()) {
+            return toGeoStats(cubed.get(), resultLimit);
+        }
+        Optional<Map<String, List<ApproximateBreakdownService.Estimate>>> estimated =
+                estimate(shortCode, range, approx, "country", "city");
+        if (estimated.isPresent()) {
+            return toEstimatedGeoStats(estimated.get(), resultLimit);
+        }
+
+        List<Object[]> countryResults;
+        List<Object[]> cityResults;
+        try (AnalyticsQueryFanOut.Scope queries = fanOut.open()) {
+            Future<List<Object[]>> countries = queries.submit(() -> clickEventRepository.getCountryBreakdown(
+                    shortCode, range.from, range.to, range.hourFrom(), range.hourTo(), resultLimit));
+            Future<List<Object[]>> cities = queries.submit(() -> clickEventRepository.getCityBreakdown(
+                    shortCode, range.from, range.to, range.hourFrom(), range.hourTo(), resultLimit));
+            countryResults = queries.join(countries);
+            cityResults = queries.join(cities);
+        }
 
         long totalByCountry = countryResults.stream().mapToLong(r -> ((Number) r[1]).longValue()).sum();
 
@@ -156,8 +348,403 @@ public class AnalyticsService {
         return new GeoStats(countries, cities);
     }
 
+    // ────────── Map ──────────
+    //
+    // Clicks per geohash cell from click_geo_rollups_daily: one lookup per visible cell. Ranges
+    // are widened to whole UTC days so no raw clicks are scanned.
+
+    public ClickMap getClickMap(String shortCode, Long userId,
+                                double minLat, double minLng, double maxLat, double maxLng, Integer precision,
+                                Integer days, Instant from, Instant to) {
+        validateOwnership(shortCode, userId);
+        Geohash.Box box = new Geohash.Box(minLat, minLng, maxLat, maxLng);
+        int resolvedPrecision = resolveMapPrecision(box, precision);
+        TimeRange requested = resolveTimeRange(days, from, to);
+        Instant dayFrom = requested.from.truncatedTo(ChronoUnit.DAYS);
+        Instant dayTo = ceilDay(requested.to);
+
+        List<ClickMap.Cell> cells = geoRollupRepository.aggregate(
+                        shortCode, resolvedPrecision, Geohash.cover(box, resolvedPrecision), dayFrom, dayTo).stream()
+                .map(row -> {
+                    Geohash.Box bounds = Geohash.bounds(row.geohash());
+                    return new ClickMap.Cell(row.geohash(), row.clicks(),
+                            row.latSum() / row.clicks(), row.lngSum() / row.clicks(),
+                            bounds.south(), bounds.west(), bounds.north(), bounds.east());
+                })
+                .sorted(Comparator.comparingLong(ClickMap.Cell::clicks).reversed())
+                .toList();
+        long totalClicks = cells.stream().mapToLong(ClickMap.Cell::clicks).sum();
+        return new ClickMap(resolvedPrecision, totalClicks, cells, dayFrom, dayTo);
+    }
+
+    /**
+     * The requested precision, or else the finest one at which the box is at most
+     * {@link #MAX_MAP_CELLS} cells.
+     */
+    private static int resolveMapPrecision(Geohash.Box box, Integer precision) {
+        if (precision != null) {
+            if (precision < Geohash.MIN_PRECISION || precision > Geohash.MAX_PRECISION) {
+                throw new IllegalArgumentException("precision must be between %d and %d"
+                        .formatted(Geohash.MIN_PRECISION, Geohash.MAX_PRECISION));
+            }
+            if (Geohash.coverSize(box, precision) > MAX_MAP_CELLS) {
+                throw new IllegalArgumentException("Bounding box covers more than %d cells at precision %d"
+                        .formatted(MAX_MAP_CELLS, precision));
+            }
+            return precision;
+        }
+        for (int p = Geohash.MAX_PRECISION; p > Geohash.MIN_PRECISION; p--) {
+            if (Geohash.coverSize(box, p) <= MAX_MAP_CELLS) {
+                return p;
+            }
+        }
+        return Geohash.MIN_PRECISION;
+    }
+
+    // ────────── Export ──────────
+
+    /**
+     * Stream every click in the range as NDJSON or CSV, optionally gzipped; see {@link ClickExportService}.
+     */
+    public StreamingResponseBody exportClicks(String shortCode, Long userId,
+                                              Integer days, Instant from, Instant to,
+                                              Instant afterClickedAt, UUID afterEventId,
+                                              ExportFormat format, boolean gzip) {
+        validateOwnership(shortCode, userId);
+        TimeRange range = resolveTimeRange(days, from, to);
+        return clickExportService.open(shortCode, range.from, range.to, afterClickedAt, afterEventId, format, gzip);
+    }
+
+    // ────────── Live Stream ──────────
+
+    /**
+     * Open a Server-Sent Events stream of this link's clicks as they are committed;
+     * see {@link LiveClickHub}.
+     */
+    public SseEmitter openLiveStream(String shortCode, Long userId) {
+        validateOwnership(shortCode, userId);
+        return liveClickHub.subscribe(shortCode);
+    }
+
+    // ────────── Trending ──────────
+
+    /**
+     * The user's most-clicked links in the window, from the in-memory top-K sketches.
+     */
+    public TrendingLinks getTrending(Long userId, String window, int limit) {
+        return trendingTracker.forAccount(userId, TrendingWindow.fromParam(window), clampTrendingLimit(limit));
+    }
+
+    /**
+     * The most-clicked links across all accounts in the window.
+     */
+    public TrendingLinks getGlobalTrending(String window, int limit) {
+        return trendingTracker.global(TrendingWindow.fromParam(window), clampTrendingLimit(limit));
+    }
+
+    private static int clampTrendingLimit(int limit) {
+        return Math.max(1, Math.min(limit, TrendingTracker.MAX_LIMIT));
+    }
+
+    // ────────── Account ──────────
+    //
+    // Totals across all of a user's links, from click_account_rollups_hourly only. Ranges are
+    // widened to whole UTC hours so no raw clicks are scanned.
+
+    public AccountSummary getAccountSummary(Long userId, Integer days, Instant from, Instant to) {
+        TimeRange range = resolveAccountRange(days, from, to);
+        Map<String, List<DimensionRow>> byDimension = loadAccount(userId, range, "YYYY-MM-DD", "total", "link");
+
+        long totalClicks = byDimension.getOrDefault("total", List.of()).stream().mapToLong(DimensionRow::clicks).sum();
+        List<AccountSummary.LinkClicks> topLinks = top(byDimension, "link", 10).stream()
+                .map(r -> new AccountSummary.LinkClicks(r.value(), r.clicks(), percentage(r.clicks(), totalClicks)))
+                .toList();
+        return new AccountSummary(totalClicks, byDimension.getOrDefault("link", List.of()).size(), topLinks,
+                range.from, range.to);
+    }
+
+    public List<TimeseriesPoint> getAccountTimeseries(Long userId, Integer days, Instant from, Instant to,
+                                                      String granularity) {
+        TimeRange range = resolveAccountRange(days, from, to);
+        String labelFormat = "hour".equalsIgnoreCase(granularity) ? "YYYY-MM-DD HH24:00" : "YYYY-MM-DD";
+        return toTimeseries(loadAccount(userId, range, labelFormat, "total"));
+    }
+
+    public List<ReferrerStats> getAccountReferrers(Long userId, Integer days, Instant from, Instant to,
+                                                   Integer limit) {
+        TimeRange range = resolveAccountRange(days, from, to);
+        return toReferrers(loadAccount(userId, range, "YYYY-MM-DD", "referrer"), limit != null ? limit : 10);
+    }
+
+    public DeviceStats getAccountDeviceStats(Long userId, Integer days, Instant from, Instant to) {
+        TimeRange range = resolveAccountRange(days, from, to);
+        return toDeviceStats(loadAccount(userId, range, "YYYY-MM-DD", "device", "browser", "os"));
+    }
+
+    public GeoStats getAccountGeoStats(Long userId, Integer days, Instant from, Instant to, Integer limit) {
+        TimeRange range = resolveAccountRange(days, from, to);
+        return toGeoStats(loadAccount(userId, range, "YYYY-MM-DD", "country", "city"), limit != null ? limit : 20);
+    }
+
+    private Map<String, List<DimensionRow>> loadAccount(Long userId, TimeRange range, String labelFormat,
+                                                        String... dimensions) {
+        return groupByDimension(accountRollupRepository.aggregate(
+                userId, List.of(dimensions), range.from, range.to, labelFormat));
+    }
+
+    /**
+     * The requested range widened to whole UTC hours: from floored, to rounded up, so the
+     * current hour's clicks are included.
+     */
+    private TimeRange resolveAccountRange(Integer days, Instant from, Instant to) {
+        TimeRange requested = resolveTimeRange(days, from, to);
+        Instant hourTo = requested.to.truncatedTo(ChronoUnit.HOURS);
+        if (hourTo.isBefore(requested.to)) {
+            hourTo = hourTo.plus(1, ChronoUnit.HOURS);
+        }
+        return new TimeRange(requested.from.truncatedTo(ChronoUnit.HOURS), hourTo);
+    }
+
+    // ────────── Dashboard ──────────
+
+    /**
+     * Resolve a dashboard request to its ETag without computing it. Costs the ownership check and
+     * one small read of per-day click totals; {@link PreparedDashboard#load()} does the rest.
+     *
+     * <p>A rolling window ({@code days} without {@code from}) starts on an hour boundary, so the
+     * ETag stays stable between clicks.
+     */
+    public PreparedDashboard prepareDashboard(String shortCode, Long userId,
+                                              Integer days, Instant from, Instant to,
+                                              String granularity, Boolean exact) {
+        validateOwnership(shortCode, userId);
+        TimeRange range = resolveTimeRange(days, from, to);
+        if (from == null) {
+            range = new TimeRange(range.from.truncatedTo(ChronoUnit.HOURS), range.to);
+        }
+        boolean hourly = "hour".equalsIgnoreCase(granularity);
+
+        Map<LocalDate, Long> dayTotals = new TreeMap<>();
+        for (Object[] row : clickEventRepository.getDailyClickTotals(shortCode,
+                range.from.truncatedTo(ChronoUnit.HOURS),
+                range.to.truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS))) {
+            dayTotals.put(LocalDate.parse((String) row[0]), ((Number) row[1]).longValue());
+        }
+
+        // Only inserts change the data, and each one bumps a day total; a rolling window's
+        // end is always "now", so it is left out.
+        String version = String.join("|", shortCode, range.from.toString(),
+                to != null ? range.to.toString() : "now",
+                hourly ? "hour" : "day", String.valueOf(exact), dayTotals.toString());
+        String etag = "W/\"" + DigestUtils.md5DigestAsHex(version.getBytes(StandardCharsets.UTF_8)) + "\"";
+
+        TimeRange resolved = range;
+        return new PreparedDashboard(etag, () -> buildDashboard(shortCode, resolved, hourly, exact, dayTotals));
+    }
+
+    /**
+     * Summary, timeseries, referrers, devices and geo in one response. Closed UTC days inside the
+     * range come from {@link DashboardBucketCache}; the open tail and partial days come from one
+     * aggregate read (rollups + raw edge hours), with the recent hours of a hot link served by
+     * {@link HotLinkCube}. Limits and percentages match the individual endpoints' defaults.
+     */
+    private DashboardStats buildDashboard(String shortCode, TimeRange range, boolean hourly,
+                                          Boolean exact, Map<LocalDate, Long> dayTotals) {
+        String labelFormat = hourly ? "YYYY-MM-DD HH24:00" : "YYYY-MM-DD";
+
+        // Whole closed days inside the rollup span: [dayFrom, dayTo)
+        Instant dayFrom = ceilDay(range.hourFrom());
+        Instant dayTo = range.hourTo().truncatedTo(ChronoUnit.DAYS);
+        Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        if (dayTo.isAfter(today)) {
+            dayTo = today;
+        }
+        if (dayTo.isBefore(dayFrom)) {
+            dayTo = dayFrom;
+        }
+
+        // Cached closed days, the open remainder and unique visitors are independent reads
+        List<DimensionRow> rows = new ArrayList<>();
+        UniqueVisitorService.UniqueVisitorCount uniqueVisitors;
+        try (AnalyticsQueryFanOut.Scope queries = fanOut.open()) {
+            Instant closedFrom = dayFrom;
+            Instant closedTo = dayTo;
+            boolean skipDays = dayFrom.isBefore(dayTo);
+            Optional<Instant> cubeCoverage = hotLinkCube.coverage(shortCode);
+            Future<List<DashboardBucketCache.DayBucket>> dayBuckets =
+                    queries.submit(() -> loadDayBuckets(shortCode, closedFrom, closedTo, dayTotals));
+            Future<List<DimensionRow>> remainder = queries.submit(() -> loadRemainder(shortCode, range, hourly,
+                    labelFormat, skipDays ? closedFrom : null, skipDays ? closedTo : null, cubeCoverage));
+            Future<UniqueVisitorService.UniqueVisitorCount> visitors =
+                    queries.submit(() -> countUniqueVisitors(shortCode, range, exact));
+
+            for (DashboardBucketCache.DayBucket bucket : queries.join(dayBuckets)) {
+                for (DimensionRow row : bucket.rows()) {
+                    rows.add(hourly || !"total".equals(row.dimension()) ? row : row.withLabel(row.label().substring(0, 10)));
+                }
+            }
+            rows.addAll(queries.join(remainder));
+            uniqueVisitors = queries.join(visitors);
+        }
+
+        Map<String, List<DimensionRow>> byDimension = groupByDimension(rows);
+        long totalClicks = byDimension.getOrDefault("total", List.of()).stream().mapToLong(DimensionRow::clicks).sum();
+
+        return new DashboardStats(
+                toClickStats(shortCode, totalClicks, uniqueVisitors, range),
+                toTimeseries(byDimension), toReferrers(byDimension, 10), toDeviceStats(byDimension),
+                toGeoStats(byDimension, 20));
+    }
+
+    /**
+     * Aggregates for the range outside the cached closed days [skipFrom, skipTo). When the cube
+     * holds the link, it serves everything from its coverage (or the end of the skipped days) on,
+     * and the database only the older part; if the cube declines, the database serves it all.
+     */
+    private List<DimensionRow> loadRemainder(String shortCode, TimeRange range, boolean hourly, String labelFormat,
+                                             Instant skipFrom, Instant skipTo, Optional<Instant> cubeCoverage) {
+        Instant noSkip = range.hourTo();
+        if (cubeCoverage.isPresent() && cubeCoverage.get().isBefore(range.to)) {
+            // Coverage and skipTo are hour boundaries, so the database part needs no raw tail edge
+            Instant split = cubeCoverage.get();
+            if (skipTo != null && skipTo.isAfter(split)) {
+                split = skipTo;
+            }
+            if (split.isBefore(range.from)) {
+                split = range.from;
+            }
+            Optional<List<DimensionRow>> cubed = hotLinkCube.read(shortCode, split, range.to, hourly);
+            if (cubed.isPresent()) {
+                List<DimensionRow> rows = new ArrayList<>(cubed.get());
+                if (split.isAfter(range.from)) {
+                    TimeRange older = new TimeRange(range.from, split.minus(1, ChronoUnit.MICROS));
+                    Instant hourTo = split.isBefore(older.hourFrom()) ? older.hourFrom() : split;
+                    for (Object[] row : clickEventRepository.getDashboardAggregates(shortCode,
+                            older.from, older.to, older.hourFrom(), hourTo,
+                            skipFrom != null ? skipFrom : hourTo, skipTo != null ? skipTo : hourTo, labelFormat)) {
+                        rows.add(DimensionRow.from(row, 0));
+                    }
+                }
+                return rows;
+            }
+        }
+
+        List<DimensionRow> rows = new ArrayList<>();
+        for (Object[] row : clickEventRepository.getDashboardAggregates(shortCode,
+                range.from, range.to, range.hourFrom(), noSkip,
+                skipFrom != null ? skipFrom : noSkip, skipTo != null ? skipTo : noSkip, labelFormat)) {
+            rows.add(DimensionRow.from(row, 0));
+        }
+        return rows;
+    }
+
+    /**
+     * Dashboard-shaped rows for the whole range from {@link HotLinkCube}, grouped by dimension,
+     * when the cube covers all of it. Counts the call as a view of the link either way.
+     */
+    private Optional<Map<String, List<DimensionRow>>> readFromCube(String shortCode, TimeRange range, boolean hourly) {
+        Optional<Instant> coverage = hotLinkCube.coverage(shortCode);
+        if (coverage.isEmpty() || range.from.isBefore(coverage.get())) {
+            return Optional.empty();
+        }
+        return hotLinkCube.read(shortCode, range.from, range.to, hourly).map(AnalyticsService::groupByDimension);
+    }
+
+    /**
+     * Sampled estimates of the given dimensions for the range, when {@code approx} asks for them
+     * or the range is large enough; empty means the exact queries should run.
+     */
+    private Optional<Map<String, List<ApproximateBreakdownService.Estimate>>> estimate(
+            String shortCode, TimeRange range, Boolean approx, String... dimensions) {
+        return approximateBreakdownService.estimate(shortCode, range.from, range.to,
+                range.hourFrom(), range.hourTo(), approx, List.of(dimensions));
+    }
+
+    /**
+     * Buckets for the closed days in [dayFrom, dayTo) that had clicks. Cached entries are used
+     * while their click total still matches the rollups; the rest are read from the rollups in
+     * one query and written back.
+     */
+    private List<DashboardBucketCache.DayBucket> loadDayBuckets(String shortCode, Instant dayFrom, Instant dayTo,
+                                                                Map<LocalDate, Long> dayTotals) {
+        List<LocalDate> days = new ArrayList<>();
+        for (Instant d = dayFrom; d.isBefore(dayTo); d = d.plus(1, ChronoUnit.DAYS)) {
+            LocalDate day = LocalDate.ofInstant(d, ZoneOffset.UTC);
+            if (dayTotals.getOrDefault(day, 0L) > 0) {
+                days.add(day);
+            }
+        }
+        if (days.isEmpty()) {
+            return List.of();
+        }
+
+        Map<LocalDate, DashboardBucketCache.DayBucket> buckets = new HashMap<>(dashboardBucketCache.getDays(shortCode, days));
+        buckets.entrySet().removeIf(e -> e.getValue().clicks() != dayTotals.get(e.getKey()));
+
+        List<LocalDate> missing = days.stream().filter(d -> !buckets.containsKey(d)).toList();
+        if (!missing.isEmpty()) {
+            Map<LocalDate, List<DimensionRow>> loaded = new HashMap<>();
+            for (Object[] row : clickEventRepository.getDashboardDayAggregates(shortCode,
+                    missing.get(0).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                    missing.get(missing.size() - 1).plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant())) {
+                LocalDate day = LocalDate.parse((String) row[0]);
+                loaded.computeIfAbsent(day, k -> new ArrayList<>()).add(DimensionRow.from(row, 1));
+            }
+
+            Map<LocalDate, DashboardBucketCache.DayBucket> fresh = new HashMap<>();
+            for (LocalDate day : missing) {
+                List<DimensionRow> dayRows = loaded.getOrDefault(day, List.of());
+                long clicks = dayRows.stream()
+                        .filter(r -> "total".equals(r.dimension()))
+                        .mapToLong(DimensionRow::clicks)
+                        .sum();
+                fresh.put(day, new DashboardBucketCache.DayBucket(clicks, dayRows));
+            }
+            dashboardBucketCache.putDays(shortCode, fresh);
+            buckets.putAll(fresh);
+            log.debug("Dashboard day buckets for shortCode={}: {} cached, {} recomputed",
+                    shortCode, days.size() - missing.size(), missing.size());
+        }
+        return new ArrayList<>(buckets.values());
+    }
+
+    /**
+     * Prepared dashboard: its ETag, and the deferred computation for when the client's copy is stale.
+     */
+    public record PreparedDashboard(String etag, Supplier<DashboardStats> loader) {
+
+        public DashboardStats load() {
+            return loader.get();
+        }
+    }
+
     // ────────── Helpers ──────────
 
+    private UniqueVisitorService.UniqueVisitorCount countUniqueVisitors(String shortCode, TimeRange range,
+                                                                        Boolean exact) {
+        return uniqueVisitorService.count(shortCode, range.from, range.to, range.hourFrom(), range.hourTo(), exact);
+    }
+
+    private static ClickStats toClickStats(String shortCode, long totalClicks,
+                                           UniqueVisitorService.UniqueVisitorCount uniqueVisitors, TimeRange range) {
+        return new ClickStats(shortCode, totalClicks,
+                uniqueVisitors.count(), uniqueVisitors.exact(), uniqueVisitors.errorBound(),
+                range.from, range.to);
+    }
+
+    /**
+     * All-or-nothing ownership check for several links in one query; like the single-link check,
+     * a link the user does not own is reported as not found.
+     */
+    private void validateOwnership(List<String> shortCodes, Long userId) {
+        Set<String> owned = new HashSet<>(urlRepository.findOwnedShortCodes(shortCodes, userId));
+        for (String shortCode : shortCodes) {
+            if (!owned.contains(shortCode)) {
+                throw new ResourceNotFoundException("URL", "shortCode", shortCode);
+            }
+        }
+    }
+
     private Url validateOwnership(String shortCode, Long userId) {
         Url url = urlRepository.findByShortCode(shortCode)
                 .orElseThrow(() -> new ResourceNotFoundException("URL", "shortCode", shortCode));
@@ -194,5 +781,139 @@ public class AnalyticsService {
                 .toList();
     }
 
-    private record TimeRange(Instant from, Instant to) {}
+    private static Map<String, List<DimensionRow>> groupByDimension(List<DimensionRow> rows) {
+        Map<String, List<DimensionRow>> byDimension = new HashMap<>();
+        for (DimensionRow r : merge(rows)) {
+            byDimension.computeIfAbsent(r.dimension(), k -> new ArrayList<>()).add(r);
+        }
+        return byDimension;
+    }
+
+    private static List<TimeseriesPoint> toTimeseries(Map<String, List<DimensionRow>> byDimension) {
+        return byDimension.getOrDefault("total", List.of()).stream()
+                .sorted(Comparator.comparing(DimensionRow::label))
+                .map(r -> new TimeseriesPoint(r.label(), r.clicks()))
+                .toList();
+    }
+
+    private static List<ReferrerStats> toReferrers(Map<String, List<DimensionRow>> byDimension, int limit) {
+        List<DimensionRow> referrerRows = top(byDimension, "referrer", limit);
+        long referrerTotal = referrerRows.stream().mapToLong(DimensionRow::clicks).sum();
+        return referrerRows.stream()
+                .map(r -> new ReferrerStats(r.value(), r.clicks(), percentage(r.clicks(), referrerTotal)))
+                .toList();
+    }
+
+    private static DeviceStats toDeviceStats(Map<String, List<DimensionRow>> byDimension) {
+        return new DeviceStats(
+                toDashboardBreakdown(top(byDimension, "device", Integer.MAX_VALUE)),
+                toDashboardBreakdown(top(byDimension, "browser", 10)),
+                toDashboardBreakdown(top(byDimension, "os", 10))
+        );
+    }
+
+    private static GeoStats toGeoStats(Map<String, List<DimensionRow>> byDimension, int limit) {
+        List<DimensionRow> countryRows = top(byDimension, "country", limit);
+        long countryTotal = countryRows.stream().mapToLong(DimensionRow::clicks).sum();
+        return new GeoStats(
+                countryRows.stream()
+                        .map(r -> new GeoStats.CountryData(r.value(), r.clicks(), percentage(r.clicks(), countryTotal)))
+                        .toList(),
+                top(byDimension, "city", limit).stream()
+                        .map(r -> new GeoStats.CityData(r.value(), r.parent(), r.clicks(),
+                                r.geoClicks() > 0 ? r.latSum() / r.geoClicks() : null,
+                                r.geoClicks() > 0 ? r.lngSum() / r.geoClicks() : null))
+                        .toList()
+        );
+    }
+
+    private static List<DimensionRow> top(Map<String, List<DimensionRow>> byDimension, String dimension, int limit) {
+        return byDimension.getOrDefault(dimension, List.of()).stream()
+                .sorted(Comparator.comparingLong(DimensionRow::clicks).reversed()
+                        .thenComparing(DimensionRow::value))
+                .limit(limit)
+                .toList();
+    }
+
+    private static List<ApproximateBreakdownService.Estimate> topEstimates(
+            Map<String, List<ApproximateBreakdownService.Estimate>> byDimension, String dimension, int limit) {
+        return byDimension.getOrDefault(dimension, List.of()).stream()
+                .sorted(Comparator.comparingLong(ApproximateBreakdownService.Estimate::clicks).reversed()
+                        .thenComparing(ApproximateBreakdownService.Estimate::value))
+                .limit(limit)
+                .toList();
+    }
+
+    private static List<DeviceStats.Breakdown> toEstimatedBreakdown(List<ApproximateBreakdownService.Estimate> estimates) {
+        long total = estimates.stream().mapToLong(ApproximateBreakdownService.Estimate::clicks).sum();
+        return estimates.stream()
+                .map(e -> new DeviceStats.Breakdown(e.value(), e.clicks(), percentage(e.clicks(), total), e.errorBound()))
+                .toList();
+    }
+
+    private static GeoStats toEstimatedGeoStats(Map<String, List<ApproximateBreakdownService.Estimate>> byDimension,
+                                                int limit) {
+        List<ApproximateBreakdownService.Estimate> countries = topEstimates(byDimension, "country", limit);
+        long countryTotal = countries.stream().mapToLong(ApproximateBreakdownService.Estimate::clicks).sum();
+        return new GeoStats(
+                countries.stream()
+                        .map(e -> new GeoStats.CountryData(e.value(), e.clicks(), percentage(e.clicks(), countryTotal),
+                                e.errorBound()))
+                        .toList(),
+                topEstimates(byDimension, "city", limit).stream()
+                        .map(e -> new GeoStats.CityData(e.value(), e.parent(), e.clicks(),
+                                e.geoClicks() > 0 ? e.latSum() / e.geoClicks() : null,
+                                e.geoClicks() > 0 ? e.lngSum() / e.geoClicks() : null,
+                                e.errorBound()))
+                        .toList()
+        );
+    }
+
+    private static List<DeviceStats.Breakdown> toDashboardBreakdown(List<DimensionRow> rows) {
+        long total = rows.stream().mapToLong(DimensionRow::clicks).sum();
+        return rows.stream()
+                .map(r -> new DeviceStats.Breakdown(r.value(), r.clicks(), percentage(r.clicks(), total)))
+                .toList();
+    }
+
+    /**
+     * Sum rows that share (dimension, label, value, parent).
+     */
+    private static List<DimensionRow> merge(List<DimensionRow> rows) {
+        Map<List<String>, DimensionRow> merged = new HashMap<>();
+        for (DimensionRow row : rows) {
+            merged.merge(List.of(row.dimension(), row.label(), row.value(), row.parent()), row, DimensionRow::plus);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private static Instant ceilDay(Instant instant) {
+        Instant floor = instant.truncatedTo(ChronoUnit.DAYS);
+        return floor.equals(instant) ? instant : floor.plus(1, ChronoUnit.DAYS);
+    }
+
+    private static double percentage(long clicks, long total) {
+        return total > 0 ? Math.round((double) clicks / total * 10000.0) / 100.0 : 0;
+    }
+
+    /**
+     * Requested range plus the span of whole UTC hours inside it, which is served from
+     * click_rollups_hourly. Raw click_events are only scanned for [from, hourFrom) and [hourTo, to].
+     */
+    private record TimeRange(Instant from, Instant to) {
+
+        Instant hourFrom() {
+            Instant floor = from.truncatedTo(ChronoUnit.HOURS);
+            return floor.equals(from) ? from : floor.plus(1, ChronoUnit.HOURS);
+        }
+
+        /**
+         * Never before {@link #hourFrom()}, so ranges shorter than an hour are all edge.
+         */
+        Instant hourTo() {
+            Instant floor = to.truncatedTo(ChronoUnit.HOURS);
+            Instant start = hourFrom();
+            return floor.isBefore(start) ? start : floor;
+        }
+    }
 }
@@ -0,0 +1,173 @@
+package com.linkhub.analytics.service;
+
+import com.linkhub.analytics.dto.DimensionRow;
+import com.linkhub.analytics.repository.ClickEventRepository;
+import com.linkhub.analytics.repository.RollupSampleRepository;
+import com.linkhub.analytics.repository.RollupSampleRepository.HourRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Approximate breakdowns for very large ranges, from a sample of hours rather than every
+ * rollup row in the range.
+ *
+ * <p>Mode selection:
+ * <ul>
+ *   <li>{@code approx=false} — never estimate</li>
+ *   <li>{@code approx=true} — estimate whenever the range has more whole hours than the sample</li>
+ *   <li>unset — estimate only when the range holds more than
+ *       {@code analytics.approx.auto-threshold} clicks</li>
+ * </ul>
+ * Clicks in range are read from the hourly 'total' rollups, one small row per hour.
+ *
+ * <p>The sample is {@code analytics.approx.sample-hours} draws of hours with probability
+ * proportional to their clicks (systematic PPS over the time-ordered hours), so busy hours are
+ * almost always read and quiet ones rarely. Only the sampled hours' dimension rollups are
+ * fetched. A value's clicks are estimated as {@code total × mean share across draws}
+ * (Hansen-Hurwitz), with a ~95% bound of 1.96 standard errors of that estimate. The partial edge
+ * hours are always added exactly.
+ */
+@Service
+public class ApproximateBreakdownService {
+
+    private static final double Z_95 = 1.96;
+
+    private final ClickEventRepository clickEventRepository;
+    private final RollupSampleRepository rollupSampleRepository;
+
+    @Value("${analytics.approx.auto-threshold:20000000}")
+    private long autoThreshold;
+
+    @Value("${analytics.approx.sample-hours:400}")
+    private int sampleHours;
+
+    public ApproximateBreakdownService(ClickEventRepository clickEventRepository,
+                                       RollupSampleRepository rollupSampleRepository) {
+        this.clickEventRepository = clickEventRepository;
+        this.rollupSampleRepository = rollupSampleRepository;
+    }
+
+    /**
+     * Estimated rows of the given dimensions for {@code [from, to]}, where {@code [hourFrom, hourTo)}
+     * is the span of whole hours inside it; empty when the exact queries should be used.
+     *
+     * @param approx {@code true} / {@code false} to force a mode, {@code null} to choose by size
+     */
+    public Optional<Map<String, List<Estimate>>> estimate(String shortCode, Instant from, Instant to,
+                                                          Instant hourFrom, Instant hourTo,
+                                                          Boolean approx, List<String> dimensions) {
+        if (Boolean.FALSE.equals(approx) || ChronoUnit.HOURS.between(hourFrom, hourTo) <= sampleHours) {
+            return Optional.empty();
+        }
+
+        TreeMap<Long, Long> hourTotals = new TreeMap<>();
+        long total = 0;
+        for (Object[] row : clickEventRepository.getHourlyClickTotals(shortCode, hourFrom, hourTo)) {
+            long clicks = ((Number) row[1]).longValue();
+            if (clicks > 0) {
+                hourTotals.put(((Number) row[0]).longValue(), clicks);
+                total += clicks;
+            }
+        }
+        if (hourTotals.size() <= sampleHours || (approx == null && total <= autoThreshold)) {
+            return Optional.empty();
+        }
+
+        List<Long> draws = drawHours(hourTotals, total, sampleHours);
+        Map<Long, List<HourRow>> rowsByHour = new HashMap<>();
+        for (HourRow row : rollupSampleRepository.findHours(shortCode, dimensions, new ArrayList<>(new TreeSet<>(draws)))) {
+            rowsByHour.computeIfAbsent(row.hour(), h -> new ArrayList<>()).add(row);
+        }
+
+        // Per (dimension, value, parent): sums over draws of each hour's share, and squared shares
+        Map<List<String>, double[]> shares = new HashMap<>();
+        for (long hour : draws) {
+            double hourClicks = hourTotals.get(hour);
+            for (HourRow row : rowsByHour.getOrDefault(hour, List.of())) {
+                double[] acc = shares.computeIfAbsent(List.of(row.dimension(), row.value(), row.parent()), k -> new double[5]);
+                double share = row.clicks() / hourClicks;
+                acc[0] += share;
+                acc[1] += share * share;
+                acc[2] += row.latSum() / hourClicks;
+                acc[3] += row.lngSum() / hourClicks;
+                acc[4] += row.geoClicks() / hourClicks;
+            }
+        }
+
+        int n = draws.size();
+        Map<List<String>, Estimate> estimates = new HashMap<>();
+        for (Map.Entry<List<String>, double[]> e : shares.entrySet()) {
+            double[] acc = e.getValue();
+            double mean = acc[0] / n;
+            double variance = n > 1 ? Math.max(0, (acc[1] - n * mean * mean) / (n - 1)) : 0;
+            List<String> key = e.getKey();
+            estimates.put(key, new Estimate(key.get(0), key.get(1), key.get(2),
+                    Math.round(total * mean),
+                    (long) Math.ceil(Z_95 * total * Math.sqrt(variance / n)),
+                    total * acc[2] / n, total * acc[3] / n, total * acc[4] / n));
+        }
+
+        // The partial edge hours, exactly: skipping [hourFrom, hourTo) leaves only raw rows
+        for (Object[] raw : clickEventRepository.getDashboardAggregates(shortCode, from, to, hourFrom, hourTo,
+                hourFrom, hourTo, "YYYY-MM-DD")) {
+            DimensionRow row = DimensionRow.from(raw, 0);
+            if (dimensions.contains(row.dimension())) {
+                estimates.merge(List.of(row.dimension(), row.value(), row.parent()),
+                        new Estimate(row.dimension(), row.value(), row.parent(), row.clicks(), 0,
+                                row.latSum(), row.lngSum(), row.geoClicks()),
+                        Estimate::plus);
+            }
+        }
+
+        Map<String, List<Estimate>> byDimension = new HashMap<>();
+        for (Estimate estimate : estimates.values()) {
+            if (estimate.clicks() > 0) {
+                byDimension.computeIfAbsent(estimate.dimension(), k -> new ArrayList<>()).add(estimate);
+            }
+        }
+        return Optional.of(byDimension);
+    }
+
+    /**
+     * Systematic PPS: lay the hours end to end by clicks and take {@code n} equally spaced points
+     * from a random start. An hour with more than {@code total / n} clicks is drawn more than once.
+     */
+    private static List<Long> drawHours(TreeMap<Long, Long> hourTotals, long total, int n) {
+        double step = (double) total / n;
+        double point = ThreadLocalRandom.current().nextDouble(step);
+        List<Long> draws = new ArrayList<>(n);
+        long cumulative = 0;
+        for (Map.Entry<Long, Long> hour : hourTotals.entrySet()) {
+            cumulative += hour.getValue();
+            while (point < cumulative && draws.size() < n) {
+                draws.add(hour.getKey());
+                point += step;
+            }
+        }
+        return draws;
+    }
+
+    /**
+     * Estimated clicks for one (dimension, value, parent) group, give or take {@code errorBound}
+     * (~95% confidence; 0 when exact). Coordinate sums are estimated the same way.
+     */
+    public record Estimate(String dimension, String value, String parent, long clicks, long errorBound,
+                           double latSum, double lngSum, double geoClicks) {
+
+        Estimate plus(Estimate other) {
+            return new Estimate(dimension, value, parent, clicks + other.clicks, errorBound + other.errorBound,
+                    latSum + other.latSum, lngSum + other.lngSum, geoClicks + other.geoClicks);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.linkhub.analytics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.analytics.dto.ClickEventDto;
+import com.linkhub.analytics.dto.ExportFormat;
+import com.linkhub.analytics.repository.ClickExportRepository;
+import com.linkhub.common.exception.RateLimitExceededException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming export of raw click events as NDJSON or CSV.
+ *
+ * <p>Rows are read through a server-side cursor ({@code analytics.export.fetch-size} rows per
+ * round trip) and written straight to the response, so memory use is constant regardless of
+ * export size. At most {@code analytics.export.max-concurrent} exports run at once, since each
+ * holds a database connection for its whole duration; further requests get 429.
+ *
+ * <p>Rows are ordered by {@code (clickedAt, eventId)}. If a download is cut off, the client
+ * resumes by passing the last complete row's values as {@code afterClickedAt} / {@code afterEventId}.
+ */
+@Service
+public class ClickExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickExportService.class);
+
+    private static final String CSV_HEADER =
+            "event_id,short_code,clicked_at,ip_address,referrer,device_type,browser,os,country,city\n";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final ClickExportRepository clickExportRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Semaphore permits;
+
+    @Value("${analytics.export.fetch-size:5000}")
+    private int fetchSize;
+
+    public ClickExportService(ClickExportRepository clickExportRepository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${analytics.export.max-concurrent:4}") int maxConcurrent) {
+        this.clickExportRepository = clickExportRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Reserve an export slot and return the response body that streams the clicks.
+     * The slot is released when streaming ends, however it ends.
+     *
+     * @throws RateLimitExceededException if all export slots are busy
+     */
+    public StreamingResponseBody open(String shortCode, Instant from, Instant to,
+                                      Instant afterClickedAt, UUID afterEventId,
+                                      ExportFormat format, boolean gzip) {
+        if ((afterClickedAt == null) != (afterEventId == null)) {
+            throw new IllegalArgumentException("afterClickedAt and afterEventId must be given together");
+        }
+        if (!permits.tryAcquire()) {
+            throw new RateLimitExceededException("Too many exports in progress. Try again later.");
+        }
+
+        return out -> {
+            long[] rows = {0};
+            long start = System.nanoTime();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    gzip ? new GZIPOutputStream(out, WRITE_BUFFER_SIZE) : out, StandardCharsets.UTF_8),
+                    WRITE_BUFFER_SIZE)) {
+                stream(writer, shortCode, from, to, afterClickedAt, afterEventId, format, rows);
+            } catch (UncheckedIOException e) {
+                // Client went away mid-download; it can resume from its last complete row
+                log.info("Click export aborted: shortCode={}, rows={}: {}", shortCode, rows[0], e.getCause().getMessage());
+                throw e.getCause();
+            } finally {
+                permits.release();
+            }
+            log.info("Click export completed: shortCode={}, format={}, rows={}, ms={}",
+                    shortCode, format, rows[0], (System.nanoTime() - start) / 1_000_000);
+        };
+    }
+
+    /**
+     * Write the clicks, counting them into {@code rows} as they go, so an aborted export
+     * still reports how far it got.
+     */
+    private void stream(Writer writer, String shortCode, Instant from, Instant to,
+                        Instant afterClickedAt, UUID afterEventId, ExportFormat format,
+                        long[] rows) throws IOException {
+        if (format == ExportFormat.CSV && afterClickedAt == null) {
+            writer.write(CSV_HEADER);
+        }
+
+        readOnlyTransaction.executeWithoutResult(status ->
+                clickExportRepository.streamClicks(shortCode, from, to, afterClickedAt, afterEventId, fetchSize,
+                        click -> {
+                            try {
+                                writer.write(format == ExportFormat.CSV ? toCsv(click) : toNdjson(click));
+                                if (++rows[0] % fetchSize == 0) {
+                                    writer.flush();
+                                }
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+    }
+
+    // ────────── Formatting ──────────
+
+    private String toNdjson(ClickEventDto click) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(click) + "\n";
+    }
+
+    private static String toCsv(ClickEventDto click) {
+        StringBuilder line = new StringBuilder(256);
+        line.append(click.eventId()).append(',');
+        appendCsv(line, click.shortCode()).append(',');
+        line.append(click.clickedAt()).append(',');
+        appendCsv(line, click.ipAddress()).append(',');
+        appendCsv(line, click.referrer()).append(',');
+        appendCsv(line, click.deviceType()).append(',');
+        appendCsv(line, click.browser()).append(',');
+        appendCsv(line, click.os()).append(',');
+        appendCsv(line, click.country()).append(',');
+        appendCsv(line, click.city()).append('\n');
+        return line.toString();
+    }
+
+    /**
+     * RFC 4180 field: quoted only when it contains a comma, quote or line break. Null is empty.
+     */
+    private static StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return line.append(value);
+        }
+        return line.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
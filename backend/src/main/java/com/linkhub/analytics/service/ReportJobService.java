@@ -0,0 +1,226 @@
+package com.linkhub.analytics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.analytics.dto.ReportJobRequest;
+import com.linkhub.analytics.dto.ReportJobResponse;
+import com.linkhub.analytics.model.ReportJob;
+import com.linkhub.analytics.repository.ReportJobRepository;
+import com.linkhub.common.exception.RateLimitExceededException;
+import com.linkhub.common.exception.ResourceNotFoundException;
+import com.linkhub.url.repository.UrlRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asynchronous analytics reports, for ranges too heavy to compute within a request.
+ *
+ * <p>Pipeline:
+ * <ol>
+ *   <li>Submitting checks ownership, fixes the range and returns a job to poll (202)</li>
+ *   <li>{@link ReportWorkQueue} runs it on a report worker, by priority and within per-user limits</li>
+ *   <li>The worker calls the same {@link AnalyticsService} method as the interactive endpoint, exact
+ *       (no sampling), with its queries run inline under {@code analytics.reports.timeout}</li>
+ *   <li>The JSON result is stored on the job row and served as-is</li>
+ * </ol>
+ *
+ * <p>An identical request (same user, link, report, range and options) gets the earlier job back
+ * instead of a new one while that job is queued or running, and after it completed if the range
+ * had closed ({@code analytics.reports.settle-time} before it started) and the result has not
+ * expired ({@code analytics.reports.result-ttl}).
+ *
+ * <p>The queue is in memory, so a queued or running job is only as alive as its pod. The pod
+ * refreshes the heartbeat of the jobs it holds ({@link #heartbeat()}); a job whose heartbeat is
+ * older than {@code analytics.reports.heartbeat-timeout} is never reused, and is failed.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    private static final EnumSet<ReportJob.Status> REUSABLE =
+            EnumSet.of(ReportJob.Status.PENDING, ReportJob.Status.RUNNING, ReportJob.Status.COMPLETED);
+
+    private final ReportJobRepository reportJobRepository;
+    private final UrlRepository urlRepository;
+    private final AnalyticsService analyticsService;
+    private final AnalyticsQueryFanOut fanOut;
+    private final ReportWorkQueue workQueue;
+    private final ObjectMapper objectMapper;
+
+    @Value("${analytics.reports.timeout:10m}")
+    private Duration timeout;
+
+    @Value("${analytics.reports.settle-time:10m}")
+    private Duration settleTime;
+
+    @Value("${analytics.reports.result-ttl:7d}")
+    private Duration resultTtl;
+
+    @Value("${analytics.reports.heartbeat-timeout:2m}")
+    private Duration heartbeatTimeout;
+
+    /** Jobs queued or running on this pod. */
+    private final Set<Long> heldJobs = ConcurrentHashMap.newKeySet();
+
+    public ReportJobService(ReportJobRepository reportJobRepository,
+                            UrlRepository urlRepository,
+                            AnalyticsService analyticsService,
+                            AnalyticsQueryFanOut fanOut,
+                            ReportWorkQueue workQueue,
+                            ObjectMapper objectMapper) {
+        this.reportJobRepository = reportJobRepository;
+        this.urlRepository = urlRepository;
+        this.analyticsService = analyticsService;
+        this.fanOut = fanOut;
+        this.workQueue = workQueue;
+        this.objectMapper = objectMapper;
+    }
+
+    // ────────── Submit ──────────
+
+    /**
+     * Queue a report job, or return an earlier identical one.
+     *
+     * @throws RateLimitExceededException if the report queue or the user's share of it is full
+     */
+    public ReportJobResponse submit(ReportJobRequest request, Long userId) {
+        if (urlRepository.findOwnedShortCodes(List.of(request.shortCode()), userId).isEmpty()) {
+            throw new ResourceNotFoundException("URL", "shortCode", request.shortCode());
+        }
+
+        Instant to = request.to() != null ? request.to() : Instant.now();
+        Instant from = request.from() != null
+                ? request.from()
+                : to.minus(request.days() != null ? request.days() : 30, ChronoUnit.DAYS);
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        String cacheKey = cacheKey(request, from, to);
+        Optional<ReportJob> earlier = reportJobRepository
+                .findFirstByUserIdAndCacheKeyAndStatusInOrderByCreatedAtDesc(userId, cacheKey, REUSABLE)
+                .filter(this::isReusable);
+        if (earlier.isPresent()) {
+            log.debug("Report reused: jobId={}, userId={}", earlier.get().getId(), userId);
+            return ReportJobResponse.from(earlier.get(), true);
+        }
+
+        ReportJob.Priority priority = request.priority() != null ? request.priority() : ReportJob.Priority.NORMAL;
+        ReportJob job = reportJobRepository.save(new ReportJob(userId, request.shortCode(), request.type(), priority,
+                from, to, request.granularity(), request.limit(), cacheKey));
+        heldJobs.add(job.getId());
+        try {
+            workQueue.submit(userId, priority, () -> runJob(job));
+        } catch (RateLimitExceededException e) {
+            heldJobs.remove(job.getId());
+            job.markFailed("Report queue is full");
+            reportJobRepository.save(job);
+            throw e;
+        }
+
+        log.info("Report job queued: jobId={}, type={}, shortCode={}, priority={}, userId={}",
+                job.getId(), job.getType(), job.getShortCode(), priority, userId);
+        return ReportJobResponse.from(job, false);
+    }
+
+    // ────────── Progress ──────────
+
+    public ReportJob getJob(Long jobId, Long userId) {
+        return reportJobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Report job", "id", jobId));
+    }
+
+    // ────────── Heartbeat ──────────
+
+    /**
+     * Refresh the heartbeat of the jobs this pod holds, and fail jobs whose pod stopped
+     * refreshing theirs. Called by the heartbeat job, well within the timeout.
+     */
+    public void heartbeat() {
+        Instant now = Instant.now();
+        if (!heldJobs.isEmpty()) {
+            reportJobRepository.heartbeat(List.copyOf(heldJobs), now);
+        }
+        int abandoned = reportJobRepository.failAbandoned(now.minus(heartbeatTimeout), now);
+        if (abandoned > 0) {
+            log.warn("Failed {} report job(s) abandoned by a restarted pod", abandoned);
+        }
+    }
+
+    // ────────── Worker ──────────
+
+    private void runJob(ReportJob job) {
+        job.markRunning();
+        reportJobRepository.save(job);
+
+        try {
+            Object result = fanOut.runInline(timeout, () -> compute(job));
+            job.markCompleted(objectMapper.writeValueAsString(result));
+            log.info("Report job completed: jobId={}, type={}, millis={}", job.getId(), job.getType(),
+                    Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis());
+        } catch (Exception e) {
+            log.error("Report job failed: jobId={}: {}", job.getId(), e.getMessage(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            reportJobRepository.save(job);
+            heldJobs.remove(job.getId());
+        }
+    }
+
+    private Object compute(ReportJob job) {
+        String code = job.getShortCode();
+        Long userId = job.getUserId();
+        Instant from = job.getRangeFrom();
+        Instant to = job.getRangeTo();
+        return switch (job.getType()) {
+            case SUMMARY -> analyticsService.getClickSummary(code, userId, null, from, to, true);
+            case TIMESERIES -> analyticsService.getTimeseries(code, userId, null, from, to, job.getGranularity());
+            case REFERRERS -> analyticsService.getTopReferrers(code, userId, null, from, to, job.getResultLimit(), false);
+            case DEVICES -> analyticsService.getDeviceStats(code, userId, null, from, to, false);
+            case GEO -> analyticsService.getGeoStats(code, userId, null, from, to, job.getResultLimit(), false);
+            case DASHBOARD -> analyticsService.prepareDashboard(code, userId, null, from, to,
+                    job.getGranularity(), true).load();
+        };
+    }
+
+    // ────────── Helpers ──────────
+
+    /**
+     * Queued and running jobs while their pod is alive; completed ones only if computed after
+     * the range had settled and not yet expired.
+     */
+    private boolean isReusable(ReportJob job) {
+        if (job.getStatus() != ReportJob.Status.COMPLETED) {
+            return job.getHeartbeatAt() != null
+                    && job.getHeartbeatAt().isAfter(Instant.now().minus(heartbeatTimeout));
+        }
+        return !job.getStartedAt().isBefore(job.getRangeTo().plus(settleTime))
+                && job.getFinishedAt().isAfter(Instant.now().minus(resultTtl));
+    }
+
+    private static String cacheKey(ReportJobRequest request, Instant from, Instant to) {
+        String canonical = String.join("|", request.type().name(), request.shortCode(), from.toString(), to.toString(),
+                String.valueOf(request.granularity()), String.valueOf(request.limit()));
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
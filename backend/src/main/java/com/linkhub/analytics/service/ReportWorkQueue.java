@@ -0,0 +1,127 @@
+package com.linkhub.analytics.service;
+
+import com.linkhub.analytics.model.ReportJob;
+import com.linkhub.common.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bounded priority queue in front of {@code reportExecutor}.
+ *
+ * <p>At most one job per worker thread runs at a time, and at most
+ * {@code analytics.reports.max-running-per-user} of any one user's. Among the jobs allowed to
+ * run, the highest priority goes first, then the oldest. Jobs held back by their user's limit
+ * wait here without taking a worker, so one user's backlog never blocks anyone else's reports.
+ *
+ * <p>Beyond {@code analytics.reports.queue-capacity} waiting jobs, or
+ * {@code analytics.reports.max-queued-per-user} for one user, new jobs get 429.
+ */
+@Component
+public class ReportWorkQueue {
+
+    private static final Comparator<Entry> ORDER = Comparator
+            .comparing(Entry::priority)
+            .thenComparingLong(Entry::sequence);
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final TreeSet<Entry> waiting = new TreeSet<>(ORDER);
+    private final Map<Long, Integer> waitingByUser = new HashMap<>();
+    private final Map<Long, Integer> runningByUser = new HashMap<>();
+    private int running;
+    private long sequence;
+
+    @Value("${analytics.reports.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${analytics.reports.max-queued-per-user:10}")
+    private int maxQueuedPerUser;
+
+    @Value("${analytics.reports.max-running-per-user:1}")
+    private int maxRunningPerUser;
+
+    public ReportWorkQueue(@Qualifier("reportExecutor") ThreadPoolTaskExecutor executor, MeterRegistry meterRegistry) {
+        this.executor = executor;
+
+        Gauge.builder("analytics.reports.queued", this, ReportWorkQueue::queued)
+                .description("Report jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("analytics.reports.running", this, ReportWorkQueue::running)
+                .description("Report jobs running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a job's work; it runs on a report worker once one is free and the user is under
+     * their running limit.
+     *
+     * @throws RateLimitExceededException if the queue, or the user's share of it, is full
+     */
+    public synchronized void submit(Long userId, ReportJob.Priority priority, Runnable work) {
+        if (waiting.size() >= queueCapacity) {
+            throw new RateLimitExceededException("Too many reports in progress. Try again later.");
+        }
+        if (waitingByUser.getOrDefault(userId, 0) >= maxQueuedPerUser) {
+            throw new RateLimitExceededException("Too many of your reports are queued. Wait for some to finish.");
+        }
+        waiting.add(new Entry(userId, priority, sequence++, work));
+        waitingByUser.merge(userId, 1, Integer::sum);
+        dispatch();
+    }
+
+    private synchronized int queued() {
+        return waiting.size();
+    }
+
+    private synchronized int running() {
+        return running;
+    }
+
+    /**
+     * Hand waiting jobs to free workers, in priority order, skipping users at their limit.
+     */
+    private void dispatch() {
+        Iterator<Entry> it = waiting.iterator();
+        while (running < executor.getMaxPoolSize() && it.hasNext()) {
+            Entry entry = it.next();
+            if (runningByUser.getOrDefault(entry.userId(), 0) >= maxRunningPerUser) {
+                continue;
+            }
+            it.remove();
+            decrement(waitingByUser, entry.userId());
+            runningByUser.merge(entry.userId(), 1, Integer::sum);
+            running++;
+            // The executor's queue holds one task per worker, so a worker still unwinding
+            // from finished() never causes a rejection
+            executor.execute(() -> {
+                try {
+                    entry.work().run();
+                } finally {
+                    finished(entry.userId());
+                }
+            });
+        }
+    }
+
+    private synchronized void finished(Long userId) {
+        running--;
+        decrement(runningByUser, userId);
+        dispatch();
+    }
+
+    private static void decrement(Map<Long, Integer> counts, Long userId) {
+        counts.computeIfPresent(userId, (k, n) -> n > 1 ? n - 1 : null);
+    }
+
+    private record Entry(Long userId, ReportJob.Priority priority, long sequence, Runnable work) {}
+}
@@ -0,0 +1,191 @@
+package com.linkhub.analytics.service;
+
+import com.linkhub.analytics.repository.ClickEventRepository;
+import com.linkhub.analytics.repository.VisitorSketchRepository;
+import com.linkhub.analytics.repository.VisitorSketchRepository.HourSketch;
+import com.linkhub.analytics.repository.VisitorSketchRepository.Span;
+import com.linkhub.analytics.sketch.HyperLogLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unique-visitor counts, exact or from merged hourly HyperLogLog sketches.
+ *
+ * <p>Mode selection:
+ * <ul>
+ *   <li>{@code exact=true} — always COUNT(DISTINCT ip_address) over click_events</li>
+ *   <li>{@code exact=false} — always estimate</li>
+ *   <li>unset — exact when the sketched hours hold at most
+ *       {@code analytics.unique-visitors.exact-threshold} clicks, otherwise estimate</li>
+ * </ul>
+ *
+ * <p>An estimate merges the complete hourly sketches and adds the raw visitors of the partial
+ * edge hours and of any hour whose sketch is missing or incomplete.
+ */
+@Service
+public class UniqueVisitorService {
+
+    /** Relative error at ~95% confidence (two standard errors). */
+    public static final double ESTIMATE_ERROR_BOUND =
+            Math.round(2 * HyperLogLog.RELATIVE_STANDARD_ERROR * 10000) / 10000.0;
+
+    private final ClickEventRepository clickEventRepository;
+    private final VisitorSketchRepository visitorSketchRepository;
+
+    @Value("${analytics.unique-visitors.exact-threshold:10000}")
+    private long exactThreshold;
+
+    public UniqueVisitorService(ClickEventRepository clickEventRepository,
+                                VisitorSketchRepository visitorSketchRepository) {
+        this.clickEventRepository = clickEventRepository;
+        this.visitorSketchRepository = visitorSketchRepository;
+    }
+
+    /**
+     * Count unique visitors in {@code [from, to]}, where {@code [hourFrom, hourTo)} is the span of
+     * whole hours inside it.
+     *
+     * @param exact {@code true} / {@code false} to force a mode, {@code null} to choose by size
+     */
+    public UniqueVisitorCount count(String shortCode, Instant from, Instant to,
+                                    Instant hourFrom, Instant hourTo, Boolean exact) {
+        if (Boolean.TRUE.equals(exact)) {
+            return exactCount(shortCode, from, to);
+        }
+
+        List<HourSketch> hours = visitorSketchRepository.findHours(shortCode, hourFrom, hourTo);
+        long sketchedClicks = hours.stream()
+                .filter(HourSketch::isComplete)
+                .mapToLong(HourSketch::clicks)
+                .sum();
+        if (exact == null && sketchedClicks <= exactThreshold) {
+            return exactCount(shortCode, from, to);
+        }
+
+        HyperLogLog merged = new HyperLogLog();
+        List<Instant> incompleteHours = new ArrayList<>();
+        for (HourSketch hour : hours) {
+            if (hour.isComplete()) {
+                merged.merge(HyperLogLog.fromBytes(hour.sketch()));
+            } else {
+                incompleteHours.add(hour.bucket());
+            }
+        }
+
+        List<Span> rawSpans = rawSpans(from, to, hourFrom, hourTo, incompleteHours);
+        for (String address : visitorSketchRepository.findDistinctAddresses(shortCode, rawSpans)) {
+            merged.addAddress(address);
+        }
+
+        return new UniqueVisitorCount(merged.estimate(), false, ESTIMATE_ERROR_BOUND);
+    }
+
+    /**
+     * {@link #count} for several links with a fixed number of queries: one for all their sketches,
+     * one exact grouped count for the links that are counted exactly, and one for the raw
+     * addresses the estimated links still need.
+     */
+    public Map<String, UniqueVisitorCount> countAll(Collection<String> shortCodes, Instant from, Instant to,
+                                                    Instant hourFrom, Instant hourTo, Boolean exact) {
+        Map<String, UniqueVisitorCount> counts = new HashMap<>();
+        List<String> exactCodes = new ArrayList<>();
+        Map<String, HyperLogLog> merged = new HashMap<>();
+        Map<String, List<Span>> rawSpans = new HashMap<>();
+
+        Map<String, List<HourSketch>> hoursByCode = Boolean.TRUE.equals(exact)
+                ? Map.of()
+                : visitorSketchRepository.findHours(shortCodes, hourFrom, hourTo);
+        for (String shortCode : shortCodes) {
+            List<HourSketch> hours = hoursByCode.getOrDefault(shortCode, List.of());
+            long sketchedClicks = hours.stream()
+                    .filter(HourSketch::isComplete)
+                    .mapToLong(HourSketch::clicks)
+                    .sum();
+            if (Boolean.TRUE.equals(exact) || (exact == null && sketchedClicks <= exactThreshold)) {
+                exactCodes.add(shortCode);
+                continue;
+            }
+
+            HyperLogLog sketch = new HyperLogLog();
+            List<Instant> incompleteHours = new ArrayList<>();
+            for (HourSketch hour : hours) {
+                if (hour.isComplete()) {
+                    sketch.merge(HyperLogLog.fromBytes(hour.sketch()));
+                } else {
+                    incompleteHours.add(hour.bucket());
+                }
+            }
+            merged.put(shortCode, sketch);
+            rawSpans.put(shortCode, rawSpans(from, to, hourFrom, hourTo, incompleteHours));
+        }
+
+        if (!exactCodes.isEmpty()) {
+            Map<String, Long> exactCounts = new HashMap<>();
+            for (Object[] row : clickEventRepository.countUniqueVisitorsByShortCodes(exactCodes, from, to)) {
+                exactCounts.put((String) row[0], ((Number) row[1]).longValue());
+            }
+            for (String shortCode : exactCodes) {
+                counts.put(shortCode, new UniqueVisitorCount(exactCounts.getOrDefault(shortCode, 0L), true, 0));
+            }
+        }
+
+        if (!merged.isEmpty()) {
+            visitorSketchRepository.findDistinctAddresses(rawSpans).forEach((shortCode, addresses) ->
+                    addresses.forEach(merged.get(shortCode)::addAddress));
+            merged.forEach((shortCode, sketch) ->
+                    counts.put(shortCode, new UniqueVisitorCount(sketch.estimate(), false, ESTIMATE_ERROR_BOUND)));
+        }
+        return counts;
+    }
+
+    private UniqueVisitorCount exactCount(String shortCode, Instant from, Instant to) {
+        return new UniqueVisitorCount(clickEventRepository.countUniqueVisitors(shortCode, from, to), true, 0);
+    }
+
+    /**
+     * Edge spans {@code [from, hourFrom)} and {@code [hourTo, to]}, plus incomplete hours,
+     * with adjacent hours coalesced so the raw query stays short.
+     */
+    private static List<Span> rawSpans(Instant from, Instant to, Instant hourFrom, Instant hourTo,
+                                       List<Instant> incompleteHours) {
+        List<Span> spans = new ArrayList<>();
+        if (from.isBefore(hourFrom)) {
+            spans.add(to.isBefore(hourFrom) ? new Span(from, to, true) : new Span(from, hourFrom, false));
+        }
+        if (!hourTo.isAfter(to)) {
+            spans.add(new Span(hourTo, to, true));
+        }
+
+        List<Instant> sorted = incompleteHours.stream().sorted().toList();
+        Instant runStart = null;
+        Instant runEnd = null;
+        for (Instant hour : sorted) {
+            if (runEnd != null && runEnd.equals(hour)) {
+                runEnd = hour.plus(1, ChronoUnit.HOURS);
+                continue;
+            }
+            if (runStart != null) {
+                spans.add(new Span(runStart, runEnd, false));
+            }
+            runStart = hour;
+            runEnd = hour.plus(1, ChronoUnit.HOURS);
+        }
+        if (runStart != null) {
+            spans.add(new Span(runStart, runEnd, false));
+        }
+        return spans;
+    }
+
+    /**
+     * @param errorBound relative error at ~95% confidence; 0 for exact counts
+     */
+    public record UniqueVisitorCount(long count, boolean exact, double errorBound) {}
+}
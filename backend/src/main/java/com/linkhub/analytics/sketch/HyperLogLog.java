@@ -0,0 +1,259 @@
+package com.linkhub.analytics.sketch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Mergeable HyperLogLog sketch (precision 12: 4096 registers, ~1.6% relative standard error)
+ * used for unique-visitor counts.
+ *
+ * <p>The analytics consumer writes one sketch per short code per hour to
+ * {@code click_visitor_sketches_hourly}; this class must stay byte-for-byte compatible
+ * with the consumer's copy (same hash, same serialized layout).
+ *
+ * <p>Serialized layout:
+ * <ul>
+ *   <li>{@code 0x01} followed by {@code (u16 index, u8 rank)} triples sorted by index — sparse,
+ *       used while it is smaller than the dense form</li>
+ *   <li>{@code 0x02} followed by 4096 one-byte registers — dense</li>
+ * </ul>
+ */
+public final class HyperLogLog {
+
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+
+    /** Relative standard error of an estimate, {@code 1.04 / sqrt(m)}. */
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private static final byte SPARSE = 1;
+    private static final byte DENSE = 2;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    // ────────── Update / Merge ──────────
+
+    /**
+     * Add a visitor, identified by IP address. Textual variants of the same address
+     * (e.g. {@code 0:0:0:0:0:0:0:1} and {@code ::1}) hash identically.
+     */
+    public void addAddress(String ipAddress) {
+        addHash(hash(canonicalAddress(ipAddress)));
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        long rest = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    // ────────── Estimate ──────────
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte r : registers) {
+            sum += 1.0 / (1L << r);
+            if (r == 0) {
+                zeros++;
+            }
+        }
+        double raw = ALPHA * REGISTERS * REGISTERS / sum;
+        if (raw <= 2.5 * REGISTERS && zeros > 0) {
+            // Linear counting is more accurate for small cardinalities
+            return Math.round(REGISTERS * Math.log((double) REGISTERS / zeros));
+        }
+        return Math.round(raw);
+    }
+
+    // ────────── Serialization ──────────
+
+    public byte[] toBytes() {
+        int nonZero = 0;
+        for (byte r : registers) {
+            if (r != 0) {
+                nonZero++;
+            }
+        }
+        if (nonZero * 3 >= REGISTERS) {
+            byte[] out = new byte[REGISTERS + 1];
+            out[0] = DENSE;
+            System.arraycopy(registers, 0, out, 1, REGISTERS);
+            return out;
+        }
+
+        byte[] out = new byte[1 + nonZero * 3];
+        out[0] = SPARSE;
+        int pos = 1;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (registers[i] != 0) {
+                out[pos++] = (byte) (i >>> 8);
+                out[pos++] = (byte) i;
+                out[pos++] = registers[i];
+            }
+        }
+        return out;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            throw new IllegalArgumentException("Empty HyperLogLog sketch");
+        }
+        if (bytes[0] == DENSE && bytes.length == REGISTERS + 1) {
+            return new HyperLogLog(Arrays.copyOfRange(bytes, 1, bytes.length));
+        }
+        if (bytes[0] == SPARSE && (bytes.length - 1) % 3 == 0) {
+            byte[] registers = new byte[REGISTERS];
+            for (int pos = 1; pos < bytes.length; pos += 3) {
+                int index = ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+                registers[index & (REGISTERS - 1)] = bytes[pos + 2];
+            }
+            return new HyperLogLog(registers);
+        }
+        throw new IllegalArgumentException("Unrecognized HyperLogLog sketch encoding");
+    }
+
+    // ────────── Hashing ──────────
+
+    /**
+     * 64-bit FNV-1a followed by the MurmurHash3 finalizer for avalanche.
+     */
+    static long hash(byte[] data) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : data) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe53b5ca9L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Address bytes for an IPv4 or IPv6 literal, so equivalent spellings hash the same.
+     * Anything that isn't a literal is hashed as its lower-cased text. Never does a DNS lookup.
+     */
+    static byte[] canonicalAddress(String ip) {
+        String value = ip.trim().toLowerCase(Locale.ROOT);
+        byte[] parsed = value.indexOf(':') >= 0 ? parseIpv6(value) : parseIpv4(value);
+        return parsed != null ? parsed : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] parseIpv4(String value) {
+        String[] parts = value.split("\\.", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        byte[] out = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            int octet = parseNumber(parts[i], 10, 3);
+            if (octet < 0 || octet > 255) {
+                return null;
+            }
+            out[i] = (byte) octet;
+        }
+        return out;
+    }
+
+    private static byte[] parseIpv6(String value) {
+        int zone = value.indexOf('%');
+        if (zone >= 0) {
+            value = value.substring(0, zone);
+        }
+
+        int gap = value.indexOf("::");
+        if (gap >= 0 && value.indexOf("::", gap + 1) >= 0) {
+            return null;
+        }
+
+        int[] head = gap >= 0 ? parseGroups(value.substring(0, gap)) : parseGroups(value);
+        int[] tail = gap >= 0 ? parseGroups(value.substring(gap + 2)) : new int[0];
+        if (head == null || tail == null) {
+            return null;
+        }
+        int groups = head.length + tail.length;
+        if (gap >= 0 ? groups > 7 : groups != 8) {
+            return null;
+        }
+
+        byte[] out = new byte[16];
+        for (int i = 0; i < head.length; i++) {
+            out[i * 2] = (byte) (head[i] >>> 8);
+            out[i * 2 + 1] = (byte) head[i];
+        }
+        int offset = 8 - tail.length;
+        for (int i = 0; i < tail.length; i++) {
+            out[(offset + i) * 2] = (byte) (tail[i] >>> 8);
+            out[(offset + i) * 2 + 1] = (byte) tail[i];
+        }
+        return out;
+    }
+
+    /**
+     * Colon-separated 16-bit groups; a trailing dotted IPv4 part counts as two groups.
+     */
+    private static int[] parseGroups(String value) {
+        if (value.isEmpty()) {
+            return new int[0];
+        }
+        String[] parts = value.split(":", -1);
+        boolean embeddedIpv4 = parts[parts.length - 1].indexOf('.') >= 0;
+        int[] groups = new int[parts.length + (embeddedIpv4 ? 1 : 0)];
+
+        for (int i = 0; i < parts.length - (embeddedIpv4 ? 1 : 0); i++) {
+            int group = parseNumber(parts[i], 16, 4);
+            if (group < 0) {
+                return null;
+            }
+            groups[i] = group;
+        }
+        if (embeddedIpv4) {
+            byte[] v4 = parseIpv4(parts[parts.length - 1]);
+            if (v4 == null) {
+                return null;
+            }
+            groups[parts.length - 1] = ((v4[0] & 0xFF) << 8) | (v4[1] & 0xFF);
+            groups[parts.length] = ((v4[2] & 0xFF) << 8) | (v4[3] & 0xFF);
+        }
+        return groups;
+    }
+
+    private static int parseNumber(String digits, int radix, int maxLength) {
+        if (digits.isEmpty() || digits.length() > maxLength) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            int d = Character.digit(digits.charAt(i), radix);
+            if (d < 0) {
+                return -1;
+            }
+            value = value * radix + d;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,65 @@
+package com.linkhub.analytics.tail;
+
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+import com.linkhub.config.KafkaConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This pod's single tail of {@code click-events-enriched}, shared by every live view.
+ *
+ * <p>One consumer reads all partitions from the latest offset (see
+ * {@link KafkaConfig#clickTailConsumerFactory()}) and hands each batch to every
+ * {@link ClickTailListener}. A listener that throws is logged and skipped so it can't
+ * stall the others.
+ */
+@Component
+public class ClickTail implements ConsumerSeekAware {
+
+    private static final Logger log = LoggerFactory.getLogger(ClickTail.class);
+
+    private final List<ClickTailListener> listeners;
+
+    public ClickTail(List<ClickTailListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    @KafkaListener(
+            topics = KafkaConfig.CLICK_EVENTS_ENRICHED_TOPIC,
+            containerFactory = "clickTailContainerFactory",
+            autoStartup = "${analytics.tail.enabled:true}"
+    )
+    public void onBatch(List<EnrichedClickMessage> batch) {
+        // Records that failed to deserialize arrive as null
+        List<EnrichedClickMessage> clicks = new ArrayList<>(batch.size());
+        for (EnrichedClickMessage click : batch) {
+            if (click != null && click.shortCode() != null && click.clickedAt() != null) {
+                clicks.add(click);
+            }
+        }
+        if (clicks.isEmpty()) {
+            return;
+        }
+        for (ClickTailListener listener : listeners) {
+            try {
+                listener.onClicks(clicks);
+            } catch (RuntimeException e) {
+                log.error("Click tail listener {} failed: {}", listener.getClass().getSimpleName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        log.info("Click tail assigned {} partitions", assignments.size());
+        listeners.forEach(ClickTailListener::onTailReady);
+    }
+}
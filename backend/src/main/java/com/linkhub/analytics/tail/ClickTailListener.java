@@ -0,0 +1,22 @@
+package com.linkhub.analytics.tail;
+
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+
+import java.util.List;
+
+/**
+ * Receives every batch read by this pod's {@link ClickTail}.
+ *
+ * <p>Called on the tail's consumer thread: implementations must be quick and must not block,
+ * since a slow listener delays every other one.
+ */
+public interface ClickTailListener {
+
+    /**
+     * The tail has been (re)assigned its partitions and now sees every click published from here on.
+     */
+    default void onTailReady() {
+    }
+
+    void onClicks(List<EnrichedClickMessage> clicks);
+}
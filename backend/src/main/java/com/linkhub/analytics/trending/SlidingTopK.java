@@ -0,0 +1,99 @@
+package com.linkhub.analytics.trending;
+
+import com.linkhub.analytics.dto.TrendingLinks;
+import com.linkhub.analytics.dto.TrendingWindow;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One sliding window of top-K counts: a ring of {@link SpaceSaving} sketches, one per step.
+ * A slot is reset when the ring comes round to it, so memory stays at
+ * {@code buckets × capacity} counters however many clicks arrive.
+ *
+ * <p>Reads merge the live slots: counts and errors add up, and a key missing from a full slot
+ * may have had up to that slot's smallest count there, which is added to its error bound.
+ */
+final class SlidingTopK {
+
+    private final long stepMillis;
+    private final int capacity;
+    private final SpaceSaving[] slots;
+    private final long[] slotStep;
+
+    SlidingTopK(TrendingWindow window, int capacity) {
+        this.stepMillis = window.step().toMillis();
+        this.capacity = capacity;
+        this.slots = new SpaceSaving[window.buckets()];
+        this.slotStep = new long[window.buckets()];
+    }
+
+    /**
+     * Count a click at {@code atMillis}. Clicks older than the window are ignored.
+     */
+    synchronized void add(String key, long atMillis) {
+        long step = Math.floorDiv(atMillis, stepMillis);
+        int i = Math.floorMod(step, slots.length);
+        if (slots[i] == null) {
+            slots[i] = new SpaceSaving(capacity);
+        } else if (slotStep[i] > step) {
+            return;
+        } else if (slotStep[i] < step) {
+            slots[i].clear();
+        }
+        slotStep[i] = step;
+        slots[i].add(key);
+    }
+
+    /**
+     * Whether nothing has been counted in the window ending at {@code nowMillis}.
+     */
+    synchronized boolean isIdle(long nowMillis) {
+        long current = Math.floorDiv(nowMillis, stepMillis);
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && !slots[i].isEmpty() && slotStep[i] > current - slots.length) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Top {@code limit} keys of the window ending at {@code nowMillis}, by estimated count.
+     */
+    synchronized List<TrendingLinks.TrendingLink> top(int limit, long nowMillis) {
+        long current = Math.floorDiv(nowMillis, stepMillis);
+        Map<String, long[]> merged = new HashMap<>();
+        List<SpaceSaving> live = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null && slotStep[i] > current - slots.length && slotStep[i] <= current) {
+                live.add(slots[i]);
+            }
+        }
+
+        long totalMin = 0;
+        for (SpaceSaving slot : live) {
+            long min = slot.minCount();
+            totalMin += min;
+            slot.forEach((key, count, error) -> {
+                long[] sum = merged.computeIfAbsent(key, k -> new long[3]);
+                sum[0] += count;
+                sum[1] += error;
+                sum[2] += min;
+            });
+        }
+
+        long missingSlotsMin = totalMin;
+        return merged.entrySet().stream()
+                .map(e -> new TrendingLinks.TrendingLink(e.getKey(), e.getValue()[0],
+                        // own errors, plus what it may have had in slots that evicted it
+                        e.getValue()[1] + (missingSlotsMin - e.getValue()[2])))
+                .sorted(Comparator.comparingLong(TrendingLinks.TrendingLink::clicks).reversed()
+                        .thenComparing(TrendingLinks.TrendingLink::shortCode))
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,95 @@
+package com.linkhub.analytics.trending;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Space-Saving top-K sketch (Metwally et al.): at most {@code capacity} counters, and when a new
+ * key arrives with all of them taken it replaces the smallest one, inheriting its count as error.
+ *
+ * <p>A key's count never underestimates its true frequency and overestimates it by at most its
+ * error. Any key more frequent than {@code total / capacity} is guaranteed to be held. Counters
+ * are bucketed by count so both increments and evictions cost O(log distinct counts).
+ * Not thread-safe.
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeMap<Long, LinkedHashSet<Counter>> byCount = new TreeMap<>();
+
+    SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            detach(counter);
+        } else if (counters.size() < capacity) {
+            counter = new Counter(key, 0, 0);
+            counters.put(key, counter);
+        } else {
+            // Replace the oldest of the smallest counters
+            Counter victim = byCount.firstEntry().getValue().iterator().next();
+            detach(victim);
+            counters.remove(victim.key);
+            counter = new Counter(key, victim.count, victim.count);
+            counters.put(key, counter);
+        }
+        counter.count++;
+        byCount.computeIfAbsent(counter.count, c -> new LinkedHashSet<>()).add(counter);
+    }
+
+    /**
+     * Upper bound on the count of any key not held: 0 until the sketch is full.
+     */
+    long minCount() {
+        return counters.size() < capacity || byCount.isEmpty() ? 0 : byCount.firstKey();
+    }
+
+    boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    void clear() {
+        counters.clear();
+        byCount.clear();
+    }
+
+    /**
+     * Visit every held key with its estimated count and maximum overestimate.
+     */
+    void forEach(Visitor visitor) {
+        for (Counter counter : counters.values()) {
+            visitor.visit(counter.key, counter.count, counter.error);
+        }
+    }
+
+    private void detach(Counter counter) {
+        LinkedHashSet<Counter> bucket = byCount.get(counter.count);
+        bucket.remove(counter);
+        if (bucket.isEmpty()) {
+            byCount.remove(counter.count);
+        }
+    }
+
+    @FunctionalInterface
+    interface Visitor {
+        void visit(String key, long count, long error);
+    }
+
+    private static final class Counter {
+        final String key;
+        long count;
+        final long error;
+
+        Counter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
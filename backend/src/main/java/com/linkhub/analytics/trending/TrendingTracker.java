@@ -0,0 +1,168 @@
+package com.linkhub.analytics.trending;
+
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+import com.linkhub.analytics.dto.TrendingLinks;
+import com.linkhub.analytics.dto.TrendingWindow;
+import com.linkhub.analytics.tail.ClickTailListener;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trending links over sliding 5-minute, 1-hour and 24-hour windows, counted incrementally from
+ * this pod's {@link com.linkhub.analytics.tail.ClickTail}.
+ *
+ * <p>Every pod tails every click, so each pod holds the same counts. They are kept globally and
+ * per account (the link owner's user id on the enriched click) in {@link SlidingTopK} windows of
+ * {@link SpaceSaving} sketches. Counts start empty when a pod starts; the 24-hour window is
+ * complete a day later.
+ *
+ * <p>{@link #refresh()} recomputes the global top lists every few seconds, so the admin view is
+ * a field read. Per-account lists are computed on first request after each refresh and reused
+ * until the next one. Accounts with no clicks for a day are dropped, and beyond
+ * {@code analytics.trending.max-accounts} the least recently clicked ones go first.
+ */
+@Component
+public class TrendingTracker implements ClickTailListener {
+
+    /** Longest list kept or returned. */
+    public static final int MAX_LIMIT = 100;
+
+    private final Map<TrendingWindow, SlidingTopK> global = new EnumMap<>(TrendingWindow.class);
+    private final Map<Long, Account> accounts = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(0, Instant.EPOCH, new EnumMap<>(TrendingWindow.class));
+
+    private final int accountCapacity;
+
+    @Value("${analytics.trending.max-accounts:20000}")
+    private int maxAccounts;
+
+    public TrendingTracker(@Value("${analytics.trending.global-capacity:1000}") int globalCapacity,
+                           @Value("${analytics.trending.account-capacity:50}") int accountCapacity,
+                           MeterRegistry meterRegistry) {
+        this.accountCapacity = accountCapacity;
+        for (TrendingWindow window : TrendingWindow.values()) {
+            global.put(window, new SlidingTopK(window, globalCapacity));
+        }
+
+        Gauge.builder("analytics.trending.accounts", accounts, Map::size)
+                .description("Accounts with trending counts held")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onClicks(List<EnrichedClickMessage> clicks) {
+        long now = System.currentTimeMillis();
+        for (EnrichedClickMessage click : clicks) {
+            // Consumer lag can delay a click; count it where it happened, never in the future
+            long at = Math.min(click.clickedAt().toEpochMilli(), now);
+            for (SlidingTopK window : global.values()) {
+                window.add(click.shortCode(), at);
+            }
+            if (click.userId() != null) {
+                Account account = accounts.get(click.userId());
+                if (account == null && accounts.size() < maxAccounts) {
+                    account = accounts.computeIfAbsent(click.userId(), id -> new Account(accountCapacity));
+                }
+                if (account != null) {
+                    account.add(click.shortCode(), at, now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Global trending links, as of the last {@link #refresh()}.
+     */
+    public TrendingLinks global(TrendingWindow window, int limit) {
+        Snapshot current = snapshot;
+        TrendingLinks links = current.global.get(window);
+        return links != null ? links.limit(limit) : new TrendingLinks(window.param(), current.asOf, List.of());
+    }
+
+    /**
+     * Trending links among one account's links, as of the last {@link #refresh()}.
+     */
+    public TrendingLinks forAccount(Long userId, TrendingWindow window, int limit) {
+        Snapshot current = snapshot;
+        Account account = accounts.get(userId);
+        if (account == null) {
+            return new TrendingLinks(window.param(), current.asOf, List.of());
+        }
+        return account.top(window, current).limit(limit);
+    }
+
+    /**
+     * Recompute the global top lists and expire per-account results. Also drops accounts idle
+     * for a day and trims the account map back under its limit. Called every few seconds by
+     * the refresh job.
+     */
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        Map<TrendingWindow, TrendingLinks> lists = new EnumMap<>(TrendingWindow.class);
+        Instant asOf = Instant.ofEpochMilli(now);
+        for (Map.Entry<TrendingWindow, SlidingTopK> e : global.entrySet()) {
+            lists.put(e.getKey(), new TrendingLinks(e.getKey().param(), asOf, e.getValue().top(MAX_LIMIT, now)));
+        }
+        snapshot = new Snapshot(snapshot.version + 1, asOf, lists);
+
+        accounts.values().removeIf(account -> account.isIdle(now));
+        int target = maxAccounts * 9 / 10;
+        if (accounts.size() > target) {
+            accounts.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().lastClickMillis))
+                    .limit(accounts.size() - target)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(accounts::remove);
+        }
+    }
+
+    private record Snapshot(long version, Instant asOf, Map<TrendingWindow, TrendingLinks> global) {}
+
+    /**
+     * One account's windows, and its top lists memoized per snapshot.
+     */
+    private static final class Account {
+
+        private final Map<TrendingWindow, SlidingTopK> windows = new EnumMap<>(TrendingWindow.class);
+        private final Map<TrendingWindow, TrendingLinks> memo = new EnumMap<>(TrendingWindow.class);
+        private long memoVersion = -1;
+        private volatile long lastClickMillis;
+
+        Account(int capacity) {
+            for (TrendingWindow window : TrendingWindow.values()) {
+                windows.put(window, new SlidingTopK(window, capacity));
+            }
+        }
+
+        void add(String shortCode, long atMillis, long nowMillis) {
+            for (SlidingTopK window : windows.values()) {
+                window.add(shortCode, atMillis);
+            }
+            lastClickMillis = nowMillis;
+        }
+
+        boolean isIdle(long nowMillis) {
+            return windows.get(TrendingWindow.ONE_DAY).isIdle(nowMillis);
+        }
+
+        synchronized TrendingLinks top(TrendingWindow window, Snapshot current) {
+            if (memoVersion != current.version) {
+                memo.clear();
+                memoVersion = current.version;
+            }
+            return memo.computeIfAbsent(window, w -> new TrendingLinks(w.param(), current.asOf,
+                    windows.get(w).top(MAX_LIMIT, current.asOf.toEpochMilli())));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.linkhub.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * <p>{@code nextCursor} is {@code null} on the last page. {@code totalElements} is only
+ * present when the client asked for it, since counting costs a scan of the whole result set.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String nextCursor,
+        boolean hasNext,
+        @JsonInclude(JsonInclude.Include.NON_NULL) Long totalElements
+) {
+    /**
+     * Build a page from a query that fetched up to {@code limit + 1} rows;
+     * the extra row only signals that another page exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit,
+                                       Function<T, KeysetCursor> cursorOf,
+                                       Long totalElements) {
+        boolean hasNext = rows.size() > limit;
+        List<T> content = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(content, content.size(), nextCursor, hasNext, totalElements);
+    }
+}
@@ -0,0 +1,30 @@
+package com.linkhub.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Async request handling for streaming responses (click exports).
+ *
+ * <p>The executor is set explicitly: the application's own {@code ThreadPoolTaskExecutor} beans
+ * switch off Boot's default {@code applicationTaskExecutor}, and MVC would otherwise fall back
+ * to an unbounded {@code SimpleAsyncTaskExecutor}. The default timeout is left alone; the long
+ * one an export needs is set on its own request by the export endpoint.
+ */
+@Configuration
+public class AsyncWebConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor clickExportExecutor;
+
+    public AsyncWebConfig(@Qualifier("clickExportExecutor") ThreadPoolTaskExecutor clickExportExecutor) {
+        this.clickExportExecutor = clickExportExecutor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(clickExportExecutor);
+    }
+}
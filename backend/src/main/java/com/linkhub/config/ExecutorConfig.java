@@ -0,0 +1,120 @@
+package com.linkhub.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bounded executors for background work, kept off the request threads.
+ *
+ * <ul>
+ *   <li>{@code urlImportExecutor} — runs bulk import jobs; rejects new jobs when its queue is full</li>
+ *   <li>{@code keyClaimExecutor} — claims short keys for the next import batch while the
+ *       current batch is being written (separate pool so import jobs never wait on themselves)</li>
+ *   <li>{@code clickExportExecutor} — Spring MVC's async executor, which runs streaming click
+ *       exports; sized to the export concurrency limit so admitted exports never queue</li>
+ *   <li>{@code analyticsQueryExecutor} — runs a request's independent analytics queries in
+ *       parallel; bounded below the main connection pool so dashboards can't starve other work</li>
+ *   <li>{@code cubeLoadExecutor} — loads newly hot links into the in-memory cube; a single
+ *       thread, since each load streams up to hours of a viral link's clicks</li>
+ *   <li>{@code liveStreamExecutor} — writes live click stream (SSE) frames; a blocked client
+ *       holds one of its threads until its socket times out, never the Kafka tail</li>
+ *   <li>{@code reportExecutor} — runs asynchronous report jobs handed over by
+ *       {@code ReportWorkQueue}, which does the queueing; heavy reports hold these threads
+ *       and one connection each, never the request threads or the analytics pool</li>
+ * </ul>
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor urlImportExecutor(
+            @Value("${url-import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+            @Value("${url-import.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("url-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor keyClaimExecutor(
+            @Value("${url-import.max-concurrent-jobs:2}") int maxConcurrentJobs) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setThreadNamePrefix("key-claim-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor clickExportExecutor(
+            @Value("${analytics.export.max-concurrent:4}") int maxConcurrentExports) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentExports);
+        executor.setMaxPoolSize(maxConcurrentExports);
+        executor.setQueueCapacity(maxConcurrentExports);
+        executor.setThreadNamePrefix("click-export-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor analyticsQueryExecutor(
+            @Value("${analytics.fan-out.threads:8}") int threads,
+            @Value("${analytics.fan-out.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analytics-query-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cubeLoadExecutor(
+            @Value("${analytics.cube.load-queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("cube-load-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor liveStreamExecutor(
+            @Value("${analytics.live.send-threads:8}") int threads,
+            @Value("${analytics.live.send-queue-capacity:20000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("live-stream-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor reportExecutor(
+            @Value("${analytics.reports.workers:2}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("report-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
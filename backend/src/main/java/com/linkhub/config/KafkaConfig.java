@@ -1,15 +1,32 @@
 package com.linkhub.config;
 
+import com.linkhub.analytics.dto.EnrichedClickMessage;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 
 @Configuration
 public class KafkaConfig {
 
     public static final String CLICK_EVENTS_TOPIC = "click-events";
     public static final String CLICK_EVENTS_DLQ_TOPIC = "click-events-dlq";
+    public static final String CLICK_EVENTS_ENRICHED_TOPIC = "click-events-enriched";
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
 
     @Bean
     public NewTopic clickEventsTopic() {
@@ -27,4 +44,48 @@ public class KafkaConfig {
                 .config("retention.ms", String.valueOf(7L * 24 * 60 * 60 * 1000)) // 7 days
                 .build();
     }
+
+    /**
+     * Enriched, committed clicks published by the analytics consumer. Only live views tail it,
+     * so a day of retention is plenty.
+     */
+    @Bean
+    public NewTopic clickEventsEnrichedTopic() {
+        return TopicBuilder.name(CLICK_EVENTS_ENRICHED_TOPIC)
+                .partitions(3)
+                .replicas(1)
+                .config("retention.ms", String.valueOf(24L * 60 * 60 * 1000)) // 1 day
+                .build();
+    }
+
+    /**
+     * Consumer for the per-pod click tail. Every pod joins its own group so it sees every
+     * partition, starts at the latest offset and never commits: the tail is a live view,
+     * and anything older is read from the database.
+     */
+    @Bean
+    public ConsumerFactory<String, EnrichedClickMessage> clickTailConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, "linkhub-click-tail-" + UUID.randomUUID());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+
+        JsonDeserializer<EnrichedClickMessage> json = new JsonDeserializer<>(EnrichedClickMessage.class, false);
+        json.addTrustedPackages("*");
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(),
+                new ErrorHandlingDeserializer<>(json));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, EnrichedClickMessage> clickTailContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, EnrichedClickMessage> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(clickTailConsumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(1);
+        return factory;
+    }
 }
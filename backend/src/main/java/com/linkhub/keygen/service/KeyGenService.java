@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,8 +22,22 @@ public class KeyGenService {
     private static final Logger log = LoggerFactory.getLogger(KeyGenService.class);
     private static final String REDIS_KEY_POOL = "keypool:batch";
 
+    /**
+     * Atomically claim unused keys (single statement, so it is safe outside a transaction).
+     */
+    private static final String CLAIM_KEYS_SQL = """
+            UPDATE key_pool SET is_used = TRUE, claimed_at = NOW()
+            WHERE id IN (SELECT id FROM key_pool
+                         WHERE is_used = FALSE
+                         ORDER BY id
+                         LIMIT ?
+                         FOR UPDATE SKIP LOCKED)
+            RETURNING short_key
+            """;
+
     private final KeyPoolRepository keyPoolRepository;
     private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
 
     @Value("${keygen.key-length:7}")
     private int keyLength;
@@ -36,9 +51,12 @@ public class KeyGenService {
     @Value("${keygen.redis-refill-threshold:200}")
     private int redisRefillThreshold;
 
-    public KeyGenService(KeyPoolRepository keyPoolRepository, StringRedisTemplate redisTemplate) {
+    public KeyGenService(KeyPoolRepository keyPoolRepository,
+                         StringRedisTemplate redisTemplate,
+                         JdbcTemplate jdbcTemplate) {
         this.keyPoolRepository = keyPoolRepository;
         this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     /**
@@ -69,6 +87,68 @@ public class KeyGenService {
         return generateDirectKey();
     }
 
+    /**
+     * Allocate {@code count} short keys with a single RPOP-with-count against the Redis buffer.
+     * If the buffer runs dry it is refilled once from the database; any remainder is
+     * generated directly, so the returned list always has exactly {@code count} keys.
+     */
+    public List<String> allocateKeys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        if (count <= 0) {
+            return keys;
+        }
+
+        List<String> popped = redisTemplate.opsForList().rightPop(REDIS_KEY_POOL, count);
+        if (popped != null) {
+            keys.addAll(popped);
+        }
+
+        if (keys.size() < count) {
+            log.warn("Redis key buffer short by {} keys, refilling from database...", count - keys.size());
+            refillRedisBuffer();
+            popped = redisTemplate.opsForList().rightPop(REDIS_KEY_POOL, count - keys.size());
+            if (popped != null) {
+                keys.addAll(popped);
+            }
+        }
+
+        while (keys.size() < count) {
+            log.warn("Key pool exhausted, generating key directly");
+            keys.add(generateDirectKey());
+        }
+
+        log.debug("Allocated {} keys from Redis buffer", count);
+        checkAndTriggerRefill();
+        return keys;
+    }
+
+    /**
+     * Claim {@code count} keys straight from the key_pool table, bypassing the Redis buffer.
+     * Meant for large imports that would otherwise drain the buffer many times over.
+     * Tops the pool up with a fresh batch if it runs short.
+     */
+    public List<String> claimKeys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        if (count <= 0) {
+            return keys;
+        }
+
+        keys.addAll(jdbcTemplate.queryForList(CLAIM_KEYS_SQL, String.class, count));
+
+        if (keys.size() < count) {
+            int missing = count - keys.size();
+            log.warn("Key pool short by {} keys during bulk claim, generating a new batch", missing);
+            generateKeyBatch(Math.max(missing, batchSize));
+            keys.addAll(jdbcTemplate.queryForList(CLAIM_KEYS_SQL, String.class, missing));
+        }
+
+        while (keys.size() < count) {
+            keys.add(generateDirectKey());
+        }
+
+        return keys;
+    }
+
     /**
      * Generate a batch of unique Base62 keys and store in the key_pool table.
      */
@@ -3,13 +3,18 @@ package com.linkhub.url.cache;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.linkhub.url.model.Url;
+import com.linkhub.url.repository.RedirectLookupRepository.RedirectTarget;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,6 +23,8 @@ import java.util.Optional;
  * <p>Key patterns:
  * <ul>
  *   <li>{@code url:{shortCode}} → longUrl (redirect hot path, TTL 1h default / 24h hot)</li>
+ *   <li>{@code url:target:{shortCode}} → {@code id} or {@code id:expiresAtMillis} (the rest of the
+ *       redirect target, read with the long URL in one MGET; same TTL)</li>
  *   <li>{@code url:meta:{shortCode}} → JSON (full URL metadata, TTL 1h)</li>
  * </ul>
  *
@@ -31,6 +38,7 @@ public class UrlCacheService {
     private static final Logger log = LoggerFactory.getLogger(UrlCacheService.class);
 
     private static final String REDIRECT_KEY_PREFIX = "url:";
+    private static final String TARGET_KEY_PREFIX = "url:target:";
     private static final String META_KEY_PREFIX = "url:meta:";
     private static final String CLICK_COUNTER_PREFIX = "clicks:";
 
@@ -54,12 +62,9 @@ public class UrlCacheService {
      */
     @CircuitBreaker(name = "redisCache", fallbackMethod = "cacheOnCreateFallback")
     public void cacheOnCreate(Url url) {
-        // Redirect cache: url:{shortCode} → longUrl
-        redisTemplate.opsForValue().set(
-                REDIRECT_KEY_PREFIX + url.getShortCode(),
-                url.getLongUrl(),
-                DEFAULT_TTL
-        );
+        // Redirect cache: url:{shortCode} → longUrl, url:target:{shortCode} → id[:expiresAt]
+        cacheRedirectTarget(url.getShortCode(),
+                new RedirectTarget(url.getId(), url.getLongUrl(), url.getExpiresAt()));
 
         // Metadata cache: url:meta:{shortCode} → JSON
         try {
@@ -82,38 +87,93 @@ public class UrlCacheService {
                 url.getShortCode(), t.getMessage());
     }
 
+    /**
+     * Cache a batch of newly created URLs (write-through) in a single pipelined round trip.
+     * Writes the redirect + metadata keys of {@link #cacheOnCreate(Url)} except the target key:
+     * batch-inserted URLs have no id yet, so their first redirect fills it from the database.
+     */
+    @CircuitBreaker(name = "redisCache", fallbackMethod = "cacheOnCreateAllFallback")
+    public void cacheOnCreateAll(List<Url> urls) {
+        long ttlSeconds = DEFAULT_TTL.toSeconds();
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (Url url : urls) {
+                conn.setEx(REDIRECT_KEY_PREFIX + url.getShortCode(), ttlSeconds, url.getLongUrl());
+                try {
+                    conn.setEx(META_KEY_PREFIX + url.getShortCode(), ttlSeconds,
+                            objectMapper.writeValueAsString(url));
+                } catch (JsonProcessingException e) {
+                    log.error("Failed to serialize URL for cache: {}", e.getMessage());
+                }
+            }
+            return null;
+        });
+
+        log.debug("Cache populated for {} URLs", urls.size());
+    }
+
+    @SuppressWarnings("unused")
+    private void cacheOnCreateAllFallback(List<Url> urls, Throwable t) {
+        log.warn("Circuit breaker OPEN — skipping cache write for {} URLs: {}", urls.size(), t.getMessage());
+    }
+
     // ────────── Cache-Aside (on redirect) ──────────
 
     /**
-     * Look up the long URL from Redis cache.
-     * Returns empty if cache miss or Redis is down.
+     * Look up the redirect target from Redis cache.
+     * Returns empty if cache miss (either key absent or unreadable) or Redis is down.
      */
-    @CircuitBreaker(name = "redisCache", fallbackMethod = "getRedirectUrlFallback")
-    public Optional<String> getRedirectUrl(String shortCode) {
-        String longUrl = redisTemplate.opsForValue().get(REDIRECT_KEY_PREFIX + shortCode);
-        return Optional.ofNullable(longUrl);
+    @CircuitBreaker(name = "redisCache", fallbackMethod = "getRedirectTargetFallback")
+    public Optional<RedirectTarget> getRedirectTarget(String shortCode) {
+        List<String> values = redisTemplate.opsForValue().multiGet(
+                List.of(REDIRECT_KEY_PREFIX + shortCode, TARGET_KEY_PREFIX + shortCode));
+        if (values == null || values.get(0) == null || values.get(1) == null) {
+            return Optional.empty();
+        }
+        String longUrl = values.get(0);
+        String target = values.get(1);
+        try {
+            int colon = target.indexOf(':');
+            if (colon < 0) {
+                return Optional.of(new RedirectTarget(Long.parseLong(target), longUrl, null));
+            }
+            return Optional.of(new RedirectTarget(
+                    Long.parseLong(target.substring(0, colon)),
+                    longUrl,
+                    Instant.ofEpochMilli(Long.parseLong(target.substring(colon + 1)))));
+        } catch (NumberFormatException e) {
+            log.warn("Unreadable redirect target cached for shortCode={}: {}", shortCode, target);
+            return Optional.empty();
+        }
     }
 
     @SuppressWarnings("unused")
-    private Optional<String> getRedirectUrlFallback(String shortCode, Throwable t) {
+    private Optional<RedirectTarget> getRedirectTargetFallback(String shortCode, Throwable t) {
         log.warn("Circuit breaker OPEN — cache miss fallback for shortCode={}: {}", shortCode, t.getMessage());
         return Optional.empty(); // Fallback to DB
     }
 
     /**
-     * Populate redirect cache after a DB lookup (cache-aside fill).
+     * Populate redirect cache after a DB lookup (cache-aside fill) or a write.
      */
-    @CircuitBreaker(name = "redisCache", fallbackMethod = "cacheRedirectUrlFallback")
-    public void cacheRedirectUrl(String shortCode, String longUrl) {
-        redisTemplate.opsForValue().set(
-                REDIRECT_KEY_PREFIX + shortCode,
-                longUrl,
-                DEFAULT_TTL
-        );
+    @CircuitBreaker(name = "redisCache", fallbackMethod = "cacheRedirectTargetFallback")
+    public void cacheRedirectTarget(String shortCode, RedirectTarget target) {
+        String value = target.expiresAt() != null
+                ? target.id() + ":" + target.expiresAt().toEpochMilli()
+                : Long.toString(target.id());
+        long ttlSeconds = DEFAULT_TTL.toSeconds();
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.setEx(REDIRECT_KEY_PREFIX + shortCode, ttlSeconds, target.longUrl());
+            conn.setEx(TARGET_KEY_PREFIX + shortCode, ttlSeconds, value);
+            return null;
+        });
     }
 
     @SuppressWarnings("unused")
-    private void cacheRedirectUrlFallback(String shortCode, String longUrl, Throwable t) {
+    private void cacheRedirectTargetFallback(String shortCode, RedirectTarget target, Throwable t) {
         log.warn("Circuit breaker OPEN — skipping cache fill for shortCode={}: {}", shortCode, t.getMessage());
     }
 
@@ -125,9 +185,11 @@ public class UrlCacheService {
      */
     @CircuitBreaker(name = "redisCache", fallbackMethod = "invalidateFallback")
     public void invalidate(String shortCode) {
-        redisTemplate.delete(REDIRECT_KEY_PREFIX + shortCode);
-        redisTemplate.delete(META_KEY_PREFIX + shortCode);
-        redisTemplate.delete(CLICK_COUNTER_PREFIX + shortCode);
+        redisTemplate.delete(List.of(
+                REDIRECT_KEY_PREFIX + shortCode,
+                TARGET_KEY_PREFIX + shortCode,
+                META_KEY_PREFIX + shortCode,
+                CLICK_COUNTER_PREFIX + shortCode));
         log.debug("Cache invalidated for shortCode={}", shortCode);
     }
 
@@ -152,6 +214,7 @@ public class UrlCacheService {
         // Hot URL promotion: extend redirect cache TTL
         if (count != null && count >= HOT_THRESHOLD) {
             redisTemplate.expire(REDIRECT_KEY_PREFIX + shortCode, HOT_TTL);
+            redisTemplate.expire(TARGET_KEY_PREFIX + shortCode, HOT_TTL);
             log.debug("Hot URL promotion for shortCode={}, clicks={}", shortCode, count);
         }
     }
@@ -3,7 +3,7 @@ package com.linkhub.url.controller;
 import com.linkhub.analytics.dto.ClickEventMessage;
 import com.linkhub.analytics.producer.ClickEventProducer;
 import com.linkhub.url.cache.UrlCacheService;
-import com.linkhub.url.model.Url;
+import com.linkhub.url.repository.RedirectLookupRepository.RedirectTarget;
 import com.linkhub.url.service.UrlService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -45,21 +45,21 @@ public class RedirectController {
             @PathVariable String shortCode,
             HttpServletRequest request
     ) {
-        Optional<Url> urlOpt = urlService.resolveForRedirect(shortCode);
+        Optional<RedirectTarget> targetOpt = urlService.resolveForRedirect(shortCode);
 
-        if (urlOpt.isEmpty()) {
+        if (targetOpt.isEmpty()) {
             log.debug("Short code not found or expired: {}", shortCode);
             return ResponseEntity.notFound().build();
         }
 
-        Url url = urlOpt.get();
+        RedirectTarget target = targetOpt.get();
 
         // Increment click count in Redis (buffered, non-blocking)
         cacheService.incrementClickCount(shortCode);
 
         // Fire click event to Kafka (async, non-blocking)
         ClickEventMessage event = ClickEventMessage.create(
-                url.getId(),
+                target.id(),
                 shortCode,
                 getClientIp(request),
                 request.getHeader(HttpHeaders.USER_AGENT),
@@ -69,7 +69,7 @@ public class RedirectController {
 
         // 302 Redirect
         return ResponseEntity.status(HttpStatus.FOUND)
-                .location(URI.create(url.getLongUrl()))
+                .location(URI.create(target.longUrl()))
                 .build();
     }
 
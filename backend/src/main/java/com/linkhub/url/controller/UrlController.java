@@ -1,5 +1,6 @@
 package com.linkhub.url.controller;
 
+import com.linkhub.common.dto.CursorPage;
 import com.linkhub.url.dto.*;
 import com.linkhub.url.service.QrCodeService;
 import com.linkhub.url.service.UrlService;
@@ -62,6 +63,27 @@ public class UrlController {
         return ResponseEntity.ok(urls);
     }
 
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Scroll user's URLs",
+            description = "Keyset-paginated list, newest first. Pass an empty cursor for the first page, "
+                    + "then the returned nextCursor. Status: all, active, expired, inactive. "
+                    + "q searches long URLs (substring) and short codes / aliases (prefix), min 3 characters. "
+                    + "The total is only counted when includeTotal=true.")
+    public ResponseEntity<CursorPage<UrlResponse>> scrollUrls(
+            Authentication authentication,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "false") boolean includeTotal
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        int pageSize = Math.max(1, Math.min(limit, 100));
+        CursorPage<UrlResponse> urls = urlService.scrollUserUrls(
+                userId, UrlStatusFilter.fromParam(status), q, cursor, pageSize, includeTotal);
+        return ResponseEntity.ok(urls);
+    }
+
     @GetMapping("/{shortCode}")
     @Operation(summary = "Get URL metadata", description = "Retrieve metadata for a specific URL")
     public ResponseEntity<UrlResponse> getUrl(
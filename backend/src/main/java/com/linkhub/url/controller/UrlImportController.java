@@ -0,0 +1,73 @@
+package com.linkhub.url.controller;
+
+import com.linkhub.url.dto.ImportJobResponse;
+import com.linkhub.url.dto.ImportRowError;
+import com.linkhub.url.model.ImportJob;
+import com.linkhub.url.service.UrlImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/v1/urls/imports")
+@Tag(name = "URL Imports", description = "Asynchronous bulk import of links from CSV or NDJSON")
+public class UrlImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final UrlImportService urlImportService;
+
+    public UrlImportController(UrlImportService urlImportService) {
+        this.urlImportService = urlImportService;
+    }
+
+    @PostMapping(consumes = {TEXT_CSV, APPLICATION_NDJSON})
+    @Operation(summary = "Start import",
+            description = "Upload a CSV (long_url,custom_alias,expires_at) or NDJSON file. "
+                    + "Returns 202 with a job to poll for progress, or 413 if the file is over the size limit.")
+    public ResponseEntity<ImportJobResponse> startImport(
+            HttpServletRequest request,
+            Authentication authentication
+    ) throws IOException {
+        Long userId = (Long) authentication.getPrincipal();
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        ImportJob.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV))
+                ? ImportJob.Format.CSV
+                : ImportJob.Format.NDJSON;
+
+        ImportJobResponse response = urlImportService.startImport(
+                request.getInputStream(), request.getContentLengthLong(), format, userId);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get import progress", description = "Row counters, throughput and status of an import job")
+    public ResponseEntity<ImportJobResponse> getJob(
+            @PathVariable Long jobId,
+            Authentication authentication
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(urlImportService.getJob(jobId, userId));
+    }
+
+    @GetMapping("/{jobId}/errors")
+    @Operation(summary = "Get import errors", description = "Paginated per-row errors of an import job, in file order")
+    public ResponseEntity<Page<ImportRowError>> getErrors(
+            @PathVariable Long jobId,
+            Authentication authentication,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(urlImportService.getErrors(jobId, userId, page, Math.min(size, 500)));
+    }
+}
@@ -9,6 +9,6 @@ import java.util.List;
 public record BulkCreateRequest(
 
         @NotEmpty(message = "URL list must not be empty")
-        @Size(max = 20, message = "Maximum 20 URLs per bulk request")
+        @Size(max = 100, message = "Maximum 100 URLs per bulk request")
         List<@Valid CreateUrlRequest> urls
 ) {}
@@ -0,0 +1,50 @@
+package com.linkhub.url.dto;
+
+import com.linkhub.url.model.ImportJob;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Progress and throughput of a bulk import job.
+ */
+public record ImportJobResponse(
+        Long jobId,
+        ImportJob.Format format,
+        ImportJob.Status status,
+        long rowsRead,
+        long rowsImported,
+        long rowsFailed,
+        double rowsPerSecond,
+        String errorMessage,
+        Instant createdAt,
+        Instant startedAt,
+        Instant finishedAt,
+        String statusUrl,
+        String errorsUrl
+) {
+    public static ImportJobResponse from(ImportJob job) {
+        double rowsPerSecond = 0;
+        if (job.getStartedAt() != null) {
+            Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : Instant.now();
+            long millis = Math.max(1, Duration.between(job.getStartedAt(), end).toMillis());
+            rowsPerSecond = Math.round(job.getRowsRead() * 1000.0 / millis * 10.0) / 10.0;
+        }
+
+        return new ImportJobResponse(
+                job.getId(),
+                job.getFormat(),
+                job.getStatus(),
+                job.getRowsRead(),
+                job.getRowsImported(),
+                job.getRowsFailed(),
+                rowsPerSecond,
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                "/api/v1/urls/imports/" + job.getId(),
+                "/api/v1/urls/imports/" + job.getId() + "/errors"
+        );
+    }
+}
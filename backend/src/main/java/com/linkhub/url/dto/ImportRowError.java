@@ -0,0 +1,16 @@
+package com.linkhub.url.dto;
+
+import com.linkhub.url.model.ImportJobError;
+
+/**
+ * A rejected import row, identified by its line number in the uploaded file.
+ */
+public record ImportRowError(
+        long lineNumber,
+        String message,
+        String rawLine
+) {
+    public static ImportRowError from(ImportJobError error) {
+        return new ImportRowError(error.getLineNumber(), error.getMessage(), error.getRawLine());
+    }
+}
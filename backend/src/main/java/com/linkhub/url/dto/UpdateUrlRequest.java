@@ -1,10 +1,12 @@
 package com.linkhub.url.dto;
 
+import jakarta.validation.constraints.Size;
 import org.hibernate.validator.constraints.URL;
 import java.time.Instant;
 
 public record UpdateUrlRequest(
         @URL(message = "Must be a valid URL")
+        @Size(max = 2048, message = "URL must not exceed 2048 characters")
         String longUrl,
         Instant expiresAt,
         Boolean isActive
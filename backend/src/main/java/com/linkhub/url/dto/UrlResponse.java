@@ -1,6 +1,7 @@
 package com.linkhub.url.dto;
 
 import com.linkhub.url.model.Url;
+import com.linkhub.url.repository.UrlListingRepository.UrlRow;
 
 import java.time.Instant;
 
@@ -32,4 +33,20 @@ public record UrlResponse(
                 "/api/v1/urls/" + url.getShortCode() + "/qr"
         );
     }
+
+    public static UrlResponse from(UrlRow row, String baseUrl) {
+        return new UrlResponse(
+                row.id(),
+                row.shortCode(),
+                baseUrl + "/" + row.shortCode(),
+                row.longUrl(),
+                row.isCustomAlias(),
+                row.isActive(),
+                row.clickCount(),
+                row.expiresAt(),
+                row.createdAt(),
+                row.updatedAt(),
+                "/api/v1/urls/" + row.shortCode() + "/qr"
+        );
+    }
 }
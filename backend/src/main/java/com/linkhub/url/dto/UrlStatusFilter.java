@@ -0,0 +1,33 @@
+package com.linkhub.url.dto;
+
+import java.util.Locale;
+
+/**
+ * Status filter for URL listing.
+ *
+ * <ul>
+ *   <li>{@code ALL} — every link</li>
+ *   <li>{@code ACTIVE} — enabled and not past its expiry (i.e. currently redirects)</li>
+ *   <li>{@code EXPIRED} — past its expiry, whether or not the cleanup job has deactivated it yet</li>
+ *   <li>{@code INACTIVE} — disabled by the owner or the cleanup job</li>
+ * </ul>
+ */
+public enum UrlStatusFilter {
+    ALL, ACTIVE, EXPIRED, INACTIVE;
+
+    /**
+     * Parse a case-insensitive request parameter.
+     *
+     * @throws IllegalArgumentException for unknown values
+     */
+    public static UrlStatusFilter fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return ALL;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("status must be one of: all, active, expired, inactive");
+        }
+    }
+}
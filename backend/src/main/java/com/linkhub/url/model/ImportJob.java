@@ -0,0 +1,107 @@
+package com.linkhub.url.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * A streamed bulk import of links (CSV or NDJSON), processed in the background.
+ * Counters are updated after every batch so clients can poll progress.
+ *
+ * <p>{@code heartbeat_at} is refreshed by the pod holding the job's spool file, with a bulk
+ * update of its own; it is written here only on insert, so saving progress never sets it back.
+ */
+@Entity
+@Table(name = "url_import_jobs")
+public class ImportJob {
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(length = 10, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Format format;
+
+    @Column(length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+
+    @Column(name = "rows_read", nullable = false)
+    private long rowsRead = 0;
+
+    @Column(name = "rows_imported", nullable = false)
+    private long rowsImported = 0;
+
+    @Column(name = "rows_failed", nullable = false)
+    private long rowsFailed = 0;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    @Column(name = "heartbeat_at", updatable = false)
+    private Instant heartbeatAt;
+
+    public ImportJob() {}
+
+    public ImportJob(Long userId, Format format) {
+        this.userId = userId;
+        this.format = format;
+        this.createdAt = Instant.now();
+        this.heartbeatAt = this.createdAt;
+    }
+
+    public void markRunning() {
+        this.status = Status.RUNNING;
+        this.startedAt = Instant.now();
+    }
+
+    public void markCompleted() {
+        this.status = Status.COMPLETED;
+        this.finishedAt = Instant.now();
+    }
+
+    public void markFailed(String reason) {
+        this.status = Status.FAILED;
+        this.errorMessage = reason;
+        this.finishedAt = Instant.now();
+    }
+
+    public void addProgress(long read, long imported, long failed) {
+        this.rowsRead += read;
+        this.rowsImported += imported;
+        this.rowsFailed += failed;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getUserId() { return userId; }
+    public Format getFormat() { return format; }
+    public Status getStatus() { return status; }
+    public long getRowsRead() { return rowsRead; }
+    public long getRowsImported() { return rowsImported; }
+    public long getRowsFailed() { return rowsFailed; }
+    public String getErrorMessage() { return errorMessage; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+}
@@ -0,0 +1,43 @@
+package com.linkhub.url.model;
+
+import jakarta.persistence.*;
+
+/**
+ * A single rejected row of an {@link ImportJob}.
+ */
+@Entity
+@Table(name = "url_import_errors")
+public class ImportJobError {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "line_number", nullable = false)
+    private long lineNumber;
+
+    @Column(name = "message", nullable = false, columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "raw_line", columnDefinition = "TEXT")
+    private String rawLine;
+
+    public ImportJobError() {}
+
+    public ImportJobError(Long jobId, long lineNumber, String message, String rawLine) {
+        this.jobId = jobId;
+        this.lineNumber = lineNumber;
+        this.message = message;
+        this.rawLine = rawLine;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public Long getJobId() { return jobId; }
+    public long getLineNumber() { return lineNumber; }
+    public String getMessage() { return message; }
+    public String getRawLine() { return rawLine; }
+}
@@ -0,0 +1,13 @@
+package com.linkhub.url.repository;
+
+import com.linkhub.url.model.ImportJobError;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ImportJobErrorRepository extends JpaRepository<ImportJobError, Long> {
+
+    Page<ImportJobError> findByJobIdOrderByLineNumber(Long jobId, Pageable pageable);
+}
@@ -0,0 +1,42 @@
+package com.linkhub.url.repository;
+
+import com.linkhub.url.model.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+    Optional<ImportJob> findByIdAndUserId(Long id, Long userId);
+
+    /**
+     * Mark jobs as still held by a live worker.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ImportJob j SET j.heartbeatAt = :now WHERE j.id IN :ids")
+    int heartbeat(@Param("ids") Collection<Long> ids, @Param("now") Instant now);
+
+    /**
+     * Fail queued or running jobs whose pod stopped sending heartbeats (restart or crash), along
+     * with the spool file only it had.
+     */
+    @Modifying
+    @Transactional
+    @Query("""
+            UPDATE ImportJob j SET j.status = com.linkhub.url.model.ImportJob.Status.FAILED,
+                j.errorMessage = 'Interrupted before finishing', j.finishedAt = :now
+            WHERE j.status IN (com.linkhub.url.model.ImportJob.Status.PENDING,
+                               com.linkhub.url.model.ImportJob.Status.RUNNING)
+              AND COALESCE(j.heartbeatAt, j.createdAt) < :cutoff
+            """)
+    int failAbandoned(@Param("cutoff") Instant cutoff, @Param("now") Instant now);
+}
@@ -0,0 +1,100 @@
+package com.linkhub.url.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lean DB lookup for the redirect path.
+ *
+ * <p>Reads only {@code (id, long_url, expires_at)} for an active short code, found through the
+ * partial index {@code idx_urls_active_redirect} (V7). Runs on plain JDBC — no entity hydration,
+ * no persistence context, no transaction. Only cache misses get here; hits carry the id and
+ * expiry in Redis.
+ *
+ * <p>Uses its own small connection pool ({@code redirect-pool}) so that a cache outage, when
+ * every redirect falls through to the database, can't starve the API of connections — and a
+ * busy API can't starve redirects. The pool is deliberately not exposed as a {@code DataSource}
+ * bean, which would switch off the primary DataSource auto-configuration.
+ */
+@Repository
+public class RedirectLookupRepository implements DisposableBean {
+
+    private static final String FIND_SQL = """
+            SELECT id, long_url, expires_at
+            FROM urls
+            WHERE short_code = ? AND is_active = TRUE
+            """;
+
+    private static final String DEACTIVATE_SQL = """
+            UPDATE urls SET is_active = FALSE, updated_at = NOW()
+            WHERE short_code = ? AND is_active = TRUE
+            """;
+
+    private static final RowMapper<RedirectTarget> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp expiresAt = rs.getTimestamp("expires_at");
+        return new RedirectTarget(
+                rs.getLong("id"),
+                rs.getString("long_url"),
+                expiresAt != null ? expiresAt.toInstant() : null);
+    };
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public RedirectLookupRepository(DataSourceProperties dataSourceProperties,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${redirect.datasource.maximum-pool-size:4}") int maximumPoolSize,
+                                    @Value("${redirect.datasource.connection-timeout-ms:500}") long connectionTimeoutMs) {
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        this.dataSource.setPoolName("redirect-pool");
+        this.dataSource.setMaximumPoolSize(maximumPoolSize);
+        this.dataSource.setMinimumIdle(maximumPoolSize);
+        this.dataSource.setConnectionTimeout(connectionTimeoutMs);
+        this.dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Find the redirect target of an active short code. Expiry is left to the caller.
+     */
+    public Optional<RedirectTarget> findActive(String shortCode) {
+        List<RedirectTarget> rows = jdbcTemplate.query(FIND_SQL, ROW_MAPPER, shortCode);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    /**
+     * Deactivate a short code found expired on the redirect path.
+     */
+    public void deactivate(String shortCode) {
+        jdbcTemplate.update(DEACTIVATE_SQL, shortCode);
+    }
+
+    @Override
+    public void destroy() {
+        dataSource.close();
+    }
+
+    /**
+     * The fields a redirect needs: the click-event id and the target URL.
+     */
+    public record RedirectTarget(long id, String longUrl, Instant expiresAt) {
+
+        public boolean isExpired(Instant now) {
+            return expiresAt != null && expiresAt.isBefore(now);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.linkhub.url.repository;
+
+import com.linkhub.url.model.Url;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch writer for the urls table.
+ *
+ * <p>{@link Url} uses an IDENTITY id, which makes Hibernate flush every insert on its own.
+ * Bulk creation doesn't need the generated ids back, so it goes through a plain
+ * {@code JdbcTemplate.batchUpdate} instead — one round trip per batch (the driver's
+ * {@code reWriteBatchedInserts} folds it into a multi-row INSERT).
+ *
+ * <p>Imports use PostgreSQL {@code COPY} into a session-local staging table followed by a
+ * single set-based {@code INSERT ... ON CONFLICT DO NOTHING}, so a taken alias rejects
+ * one row instead of the whole batch.
+ */
+@Repository
+public class UrlBatchRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO urls (short_code, long_url, user_id, is_custom_alias,
+                              is_active, expires_at, click_count, created_at, updated_at)
+            VALUES (?, ?, ?, ?,
+                    ?, ?, ?, ?, ?)
+            """;
+
+    private static final String CREATE_STAGING_SQL = """
+            CREATE TEMP TABLE IF NOT EXISTS url_import_staging (
+                line_number     BIGINT NOT NULL,
+                short_code      VARCHAR(30) NOT NULL,
+                long_url        TEXT NOT NULL,
+                is_custom_alias BOOLEAN NOT NULL,
+                expires_at      TIMESTAMPTZ
+            ) ON COMMIT DELETE ROWS
+            """;
+
+    private static final String COPY_STAGING_SQL =
+            "COPY url_import_staging (line_number, short_code, long_url, is_custom_alias, expires_at) "
+                    + "FROM STDIN WITH (FORMAT csv)";
+
+    /**
+     * Move staged rows into urls and return the staged rows that were skipped because
+     * their short code already exists.
+     */
+    private static final String MOVE_STAGING_SQL = """
+            WITH inserted AS (
+                INSERT INTO urls (short_code, long_url, user_id, is_custom_alias,
+                                  is_active, expires_at, click_count, created_at, updated_at)
+                SELECT short_code, long_url, ?, is_custom_alias,
+                       TRUE, expires_at, 0, NOW(), NOW()
+                FROM url_import_staging
+                ORDER BY line_number
+                ON CONFLICT (short_code) DO NOTHING
+                RETURNING short_code
+            )
+            SELECT s.line_number, s.short_code
+            FROM url_import_staging s
+            LEFT JOIN inserted i ON i.short_code = s.short_code
+            WHERE i.short_code IS NULL
+            ORDER BY s.line_number
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UrlBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert all URLs in a single JDBC batch.
+     * Participates in the caller's transaction; a unique-constraint violation
+     * surfaces as {@link org.springframework.dao.DuplicateKeyException}.
+     */
+    public void insertAll(List<Url> urls) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Url url = urls.get(i);
+                ps.setString(1, url.getShortCode());
+                ps.setString(2, url.getLongUrl());
+                ps.setLong(3, url.getUser().getId());
+                ps.setBoolean(4, url.isCustomAlias());
+                ps.setBoolean(5, url.isActive());
+                if (url.getExpiresAt() != null) ps.setTimestamp(6, Timestamp.from(url.getExpiresAt()));
+                else ps.setNull(6, Types.TIMESTAMP);
+                ps.setLong(7, url.getClickCount());
+                ps.setTimestamp(8, Timestamp.from(url.getCreatedAt()));
+                ps.setTimestamp(9, Timestamp.from(url.getUpdatedAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return urls.size();
+            }
+        });
+    }
+
+    /**
+     * COPY a batch of import rows into urls for the given user.
+     * Short codes must be unique within the batch.
+     *
+     * @return rows rejected because their short code was already taken
+     */
+    @Transactional
+    public List<StagedUrl> copyImportBatch(Long userId, List<StagedUrl> rows) {
+        jdbcTemplate.execute(CREATE_STAGING_SQL);
+
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                return copyManager.copyIn(COPY_STAGING_SQL, new StringReader(toCsv(rows)));
+            } catch (IOException e) {
+                throw new SQLException("COPY into url_import_staging failed", e);
+            }
+        });
+
+        Map<Long, StagedUrl> byLine = new HashMap<>(rows.size() * 2);
+        for (StagedUrl row : rows) {
+            byLine.put(row.lineNumber(), row);
+        }
+
+        return jdbcTemplate.query(MOVE_STAGING_SQL,
+                (rs, rowNum) -> byLine.get(rs.getLong("line_number")),
+                userId);
+    }
+
+    private static String toCsv(List<StagedUrl> rows) {
+        StringBuilder csv = new StringBuilder(rows.size() * 128);
+        for (StagedUrl row : rows) {
+            csv.append(row.lineNumber()).append(',');
+            appendQuoted(csv, row.shortCode()).append(',');
+            appendQuoted(csv, row.longUrl()).append(',');
+            csv.append(row.customAlias()).append(',');
+            if (row.expiresAt() != null) {
+                csv.append(row.expiresAt());   // ISO-8601, accepted by TIMESTAMPTZ input
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    /**
+     * One validated import row, ready for COPY.
+     */
+    public record StagedUrl(long lineNumber, String shortCode, String longUrl,
+                            boolean customAlias, Instant expiresAt, String rawLine) {}
+}
@@ -0,0 +1,148 @@
+package com.linkhub.url.repository;
+
+import com.linkhub.common.dto.KeysetCursor;
+import com.linkhub.url.dto.UrlStatusFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset-paginated, read-only listing of a user's URLs.
+ *
+ * <p>Reads only the columns the listing needs (no entity hydration, no persistence context)
+ * and walks {@code (user_id, created_at DESC, id DESC)} with a row-value comparison, so the
+ * cost of a page doesn't grow with its depth. Status predicates are emitted as SQL literals
+ * rather than bind parameters so the planner can match {@code ACTIVE} to the partial
+ * {@code idx_urls_user_active_created} index.
+ *
+ * <p>An optional search term matches a substring of the long URL or a prefix of the
+ * short code / alias, both served by the trigram GIN index {@code idx_urls_user_search_trgm}.
+ * Trigram operators stay indexable with bind parameters, unlike a btree prefix scan,
+ * so the plan holds up once the driver switches to server-side prepared statements.
+ */
+@Repository
+public class UrlListingRepository {
+
+    private static final String SELECT_SQL = """
+            SELECT id, short_code, long_url, is_custom_alias, is_active,
+                   click_count, expires_at, created_at, updated_at
+            FROM urls
+            WHERE user_id = ?
+            """;
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM urls WHERE user_id = ?";
+
+    private static final RowMapper<UrlRow> ROW_MAPPER = (rs, rowNum) -> new UrlRow(
+            rs.getLong("id"),
+            rs.getString("short_code"),
+            rs.getString("long_url"),
+            rs.getBoolean("is_custom_alias"),
+            rs.getBoolean("is_active"),
+            rs.getLong("click_count"),
+            toInstant(rs.getTimestamp("expires_at")),
+            toInstant(rs.getTimestamp("created_at")),
+            toInstant(rs.getTimestamp("updated_at"))
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UrlListingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Fetch up to {@code limit} rows strictly after {@code after}, newest first.
+     *
+     * @param search {@code null} for no search term
+     * @param after  {@code null} for the first page
+     */
+    public List<UrlRow> findPage(Long userId, UrlStatusFilter status, String search,
+                                 KeysetCursor after, int limit, Instant now) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+
+        appendStatus(sql, args, status, now);
+        appendSearch(sql, args, search);
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(Timestamp.from(after.timestamp()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Total number of rows matching the filter and search term (ignores the cursor).
+     */
+    public long count(Long userId, UrlStatusFilter status, String search, Instant now) {
+        StringBuilder sql = new StringBuilder(COUNT_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        appendStatus(sql, args, status, now);
+        appendSearch(sql, args, search);
+
+        Long count = jdbcTemplate.queryForObject(sql.toString(), Long.class, args.toArray());
+        return count != null ? count : 0;
+    }
+
+    private static void appendStatus(StringBuilder sql, List<Object> args, UrlStatusFilter status, Instant now) {
+        switch (status) {
+            case ACTIVE -> {
+                sql.append(" AND is_active = TRUE AND (expires_at IS NULL OR expires_at > ?)");
+                args.add(Timestamp.from(now));
+            }
+            case EXPIRED -> {
+                sql.append(" AND expires_at IS NOT NULL AND expires_at <= ?");
+                args.add(Timestamp.from(now));
+            }
+            case INACTIVE -> sql.append(" AND is_active = FALSE");
+            case ALL -> { }
+        }
+    }
+
+    private static void appendSearch(StringBuilder sql, List<Object> args, String search) {
+        if (search == null) {
+            return;
+        }
+        String escaped = escapeLike(search);
+        sql.append(" AND (long_url ILIKE ? ESCAPE '\\' OR short_code LIKE ? ESCAPE '\\')");
+        args.add("%" + escaped + "%");
+        args.add(escaped + "%");
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static Instant toInstant(Timestamp ts) {
+        return ts != null ? ts.toInstant() : null;
+    }
+
+    /**
+     * Listing projection of a {@code urls} row.
+     */
+    public record UrlRow(
+            long id,
+            String shortCode,
+            String longUrl,
+            boolean isCustomAlias,
+            boolean isActive,
+            long clickCount,
+            Instant expiresAt,
+            Instant createdAt,
+            Instant updatedAt
+    ) {
+        public KeysetCursor cursor() {
+            return new KeysetCursor(createdAt, id);
+        }
+    }
+}
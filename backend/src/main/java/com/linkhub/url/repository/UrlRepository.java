@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +25,20 @@ public interface UrlRepository extends JpaRepository<Url, Long> {
 
     boolean existsByShortCode(String shortCode);
 
+    /**
+     * Return the subset of the given short codes that are already taken.
+     * Used by bulk creation to validate every custom alias in one query.
+     */
+    @Query("SELECT u.shortCode FROM Url u WHERE u.shortCode IN :shortCodes")
+    List<String> findExistingShortCodes(@Param("shortCodes") Collection<String> shortCodes);
+
+    /**
+     * Return the subset of the given short codes owned by the user.
+     * Used by batch analytics to check ownership of a page of links in one query.
+     */
+    @Query("SELECT u.shortCode FROM Url u WHERE u.shortCode IN :shortCodes AND u.user.id = :userId")
+    List<String> findOwnedShortCodes(@Param("shortCodes") Collection<String> shortCodes, @Param("userId") Long userId);
+
     /**
      * Atomically increment the click count for a URL by a delta amount.
      * Used by the click count flush job.
@@ -0,0 +1,26 @@
+package com.linkhub.url.scheduler;
+
+import com.linkhub.url.service.UrlImportService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that keeps this pod's import jobs alive and fails the ones a restarted pod left
+ * behind. See {@link UrlImportService#heartbeat()}.
+ *
+ * <p>Runs every 30 seconds, a quarter of the default {@code url-import.heartbeat-timeout}.
+ */
+@Component
+public class ImportJobHeartbeatJob {
+
+    private final UrlImportService urlImportService;
+
+    public ImportJobHeartbeatJob(UrlImportService urlImportService) {
+        this.urlImportService = urlImportService;
+    }
+
+    @Scheduled(fixedRate = 30_000) // every 30 seconds
+    public void heartbeat() {
+        urlImportService.heartbeat();
+    }
+}
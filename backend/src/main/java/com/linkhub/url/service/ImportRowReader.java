@@ -0,0 +1,176 @@
+package com.linkhub.url.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.url.dto.CreateUrlRequest;
+import com.linkhub.url.model.ImportJob;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental, line-at-a-time reader for import files.
+ *
+ * <p>Formats:
+ * <ul>
+ *   <li>CSV — {@code long_url,custom_alias,expires_at}; header row optional,
+ *       RFC 4180 quoting, alias and expiry may be empty</li>
+ *   <li>NDJSON — one {@code {"longUrl": ..., "customAlias": ..., "expiresAt": ...}} object per line</li>
+ * </ul>
+ *
+ * <p>Only the current line is held in memory. Blank lines are skipped;
+ * unparseable lines are returned as rows carrying a parse error.
+ */
+class ImportRowReader implements Closeable {
+
+    private static final int MAX_RAW_LENGTH = 500;
+
+    private final BufferedReader reader;
+    private final ImportJob.Format format;
+    private final ObjectMapper objectMapper;
+    private long lineNumber = 0;
+
+    ImportRowReader(Path file, ImportJob.Format format, ObjectMapper objectMapper) throws IOException {
+        this.reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read the next non-blank row, or {@code null} at end of file.
+     */
+    Row next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == ImportJob.Format.CSV) {
+                if (lineNumber == 1 && isCsvHeader(line)) {
+                    continue;
+                }
+                return parseCsv(line);
+            }
+            return parseNdjson(line);
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // ────────── NDJSON ──────────
+
+    private Row parseNdjson(String line) {
+        try {
+            CreateUrlRequest request = objectMapper.readValue(line, CreateUrlRequest.class);
+            if (request.customAlias() != null && request.customAlias().isBlank()) {
+                request = new CreateUrlRequest(request.longUrl(), null, request.expiresAt());
+            }
+            return Row.ok(lineNumber, line, request);
+        } catch (JsonProcessingException e) {
+            return Row.error(lineNumber, line, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // ────────── CSV ──────────
+
+    private static boolean isCsvHeader(String line) {
+        String first = line.split(",", 2)[0].trim().replace("\"", "");
+        return first.equalsIgnoreCase("long_url") || first.equalsIgnoreCase("longUrl");
+    }
+
+    private Row parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+            return Row.error(lineNumber, line, "Unterminated quoted field");
+        }
+        if (fields.size() > 3) {
+            return Row.error(lineNumber, line, "Expected at most 3 columns: long_url,custom_alias,expires_at");
+        }
+
+        String longUrl = fields.get(0).trim();
+        String alias = fields.size() > 1 ? emptyToNull(fields.get(1).trim()) : null;
+        Instant expiresAt = null;
+        if (fields.size() > 2 && !fields.get(2).isBlank()) {
+            try {
+                expiresAt = Instant.parse(fields.get(2).trim());
+            } catch (DateTimeParseException e) {
+                return Row.error(lineNumber, line, "expires_at must be an ISO-8601 instant");
+            }
+        }
+
+        return Row.ok(lineNumber, line, new CreateUrlRequest(longUrl, alias, expiresAt));
+    }
+
+    /**
+     * Split a single CSV record. Returns {@code null} if a quoted field is not closed.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * One input row: either a parsed request or a parse error.
+     */
+    record Row(long lineNumber, String rawLine, CreateUrlRequest request, String error) {
+
+        static Row ok(long lineNumber, String rawLine, CreateUrlRequest request) {
+            return new Row(lineNumber, truncate(rawLine), request, null);
+        }
+
+        static Row error(long lineNumber, String rawLine, String error) {
+            return new Row(lineNumber, truncate(rawLine), null, error);
+        }
+
+        private static String truncate(String raw) {
+            return raw.length() > MAX_RAW_LENGTH ? raw.substring(0, MAX_RAW_LENGTH) : raw;
+        }
+    }
+}
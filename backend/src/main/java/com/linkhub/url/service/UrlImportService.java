@@ -0,0 +1,403 @@
+package com.linkhub.url.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.common.exception.PayloadTooLargeException;
+import com.linkhub.common.exception.RateLimitExceededException;
+import com.linkhub.common.exception.ResourceNotFoundException;
+import com.linkhub.keygen.service.KeyGenService;
+import com.linkhub.url.dto.CreateUrlRequest;
+import com.linkhub.url.dto.ImportJobResponse;
+import com.linkhub.url.dto.ImportRowError;
+import com.linkhub.url.model.ImportJob;
+import com.linkhub.url.model.ImportJobError;
+import com.linkhub.url.repository.ImportJobErrorRepository;
+import com.linkhub.url.repository.ImportJobRepository;
+import com.linkhub.url.repository.UrlBatchRepository;
+import com.linkhub.url.repository.UrlBatchRepository.StagedUrl;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous bulk import of links from CSV or NDJSON uploads.
+ *
+ * <p>Pipeline:
+ * <ol>
+ *   <li>The request body is streamed to a spool file (no in-memory buffering, at most
+ *       {@code url-import.max-file-size}, else 413) and a job row is created</li>
+ *   <li>A worker on {@code urlImportExecutor} reads the file one line at a time into batches</li>
+ *   <li>Each batch is validated with the same rules as {@code POST /api/v1/urls}</li>
+ *   <li>Keys for the next batch are claimed on {@code keyClaimExecutor} while the current batch is COPYed</li>
+ *   <li>Counters are persisted after each batch; rejected rows go to url_import_errors. A row the
+ *       database refuses (a check constraint) is isolated by splitting its batch, and fails alone</li>
+ * </ol>
+ *
+ * <p>At most two batches are in memory at a time, so memory use does not depend on file size.
+ * Imported links are not written to Redis — they are cached on first redirect (cache-aside).
+ *
+ * <p>Only the pod that spooled a file can run its job, so while it holds the job it refreshes the
+ * job's heartbeat ({@link #heartbeat()}); jobs whose heartbeat is older than
+ * {@code url-import.heartbeat-timeout} were lost to a restart and are failed.
+ */
+@Service
+public class UrlImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UrlImportService.class);
+
+    private static final int SPOOL_BUFFER_SIZE = 64 * 1024;
+
+    private final ImportJobRepository importJobRepository;
+    private final ImportJobErrorRepository importJobErrorRepository;
+    private final UrlBatchRepository urlBatchRepository;
+    private final KeyGenService keyGenService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TaskExecutor urlImportExecutor;
+    private final TaskExecutor keyClaimExecutor;
+
+    @Value("${url-import.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${url-import.max-stored-errors:10000}")
+    private int maxStoredErrors;
+
+    @Value("${url-import.max-file-size:100MB}")
+    private DataSize maxFileSize;
+
+    @Value("${url-import.heartbeat-timeout:2m}")
+    private Duration heartbeatTimeout;
+
+    /** Jobs queued or running on this pod. */
+    private final Set<Long> heldJobs = ConcurrentHashMap.newKeySet();
+
+    public UrlImportService(ImportJobRepository importJobRepository,
+                            ImportJobErrorRepository importJobErrorRepository,
+                            UrlBatchRepository urlBatchRepository,
+                            KeyGenService keyGenService,
+                            ObjectMapper objectMapper,
+                            Validator validator,
+                            @Qualifier("urlImportExecutor") TaskExecutor urlImportExecutor,
+                            @Qualifier("keyClaimExecutor") TaskExecutor keyClaimExecutor) {
+        this.importJobRepository = importJobRepository;
+        this.importJobErrorRepository = importJobErrorRepository;
+        this.urlBatchRepository = urlBatchRepository;
+        this.keyGenService = keyGenService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.urlImportExecutor = urlImportExecutor;
+        this.keyClaimExecutor = keyClaimExecutor;
+    }
+
+    // ────────── Submit ──────────
+
+    /**
+     * Spool the upload to disk and queue an import job.
+     *
+     * @param contentLength the declared body length, or -1 if unknown (chunked)
+     * @throws PayloadTooLargeException if the body is larger than {@code url-import.max-file-size}
+     */
+    public ImportJobResponse startImport(InputStream body, long contentLength, ImportJob.Format format, Long userId)
+            throws IOException {
+        if (contentLength > maxFileSize.toBytes()) {
+            throw tooLarge();
+        }
+
+        Path spool = Files.createTempFile("linkhub-import-", "." + format.name().toLowerCase());
+        try {
+            spool(body, spool);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+
+        ImportJob job = importJobRepository.save(new ImportJob(userId, format));
+        heldJobs.add(job.getId());
+
+        try {
+            urlImportExecutor.execute(() -> runJob(job, spool));
+        } catch (TaskRejectedException e) {
+            heldJobs.remove(job.getId());
+            job.markFailed("Import queue is full");
+            importJobRepository.save(job);
+            Files.deleteIfExists(spool);
+            throw new RateLimitExceededException("Too many imports in progress. Try again later.");
+        }
+
+        log.info("Import job queued: jobId={}, format={}, bytes={}, userId={}",
+                job.getId(), format, Files.size(spool), userId);
+        return ImportJobResponse.from(job);
+    }
+
+    /**
+     * Copy the body to the spool file, giving up as soon as it passes the size limit.
+     */
+    private void spool(InputStream body, Path spool) throws IOException {
+        long limit = maxFileSize.toBytes();
+        long written = 0;
+        byte[] buffer = new byte[SPOOL_BUFFER_SIZE];
+        try (OutputStream out = Files.newOutputStream(spool)) {
+            int read;
+            while ((read = body.read(buffer)) >= 0) {
+                written += read;
+                if (written > limit) {
+                    throw tooLarge();
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private PayloadTooLargeException tooLarge() {
+        return new PayloadTooLargeException("Import files are limited to " + maxFileSize.toMegabytes() + " MB");
+    }
+
+    // ────────── Progress ──────────
+
+    public ImportJobResponse getJob(Long jobId, Long userId) {
+        return ImportJobResponse.from(findOwnedJob(jobId, userId));
+    }
+
+    public Page<ImportRowError> getErrors(Long jobId, Long userId, int page, int size) {
+        findOwnedJob(jobId, userId);
+        return importJobErrorRepository
+                .findByJobIdOrderByLineNumber(jobId, PageRequest.of(page, size))
+                .map(ImportRowError::from);
+    }
+
+    // ────────── Heartbeat ──────────
+
+    /**
+     * Refresh the heartbeat of the jobs this pod holds, and fail jobs whose pod stopped
+     * refreshing theirs. Called by the heartbeat job, well within the timeout.
+     */
+    public void heartbeat() {
+        Instant now = Instant.now();
+        if (!heldJobs.isEmpty()) {
+            importJobRepository.heartbeat(List.copyOf(heldJobs), now);
+        }
+        int abandoned = importJobRepository.failAbandoned(now.minus(heartbeatTimeout), now);
+        if (abandoned > 0) {
+            log.warn("Failed {} import job(s) abandoned by a restarted pod", abandoned);
+        }
+    }
+
+    // ────────── Worker ──────────
+
+    private void runJob(ImportJob job, Path spool) {
+        job.markRunning();
+        importJobRepository.save(job);
+
+        try (ImportRowReader reader = new ImportRowReader(spool, job.getFormat(), objectMapper)) {
+            PreparedBatch current = readBatch(reader);
+            while (current != null) {
+                // Parse the next batch and start claiming its keys while this one is written
+                PreparedBatch next = readBatch(reader);
+                writeBatch(job, current);
+                current = next;
+            }
+            job.markCompleted();
+            log.info("Import job completed: jobId={}, read={}, imported={}, failed={}",
+                    job.getId(), job.getRowsRead(), job.getRowsImported(), job.getRowsFailed());
+        } catch (Exception e) {
+            log.error("Import job failed: jobId={}: {}", job.getId(), e.getMessage(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            importJobRepository.save(job);
+            heldJobs.remove(job.getId());
+            try {
+                Files.deleteIfExists(spool);
+            } catch (IOException e) {
+                log.warn("Failed to delete import spool file {}: {}", spool, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Read and validate up to {@code batchSize} rows, then kick off key claiming for them.
+     * Returns {@code null} once the file is exhausted.
+     */
+    private PreparedBatch readBatch(ImportRowReader reader) throws IOException {
+        List<ImportRowReader.Row> valid = new ArrayList<>();
+        List<RowFailure> errors = new ArrayList<>();
+        Set<String> aliases = new HashSet<>();
+        int rowsRead = 0;
+        int generatedCount = 0;
+        Instant now = Instant.now();
+
+        ImportRowReader.Row row;
+        while (rowsRead < batchSize && (row = reader.next()) != null) {
+            rowsRead++;
+            String error = row.error() != null ? row.error() : validate(row.request(), now);
+            if (error == null && row.request().customAlias() != null && !aliases.add(row.request().customAlias())) {
+                error = "Custom alias '" + row.request().customAlias() + "' appears more than once in the batch";
+            }
+
+            if (error != null) {
+                errors.add(new RowFailure(row.lineNumber(), error, row.rawLine()));
+            } else {
+                valid.add(row);
+                if (row.request().customAlias() == null) {
+                    generatedCount++;
+                }
+            }
+        }
+
+        if (rowsRead == 0) {
+            return null;
+        }
+
+        int keysNeeded = generatedCount;
+        CompletableFuture<List<String>> keys = CompletableFuture.supplyAsync(
+                () -> keyGenService.claimKeys(keysNeeded), keyClaimExecutor);
+        return new PreparedBatch(rowsRead, valid, errors, keys);
+    }
+
+    private void writeBatch(ImportJob job, PreparedBatch batch) {
+        Iterator<String> keys = batch.keys().join().iterator();
+
+        List<StagedUrl> staged = new ArrayList<>(batch.valid().size());
+        for (ImportRowReader.Row row : batch.valid()) {
+            CreateUrlRequest req = row.request();
+            boolean isCustomAlias = req.customAlias() != null;
+            staged.add(new StagedUrl(
+                    row.lineNumber(),
+                    isCustomAlias ? req.customAlias() : keys.next(),
+                    req.longUrl(),
+                    isCustomAlias,
+                    req.expiresAt(),
+                    row.rawLine()));
+        }
+
+        List<RowFailure> errors = new ArrayList<>(batch.errors());
+        List<RowFailure> rejected = staged.isEmpty() ? List.of() : copyBatch(job.getUserId(), staged);
+        errors.addAll(rejected);
+        errors.sort(Comparator.comparingLong(RowFailure::lineNumber));
+
+        saveErrors(job, errors);
+        job.addProgress(batch.rowsRead(), staged.size() - rejected.size(), errors.size());
+        importJobRepository.save(job);
+
+        log.debug("Import batch written: jobId={}, rows={}, failed={}", job.getId(), batch.rowsRead(), errors.size());
+    }
+
+    /**
+     * COPY staged rows into urls.
+     *
+     * @return the rows that were not imported: taken short codes, and rows the database
+     *         refused. A refused row fails the whole COPY, so the batch is split in halves
+     *         until each refused row is on its own, and only those fail.
+     */
+    private List<RowFailure> copyBatch(Long userId, List<StagedUrl> staged) {
+        try {
+            return urlBatchRepository.copyImportBatch(userId, staged).stream()
+                    .map(conflict -> new RowFailure(conflict.lineNumber(), takenMessage(conflict), conflict.rawLine()))
+                    .toList();
+        } catch (DataIntegrityViolationException e) {
+            if (staged.size() == 1) {
+                StagedUrl row = staged.get(0);
+                return List.of(new RowFailure(row.lineNumber(), refusedMessage(e), row.rawLine()));
+            }
+            int half = staged.size() / 2;
+            List<RowFailure> failures = new ArrayList<>(copyBatch(userId, staged.subList(0, half)));
+            failures.addAll(copyBatch(userId, staged.subList(half, staged.size())));
+            return failures;
+        }
+    }
+
+    /**
+     * Persist row errors until the per-job cap is reached; the failed counter keeps counting past it.
+     */
+    private void saveErrors(ImportJob job, List<RowFailure> errors) {
+        long room = maxStoredErrors - job.getRowsFailed();
+        if (errors.isEmpty() || room <= 0) {
+            return;
+        }
+
+        List<ImportJobError> toStore = errors.stream()
+                .limit(room)
+                .map(e -> new ImportJobError(job.getId(), e.lineNumber(), e.message(), e.rawLine()))
+                .toList();
+        importJobErrorRepository.saveAll(toStore);
+    }
+
+    // ────────── Helpers ──────────
+
+    private String validate(CreateUrlRequest request, Instant now) {
+        Set<ConstraintViolation<CreateUrlRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (request.expiresAt() != null && request.expiresAt().isBefore(now)) {
+            return "Expiry date must be in the future";
+        }
+        return null;
+    }
+
+    private static String takenMessage(StagedUrl conflict) {
+        return conflict.customAlias()
+                ? "Custom alias '" + conflict.shortCode() + "' is already taken"
+                : "Generated short code '" + conflict.shortCode() + "' collided with an existing link; import the row again";
+    }
+
+    /**
+     * Row error for a constraint violation, by constraint name where one is known.
+     */
+    private static String refusedMessage(DataIntegrityViolationException e) {
+        if (e.getMostSpecificCause() instanceof PSQLException psql && psql.getServerErrorMessage() != null) {
+            ServerErrorMessage error = psql.getServerErrorMessage();
+            String constraint = error.getConstraint();
+            if ("chk_long_url_format".equals(constraint)) {
+                return "URL must start with http:// or https://";
+            }
+            if ("chk_short_code_format".equals(constraint)) {
+                return "Short code must be 1–10 alphanumeric characters (hyphens and underscores allowed)";
+            }
+            return "Rejected by the database: " + error.getMessage();
+        }
+        return "Rejected by the database";
+    }
+
+    private ImportJob findOwnedJob(Long jobId, Long userId) {
+        return importJobRepository.findByIdAndUserId(jobId, userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job", "id", jobId));
+    }
+
+    private record PreparedBatch(int rowsRead,
+                                 List<ImportRowReader.Row> valid,
+                                 List<RowFailure> errors,
+                                 CompletableFuture<List<String>> keys) {}
+
+    private record RowFailure(long lineNumber, String message, String rawLine) {}
+}
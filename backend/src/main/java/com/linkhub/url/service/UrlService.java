@@ -2,15 +2,25 @@ package com.linkhub.url.service;
 
 import com.linkhub.auth.model.User;
 import com.linkhub.auth.repository.UserRepository;
+import com.linkhub.common.dto.CursorPage;
+import com.linkhub.common.dto.KeysetCursor;
 import com.linkhub.common.exception.ResourceNotFoundException;
 import com.linkhub.keygen.service.KeyGenService;
 import com.linkhub.url.cache.UrlCacheService;
 import com.linkhub.url.dto.*;
 import com.linkhub.url.model.Url;
+import com.linkhub.url.repository.RedirectLookupRepository;
+import com.linkhub.url.repository.RedirectLookupRepository.RedirectTarget;
+import com.linkhub.url.repository.UrlBatchRepository;
+import com.linkhub.url.repository.UrlListingRepository;
+import com.linkhub.url.repository.UrlListingRepository.UrlRow;
 import com.linkhub.url.repository.UrlRepository;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
@@ -19,15 +29,28 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Service
 public class UrlService {
 
     private static final Logger log = LoggerFactory.getLogger(UrlService.class);
+    private static final int MIN_SEARCH_LENGTH = 3;
+    private static final int MAX_SEARCH_LENGTH = 200;
+
+    private static final String SHORT_CODE_CONSTRAINT = "urls_short_code_key";
+    private static final Pattern DUPLICATE_SHORT_CODE = Pattern.compile("\\(short_code\\)=\\((.*)\\)");
 
     private final UrlRepository urlRepository;
+    private final UrlBatchRepository urlBatchRepository;
+    private final UrlListingRepository urlListingRepository;
+    private final RedirectLookupRepository redirectLookupRepository;
     private final UserRepository userRepository;
     private final KeyGenService keyGenService;
     private final UrlCacheService cacheService;
@@ -36,10 +59,16 @@ public class UrlService {
     private String baseUrl;
 
     public UrlService(UrlRepository urlRepository,
+                      UrlBatchRepository urlBatchRepository,
+                      UrlListingRepository urlListingRepository,
+                      RedirectLookupRepository redirectLookupRepository,
                       UserRepository userRepository,
                       KeyGenService keyGenService,
                       UrlCacheService cacheService) {
         this.urlRepository = urlRepository;
+        this.urlBatchRepository = urlBatchRepository;
+        this.urlListingRepository = urlListingRepository;
+        this.redirectLookupRepository = redirectLookupRepository;
         this.userRepository = userRepository;
         this.keyGenService = keyGenService;
         this.cacheService = cacheService;
@@ -55,7 +84,7 @@ public class UrlService {
         String shortCode;
         boolean isCustomAlias = false;
 
-        if (request.customAlias() != null && !request.customAlias().isBlank()) {
+        if (hasCustomAlias(request)) {
             // Custom alias — validate uniqueness
             if (urlRepository.existsByShortCode(request.customAlias())) {
                 throw new IllegalArgumentException("Custom alias '" + request.customAlias() + "' is already taken");
@@ -79,33 +108,94 @@ public class UrlService {
         url.setCustomAlias(isCustomAlias);
         url.setExpiresAt(request.expiresAt());
 
-        url = urlRepository.save(url);
+        try {
+            url = urlRepository.save(url);
+        } catch (DataIntegrityViolationException e) {
+            throw shortCodeTaken(e, isCustomAlias ? Set.of(shortCode) : Set.of());
+        }
 
         // Write-through cache
         cacheService.cacheOnCreate(url);
 
         log.info("URL created: shortCode={}, longUrl={}, userId={}", shortCode, request.longUrl(), userId);
 
-        return new CreateUrlResponse(
-                url.getShortCode(),
-                baseUrl + "/" + url.getShortCode(),
-                url.getLongUrl(),
-                url.isCustomAlias(),
-                url.getCreatedAt(),
-                url.getExpiresAt(),
-                "/api/v1/urls/" + url.getShortCode() + "/qr"
-        );
+        return toCreateResponse(url);
     }
 
     // ────────── BULK CREATE ──────────
 
+    /**
+     * Create many URLs with a fixed number of round trips regardless of batch size:
+     * one user lookup, one alias check, one key allocation, one JDBC batch insert
+     * and one pipelined cache fill.
+     *
+     * <p>The whole batch is validated before any key is drawn from the pool,
+     * so a rejected request doesn't burn keys.
+     */
     @Transactional
     public List<CreateUrlResponse> bulkCreate(BulkCreateRequest request, Long userId) {
-        List<CreateUrlResponse> responses = new ArrayList<>();
-        for (CreateUrlRequest urlReq : request.urls()) {
-            responses.add(createUrl(urlReq, userId));
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+
+        List<CreateUrlRequest> items = request.urls();
+        Instant now = Instant.now();
+
+        // 1. Validate expiry and collect custom aliases
+        Set<String> aliases = new HashSet<>();
+        int generatedCount = 0;
+        for (CreateUrlRequest item : items) {
+            if (item.expiresAt() != null && item.expiresAt().isBefore(now)) {
+                throw new IllegalArgumentException("Expiry date must be in the future");
+            }
+            if (hasCustomAlias(item)) {
+                if (!aliases.add(item.customAlias())) {
+                    throw new IllegalArgumentException(
+                            "Custom alias '" + item.customAlias() + "' appears more than once in the request");
+                }
+            } else {
+                generatedCount++;
+            }
+        }
+
+        // 2. Check all custom aliases in one query
+        if (!aliases.isEmpty()) {
+            List<String> taken = urlRepository.findExistingShortCodes(aliases);
+            if (!taken.isEmpty()) {
+                throw new IllegalArgumentException("Custom alias '" + taken.get(0) + "' is already taken");
+            }
+        }
+
+        // 3. Allocate all generated keys in one call
+        Iterator<String> keys = keyGenService.allocateKeys(generatedCount).iterator();
+
+        List<Url> urls = new ArrayList<>(items.size());
+        for (CreateUrlRequest item : items) {
+            boolean isCustomAlias = hasCustomAlias(item);
+
+            Url url = new Url();
+            url.setShortCode(isCustomAlias ? item.customAlias() : keys.next());
+            url.setLongUrl(item.longUrl());
+            url.setUser(user);
+            url.setCustomAlias(isCustomAlias);
+            url.setExpiresAt(item.expiresAt());
+            url.setCreatedAt(now);
+            url.setUpdatedAt(now);
+            urls.add(url);
         }
-        return responses;
+
+        // 4. Single JDBC batch insert
+        try {
+            urlBatchRepository.insertAll(urls);
+        } catch (DataIntegrityViolationException e) {
+            throw shortCodeTaken(e, aliases);
+        }
+
+        // 5. Write-through cache in one pipeline
+        cacheService.cacheOnCreateAll(urls);
+
+        log.info("Bulk created {} URLs ({} custom aliases), userId={}", urls.size(), aliases.size(), userId);
+
+        return urls.stream().map(this::toCreateResponse).toList();
     }
 
     // ────────── READ ──────────
@@ -118,6 +208,28 @@ public class UrlService {
         return urls.map(url -> UrlResponse.from(url, baseUrl));
     }
 
+    /**
+     * Keyset-paginated listing, newest first. Unlike {@link #listUserUrls} the cost of a page
+     * does not depend on how deep it is, and the total is only counted when asked for.
+     *
+     * @param query  optional search term: substring of the long URL or prefix of the short code / alias
+     * @param cursor {@code nextCursor} of the previous page, or blank for the first page
+     */
+    public CursorPage<UrlResponse> scrollUserUrls(Long userId, UrlStatusFilter status, String query,
+                                                  String cursor, int limit, boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        String search = normalizeSearch(query);
+        Instant now = Instant.now();
+
+        List<UrlRow> rows = urlListingRepository.findPage(userId, status, search, after, limit + 1, now);
+        Long total = includeTotal ? urlListingRepository.count(userId, status, search, now) : null;
+
+        CursorPage<UrlRow> page = CursorPage.of(rows, limit, UrlRow::cursor, total);
+        return new CursorPage<>(
+                page.content().stream().map(row -> UrlResponse.from(row, baseUrl)).toList(),
+                page.size(), page.nextCursor(), page.hasNext(), page.totalElements());
+    }
+
     public UrlResponse getUrlByShortCode(String shortCode, Long userId) {
         Url url = urlRepository.findByShortCode(shortCode)
                 .orElseThrow(() -> new ResourceNotFoundException("URL", "shortCode", shortCode));
@@ -136,38 +248,44 @@ public class UrlService {
      * Resolve a short code to a long URL for redirect.
      * Uses cache-aside pattern: check Redis first, fall back to DB, then populate cache.
      *
-     * @return the Url entity (needed for click event), or empty if not found/expired/inactive
+     * <p>The cache holds the whole target (id and expiry with the long URL), so a hit never
+     * touches the database. Only misses, and targets cached past their expiry, go through
+     * {@link RedirectLookupRepository}: a lean projection on its own small connection pool, so
+     * cache outages don't pay for entity hydration.
+     *
+     * @return the redirect target (its id is needed for the click event), or empty if not found/expired/inactive
      */
-    public Optional<Url> resolveForRedirect(String shortCode) {
+    public Optional<RedirectTarget> resolveForRedirect(String shortCode) {
+        Instant now = Instant.now();
+
         // 1. Try Redis cache
-        Optional<String> cachedUrl = cacheService.getRedirectUrl(shortCode);
-        if (cachedUrl.isPresent()) {
-            // Cache hit — still need the Url entity for click event metadata
-            // But we can optimize by returning a minimal object
-            Url url = urlRepository.findByShortCode(shortCode).orElse(null);
-            if (url != null && isUrlAccessible(url)) {
-                return Optional.of(url);
-            }
-            // Cache had stale data — invalidate
-            cacheService.invalidate(shortCode);
-            return Optional.empty();
+        Optional<RedirectTarget> cached = cacheService.getRedirectTarget(shortCode);
+        if (cached.isPresent() && !cached.get().isExpired(now)) {
+            return cached;
         }
 
-        // 2. Cache miss — hit DB
-        Optional<Url> urlOpt = urlRepository.findByShortCode(shortCode);
-        if (urlOpt.isEmpty()) {
+        // 2. Lean DB lookup on a miss, or to confirm an expiry (it may have been extended)
+        Optional<RedirectTarget> targetOpt = redirectLookupRepository.findActive(shortCode);
+        if (targetOpt.isEmpty()) {
+            if (cached.isPresent()) {
+                // Cache had stale data — invalidate
+                cacheService.invalidate(shortCode);
+            }
             return Optional.empty();
         }
 
-        Url url = urlOpt.get();
-        if (!isUrlAccessible(url)) {
+        RedirectTarget target = targetOpt.get();
+        if (target.isExpired(now)) {
+            // Auto-deactivate expired URL
+            redirectLookupRepository.deactivate(shortCode);
+            cacheService.invalidate(shortCode);
             return Optional.empty();
         }
 
         // 3. Populate cache (cache-aside fill)
-        cacheService.cacheRedirectUrl(shortCode, url.getLongUrl());
+        cacheService.cacheRedirectTarget(shortCode, target);
 
-        return Optional.of(url);
+        return Optional.of(target);
     }
 
     // ────────── UPDATE ──────────
@@ -199,8 +317,14 @@ public class UrlService {
 
         url = urlRepository.save(url);
 
-        // Write-through cache update (re-cache the new long URL)
-        cacheService.cacheRedirectUrl(shortCode, url.getLongUrl());
+        // Write-through cache update (re-cache the new target); a deactivated URL must leave the
+        // cache, since cache hits are served without checking the database
+        if (url.isActive()) {
+            cacheService.cacheRedirectTarget(shortCode,
+                    new RedirectTarget(url.getId(), url.getLongUrl(), url.getExpiresAt()));
+        } else {
+            cacheService.invalidate(shortCode);
+        }
 
         log.info("URL updated: shortCode={}, userId={}", shortCode, userId);
 
@@ -230,20 +354,64 @@ public class UrlService {
 
     // ────────── HELPERS ──────────
 
+    private static boolean hasCustomAlias(CreateUrlRequest request) {
+        return request.customAlias() != null && !request.customAlias().isBlank();
+    }
+
     /**
-     * Check if a URL is accessible (active and not expired).
+     * The error for a short code that was free when checked but taken by the time of the insert:
+     * a custom alias someone else just claimed is the caller's to change (400), while a generated
+     * key colliding means the key pool handed out a used code (500). Violations of any other
+     * constraint are returned as they are.
+     *
+     * @param aliases the custom aliases being inserted
      */
-    private boolean isUrlAccessible(Url url) {
-        if (!url.isActive()) {
-            return false;
+    private static RuntimeException shortCodeTaken(DataIntegrityViolationException e, Set<String> aliases) {
+        if (!(e.getMostSpecificCause() instanceof PSQLException psql) || psql.getServerErrorMessage() == null
+                || !SHORT_CODE_CONSTRAINT.equals(psql.getServerErrorMessage().getConstraint())) {
+            return e;
         }
-        if (url.getExpiresAt() != null && url.getExpiresAt().isBefore(Instant.now())) {
-            // Auto-deactivate expired URL
-            url.setActive(false);
-            urlRepository.save(url);
-            cacheService.invalidate(url.getShortCode());
-            return false;
+        ServerErrorMessage error = psql.getServerErrorMessage();
+        Matcher key = DUPLICATE_SHORT_CODE.matcher(error.getDetail() == null ? "" : error.getDetail());
+        if (key.find()) {
+            String shortCode = key.group(1);
+            if (aliases.contains(shortCode)) {
+                return new IllegalArgumentException("Custom alias '" + shortCode + "' is already taken");
+            }
+            return new IllegalStateException("Generated short code '" + shortCode + "' is already in use");
         }
-        return true;
+        // No key in the detail: an alias race is far likelier than a key pool fault
+        return aliases.isEmpty()
+                ? new IllegalStateException("A generated short code is already in use")
+                : new IllegalArgumentException("One of the custom aliases is already taken");
+    }
+
+    /**
+     * Trigram search needs at least three characters to use the index.
+     */
+    private static String normalizeSearch(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        String trimmed = query.trim();
+        if (trimmed.length() < MIN_SEARCH_LENGTH) {
+            throw new IllegalArgumentException("Search query must be at least " + MIN_SEARCH_LENGTH + " characters");
+        }
+        if (trimmed.length() > MAX_SEARCH_LENGTH) {
+            throw new IllegalArgumentException("Search query must be at most " + MAX_SEARCH_LENGTH + " characters");
+        }
+        return trimmed;
+    }
+
+    private CreateUrlResponse toCreateResponse(Url url) {
+        return new CreateUrlResponse(
+                url.getShortCode(),
+                baseUrl + "/" + url.getShortCode(),
+                url.getLongUrl(),
+                url.isCustomAlias(),
+                url.getCreatedAt(),
+                url.getExpiresAt(),
+                "/api/v1/urls/" + url.getShortCode() + "/qr"
+        );
     }
 }
@@ -0,0 +1,14 @@
+-- V10: Keyset pagination indexes for URL listing
+-- Listing is ordered by (created_at DESC, id DESC); id breaks ties between links
+-- created in the same microsecond (bulk create, imports).
+
+-- Active listing: same partial index as V7, extended with the id tiebreaker
+DROP INDEX IF EXISTS idx_urls_user_active_created;
+CREATE INDEX idx_urls_user_active_created ON urls (user_id, created_at DESC, id DESC)
+    WHERE is_active = TRUE;
+
+-- All / expired / inactive listing
+CREATE INDEX idx_urls_user_created_id ON urls (user_id, created_at DESC, id DESC);
+
+-- Superseded by the leading user_id column above
+DROP INDEX IF EXISTS idx_urls_user_id;
@@ -0,0 +1,8 @@
+-- V11: Indexed search over a user's links (long URL substring, short code / alias prefix)
+-- pg_trgm: trigram operator classes for LIKE/ILIKE '%term%'
+-- btree_gin: lets user_id sit in the same GIN index so matches are scoped per user
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+
+CREATE INDEX idx_urls_user_search_trgm ON urls
+    USING gin (user_id, long_url gin_trgm_ops, short_code gin_trgm_ops);
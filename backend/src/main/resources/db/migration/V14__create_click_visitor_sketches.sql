@@ -0,0 +1,18 @@
+-- V14: Hourly unique-visitor HyperLogLog sketches per short_code
+-- Maintained by the analytics consumer in the same transaction as the raw insert and
+-- click_rollups_hourly. Unique-visitor queries merge one small sketch per hour instead
+-- of running COUNT(DISTINCT ip_address) over the whole range.
+--
+-- sketch: serialized HyperLogLog (precision 12), see com.linkhub.analytics.sketch.HyperLogLog
+-- clicks: events folded into the sketch. It equals the hour's 'total' rollup once the
+--         sketch is complete; hours where it doesn't (e.g. clicks recorded before this
+--         migration) are counted from click_events instead.
+--
+-- No backfill: the hash is computed in Java, and incomplete hours fall back to raw rows.
+CREATE TABLE click_visitor_sketches_hourly (
+    short_code  VARCHAR(30) NOT NULL,
+    bucket      TIMESTAMPTZ NOT NULL,
+    clicks      BIGINT      NOT NULL DEFAULT 0,
+    sketch      BYTEA       NOT NULL,
+    PRIMARY KEY (short_code, bucket)
+);
@@ -0,0 +1,7 @@
+-- V15: Keyset pagination index for click browsing
+-- Click pages are ordered by (clicked_at DESC, id DESC); id breaks ties between clicks
+-- recorded in the same microsecond. A backward scan of this index serves that order,
+-- and every existing (short_code, clicked_at) range query still uses its prefix.
+
+DROP INDEX IF EXISTS idx_click_events_short_code;
+CREATE INDEX idx_click_events_short_code ON click_events (short_code, clicked_at, id);
@@ -0,0 +1,40 @@
+-- V16: Hourly click rollups per account (link owner) × dimension
+-- Maintained by the analytics consumer in the same transaction as the raw insert and
+-- click_rollups_hourly, with the same dimensions and normalization, plus
+--   link: dim_value = short_code, so an account's top links come from the same rows.
+-- Account-level analytics read only this table: one user_id range scan however many
+-- links the account has.
+--
+-- Clicks count towards the link's owner at the time of the click; links without an
+-- owner are not rolled up per account.
+--
+-- Deploy order: as for V13, roll out the account-aware consumer (waiting on SchemaGate)
+-- before this runs; clicks an older consumer writes while the backfill runs would be
+-- missing from the account rollups.
+CREATE TABLE click_account_rollups_hourly (
+    user_id     BIGINT           NOT NULL,
+    dimension   VARCHAR(16)      NOT NULL,
+    bucket      TIMESTAMPTZ      NOT NULL,
+    dim_value   TEXT             NOT NULL,
+    dim_parent  TEXT             NOT NULL DEFAULT '',
+    clicks      BIGINT           NOT NULL,
+    lat_sum     DOUBLE PRECISION NOT NULL DEFAULT 0,
+    lng_sum     DOUBLE PRECISION NOT NULL DEFAULT 0,
+    geo_clicks  BIGINT           NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, dimension, bucket, dim_value, dim_parent)
+);
+
+-- Backfill from the per-link rollups
+INSERT INTO click_account_rollups_hourly (user_id, dimension, bucket, dim_value, dim_parent,
+                                          clicks, lat_sum, lng_sum, geo_clicks)
+SELECT u.user_id, r.dimension, r.bucket, r.dim_value, r.dim_parent,
+       SUM(r.clicks), SUM(r.lat_sum), SUM(r.lng_sum), SUM(r.geo_clicks)
+FROM click_rollups_hourly r
+JOIN urls u ON u.short_code = r.short_code
+WHERE u.user_id IS NOT NULL
+GROUP BY u.user_id, r.dimension, r.bucket, r.dim_value, r.dim_parent
+UNION ALL
+SELECT u.user_id, 'link', r.bucket, r.short_code, '', r.clicks, 0, 0, 0
+FROM click_rollups_hourly r
+JOIN urls u ON u.short_code = r.short_code
+WHERE u.user_id IS NOT NULL AND r.dimension = 'total';
@@ -0,0 +1,25 @@
+-- V18: Asynchronous analytics report jobs
+-- Heavy custom-range reports run on the backend's report workers instead of request threads.
+-- The result is persisted as JSON and reused by identical later requests (same user, link,
+-- report, range and options: cache_key) once the range is closed, until it expires.
+CREATE TABLE analytics_report_jobs (
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    short_code      VARCHAR(10) NOT NULL,
+    report_type     VARCHAR(20) NOT NULL,
+    priority        VARCHAR(10) NOT NULL DEFAULT 'NORMAL',
+    range_from      TIMESTAMPTZ NOT NULL,
+    range_to        TIMESTAMPTZ NOT NULL,
+    granularity     VARCHAR(10),
+    result_limit    INT,
+    cache_key       VARCHAR(64) NOT NULL,
+    status          VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    result          TEXT,
+    error_message   TEXT,
+    created_at      TIMESTAMPTZ DEFAULT NOW(),
+    started_at      TIMESTAMPTZ,
+    finished_at     TIMESTAMPTZ
+);
+
+CREATE INDEX idx_report_jobs_cache ON analytics_report_jobs (user_id, cache_key, created_at DESC);
+CREATE INDEX idx_report_jobs_created ON analytics_report_jobs (created_at);
@@ -0,0 +1,9 @@
+-- V19: Heartbeat for import jobs
+-- A job's spool file lives on the pod that accepted the upload, so only that pod can run it.
+-- The pod refreshes heartbeat_at of every job it holds; queued or running jobs whose heartbeat
+-- stops (the pod restarted or died) are failed by whichever pod notices first. Jobs from
+-- before this column have none and are judged by created_at.
+ALTER TABLE url_import_jobs ADD COLUMN heartbeat_at TIMESTAMPTZ;
+
+CREATE INDEX idx_url_import_jobs_unfinished ON url_import_jobs (status)
+    WHERE status IN ('PENDING', 'RUNNING');
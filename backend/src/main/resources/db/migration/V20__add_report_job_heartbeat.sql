@@ -0,0 +1,9 @@
+-- V20: Heartbeat for report jobs
+-- Queued report jobs wait in the memory of the pod that accepted them. That pod refreshes
+-- heartbeat_at of every job it holds; an identical request only reuses a queued or running job
+-- with a fresh heartbeat, and jobs whose heartbeat stops (the pod restarted or died) are failed.
+-- Jobs from before this column have none and are judged by created_at.
+ALTER TABLE analytics_report_jobs ADD COLUMN heartbeat_at TIMESTAMPTZ;
+
+CREATE INDEX idx_report_jobs_unfinished ON analytics_report_jobs (status)
+    WHERE status IN ('PENDING', 'RUNNING');
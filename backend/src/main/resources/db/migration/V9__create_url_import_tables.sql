@@ -0,0 +1,27 @@
+-- V9: Asynchronous bulk import jobs
+CREATE TABLE url_import_jobs (
+    id              BIGSERIAL PRIMARY KEY,
+    user_id         BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    format          VARCHAR(10) NOT NULL,
+    status          VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    rows_read       BIGINT NOT NULL DEFAULT 0,
+    rows_imported   BIGINT NOT NULL DEFAULT 0,
+    rows_failed     BIGINT NOT NULL DEFAULT 0,
+    error_message   TEXT,
+    created_at      TIMESTAMPTZ DEFAULT NOW(),
+    started_at      TIMESTAMPTZ,
+    finished_at     TIMESTAMPTZ
+);
+
+CREATE INDEX idx_url_import_jobs_user ON url_import_jobs (user_id, created_at DESC);
+
+-- Per-row failures (capped per job by url-import.max-stored-errors)
+CREATE TABLE url_import_errors (
+    id              BIGSERIAL PRIMARY KEY,
+    job_id          BIGINT NOT NULL REFERENCES url_import_jobs(id) ON DELETE CASCADE,
+    line_number     BIGINT NOT NULL,
+    message         TEXT NOT NULL,
+    raw_line        TEXT
+);
+
+CREATE INDEX idx_url_import_errors_job ON url_import_errors (job_id, line_number);
@@ -0,0 +1,35 @@
+package com.linkhub.analytics.geo;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Golden vectors for the cells in {@code click_geo_rollups_daily}. The consumer writes them and
+ * the backend looks them up, so both modules' copies of this test must keep the same vectors
+ * (which also match the published geohash examples, e.g. u4pruydqqvj).
+ */
+@DisplayName("Geohash Golden Vectors")
+class GeohashTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "57.64911,   10.40744,   u4pruydqqvj",
+            "42.6,       -5.6,       ezs42e44yx9",
+            "-25.382708, -49.265506, 6gkzwgjzn82",
+            "48.8583,    2.2945,     u09tunqu1xp",
+            "-33.8568,   151.2153,   r3gx2ux9ggh",
+            "40.6892,    -74.0445,   dr5r7p4ry0e",
+            "0,          0,          s0000000000",
+            "-90,        -180,       00000000000",
+            "90,         180,        zzzzzzzzzzz"
+    })
+    @DisplayName("Should encode coordinates to fixed cells at every precision")
+    void shouldEncodeToGoldenCells(double latitude, double longitude, String geohash) {
+        for (int precision = 1; precision <= geohash.length(); precision++) {
+            assertThat(Geohash.encode(latitude, longitude, precision)).isEqualTo(geohash.substring(0, precision));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.linkhub.benchmark;
+
+import com.linkhub.auth.model.User;
+import com.linkhub.auth.repository.UserRepository;
+import com.linkhub.integration.BaseIntegrationTest;
+import com.linkhub.keygen.service.KeyGenService;
+import com.linkhub.url.dto.BulkCreateRequest;
+import com.linkhub.url.dto.CreateUrlRequest;
+import com.linkhub.url.service.UrlService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the batched bulk-create pipeline against the previous
+ * "call createUrl N times in one transaction" approach for a 100-URL request.
+ *
+ * <p>Opt-in (slow): {@code mvn test -pl backend -Dtest=BulkCreateBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@DisplayName("Bulk URL Creation Benchmark")
+class BulkCreateBenchmarkTest extends BaseIntegrationTest {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private KeyGenService keyGenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(
+                new User("bench-" + System.nanoTime() + "@example.com", null, "Bench User"));
+        userId = user.getId();
+    }
+
+    @Test
+    @DisplayName("Batched bulk create should beat per-URL createUrl loop for 100 URLs")
+    void bulkCreateVsLoop() {
+        BulkCreateRequest request = buildRequest();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            runLoop(request);
+            runBulk(request);
+        }
+
+        long[] loopNanos = new long[MEASURED_ROUNDS];
+        long[] bulkNanos = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            loopNanos[i] = runLoop(request);
+            bulkNanos[i] = runBulk(request);
+        }
+
+        double loopMs = median(loopNanos) / 1_000_000.0;
+        double bulkMs = median(bulkNanos) / 1_000_000.0;
+
+        System.out.printf("%nBulk create (%d URLs): loop median %.2f ms, batched median %.2f ms, speedup %.1fx%n%n",
+                BATCH_SIZE, loopMs, bulkMs, loopMs / bulkMs);
+
+        assertThat(bulkMs).isLessThan(loopMs);
+    }
+
+    private long runLoop(BulkCreateRequest request) {
+        topUpKeyPool();
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (CreateUrlRequest item : request.urls()) {
+                urlService.createUrl(item, userId);
+            }
+        });
+        return System.nanoTime() - start;
+    }
+
+    private long runBulk(BulkCreateRequest request) {
+        topUpKeyPool();
+        long start = System.nanoTime();
+        urlService.bulkCreate(request, userId);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Keep both variants on the Redis fast path so the comparison isn't skewed by pool refills.
+     */
+    private void topUpKeyPool() {
+        keyGenService.generateKeyBatch(BATCH_SIZE * 2);
+        keyGenService.refillRedisBuffer();
+    }
+
+    private static BulkCreateRequest buildRequest() {
+        List<CreateUrlRequest> urls = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            urls.add(new CreateUrlRequest("https://www.example.com/bench/" + i, null, null));
+        }
+        return new BulkCreateRequest(urls);
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,113 @@
+package com.linkhub.benchmark;
+
+import com.linkhub.auth.model.User;
+import com.linkhub.auth.repository.UserRepository;
+import com.linkhub.common.dto.CursorPage;
+import com.linkhub.integration.BaseIntegrationTest;
+import com.linkhub.url.dto.UrlResponse;
+import com.linkhub.url.dto.UrlStatusFilter;
+import com.linkhub.url.service.UrlService;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Search latency on a single account that owns 1M links.
+ *
+ * <p>Seeds the account with one set-based INSERT, then measures p50/p95 of the
+ * first search page for a selective URL term, a common URL term and a short-code prefix.
+ *
+ * <p>Opt-in (slow): {@code mvn test -pl backend -Dtest=UrlSearchBenchmarkTest -Dbenchmarks=true}
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("URL Search Benchmark")
+class UrlSearchBenchmarkTest extends BaseIntegrationTest {
+
+    private static final int LINK_COUNT = 1_000_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 50;
+
+    @Autowired
+    private UrlService urlService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeAll
+    void seed() {
+        User user = userRepository.save(
+                new User("search-bench-" + System.nanoTime() + "@example.com", null, "Search Bench"));
+        userId = user.getId();
+
+        // Every 1000th link points at a "campaign" path so the selective term has ~1000 matches
+        jdbcTemplate.update("""
+                INSERT INTO urls (short_code, long_url, user_id, is_custom_alias, is_active,
+                                  click_count, created_at, updated_at)
+                SELECT substr(md5(random()::text || g), 1, 10),
+                       CASE WHEN g % 1000 = 0
+                            THEN 'https://shop.example.com/campaign/spring-sale/' || g
+                            ELSE 'https://www.example.com/articles/' || g || '?ref=newsletter'
+                       END,
+                       ?, FALSE, TRUE, 0,
+                       NOW() - (g || ' seconds')::interval, NOW()
+                FROM generate_series(1, ?) AS g
+                ON CONFLICT (short_code) DO NOTHING
+                """, userId, LINK_COUNT);
+        jdbcTemplate.execute("ANALYZE urls");
+    }
+
+    @Test
+    @DisplayName("First search page on a 1M-link account")
+    void searchLatency() {
+        String prefix = jdbcTemplate.queryForObject(
+                "SELECT substr(short_code, 1, 4) FROM urls WHERE user_id = ? LIMIT 1", String.class, userId);
+
+        for (String query : List.of("spring-sale", "newsletter", prefix)) {
+            long[] nanos = measure(query);
+            System.out.printf("Search '%s' over %,d links: p50 %.2f ms, p95 %.2f ms%n",
+                    query, LINK_COUNT, percentile(nanos, 50) / 1e6, percentile(nanos, 95) / 1e6);
+        }
+        System.out.println();
+
+        CursorPage<UrlResponse> page = urlService.scrollUserUrls(
+                userId, UrlStatusFilter.ALL, "spring-sale", null, PAGE_SIZE, false);
+        assertThat(page.content()).hasSize(PAGE_SIZE);
+        assertThat(page.content()).allMatch(url -> url.longUrl().contains("spring-sale"));
+    }
+
+    private long[] measure(String query) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            urlService.scrollUserUrls(userId, UrlStatusFilter.ALL, query, null, PAGE_SIZE, false);
+        }
+        long[] nanos = new long[MEASURED_ROUNDS];
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            urlService.scrollUserUrls(userId, UrlStatusFilter.ALL, query, null, PAGE_SIZE, false);
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static long percentile(long[] values, int p) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(p / 100.0 * sorted.length) - 1);
+        return sorted[Math.max(0, index)];
+    }
+}
@@ -1,7 +1,16 @@
 package com.linkhub.integration;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.analytics.cube.HotLinkCube;
 import com.linkhub.analytics.dto.ClickEventMessage;
+import com.linkhub.analytics.dto.EnrichedClickMessage;
+import com.linkhub.analytics.geo.Geohash;
+import com.linkhub.analytics.live.LiveClickHub;
+import com.linkhub.analytics.service.ReportJobService;
+import com.linkhub.analytics.trending.TrendingTracker;
+import com.linkhub.analytics.sketch.HyperLogLog;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
@@ -10,12 +19,22 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.closeTo;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -42,6 +61,21 @@ class AnalyticsIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private KafkaTemplate<String, ClickEventMessage> kafkaTemplate;
 
+    @Autowired
+    private HotLinkCube hotLinkCube;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LiveClickHub liveClickHub;
+
+    @Autowired
+    private TrendingTracker trendingTracker;
+
+    @Autowired
+    private ReportJobService reportJobService;
+
     private static String accessToken;
     private static String shortCode;
 
@@ -123,6 +157,9 @@ class AnalyticsIntegrationTest extends BaseIntegrationTest {
                 "SELECT COUNT(*) FROM click_events WHERE short_code = ?",
                 Integer.class, shortCode);
         assertThat(count).isEqualTo(5);
+
+        // The analytics consumer maintains hourly rollups alongside raw inserts; do the same here
+        rebuildRollups(shortCode);
     }
 
     @Test
@@ -159,6 +196,96 @@ class AnalyticsIntegrationTest extends BaseIntegrationTest {
         assertThat(totalClicks).isLessThanOrEqualTo(5);
     }
 
+    @Test
+    @Order(4)
+    void rollupAndEdgeBucketsShouldNotOverlap() throws Exception {
+        // Spans several whole hours (served from rollups) plus partial hours at both ends (raw scan)
+        Instant from = Instant.now().minus(4, ChronoUnit.HOURS).minus(1, ChronoUnit.MINUTES);
+        Instant to = Instant.now().plus(1, ChronoUnit.MINUTES);
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/summary", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalClicks").value(5));
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/referrers", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].referrer").value("https://google.com"))
+                .andExpect(jsonPath("$[0].clicks").value(3))
+                .andExpect(jsonPath("$[1].referrer").value("Direct"))
+                .andExpect(jsonPath("$[1].clicks").value(2));
+    }
+
+    @Test
+    @Order(4)
+    void uniqueVisitorEstimateShouldMergeSketchesWithRawHours() throws Exception {
+        // Sketch every hour except the most recent one, which must then be read from click_events
+        List<Instant> buckets = jdbcTemplate.queryForList("""
+                SELECT DISTINCT date_trunc('hour', clicked_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC'
+                FROM click_events WHERE short_code = ? ORDER BY 1
+                """, java.sql.Timestamp.class, shortCode).stream()
+                .map(java.sql.Timestamp::toInstant)
+                .toList();
+        for (Instant bucket : buckets.subList(0, buckets.size() - 1)) {
+            List<String> addresses = jdbcTemplate.queryForList("""
+                    SELECT host(ip_address) FROM click_events
+                    WHERE short_code = ? AND clicked_at >= ? AND clicked_at < ?
+                    """, String.class, shortCode,
+                    java.sql.Timestamp.from(bucket), java.sql.Timestamp.from(bucket.plus(1, ChronoUnit.HOURS)));
+            HyperLogLog sketch = new HyperLogLog();
+            addresses.forEach(sketch::addAddress);
+            jdbcTemplate.update("""
+                    INSERT INTO click_visitor_sketches_hourly (short_code, bucket, clicks, sketch)
+                    VALUES (?, ?, ?, ?)
+                    """, shortCode, java.sql.Timestamp.from(bucket), addresses.size(), sketch.toBytes());
+        }
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/summary", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30")
+                        .param("exact", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uniqueVisitors").value(5))
+                .andExpect(jsonPath("$.uniqueVisitorsExact").value(false))
+                .andExpect(jsonPath("$.uniqueVisitorsErrorBound").value(0.0325));
+
+        // Small ranges are counted exactly by default
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/summary", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.uniqueVisitors").value(5))
+                .andExpect(jsonPath("$.uniqueVisitorsExact").value(true))
+                .andExpect(jsonPath("$.uniqueVisitorsErrorBound").value(0.0));
+    }
+
+    @Test
+    @Order(4)
+    void batchSummaryShouldMatchSingleSummaries() throws Exception {
+        mockMvc.perform(get("/api/v1/analytics/summaries")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("shortCodes", shortCode + "," + shortCode)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].shortCode").value(shortCode))
+                .andExpect(jsonPath("$[0].totalClicks").value(5))
+                .andExpect(jsonPath("$[0].uniqueVisitors").value(5))
+                .andExpect(jsonPath("$[0].uniqueVisitorsExact").value(true));
+
+        // One link that isn't the caller's fails the whole batch, like the single-link endpoint
+        mockMvc.perform(get("/api/v1/analytics/summaries")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("shortCodes", shortCode, "nosuchlnk")
+                        .param("days", "30"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @Order(5)
     void getTimeseries() throws Exception {
@@ -210,6 +337,233 @@ class AnalyticsIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.cities[0].city").exists());
     }
 
+    @Test
+    @Order(8)
+    void mapShouldCountClicksPerVisibleCell() throws Exception {
+        rebuildGeoRollups(shortCode);
+
+        // A 10° box around New York: the finest precision within 1024 cells is 3 (~156 km)
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/map", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("minLat", "35").param("minLng", "-80")
+                        .param("maxLat", "45").param("maxLng", "-70")
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.precision").value(3))
+                .andExpect(jsonPath("$.totalClicks").value(3))
+                .andExpect(jsonPath("$.cells.length()").value(1))
+                .andExpect(jsonPath("$.cells[0].geohash").value("dr5"))
+                .andExpect(jsonPath("$.cells[0].latitude", closeTo(40.7128, 1e-9)))
+                .andExpect(jsonPath("$.cells[0].south").value(39.375));
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/map", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("minLat", "-90").param("minLng", "-180")
+                        .param("maxLat", "90").param("maxLng", "180")
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.precision").value(2))
+                .andExpect(jsonPath("$.totalClicks").value(5))
+                .andExpect(jsonPath("$.cells.length()").value(2));
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/map", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("minLat", "-90").param("minLng", "-180")
+                        .param("maxLat", "90").param("maxLng", "180")
+                        .param("precision", "6"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Order(8)
+    void sqlGeohashShouldMatchTheGoldenVectors() {
+        // Same vectors as GeohashTest: the V17 backfill and the consumer must agree on every cell
+        Object[][] vectors = {
+                {57.64911, 10.40744, "u4pruydqqvj"},
+                {42.6, -5.6, "ezs42e44yx9"},
+                {-25.382708, -49.265506, "6gkzwgjzn82"},
+                {48.8583, 2.2945, "u09tunqu1xp"},
+                {-33.8568, 151.2153, "r3gx2ux9ggh"},
+                {40.6892, -74.0445, "dr5r7p4ry0e"},
+                {0.0, 0.0, "s0000000000"},
+                {-90.0, -180.0, "00000000000"},
+                {90.0, 180.0, "zzzzzzzzzzz"}
+        };
+        for (Object[] v : vectors) {
+            String encoded = jdbcTemplate.queryForObject("SELECT geohash_encode(?, ?, 11)", String.class, v[0], v[1]);
+            assertThat(encoded).as("geohash_encode(%s, %s)", v[0], v[1])
+                    .isEqualTo(v[2])
+                    .isEqualTo(Geohash.encode((double) v[0], (double) v[1], 11));
+        }
+    }
+
+    @Test
+    @Order(8)
+    void reportJobsShouldRunInBackgroundAndReuseSettledResults() throws Exception {
+        // A closed range: the four clicks from one to four hours ago, two of them from Google
+        Instant from = Instant.now().minus(30, ChronoUnit.DAYS);
+        Instant to = Instant.now().minus(30, ChronoUnit.MINUTES);
+        String request = """
+                {"shortCode": "%s", "type": "REFERRERS", "from": "%s", "to": "%s"}
+                """.formatted(shortCode, from, to);
+
+        JsonNode job = submitReport(request);
+        assertThat(job.get("reused").asBoolean()).isFalse();
+        long jobId = job.get("jobId").asLong();
+
+        JsonNode referrers = awaitReport(jobId);
+        assertThat(referrers.get(0).get("referrer").asText()).isEqualTo("https://google.com");
+        assertThat(referrers.get(0).get("clicks").asLong()).isEqualTo(2);
+
+        JsonNode again = submitReport(request);
+        assertThat(again.get("reused").asBoolean()).isTrue();
+        assertThat(again.get("jobId").asLong()).isEqualTo(jobId);
+
+        // Open-ended ranges are computed afresh
+        JsonNode dashboard = submitReport("""
+                {"shortCode": "%s", "type": "DASHBOARD", "days": 30, "priority": "HIGH"}
+                """.formatted(shortCode));
+        assertThat(awaitReport(dashboard.get("jobId").asLong()).get("summary").get("totalClicks").asLong())
+                .isEqualTo(5);
+    }
+
+    @Test
+    @Order(8)
+    void approximateBreakdownsShouldCarryErrorBounds() throws Exception {
+        // Four whole hours with clicks against a test sample of three, so approx=true samples
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/referrers", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30")
+                        .param("approx", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].clicks").isNumber())
+                .andExpect(jsonPath("$[0].errorBound").isNumber());
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/geo", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30")
+                        .param("approx", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countries[0].errorBound").isNumber())
+                .andExpect(jsonPath("$.cities[0].latitude").isNumber());
+
+        // Exact answers have no bound, and five clicks are far below the automatic threshold
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/referrers", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].referrer").value("https://google.com"))
+                .andExpect(jsonPath("$[0].clicks").value(3))
+                .andExpect(jsonPath("$[0].errorBound").doesNotExist());
+    }
+
+    @Test
+    @Order(8)
+    void accountAnalyticsShouldAggregateAcrossLinks() throws Exception {
+        Long userId = jdbcTemplate.queryForObject("SELECT user_id FROM urls WHERE short_code = ?", Long.class, shortCode);
+        rebuildAccountRollups(userId);
+
+        mockMvc.perform(get("/api/v1/analytics/account/summary")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalClicks").value(5))
+                .andExpect(jsonPath("$.activeLinks").value(1))
+                .andExpect(jsonPath("$.topLinks[0].shortCode").value(shortCode))
+                .andExpect(jsonPath("$.topLinks[0].percentage").value(100.0));
+
+        mockMvc.perform(get("/api/v1/analytics/account/referrers")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].referrer").value("https://google.com"))
+                .andExpect(jsonPath("$[0].clicks").value(3));
+
+        mockMvc.perform(get("/api/v1/analytics/account/geo")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cities[0].city").value("New York"))
+                .andExpect(jsonPath("$.cities[0].latitude").value(40.7128));
+
+        mockMvc.perform(get("/api/v1/analytics/account/timeseries")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "1")
+                        .param("granularity", "hour"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5));
+    }
+
+    @Test
+    @Order(8)
+    void getDashboard() throws Exception {
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/dashboard", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.summary.totalClicks").value(5))
+                .andExpect(jsonPath("$.summary.uniqueVisitors").value(5))
+                .andExpect(jsonPath("$.timeseries").isArray())
+                .andExpect(jsonPath("$.referrers[0].referrer").value("https://google.com"))
+                .andExpect(jsonPath("$.referrers[0].clicks").value(3))
+                .andExpect(jsonPath("$.devices.deviceTypes").isArray())
+                .andExpect(jsonPath("$.devices.browsers").isArray())
+                .andExpect(jsonPath("$.geo.countries[0].country").exists())
+                .andExpect(jsonPath("$.geo.cities").isArray());
+    }
+
+    @Test
+    @Order(8)
+    void hotLinkCubeShouldAnswerLikeTheDatabase() throws Exception {
+        // Inside the cube's window, so once the link is hot the cube serves the whole range
+        Instant from = Instant.now().minus(4, ChronoUnit.HOURS).minus(1, ChronoUnit.MINUTES);
+        Instant to = Instant.now().plus(1, ChronoUnit.MINUTES);
+
+        // Repeated views make the link hot; the tail needs a few seconds after assignment first
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!hotLinkCube.isReady(shortCode) && System.nanoTime() < deadline) {
+            mockMvc.perform(get("/api/v1/analytics/{shortCode}/devices", shortCode)
+                            .header("Authorization", "Bearer " + accessToken)
+                            .param("from", from.toString())
+                            .param("to", to.toString()))
+                    .andExpect(status().isOk());
+            Thread.sleep(200);
+        }
+        assertThat(hotLinkCube.isReady(shortCode)).isTrue();
+
+        double hitsBefore = cubeHits();
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/referrers", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].referrer").value("https://google.com"))
+                .andExpect(jsonPath("$[0].clicks").value(3))
+                .andExpect(jsonPath("$[1].referrer").value("Direct"))
+                .andExpect(jsonPath("$[1].clicks").value(2));
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/geo", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("from", from.toString())
+                        .param("to", to.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countries[0].country").value("United States"))
+                .andExpect(jsonPath("$.countries[0].clicks").value(3))
+                .andExpect(jsonPath("$.cities[0].city").value("New York"))
+                .andExpect(jsonPath("$.cities[0].latitude").value(40.7128));
+
+        // The 30-day dashboard takes its recent hours from the cube and the rest from the database
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/dashboard", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.summary.totalClicks").value(5))
+                .andExpect(jsonPath("$.referrers[0].clicks").value(3))
+                .andExpect(jsonPath("$.devices.deviceTypes[0].clicks").value(3));
+
+        assertThat(cubeHits()).isGreaterThanOrEqualTo(hitsBefore + 3);
+    }
+
     @Test
     @Order(9)
     void getPaginatedClicks() throws Exception {
@@ -243,6 +597,41 @@ class AnalyticsIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.hasNext").value(false));
     }
 
+    @Test
+    @Order(10)
+    void scrollClicksShouldWalkKeysetPages() throws Exception {
+        List<String> clickedAt = new ArrayList<>();
+        String cursor = "";
+        for (int pageNo = 0; pageNo < 3; pageNo++) {
+            MvcResult result = mockMvc.perform(get("/api/v1/analytics/{shortCode}/clicks", shortCode)
+                            .header("Authorization", "Bearer " + accessToken)
+                            .param("days", "30")
+                            .param("cursor", cursor)
+                            .param("limit", "2")
+                            .param("includeTotal", pageNo == 0 ? "true" : "false"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+            page.get("content").forEach(click -> clickedAt.add(click.get("clickedAt").asText()));
+            if (pageNo == 0) {
+                assertThat(page.get("totalElements").asLong()).isEqualTo(5);
+            } else {
+                assertThat(page.has("totalElements")).isFalse();
+            }
+            assertThat(page.get("hasNext").asBoolean()).isEqualTo(pageNo < 2);
+            cursor = page.get("nextCursor").asText();
+        }
+
+        assertThat(clickedAt).hasSize(5);
+        assertThat(clickedAt).isSortedAccordingTo(
+                Comparator.comparing(Instant::parse, Comparator.reverseOrder()));
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/clicks", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Order(11)
     void getPaginatedClicksWithTimeRange() throws Exception {
@@ -263,6 +652,131 @@ class AnalyticsIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.content[0].deviceType").exists());
     }
 
+    @Test
+    @Order(11)
+    void exportClicksShouldStreamAndResume() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/analytics/{shortCode}/clicks/export", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String ndjson = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = ndjson.strip().split("\n");
+        assertThat(lines).hasSize(5);
+
+        // Resume after the second row
+        JsonNode second = objectMapper.readTree(lines[1]);
+        MvcResult resumed = mockMvc.perform(get("/api/v1/analytics/{shortCode}/clicks/export", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30")
+                        .param("afterClickedAt", second.get("clickedAt").asText())
+                        .param("afterEventId", second.get("eventId").asText()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String rest = mockMvc.perform(asyncDispatch(resumed))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(rest.strip().split("\n")).containsExactly(lines[2], lines[3], lines[4]);
+
+        // Gzipped CSV
+        MvcResult csvStarted = mockMvc.perform(get("/api/v1/analytics/{shortCode}/clicks/export", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .header("Accept-Encoding", "gzip")
+                        .param("days", "30")
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] gzipped = mockMvc.perform(asyncDispatch(csvStarted))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        String csv;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] csvLines = csv.strip().split("\n");
+        assertThat(csvLines).hasSize(6);
+        assertThat(csvLines[0]).startsWith("event_id,short_code,clicked_at");
+    }
+
+    @Test
+    @Order(11)
+    void liveStreamShouldPushClicksForItsLinkOnly() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/v1/analytics/{shortCode}/live", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Feed the hub as the click tail would: one click for this link, one for another
+        Instant clickedAt = Instant.now();
+        liveClickHub.onClicks(List.of(
+                new EnrichedClickMessage(UUID.randomUUID(), 1L, shortCode, clickedAt, "https://t.co",
+                        "Mobile", "Safari", "iOS", "Germany", "Berlin", 52.52, 13.405, null),
+                new EnrichedClickMessage(UUID.randomUUID(), 2L, "other-link", clickedAt, null,
+                        "Desktop", "Chrome", "Windows", "France", "Paris", null, null, null)));
+        liveClickHub.flush();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String body = stream.getResponse().getContentAsString();
+        while (!body.contains("event:clicks") && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            body = stream.getResponse().getContentAsString();
+        }
+
+        assertThat(body).contains("event:ready");
+        assertThat(body).contains("event:clicks");
+        assertThat(body).contains("\"clicks\":1");
+        assertThat(body).contains("Berlin");
+        assertThat(body).doesNotContain("Paris");
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/live", shortCode)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @Order(11)
+    void trendingShouldRankAccountLinksAndRestrictGlobalToAdmins() throws Exception {
+        Long ownerId = jdbcTemplate.queryForObject(
+                "SELECT user_id FROM urls WHERE short_code = ?", Long.class, shortCode);
+
+        // Fed as the click tail would: three clicks on this link, one on another account's link
+        Instant now = Instant.now();
+        List<EnrichedClickMessage> clicks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            clicks.add(new EnrichedClickMessage(UUID.randomUUID(), 1L, shortCode, now.minusSeconds(i),
+                    null, "Desktop", "Chrome", "Windows", null, null, null, null, ownerId));
+        }
+        clicks.add(new EnrichedClickMessage(UUID.randomUUID(), 2L, "not-mine", now,
+                null, "Desktop", "Chrome", "Windows", null, null, null, null, ownerId + 1000));
+        trendingTracker.onClicks(clicks);
+        trendingTracker.refresh();
+
+        mockMvc.perform(get("/api/v1/analytics/trending")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("window", "5m"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.window").value("5m"))
+                .andExpect(jsonPath("$.links.length()").value(1))
+                .andExpect(jsonPath("$.links[0].shortCode").value(shortCode))
+                .andExpect(jsonPath("$.links[0].clicks").value(3))
+                .andExpect(jsonPath("$.links[0].errorBound").value(0));
+
+        mockMvc.perform(get("/api/v1/analytics/trending")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("window", "1w"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/v1/analytics/trending/global")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isForbidden());
+    }
+
     @Test
     @Order(12)
     void analyticsEndpointRejectsUnauthorized() throws Exception {
@@ -348,4 +862,190 @@ class AnalyticsIntegrationTest extends BaseIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.size").value(200));
     }
+
+    @Test
+    @Order(19)
+    void dashboardShouldServeClosedDaysFromCacheAndRevalidate() throws Exception {
+        Instant threeDaysAgo = Instant.now().minus(3, ChronoUnit.DAYS).truncatedTo(ChronoUnit.DAYS).plus(12, ChronoUnit.HOURS);
+        insertClick(shortCode, threeDaysAgo, "9.9.9.1");
+        insertClick(shortCode, threeDaysAgo.plus(1, ChronoUnit.HOURS), "9.9.9.2");
+        rebuildRollups(shortCode);
+
+        // First load fills the day bucket, second one reads it back
+        String etag = mockMvc.perform(get("/api/v1/analytics/{shortCode}/dashboard", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$.summary.totalClicks").value(7))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/dashboard", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .header("If-None-Match", etag)
+                        .param("days", "30"))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/dashboard", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.summary.totalClicks").value(7));
+
+        // A late event in a closed day invalidates both the cached bucket and the ETag
+        insertClick(shortCode, threeDaysAgo.plus(2, ChronoUnit.HOURS), "9.9.9.3");
+        rebuildRollups(shortCode);
+
+        mockMvc.perform(get("/api/v1/analytics/{shortCode}/dashboard", shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .header("If-None-Match", etag)
+                        .param("days", "30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.summary.totalClicks").value(8));
+    }
+
+    @Test
+    @Order(20)
+    void reportJobsOfARestartedPodShouldNotBeReused() throws Exception {
+        Instant to = Instant.now().minus(2, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+        String request = """
+                {"shortCode": "%s", "type": "DEVICES", "from": "%s", "to": "%s"}
+                """.formatted(shortCode, to.minus(1, ChronoUnit.DAYS), to);
+        long jobId = submitReport(request).get("jobId").asLong();
+        awaitReport(jobId);
+
+        // As a pod that died with the job queued would leave it
+        jdbcTemplate.update("""
+                UPDATE analytics_report_jobs
+                SET status = 'PENDING', result = NULL, finished_at = NULL,
+                    heartbeat_at = NOW() - INTERVAL '10 minutes'
+                WHERE id = ?
+                """, jobId);
+
+        JsonNode again = submitReport(request);
+        assertThat(again.get("reused").asBoolean()).isFalse();
+        assertThat(again.get("jobId").asLong()).isNotEqualTo(jobId);
+
+        reportJobService.heartbeat();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM analytics_report_jobs WHERE id = ?", String.class, jobId)).isEqualTo("FAILED");
+        awaitReport(again.get("jobId").asLong());
+    }
+
+    private JsonNode submitReport(String request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/analytics/reports")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.resultUrl").isNotEmpty())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private JsonNode awaitReport(long jobId) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            MvcResult result = mockMvc.perform(get("/api/v1/analytics/reports/{jobId}/result", jobId)
+                            .header("Authorization", "Bearer " + accessToken))
+                    .andReturn();
+            int status = result.getResponse().getStatus();
+            if (status == 200) {
+                return objectMapper.readTree(result.getResponse().getContentAsString());
+            }
+            assertThat(status).as("report job %d", jobId).isEqualTo(202);
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Report job " + jobId + " did not finish in time");
+    }
+
+    private void insertClick(String code, Instant clickedAt, String ip) {
+        // Partitions are only created from the current month on; the click may be in the previous one
+        LocalDate month = LocalDate.ofInstant(clickedAt, ZoneOffset.UTC).withDayOfMonth(1);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS click_events_%s PARTITION OF click_events FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(month.format(DateTimeFormatter.ofPattern("yyyy_MM")), month, month.plusMonths(1)));
+
+        jdbcTemplate.update("""
+                INSERT INTO click_events (event_id, url_id, short_code, clicked_at, ip_address, referrer)
+                SELECT ?, id, short_code, ?, ?::inet, 'https://example.org'
+                FROM urls WHERE short_code = ?
+                """, UUID.randomUUID(), java.sql.Timestamp.from(clickedAt), ip, code);
+    }
+
+    private double cubeHits() {
+        var counter = meterRegistry.find("analytics.cube.reads").tag("result", "hit").counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    /**
+     * Recompute click_rollups_hourly for one short code from its raw events
+     * (same normalization as the consumer and the V13 backfill).
+     */
+    /**
+     * Recompute click_account_rollups_hourly for one user from the per-link rollups
+     * (same as the V16 backfill).
+     */
+    private void rebuildGeoRollups(String code) {
+        jdbcTemplate.update("DELETE FROM click_geo_rollups_daily WHERE short_code = ?", code);
+        jdbcTemplate.update("""
+                INSERT INTO click_geo_rollups_daily (short_code, precision, geohash, bucket, clicks, lat_sum, lng_sum)
+                SELECT c.short_code, p, LEFT(c.cell, p), c.bucket, COUNT(*), SUM(c.latitude), SUM(c.longitude)
+                FROM (
+                    SELECT short_code, latitude, longitude,
+                           geohash_encode(latitude, longitude, 6) AS cell,
+                           date_trunc('day', clicked_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' AS bucket
+                    FROM click_events
+                    WHERE short_code = ? AND latitude IS NOT NULL AND longitude IS NOT NULL
+                ) c
+                CROSS JOIN generate_series(2, 6) AS p
+                GROUP BY c.short_code, p, LEFT(c.cell, p), c.bucket
+                """, code);
+    }
+
+    private void rebuildAccountRollups(Long userId) {
+        jdbcTemplate.update("DELETE FROM click_account_rollups_hourly WHERE user_id = ?", userId);
+        jdbcTemplate.update("""
+                INSERT INTO click_account_rollups_hourly (user_id, dimension, bucket, dim_value, dim_parent,
+                                                          clicks, lat_sum, lng_sum, geo_clicks)
+                SELECT u.user_id, r.dimension, r.bucket, r.dim_value, r.dim_parent,
+                       SUM(r.clicks), SUM(r.lat_sum), SUM(r.lng_sum), SUM(r.geo_clicks)
+                FROM click_rollups_hourly r
+                JOIN urls u ON u.short_code = r.short_code
+                WHERE u.user_id = ?
+                GROUP BY u.user_id, r.dimension, r.bucket, r.dim_value, r.dim_parent
+                UNION ALL
+                SELECT u.user_id, 'link', r.bucket, r.short_code, '', r.clicks, 0, 0, 0
+                FROM click_rollups_hourly r
+                JOIN urls u ON u.short_code = r.short_code
+                WHERE u.user_id = ? AND r.dimension = 'total'
+                """, userId, userId);
+    }
+
+    private void rebuildRollups(String code) {
+        jdbcTemplate.update("DELETE FROM click_rollups_hourly WHERE short_code = ?", code);
+        jdbcTemplate.update("""
+                INSERT INTO click_rollups_hourly (short_code, dimension, bucket, dim_value, dim_parent,
+                                                  clicks, lat_sum, lng_sum, geo_clicks)
+                SELECT short_code, dimension, bucket, dim_value, dim_parent,
+                       COUNT(*), COALESCE(SUM(lat), 0), COALESCE(SUM(lng), 0), COUNT(lat)
+                FROM (
+                    SELECT ce.short_code,
+                           date_trunc('hour', ce.clicked_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' AS bucket,
+                           d.dimension, d.dim_value, d.dim_parent,
+                           CASE WHEN d.dimension = 'city' THEN ce.latitude END AS lat,
+                           CASE WHEN d.dimension = 'city' THEN ce.longitude END AS lng
+                    FROM click_events ce
+                    CROSS JOIN LATERAL (VALUES
+                        ('total',    '',                                          ''),
+                        ('referrer', LEFT(COALESCE(ce.referrer, 'Direct'), 500),  ''),
+                        ('device',   COALESCE(ce.device_type, 'Unknown'),         ''),
+                        ('browser',  COALESCE(ce.browser, 'Unknown'),             ''),
+                        ('os',       COALESCE(ce.os, 'Unknown'),                  ''),
+                        ('country',  COALESCE(ce.country, 'Unknown'),             ''),
+                        ('city',     COALESCE(ce.city, 'Unknown'),                COALESCE(ce.country, 'Unknown'))
+                    ) AS d(dimension, dim_value, dim_parent)
+                    WHERE ce.short_code = ?
+                ) expanded
+                GROUP BY short_code, dimension, bucket, dim_value, dim_parent
+                """, code);
+    }
 }
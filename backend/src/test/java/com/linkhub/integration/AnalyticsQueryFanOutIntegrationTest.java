@@ -0,0 +1,162 @@
+package com.linkhub.integration;
+
+import com.linkhub.analytics.service.AnalyticsQueryFanOut;
+import com.linkhub.common.exception.RateLimitExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link AnalyticsQueryFanOut} on its own small pool against the real database: deadlines
+ * enforced by Postgres, 429 when saturated, and cancellation of the rest when a query fails.
+ */
+@DisplayName("Analytics Query Fan-Out")
+class AnalyticsQueryFanOutIntegrationTest extends BaseIntegrationTest {
+
+    private static final String SLOW_QUERY = "SELECT pg_sleep(5)::text";
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** Released at the end of each test; see {@link #fanOut}. */
+    private final CountDownLatch proceed = new CountDownLatch(1);
+
+    private ThreadPoolTaskExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        proceed.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should let Postgres abort a query at the deadline and report a timeout")
+    void statementTimeoutShouldAbortQueryAtDeadline() {
+        AnalyticsQueryFanOut fanOut = fanOut(1, 1, Duration.ofSeconds(10), false);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> fanOut.runInline(Duration.ofMillis(300), () -> {
+            try (AnalyticsQueryFanOut.Scope scope = fanOut.open()) {
+                return scope.join(scope.submit(() -> jdbcTemplate.queryForObject(SLOW_QUERY, String.class)));
+            }
+        })).isInstanceOf(QueryTimeoutException.class);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+    }
+
+    @Test
+    @DisplayName("Should time out the request at the deadline and free the pool thread soon after")
+    void pooledQueryShouldTimeOutAndReleaseItsThread() throws Exception {
+        AnalyticsQueryFanOut fanOut = fanOut(1, 1, Duration.ofMillis(300), false);
+
+        try (AnalyticsQueryFanOut.Scope scope = fanOut.open()) {
+            Future<String> slow = scope.submit(() -> jdbcTemplate.queryForObject(SLOW_QUERY, String.class));
+
+            assertThatThrownBy(() -> scope.join(slow))
+                    .isInstanceOf(QueryTimeoutException.class)
+                    .hasMessageContaining("deadline");
+            assertThat(slow.isCancelled()).isTrue();
+        }
+
+        // Interrupting the pool thread does not stop the statement; statement_timeout does
+        executor.shutdown();
+        assertThat(executor.getThreadPoolExecutor().awaitTermination(3, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should reject with 429 when the pool and its queue are full, cancelling the rest")
+    void saturatedPoolShouldRejectRequest() {
+        AnalyticsQueryFanOut fanOut = fanOut(1, 1, Duration.ofSeconds(10), true);
+
+        try (AnalyticsQueryFanOut.Scope scope = fanOut.open()) {
+            scope.submit(() -> 1);                         // runs, then holds the only thread
+            Future<Integer> queued = scope.submit(() -> 2); // fills the queue
+
+            assertThatThrownBy(() -> scope.submit(() -> 3))
+                    .isInstanceOf(RateLimitExceededException.class);
+            assertThat(queued.isCancelled()).isTrue();
+        }
+    }
+
+    @Test
+    @DisplayName("Should cancel queued and running queries once one of them fails")
+    void failedQueryShouldCancelTheRest() throws Exception {
+        AnalyticsQueryFanOut fanOut = fanOut(2, 4, Duration.ofSeconds(10), true);
+        AtomicInteger ran = new AtomicInteger();
+
+        try (AnalyticsQueryFanOut.Scope scope = fanOut.open()) {
+            Future<String> running = scope.submit(() -> jdbcTemplate.queryForObject(SLOW_QUERY, String.class));
+            Future<Integer> failing = scope.submit(() -> {
+                throw new IllegalStateException("broken query");
+            });
+            Future<Integer> queued = scope.submit(ran::incrementAndGet);
+
+            assertThatThrownBy(() -> scope.join(failing))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessage("broken query");
+            assertThat(running.isCancelled()).isTrue();
+            assertThat(queued.isCancelled()).isTrue();
+        }
+
+        proceed.countDown();
+        executor.shutdown();
+        executor.getThreadPoolExecutor().awaitTermination(10, TimeUnit.SECONDS);
+        assertThat(ran).hasValue(0);
+    }
+
+    /**
+     * A fan-out on a pool of its own.
+     *
+     * @param holdThreads keep each pool thread after its task until the test ends (or releases
+     *                    {@link #proceed}), so a finished task cannot hand its thread to queued work
+     *                    before the test has looked at the queue
+     */
+    private AnalyticsQueryFanOut fanOut(int threads, int queueCapacity, Duration timeout, boolean holdThreads) {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("fan-out-test-");
+        if (holdThreads) {
+            executor.setTaskDecorator(holdAfterRun());
+        }
+        executor.initialize();
+
+        AnalyticsQueryFanOut fanOut = new AnalyticsQueryFanOut(executor, transactionManager, jdbcTemplate);
+        ReflectionTestUtils.setField(fanOut, "timeout", timeout);
+        return fanOut;
+    }
+
+    private TaskDecorator holdAfterRun() {
+        return task -> () -> {
+            try {
+                task.run();
+            } finally {
+                try {
+                    proceed.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,531 @@
+package com.linkhub.integration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.linkhub.analytics.repository.ClickEventRepository;
+import com.linkhub.auth.model.User;
+import com.linkhub.auth.repository.UserRepository;
+import com.linkhub.keygen.repository.KeyPoolRepository;
+import com.linkhub.url.repository.UrlRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Query-plan regression suite for {@link ClickEventRepository}, {@link UrlRepository} and
+ * {@link KeyPoolRepository}.
+ *
+ * <p>Seeds three months of clicks over 500 links, 20,000 links across 50 accounts and a 100,000-key
+ * pool. Then each repository query is called for real while its SQL and bind values are
+ * recorded. Every recorded statement is replayed under {@code EXPLAIN (ANALYZE, FORMAT JSON)}
+ * in a rolled-back transaction, and the plan must show:
+ * <ul>
+ *   <li>no sequential scan of click_events, click_rollups_hourly, urls or key_pool (unless the
+ *       query has to read most of the table)</li>
+ *   <li>partition pruning: only the click_events partitions overlapping the queried range</li>
+ *   <li>click_events partitions read through {@code idx_click_events_short_code}</li>
+ *   <li>row estimates of every scan within {@value #MAX_ESTIMATE_ERROR}x of the actual rows</li>
+ * </ul>
+ * A query added to one of these repositories without a case here fails {@link #everyQueryIsCovered()}.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@DisplayName("Query plans")
+class QueryPlanIntegrationTest extends BaseIntegrationTest {
+
+    /** Largest tolerated ratio between estimated and actual rows of a scan. */
+    private static final int MAX_ESTIMATE_ERROR = 50;
+
+    private static final Set<String> NO_SEQ_SCAN_TABLES = Set.of("click_rollups_hourly", "urls", "key_pool");
+
+    private static final String HOT_LINK = "qp000001";
+    private static final int LINKS_WITH_CLICKS = 500;
+    private static final int ACCOUNTS = 50;
+    private static final int LINKS = 20_000;
+    private static final int KEYS = 100_000;
+
+    @Autowired
+    private ClickEventRepository clickEventRepository;
+
+    @Autowired
+    private UrlRepository urlRepository;
+
+    @Autowired
+    private KeyPoolRepository keyPoolRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Instant to = Instant.now();
+    private final Instant from = to.minus(7, ChronoUnit.DAYS);
+    private Long userId;
+    private Set<String> shortCodeIndexes;
+
+    @BeforeAll
+    void seed() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            User user = userRepository.save(new User("query-plan-" + i + "@example.com", null, "Query Plan " + i));
+            if (i == 1) {
+                userId = user.getId();
+            }
+        }
+
+        // Link g belongs to account g % 50; 1% already expired and 1% expiring later
+        jdbcTemplate.update("""
+                WITH owners AS (
+                    SELECT array_agg(id ORDER BY id) AS ids FROM users WHERE email LIKE 'query-plan-%'
+                )
+                INSERT INTO urls (short_code, long_url, user_id, is_custom_alias, is_active,
+                                  click_count, expires_at, created_at, updated_at)
+                SELECT 'qp' || lpad(g::text, 6, '0'), 'https://www.example.com/articles/' || g,
+                       owners.ids[1 + g % ?], FALSE, TRUE, 0,
+                       CASE g % 100 WHEN 0 THEN NOW() - INTERVAL '1 day'
+                                    WHEN 1 THEN NOW() + INTERVAL '30 days' END,
+                       NOW() - (g || ' minutes')::interval, NOW()
+                FROM owners, generate_series(1, ?) AS g
+                ON CONFLICT (short_code) DO NOTHING
+                """, ACCOUNTS, LINKS);
+
+        // Monthly partitions back to 90 days ago (the partition job only creates current and future ones)
+        Instant oldest = to.minus(90, ChronoUnit.DAYS);
+        for (LocalDate month = LocalDate.ofInstant(oldest, ZoneOffset.UTC).withDayOfMonth(1);
+             !month.isAfter(LocalDate.ofInstant(to, ZoneOffset.UTC));
+             month = month.plusMonths(1)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF click_events FOR VALUES FROM ('%s') TO ('%s')"
+                    .formatted(partitionName(month), month, month.plusMonths(1)));
+        }
+
+        // 60,000 clicks spread over 500 links and 90 days, plus 12,000 more on the hot link
+        jdbcTemplate.update("""
+                INSERT INTO click_events (event_id, url_id, short_code, clicked_at, ip_address, user_agent,
+                                          referrer, device_type, browser, os, country, city, latitude, longitude)
+                SELECT gen_random_uuid(), u.id, u.short_code,
+                       NOW() - ((s.g * 7919) % 7776000) * INTERVAL '1 second',
+                       ('10.' || (s.g % 200) || '.' || (s.g % 250) || '.1')::inet,
+                       'Mozilla/5.0',
+                       (ARRAY['https://google.com', NULL, 'https://t.co', 'https://news.ycombinator.com'])[1 + s.g % 4],
+                       (ARRAY['Desktop', 'Mobile', 'Tablet'])[1 + s.g % 3],
+                       (ARRAY['Chrome', 'Safari', 'Firefox', 'Edge'])[1 + s.g % 4],
+                       (ARRAY['Windows', 'iOS', 'Android', 'macOS'])[1 + s.g % 4],
+                       (ARRAY['United States', 'United Kingdom', 'Germany', NULL])[1 + s.g % 4],
+                       (ARRAY['New York', 'London', 'Berlin', NULL])[1 + s.g % 4],
+                       (ARRAY[40.7128, 51.5074, 52.52, NULL])[1 + s.g % 4],
+                       (ARRAY[-74.006, -0.1278, 13.405, NULL])[1 + s.g % 4]
+                FROM (
+                    SELECT g, CASE WHEN g > 60000 THEN 1 ELSE 1 + g % ? END AS link FROM generate_series(1, 72000) AS g
+                ) s
+                JOIN urls u ON u.short_code = 'qp' || lpad(s.link::text, 6, '0')
+                """, LINKS_WITH_CLICKS);
+
+        // Hourly rollups, as the consumer would have maintained them
+        jdbcTemplate.update("""
+                INSERT INTO click_rollups_hourly (short_code, dimension, bucket, dim_value, dim_parent,
+                                                  clicks, lat_sum, lng_sum, geo_clicks)
+                SELECT short_code, dimension, bucket, dim_value, dim_parent,
+                       COUNT(*), COALESCE(SUM(lat), 0), COALESCE(SUM(lng), 0), COUNT(lat)
+                FROM (
+                    SELECT ce.short_code,
+                           date_trunc('hour', ce.clicked_at AT TIME ZONE 'UTC') AT TIME ZONE 'UTC' AS bucket,
+                           d.dimension, d.dim_value, d.dim_parent,
+                           CASE WHEN d.dimension = 'city' THEN ce.latitude END AS lat,
+                           CASE WHEN d.dimension = 'city' THEN ce.longitude END AS lng
+                    FROM click_events ce
+                    CROSS JOIN LATERAL (VALUES
+                        ('total',    '',                                          ''),
+                        ('referrer', LEFT(COALESCE(ce.referrer, 'Direct'), 500),  ''),
+                        ('device',   COALESCE(ce.device_type, 'Unknown'),         ''),
+                        ('browser',  COALESCE(ce.browser, 'Unknown'),             ''),
+                        ('os',       COALESCE(ce.os, 'Unknown'),                  ''),
+                        ('country',  COALESCE(ce.country, 'Unknown'),             ''),
+                        ('city',     COALESCE(ce.city, 'Unknown'),                COALESCE(ce.country, 'Unknown'))
+                    ) AS d(dimension, dim_value, dim_parent)
+                    WHERE ce.short_code LIKE 'qp%'
+                ) expanded
+                GROUP BY short_code, dimension, bucket, dim_value, dim_parent
+                ON CONFLICT DO NOTHING
+                """);
+
+        // Key pool with the first 10% already claimed
+        jdbcTemplate.update("""
+                INSERT INTO key_pool (short_key, is_used, claimed_at)
+                SELECT 'k' || lpad(g::text, 6, '0'), g <= ? / 10, CASE WHEN g <= ? / 10 THEN NOW() END
+                FROM generate_series(1, ?) AS g
+                ON CONFLICT (short_key) DO NOTHING
+                """, KEYS, KEYS, KEYS);
+
+        jdbcTemplate.execute("VACUUM ANALYZE click_events");
+        jdbcTemplate.execute("VACUUM ANALYZE click_rollups_hourly");
+        jdbcTemplate.execute("VACUUM ANALYZE urls");
+        jdbcTemplate.execute("VACUUM ANALYZE key_pool");
+
+        shortCodeIndexes = new HashSet<>(jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'idx_click_events_short_code'::regclass
+                """, String.class));
+    }
+
+    /**
+     * Remove the seeded rows, so test classes that run later in the shared database see neither
+     * them nor their statistics. The older click_events partitions stay: other tests may have
+     * rows in them too, and empty partitions are harmless.
+     */
+    @AfterAll
+    void removeSeed() {
+        jdbcTemplate.update("DELETE FROM click_events WHERE short_code LIKE 'qp%'");
+        jdbcTemplate.update("DELETE FROM click_rollups_hourly WHERE short_code LIKE 'qp%'");
+        jdbcTemplate.update("DELETE FROM urls WHERE short_code LIKE 'qp%'");
+        jdbcTemplate.update("DELETE FROM key_pool WHERE short_key ~ '^k[0-9]{6}$'");
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE 'query-plan-%'");
+
+        jdbcTemplate.execute("VACUUM ANALYZE click_events");
+        jdbcTemplate.execute("VACUUM ANALYZE click_rollups_hourly");
+        jdbcTemplate.execute("VACUUM ANALYZE urls");
+        jdbcTemplate.execute("VACUUM ANALYZE key_pool");
+    }
+
+    @TestFactory
+    @DisplayName("Repository query plans")
+    Stream<DynamicTest> queryPlans() {
+        return cases().stream().map(c -> DynamicTest.dynamicTest(c.name(), () -> verify(c)));
+    }
+
+    @Test
+    @DisplayName("Every repository query has a plan case")
+    void everyQueryIsCovered() {
+        Set<String> declared = Stream.of(ClickEventRepository.class, UrlRepository.class, KeyPoolRepository.class)
+                .flatMap(repository -> Arrays.stream(repository.getDeclaredMethods())
+                        .filter(m -> !m.isSynthetic() && !m.isDefault() && !Modifier.isStatic(m.getModifiers()))
+                        .map(m -> repository.getSimpleName() + "." + m.getName()))
+                .collect(Collectors.toCollection(TreeSet::new));
+        Set<String> covered = cases().stream().map(PlanCase::name).collect(Collectors.toCollection(TreeSet::new));
+
+        assertThat(covered).containsExactlyInAnyOrderElementsOf(declared);
+    }
+
+    private List<PlanCase> cases() {
+        Instant hourFrom = from.truncatedTo(ChronoUnit.HOURS).plus(1, ChronoUnit.HOURS);
+        Instant hourTo = to.truncatedTo(ChronoUnit.HOURS);
+        Instant dayFrom = from.truncatedTo(ChronoUnit.DAYS).plus(1, ChronoUnit.DAYS);
+        Instant dayTo = to.truncatedTo(ChronoUnit.DAYS);
+        List<String> codes = List.of(HOT_LINK, "qp000002", "qp000003");
+        List<String> manyCodes = IntStream.rangeClosed(1, 50).mapToObj(g -> "qp" + "%06d".formatted(g * 7)).toList();
+
+        String clicks = "ClickEventRepository.";
+        String urls = "UrlRepository.";
+        String keys = "KeyPoolRepository.";
+        return List.of(
+                new PlanCase(clicks + "findByShortCodeAndTimeRange",
+                        () -> clickEventRepository.findByShortCodeAndTimeRange(HOT_LINK, from, to, PageRequest.of(2, 50))),
+                new PlanCase(clicks + "findFirstKeysetPage",
+                        () -> clickEventRepository.findFirstKeysetPage(HOT_LINK, from, to, Limit.of(51))),
+                new PlanCase(clicks + "findKeysetPageAfter",
+                        () -> clickEventRepository.findKeysetPageAfter(HOT_LINK, from, to,
+                                to.minus(2, ChronoUnit.DAYS), Long.MAX_VALUE, Limit.of(51))),
+                new PlanCase(clicks + "countByShortCodeAndTimeRange",
+                        () -> clickEventRepository.countByShortCodeAndTimeRange(HOT_LINK, from, to, hourFrom, hourTo)),
+                new PlanCase(clicks + "countByShortCodesAndTimeRange",
+                        () -> clickEventRepository.countByShortCodesAndTimeRange(codes, from, to, hourFrom, hourTo)),
+                new PlanCase(clicks + "countUniqueVisitors",
+                        () -> clickEventRepository.countUniqueVisitors(HOT_LINK, from, to)),
+                new PlanCase(clicks + "countUniqueVisitorsByShortCodes",
+                        () -> clickEventRepository.countUniqueVisitorsByShortCodes(codes, from, to)),
+                new PlanCase(clicks + "getTimeseriesByDay",
+                        () -> clickEventRepository.getTimeseriesByDay(HOT_LINK, from, to, hourFrom, hourTo)),
+                new PlanCase(clicks + "getTimeseriesByHour",
+                        () -> clickEventRepository.getTimeseriesByHour(HOT_LINK, from, to, hourFrom, hourTo)),
+                new PlanCase(clicks + "getTopReferrers",
+                        () -> clickEventRepository.getTopReferrers(HOT_LINK, from, to, hourFrom, hourTo, 10)),
+                new PlanCase(clicks + "getDeviceBreakdown",
+                        () -> clickEventRepository.getDeviceBreakdown(HOT_LINK, from, to, hourFrom, hourTo)),
+                new PlanCase(clicks + "getBrowserBreakdown",
+                        () -> clickEventRepository.getBrowserBreakdown(HOT_LINK, from, to, hourFrom, hourTo, 10)),
+                new PlanCase(clicks + "getOsBreakdown",
+                        () -> clickEventRepository.getOsBreakdown(HOT_LINK, from, to, hourFrom, hourTo, 10)),
+                new PlanCase(clicks + "getCountryBreakdown",
+                        () -> clickEventRepository.getCountryBreakdown(HOT_LINK, from, to, hourFrom, hourTo, 20)),
+                new PlanCase(clicks + "getCityBreakdown",
+                        () -> clickEventRepository.getCityBreakdown(HOT_LINK, from, to, hourFrom, hourTo, 20)),
+                new PlanCase(clicks + "getDashboardAggregates",
+                        () -> clickEventRepository.getDashboardAggregates(HOT_LINK, from, to, hourFrom, hourTo,
+                                dayFrom, dayTo, "YYYY-MM-DD")),
+                new PlanCase(clicks + "getDashboardDayAggregates",
+                        () -> clickEventRepository.getDashboardDayAggregates(HOT_LINK, dayFrom, dayTo)),
+                new PlanCase(clicks + "getDailyClickTotals",
+                        () -> clickEventRepository.getDailyClickTotals(HOT_LINK, hourFrom, hourTo)),
+                new PlanCase(clicks + "getHourlyClickTotals",
+                        () -> clickEventRepository.getHourlyClickTotals(HOT_LINK, hourFrom, hourTo)),
+
+                new PlanCase(urls + "findByShortCode", () -> urlRepository.findByShortCode(HOT_LINK)),
+                new PlanCase(urls + "findByUserIdAndIsActiveTrue",
+                        () -> urlRepository.findByUserIdAndIsActiveTrue(userId, PageRequest.of(0, 20))),
+                new PlanCase(urls + "findByUserId", () -> urlRepository.findByUserId(userId, PageRequest.of(0, 20))),
+                new PlanCase(urls + "existsByShortCode", () -> urlRepository.existsByShortCode(HOT_LINK)),
+                new PlanCase(urls + "findExistingShortCodes", () -> urlRepository.findExistingShortCodes(manyCodes)),
+                new PlanCase(urls + "findOwnedShortCodes", () -> urlRepository.findOwnedShortCodes(manyCodes, userId)),
+                new PlanCase(urls + "incrementClickCount", () -> urlRepository.incrementClickCount(HOT_LINK, 3)),
+                new PlanCase(urls + "findExpiredUrls", () -> urlRepository.findExpiredUrls(Instant.now())),
+
+                // Nine in ten keys are unused, so counting them reads most of the table either way
+                new PlanCase(keys + "countAvailableKeys", () -> keyPoolRepository.countAvailableKeys(), Set.of("key_pool")),
+                new PlanCase(keys + "fetchUnusedKeys", () -> keyPoolRepository.fetchUnusedKeys(100)),
+                new PlanCase(keys + "markKeysAsUsed",
+                        () -> keyPoolRepository.markKeysAsUsed(LongStream.rangeClosed(20_001, 20_100).boxed().toList())),
+                new PlanCase(keys + "existsByShortKey", () -> keyPoolRepository.existsByShortKey("k050000"))
+        );
+    }
+
+    // ────────── Checks ──────────
+
+    private void verify(PlanCase planCase) throws SQLException {
+        List<RecordedStatement> statements = RecordingDataSource.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            planCase.query().run();
+            status.setRollbackOnly();
+        }));
+        assertThat(statements).as("statements run by %s", planCase.name()).isNotEmpty();
+
+        for (RecordedStatement statement : statements) {
+            List<JsonNode> nodes = new ArrayList<>();
+            collect(explain(statement).get(0).get("Plan"), false, nodes);
+            String context = planCase.name() + " — " + statement.sql();
+
+            for (JsonNode node : nodes) {
+                String type = node.path("Node Type").asText();
+                String relation = node.path("Relation Name").asText("");
+                String table = relation.startsWith("click_events_") ? "click_events" : relation;
+
+                if (type.equals("Seq Scan") && !planCase.seqScanAllowed().contains(table)) {
+                    assertThat(table).as("sequential scan in %s", context)
+                            .isNotIn(NO_SEQ_SCAN_TABLES).isNotEqualTo("click_events");
+                }
+                if (table.equals("click_events")) {
+                    assertThat(relation).as("click_events partition outside the queried range in %s", context)
+                            .isIn(partitionsOverlapping(from, to));
+                }
+                String index = node.path("Index Name").asText("");
+                if (index.startsWith("click_events_")) {
+                    assertThat(index).as("click_events index in %s", context).isIn(shortCodeIndexes);
+                }
+                if (type.endsWith("Scan") && node.path("Actual Loops").asLong() > 0 && !node.path("underLimit").asBoolean()) {
+                    double estimated = Math.max(1, node.path("Plan Rows").asDouble());
+                    double actual = Math.max(1, node.path("Actual Rows").asDouble());
+                    assertThat(Math.max(estimated / actual, actual / estimated))
+                            .as("row estimate of %s on %s (%s estimated, %s actual) in %s",
+                                    type, relation.isEmpty() ? index : relation, estimated, actual, context)
+                            .isLessThanOrEqualTo(MAX_ESTIMATE_ERROR);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replay a recorded statement under EXPLAIN ANALYZE with the same bind calls, rolled back.
+     */
+    private JsonNode explain(RecordedStatement statement) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN (ANALYZE, FORMAT JSON) " + statement.sql())) {
+                for (Bind bind : statement.binds()) {
+                    try {
+                        bind.method().invoke(ps, bind.args());
+                    } catch (IllegalAccessException | InvocationTargetException e) {
+                        throw new SQLException("Failed to replay " + bind.method().getName(), e);
+                    }
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    return objectMapper.readTree(rs.getString(1));
+                } catch (JsonProcessingException e) {
+                    throw new SQLException("Unreadable plan", e);
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Flatten the plan tree, marking nodes below a Limit, whose actual rows stop short of the estimate.
+     */
+    private static void collect(JsonNode node, boolean underLimit, List<JsonNode> nodes) {
+        boolean limited = underLimit || node.path("Node Type").asText().equals("Limit");
+        if (underLimit) {
+            ((ObjectNode) node).put("underLimit", true);
+        }
+        nodes.add(node);
+        for (JsonNode child : node.path("Plans")) {
+            collect(child, limited, nodes);
+        }
+    }
+
+    private static Set<String> partitionsOverlapping(Instant from, Instant to) {
+        Set<String> partitions = new HashSet<>();
+        for (LocalDate month = LocalDate.ofInstant(from, ZoneOffset.UTC).withDayOfMonth(1);
+             !month.isAfter(LocalDate.ofInstant(to, ZoneOffset.UTC));
+             month = month.plusMonths(1)) {
+            partitions.add(partitionName(month));
+        }
+        return partitions;
+    }
+
+    private static String partitionName(LocalDate month) {
+        return "click_events_" + month.format(DateTimeFormatter.ofPattern("yyyy_MM"));
+    }
+
+    /**
+     * @param seqScanAllowed tables this query may read sequentially
+     */
+    private record PlanCase(String name, Runnable query, Set<String> seqScanAllowed) {
+
+        PlanCase(String name, Runnable query) {
+            this(name, query, Set.of());
+        }
+    }
+
+    // ────────── Statement recording ──────────
+
+    private record Bind(Method method, Object[] args) {}
+
+    private record RecordedStatement(String sql, List<Bind> binds) {}
+
+    @TestConfiguration
+    static class RecordingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)
+                            ? new RecordingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Hands out connections whose prepared statements report their SQL and bind calls when
+     * executed on a thread that is inside {@link #record(Runnable)}.
+     */
+    static final class RecordingDataSource extends DelegatingDataSource {
+
+        private static final ThreadLocal<List<RecordedStatement>> RECORDING = new ThreadLocal<>();
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static List<RecordedStatement> record(Runnable work) {
+            List<RecordedStatement> statements = new ArrayList<>();
+            RECORDING.set(statements);
+            try {
+                work.run();
+            } finally {
+                RECORDING.remove();
+            }
+            return statements;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recording(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recording(super.getConnection(username, password));
+        }
+
+        private static Connection recording(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        return method.getName().equals("prepareStatement")
+                                ? recording((PreparedStatement) result, (String) args[0])
+                                : result;
+                    });
+        }
+
+        private static PreparedStatement recording(PreparedStatement statement, String sql) {
+            Map<Integer, Bind> binds = new LinkedHashMap<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                            binds.put(index, new Bind(method, args.clone()));
+                        } else if (name.equals("clearParameters")) {
+                            binds.clear();
+                        } else if ((args == null || args.length == 0) && name.startsWith("execute")
+                                && RECORDING.get() != null) {
+                            RECORDING.get().add(new RecordedStatement(sql, List.copyOf(binds.values())));
+                        }
+                        return invoke(statement, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
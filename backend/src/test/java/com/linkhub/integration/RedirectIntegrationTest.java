@@ -4,16 +4,25 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.linkhub.auth.dto.AuthResponse;
 import com.linkhub.auth.dto.RegisterRequest;
+import com.linkhub.url.cache.UrlCacheService;
 import com.linkhub.url.dto.CreateUrlRequest;
+import com.linkhub.url.dto.UpdateUrlRequest;
+import com.linkhub.url.repository.RedirectLookupRepository.RedirectTarget;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -30,6 +39,12 @@ class RedirectIntegrationTest extends BaseIntegrationTest {
     @Autowired
     private StringRedisTemplate redisTemplate;
 
+    @Autowired
+    private UrlCacheService urlCacheService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private String accessToken;
     private String shortCode;
 
@@ -142,4 +157,78 @@ class RedirectIntegrationTest extends BaseIntegrationTest {
         assertThat(clicks).isNotNull();
         assertThat(Long.parseLong(clicks)).isGreaterThanOrEqualTo(3);
     }
+
+    @Test
+    @DisplayName("Should serve a cache hit without the database")
+    void shouldServeCacheHitFromRedis() throws Exception {
+        // Only the cache knows this URL, so a redirect to it can't have come from the DB
+        redisTemplate.opsForValue().set("url:" + shortCode, "https://www.example.com/cached-only");
+
+        mockMvc.perform(get("/" + shortCode))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://www.example.com/cached-only"));
+    }
+
+    @Test
+    @DisplayName("Should cache the whole redirect target after a miss")
+    void shouldCacheTargetOnMiss() throws Exception {
+        redisTemplate.delete(List.of("url:" + shortCode, "url:target:" + shortCode));
+
+        mockMvc.perform(get("/" + shortCode))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://www.example.com/redirect-target"));
+
+        assertThat(urlCacheService.getRedirectTarget(shortCode))
+                .contains(new RedirectTarget(urlId(), "https://www.example.com/redirect-target", null));
+    }
+
+    @Test
+    @DisplayName("Should deactivate and evict a URL whose cached target has expired")
+    void shouldDeactivateExpiredCachedTarget() throws Exception {
+        Instant past = Instant.now().minus(1, ChronoUnit.MINUTES);
+        jdbcTemplate.update("UPDATE urls SET expires_at = ? WHERE short_code = ?", Timestamp.from(past), shortCode);
+        urlCacheService.cacheRedirectTarget(shortCode,
+                new RedirectTarget(urlId(), "https://www.example.com/redirect-target", past));
+
+        mockMvc.perform(get("/" + shortCode))
+                .andExpect(status().isNotFound());
+
+        assertThat(redisTemplate.opsForValue().get("url:" + shortCode)).isNull();
+        assertThat(redisTemplate.opsForValue().get("url:target:" + shortCode)).isNull();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT is_active FROM urls WHERE short_code = ?", Boolean.class, shortCode)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should re-check the database when a cached expiry has passed")
+    void shouldRecheckExpiredCachedTarget() throws Exception {
+        // Cached expiry is stale: the database no longer has one
+        Instant past = Instant.now().minus(1, ChronoUnit.MINUTES);
+        urlCacheService.cacheRedirectTarget(shortCode,
+                new RedirectTarget(urlId(), "https://www.example.com/redirect-target", past));
+
+        mockMvc.perform(get("/" + shortCode))
+                .andExpect(status().isFound());
+
+        assertThat(urlCacheService.getRedirectTarget(shortCode))
+                .contains(new RedirectTarget(urlId(), "https://www.example.com/redirect-target", null));
+    }
+
+    @Test
+    @DisplayName("Should stop redirecting from cache once a URL is deactivated")
+    void shouldEvictOnDeactivate() throws Exception {
+        mockMvc.perform(patch("/api/v1/urls/" + shortCode)
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UpdateUrlRequest(null, null, false))))
+                .andExpect(status().isOk());
+
+        assertThat(redisTemplate.opsForValue().get("url:" + shortCode)).isNull();
+        mockMvc.perform(get("/" + shortCode))
+                .andExpect(status().isNotFound());
+    }
+
+    private long urlId() {
+        return jdbcTemplate.queryForObject("SELECT id FROM urls WHERE short_code = ?", Long.class, shortCode);
+    }
 }
@@ -2,6 +2,7 @@ package com.linkhub.integration;
 
 import com.linkhub.ratelimit.RateLimitService;
 import com.linkhub.url.cache.UrlCacheService;
+import com.linkhub.url.repository.RedirectLookupRepository.RedirectTarget;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -45,9 +47,9 @@ class ResilienceIntegrationTest extends BaseIntegrationTest {
     }
 
     @Test
-    @DisplayName("getRedirectUrl returns empty Optional on cache miss (not an error)")
-    void getRedirectUrlReturnEmptyOnMiss() {
-        Optional<String> result = urlCacheService.getRedirectUrl("nonexistent-code");
+    @DisplayName("getRedirectTarget returns empty Optional on cache miss (not an error)")
+    void getRedirectTargetReturnEmptyOnMiss() {
+        Optional<RedirectTarget> result = urlCacheService.getRedirectTarget("nonexistent-code");
         assertThat(result).isEmpty();
 
         // Circuit should still be closed (cache miss is not a failure)
@@ -56,11 +58,15 @@ class ResilienceIntegrationTest extends BaseIntegrationTest {
     }
 
     @Test
-    @DisplayName("cacheRedirectUrl and getRedirectUrl round-trip works")
-    void cacheAndRetrieveRedirectUrl() {
-        urlCacheService.cacheRedirectUrl("test-rt", "https://example.com");
-        Optional<String> result = urlCacheService.getRedirectUrl("test-rt");
-        assertThat(result).isPresent().contains("https://example.com");
+    @DisplayName("cacheRedirectTarget and getRedirectTarget round-trip works")
+    void cacheAndRetrieveRedirectTarget() {
+        RedirectTarget target = new RedirectTarget(42, "https://example.com", null);
+        urlCacheService.cacheRedirectTarget("test-rt", target);
+        assertThat(urlCacheService.getRedirectTarget("test-rt")).contains(target);
+
+        RedirectTarget expiring = new RedirectTarget(43, "https://example.com/x", Instant.ofEpochMilli(1_900_000_000_000L));
+        urlCacheService.cacheRedirectTarget("test-rt-exp", expiring);
+        assertThat(urlCacheService.getRedirectTarget("test-rt-exp")).contains(expiring);
     }
 
     @Test
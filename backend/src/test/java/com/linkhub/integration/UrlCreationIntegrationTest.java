@@ -189,6 +189,34 @@ class UrlCreationIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$[2].shortCode").isNotEmpty());
     }
 
+    @Test
+    @DisplayName("Should bulk create a mix of generated keys and custom aliases")
+    void shouldBulkCreateWithAliases() throws Exception {
+        String alias = "bk-" + System.nanoTime() % 100000;
+        BulkCreateRequest request = new BulkCreateRequest(List.of(
+                new CreateUrlRequest("https://www.example.com/bulk-a", null, null),
+                new CreateUrlRequest("https://www.example.com/bulk-b", alias, null)
+        ));
+
+        mockMvc.perform(post("/api/v1/urls/bulk")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].isCustomAlias").value(false))
+                .andExpect(jsonPath("$[1].shortCode").value(alias))
+                .andExpect(jsonPath("$[1].isCustomAlias").value(true));
+
+        // Same alias again — whole batch rejected
+        mockMvc.perform(post("/api/v1/urls/bulk")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("already taken")));
+    }
+
     @Test
     @DisplayName("Should list user URLs with pagination")
     void shouldListUserUrls() throws Exception {
@@ -213,6 +241,97 @@ class UrlCreationIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.totalElements").isNumber());
     }
 
+    @Test
+    @DisplayName("Should scroll user URLs with a keyset cursor")
+    void shouldScrollUserUrls() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            CreateUrlRequest request = new CreateUrlRequest(
+                    "https://www.example.com/scroll-" + i, null, null);
+            mockMvc.perform(post("/api/v1/urls")
+                            .header("Authorization", "Bearer " + accessToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+
+        MvcResult first = mockMvc.perform(get("/api/v1/urls")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("cursor", "")
+                        .param("limit", "2")
+                        .param("includeTotal", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[0].longUrl").value("https://www.example.com/scroll-2"))
+                .andExpect(jsonPath("$.hasNext").value(true))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andReturn();
+
+        String nextCursor = objectMapper.readTree(first.getResponse().getContentAsString())
+                .get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/v1/urls")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("cursor", nextCursor)
+                        .param("limit", "2")
+                        .param("status", "active"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].longUrl").value("https://www.example.com/scroll-0"))
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should search user URLs by long URL and short code")
+    void shouldSearchUserUrls() throws Exception {
+        String alias = "srch" + System.nanoTime() % 10000;
+        CreateUrlRequest aliased = new CreateUrlRequest("https://www.example.com/plain", alias, null);
+        CreateUrlRequest keyword = new CreateUrlRequest("https://docs.example.com/needle-page", null, null);
+        for (CreateUrlRequest request : List.of(aliased, keyword)) {
+            mockMvc.perform(post("/api/v1/urls")
+                            .header("Authorization", "Bearer " + accessToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/api/v1/urls")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("cursor", "")
+                        .param("q", "NEEDLE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].longUrl").value("https://docs.example.com/needle-page"));
+
+        mockMvc.perform(get("/api/v1/urls")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("cursor", "")
+                        .param("q", alias.substring(0, 4)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].shortCode", hasItem(alias)));
+
+        mockMvc.perform(get("/api/v1/urls")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("cursor", "")
+                        .param("q", "ab"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor or unknown status")
+    void shouldRejectBadScrollParams() throws Exception {
+        mockMvc.perform(get("/api/v1/urls")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/v1/urls")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .param("cursor", "")
+                        .param("status", "archived"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Should require authentication for URL creation")
     void shouldRequireAuth() throws Exception {
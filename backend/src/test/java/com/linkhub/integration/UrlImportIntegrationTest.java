@@ -0,0 +1,203 @@
+package com.linkhub.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkhub.auth.dto.AuthResponse;
+import com.linkhub.auth.dto.RegisterRequest;
+import com.linkhub.url.model.ImportJob;
+import com.linkhub.url.repository.ImportJobRepository;
+import com.linkhub.url.service.UrlImportService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@DisplayName("URL Import Integration Tests")
+class UrlImportIntegrationTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UrlImportService urlImportService;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String accessToken;
+    private String email;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        email = "importtest-" + System.nanoTime() + "@example.com";
+        RegisterRequest registerRequest = new RegisterRequest(
+                email,
+                "Password123!",
+                "Import User"
+        );
+
+        MvcResult result = mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registerRequest)))
+                .andExpect(status().isCreated())
+                .andReturn();
+
+        AuthResponse authResponse = objectMapper.readValue(
+                result.getResponse().getContentAsString(), AuthResponse.class);
+        accessToken = authResponse.accessToken();
+    }
+
+    @Test
+    @DisplayName("Should import a CSV file and report per-row errors")
+    void shouldImportCsvWithErrors() throws Exception {
+        String alias = "imp-" + System.nanoTime() % 100000;
+        String csv = """
+                long_url,custom_alias,expires_at
+                https://example.com/import/1,,
+                https://example.com/import/2,%s,
+                not-a-url,,
+                """.formatted(alias);
+
+        Long jobId = startImport(csv, "text/csv");
+        JsonNode job = awaitCompletion(jobId);
+
+        assertThat(job.get("rowsRead").asLong()).isEqualTo(3);
+        assertThat(job.get("rowsImported").asLong()).isEqualTo(2);
+        assertThat(job.get("rowsFailed").asLong()).isEqualTo(1);
+
+        mockMvc.perform(get("/api/v1/urls/imports/" + jobId + "/errors")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].lineNumber").value(4))
+                .andExpect(jsonPath("$.content[0].rawLine").value("not-a-url,,"));
+
+        mockMvc.perform(get("/api/v1/urls/" + alias)
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.longUrl").value("https://example.com/import/2"));
+    }
+
+    @Test
+    @DisplayName("Should reject an NDJSON row whose alias is already taken")
+    void shouldRejectTakenAliasInNdjson() throws Exception {
+        String alias = "dup-" + System.nanoTime() % 100000;
+        String first = "{\"longUrl\":\"https://example.com/a\",\"customAlias\":\"" + alias + "\"}\n";
+        awaitCompletion(startImport(first, "application/x-ndjson"));
+
+        JsonNode job = awaitCompletion(startImport(first, "application/x-ndjson"));
+        assertThat(job.get("rowsImported").asLong()).isZero();
+        assertThat(job.get("rowsFailed").asLong()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not expose another user's import job")
+    void shouldHideOtherUsersJob() throws Exception {
+        mockMvc.perform(get("/api/v1/urls/imports/999999")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should fail only the rows the database refuses")
+    void shouldIsolateRowsRefusedByDatabase() throws Exception {
+        // Passes @URL validation, fails the chk_long_url_format constraint
+        String csv = """
+                long_url,custom_alias,expires_at
+                https://example.com/refused/1,,
+                ftp://example.com/refused/2,,
+                https://example.com/refused/3,,
+                """;
+
+        Long jobId = startImport(csv, "text/csv");
+        JsonNode job = awaitCompletion(jobId);
+
+        assertThat(job.get("rowsImported").asLong()).isEqualTo(2);
+        assertThat(job.get("rowsFailed").asLong()).isEqualTo(1);
+
+        mockMvc.perform(get("/api/v1/urls/imports/" + jobId + "/errors")
+                        .header("Authorization", "Bearer " + accessToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].lineNumber").value(3))
+                .andExpect(jsonPath("$.content[0].message").value("URL must start with http:// or https://"));
+    }
+
+    @Test
+    @DisplayName("Should reject an upload over the size limit with 413")
+    void shouldRejectOversizedUpload() throws Exception {
+        long jobsBefore = importJobRepository.count();
+        String csv = "long_url,custom_alias,expires_at\n"
+                + "https://example.com/too-large/x,,\n".repeat(3_000);   // ~100 KB, limit is 64 KB in tests
+
+        mockMvc.perform(post("/api/v1/urls/imports")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isPayloadTooLarge());
+
+        assertThat(importJobRepository.count()).isEqualTo(jobsBefore);
+    }
+
+    @Test
+    @DisplayName("Should fail jobs whose pod stopped sending heartbeats")
+    void shouldFailAbandonedJobs() {
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+        ImportJob abandoned = new ImportJob(userId, ImportJob.Format.CSV);
+        abandoned.markRunning();
+        abandoned = importJobRepository.save(abandoned);
+        ImportJob recent = importJobRepository.save(new ImportJob(userId, ImportJob.Format.CSV));
+        jdbcTemplate.update("UPDATE url_import_jobs SET heartbeat_at = NOW() - INTERVAL '10 minutes' WHERE id = ?",
+                abandoned.getId());
+
+        urlImportService.heartbeat();
+
+        assertThat(importJobRepository.findById(abandoned.getId()).orElseThrow().getStatus())
+                .isEqualTo(ImportJob.Status.FAILED);
+        assertThat(importJobRepository.findById(recent.getId()).orElseThrow().getStatus())
+                .isEqualTo(ImportJob.Status.PENDING);
+    }
+
+    private Long startImport(String body, String contentType) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/urls/imports")
+                        .header("Authorization", "Bearer " + accessToken)
+                        .contentType(contentType)
+                        .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.statusUrl").isNotEmpty())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("jobId").asLong();
+    }
+
+    private JsonNode awaitCompletion(Long jobId) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            MvcResult result = mockMvc.perform(get("/api/v1/urls/imports/" + jobId)
+                            .header("Authorization", "Bearer " + accessToken))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode job = objectMapper.readTree(result.getResponse().getContentAsString());
+            String status = job.get("status").asText();
+            if (!status.equals("PENDING") && !status.equals("RUNNING")) {
+                assertThat(status).isEqualTo("COMPLETED");
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Import job " + jobId + " did not finish in time");
+    }
+}
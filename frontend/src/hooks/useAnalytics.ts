@@ -6,6 +6,7 @@ import type {
   ReferrerStats,
   DeviceStats,
   GeoStats,
+  DashboardStats,
 } from '../types/api';
 
 export function useAnalytics(shortCode: string) {
@@ -25,19 +26,13 @@ export function useAnalytics(shortCode: string) {
     const params = days ? { days } : {};
 
     try {
-      const [summaryRes, tsRes, refRes, devRes, geoRes] = await Promise.all([
-        apiClient.get<ClickStats>(`/analytics/${shortCode}/summary`, { params }),
-        apiClient.get<TimeseriesPoint[]>(`/analytics/${shortCode}/timeseries`, { params }),
-        apiClient.get<ReferrerStats[]>(`/analytics/${shortCode}/referrers`, { params }),
-        apiClient.get<DeviceStats>(`/analytics/${shortCode}/devices`, { params }),
-        apiClient.get<GeoStats>(`/analytics/${shortCode}/geo`, { params }),
-      ]);
+      const { data } = await apiClient.get<DashboardStats>(`/analytics/${shortCode}/dashboard`, { params });
 
-      setSummary(summaryRes.data);
-      setTimeseries(tsRes.data);
-      setReferrers(refRes.data);
-      setDevices(devRes.data);
-      setGeo(geoRes.data);
+      setSummary(data.summary);
+      setTimeseries(data.timeseries);
+      setReferrers(data.referrers);
+      setDevices(data.devices);
+      setGeo(data.geo);
     } catch (err: unknown) {
       const axiosError = err as { response?: { data?: { message?: string } } };
       setError(axiosError.response?.data?.message || 'Failed to load analytics');
@@ -160,7 +160,12 @@ export default function Analytics() {
           {/* Summary cards */}
           <div className="grid grid-cols-1 sm:grid-cols-2 gap-6 mb-10">
             <SummaryCard label="Total Clicks" value={summary?.totalClicks.toLocaleString() ?? '—'} />
-            <SummaryCard label="Unique Visitors" value={summary?.uniqueVisitors.toLocaleString() ?? '—'} />
+            <SummaryCard
+              label={summary && !summary.uniqueVisitorsExact
+                ? `Unique Visitors (±${(summary.uniqueVisitorsErrorBound * 100).toFixed(1)}%)`
+                : 'Unique Visitors'}
+              value={summary?.uniqueVisitors.toLocaleString() ?? '—'}
+            />
           </div>
 
           {/* Two-column: Timeseries + Referrers */}
@@ -60,6 +60,8 @@ export interface ClickStats {
   shortCode: string;
   totalClicks: number;
   uniqueVisitors: number;
+  uniqueVisitorsExact: boolean;
+  uniqueVisitorsErrorBound: number;
   from: string;
   to: string;
 }
@@ -105,3 +107,11 @@ export interface GeoStats {
   countries: CountryData[];
   cities: CityData[];
 }
+
+export interface DashboardStats {
+  summary: ClickStats;
+  timeseries: TimeseriesPoint[];
+  referrers: ReferrerStats[];
+  devices: DeviceStats;
+  geo: GeoStats;
+}